@@ -1,15 +1,16 @@
 package com.chqiuu.gamer.easygame;
 
-import javafx.animation.KeyFrame;
-import javafx.animation.PauseTransition;
-import javafx.animation.Timeline;
 import javafx.application.Application;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.Label;
+import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Circle;
@@ -18,8 +19,8 @@ import javafx.scene.shape.Shape;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.stage.Stage;
-import javafx.util.Duration;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
@@ -28,8 +29,9 @@ public class AdvancedReactionTestFX extends Application {
 
     // --- 常量定义 ---
     private static final int NUM_TRIALS = 10; // 每轮测试的总试次数量
-    private static final int NUM_TARGETS_TOTAL = 5; // 每次屏幕上出现的图形总数
-    private static final double TARGET_SIZE = 50; // 图形的大小（像素）
+    private static final int NUM_TARGETS_TOTAL = 5; // 每次屏幕上出现的图形总数 (普通密度)
+    private static final double TARGET_SIZE = 50; // 图形的大小（像素，普通密度）
+    private static final double MIN_SPACING = 1.5; // 图形中心之间的最小距离 (图形尺寸的倍数)
     private static final double MIN_WAIT_SECONDS = 1.0; // “准备”阶段的最短等待时间（秒）
     private static final double MAX_WAIT_SECONDS = 2.5; // “准备”阶段的最长等待时间（秒）
     private static final double STIMULUS_DURATION_SECONDS = 1.5; // 图形在屏幕上显示的最长时间（秒）
@@ -49,20 +51,77 @@ public class AdvancedReactionTestFX extends Application {
         ROUND_OVER      // 整轮测试结束，显示最终结果
     }
     private GameState currentState = GameState.INITIAL; // 当前游戏状态，默认为初始状态
+
+    // --- 密度等级: 图形越多，尺寸越小 ---
+    private enum DensityLevel {
+        NORMAL("普通 (5 个)", NUM_TARGETS_TOTAL, TARGET_SIZE),
+        DENSE("密集 (30 个)", 30, 36),
+        CROWDED("拥挤 (150 个)", 150, 18),
+        EXTREME("极限 (1000 个)", 1000, 7);
+
+        final String label;
+        final int shapeCount; // 每次屏幕上出现的图形总数
+        final double shapeSize; // 图形的大小（像素）
+
+        DensityLevel(String label, int shapeCount, double shapeSize) {
+            this.label = label;
+            this.shapeCount = shapeCount;
+            this.shapeSize = shapeSize;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+    private DensityLevel densityLevel = DensityLevel.NORMAL; // 当前密度等级
     private int currentTrial = 0; // 当前进行的试次数
     private int score = 0; // 当前得分
-    private long totalReactionTimeMillis = 0; // 正确反应的总毫秒数，用于计算平均值
-    private int correctHits = 0; // 正确点击次数
-    private int incorrectHits = 0; // 错误点击次数（点中干扰项）
-    private int misses = 0; // 错过次数（超时或点背景）
+    private final ReactionStatistics statistics = new ReactionStatistics(); // 本轮的反应时间直方图、点错和错过次数
+    private ReactionHistory history; // 历代轮次的记录，无法打开历史文件时为 null
+
+    private boolean targetIsCircle; // 本轮需要点击的目标形状 (圆形或方形)
+    private Shape correctTargetNode = null; // 节点池模式下代表正确目标的那个 JavaFX 节点
+
+    // --- 本次刺激的图形 (下标 0 是正确目标，中心坐标保存在 sampler 中) ---
+    private int shapeCount;
+    private boolean[] shapeCircle = new boolean[0];
+    private Color[] shapeColors = new Color[0];
+
+    // --- 渲染方式 ---
+    private enum RenderMode {
+        NODES("每次新建节点"),
+        POOLED("节点池"),
+        CANVAS("Canvas");
 
-    private Shape targetShapeDefinition; // 本轮需要点击的目标形状的定义 (圆形或方形)
-    private Shape correctTargetNode = null; // 当前屏幕上代表正确目标的那个 JavaFX 节点
-    private long stimulusAppearTimeNanos = 0; // 刺激物（图形）出现的纳秒级时间戳
+        final String label;
+
+        RenderMode(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+    private RenderMode renderMode = RenderMode.NODES; // 由 start 切换到节点池
+    private final List<Circle> circlePool = new ArrayList<>(); // 节点池: 复用的圆形
+    private final List<Rectangle> rectanglePool = new ArrayList<>(); // 节点池: 复用的方形
+    private int pooledCircles; // 本次刺激用掉的圆形数
+    private int pooledRectangles; // 本次刺激用掉的方形数
+    private Canvas canvas; // Canvas 模式下绘制所有图形的画布
+    private final SpatialHashGrid hitGrid = new SpatialHashGrid(600, 400, TARGET_SIZE); // Canvas 模式的点击检测
+    private final FrameAccurateReactionTimer reactionTimer = new FrameAccurateReactionTimer(); // 以显示帧和按下事件计时
 
     private Random random = new Random(); // 用于生成随机数
-    private PauseTransition waitTimer; // “准备”阶段的延迟计时器
-    private Timeline stimulusTimer; // 限制刺激物显示时间的计时器
+    private final PoissonDiskSampler sampler = new PoissonDiskSampler(random); // 不重叠的随机位置
+    // 计时器都调度在共用的 FxTimers 上 (句柄，0 表示没有任务)，回调只创建一次
+    private long waitTimer; // “准备”阶段的延迟计时器
+    private long stimulusTimer; // 限制刺激物显示时间的计时器
+    private final Runnable showStimulusCallback = this::showStimulus;
+    private final Runnable stimulusTimeoutCallback = this::onStimulusTimeout;
+    private final Runnable nextTrialCallback = this::startNextTrial;
 
     // --- UI 元素 ---
     private BorderPane root; // 根布局面板
@@ -71,7 +130,11 @@ public class AdvancedReactionTestFX extends Application {
     private Label scoreLabel; // 显示当前得分的标签
     private Label trialLabel; // 显示当前试次进度的标签
     private Label avgTimeLabel; // 显示平均反应时间的标签
+    private Label latencyLabel; // 显示渲染延迟和输入延迟的标签
+    private Label historyLabel; // 显示历史记录和趋势的标签
     private Button startButton; // 开始/重新开始游戏的按钮
+    private ComboBox<DensityLevel> densityComboBox; // 密度等级选择
+    private ComboBox<RenderMode> renderModeComboBox; // 渲染方式选择
 
     @Override
     public void start(Stage primaryStage) {
@@ -89,12 +152,21 @@ public class AdvancedReactionTestFX extends Application {
         // --- 创建并放置中央游戏区域 ---
         gamePane = new Pane(); // 使用 Pane 布局，允许绝对定位
         gamePane.setPrefSize(600, 400); // 定义游戏区域的首选大小
-        // 为游戏区域添加背景点击事件处理器，用于处理“错过”的情况
-        gamePane.setOnMouseClicked(event -> {
+        // 为游戏区域添加背景点击事件处理器，用于处理“错过”的情况 (按下即算点击，与反应计时一致)
+        gamePane.setOnMousePressed(event -> {
             if (currentState == GameState.SHOWING_STIMULUS) {
-                handleMiss(); // 如果在显示刺激物时点击了背景，算作错过
+                // Canvas 模式没有图形节点，先检查是否点中了画出来的图形
+                int hit = renderMode == RenderMode.CANVAS ? hitTest(event.getX(), event.getY()) : -1;
+                if (hit >= 0) {
+                    handleShapePressed(hit == 0, event);
+                } else {
+                    handleMiss(); // 如果在显示刺激物时点击了背景，算作错过
+                }
             }
         });
+        canvas = new Canvas();
+        canvas.widthProperty().bind(gamePane.widthProperty());
+        canvas.heightProperty().bind(gamePane.heightProperty());
         root.setCenter(gamePane);
         BorderPane.setAlignment(gamePane, Pos.CENTER);
 
@@ -104,11 +176,20 @@ public class AdvancedReactionTestFX extends Application {
         BorderPane.setAlignment(controlPane, Pos.CENTER);
         BorderPane.setMargin(controlPane, new Insets(10)); // 设置外边距
 
+        applyRenderMode(RenderMode.POOLED);
+
         Scene scene = new Scene(root, 700, 600); // 创建场景，调整窗口大小以适应内容
         primaryStage.setScene(scene);
+        reactionTimer.attach(scene); // 安装脉冲监听器和按下事件过滤器
         primaryStage.setResizable(false); // 禁止调整窗口大小
         primaryStage.show(); // 显示窗口
 
+        try {
+            history = ReactionHistory.openDefault(); // 映射历史文件，扫描一遍得到汇总
+        } catch (IOException e) {
+            System.err.println("无法打开反应测试记录 " + ReactionHistory.defaultPath() + ": " + e.getMessage());
+        }
+        updateHistoryLabel();
         updateUI(); // 更新UI到初始状态
     }
 
@@ -125,21 +206,32 @@ public class AdvancedReactionTestFX extends Application {
         trialLabel = createStyledLabel("试次: 0 / " + NUM_TRIALS, 14, Color.LIGHTGRAY);
         scoreLabel = createStyledLabel("得分: 0", 14, Color.LIGHTYELLOW);
         avgTimeLabel = createStyledLabel("平均反应时间: N/A", 14, Color.LIGHTCYAN); // N/A 表示尚无数据
-        vbox.getChildren().addAll(instructionLabel, trialLabel, scoreLabel, avgTimeLabel); // 添加所有标签
+        latencyLabel = createStyledLabel("", 12, Color.GRAY);
+        historyLabel = createStyledLabel("", 12, Color.LIGHTGRAY);
+        vbox.getChildren().addAll(instructionLabel, trialLabel, scoreLabel, avgTimeLabel, latencyLabel, historyLabel); // 添加所有标签
         return vbox;
     }
 
     /**
      * 创建底部的控制面板 (HBox)
-     * @return 包含开始按钮的 HBox
+     * @return 包含密度选择和开始按钮的 HBox
      */
     private HBox createControlPane() {
-        HBox hbox = new HBox(); // 水平布局
+        HBox hbox = new HBox(10); // 水平布局
         hbox.setAlignment(Pos.CENTER); // 居中对齐
+        densityComboBox = new ComboBox<>();
+        densityComboBox.getItems().addAll(DensityLevel.values());
+        densityComboBox.setValue(densityLevel);
+        densityComboBox.setOnAction(e -> densityLevel = densityComboBox.getValue());
+        renderModeComboBox = new ComboBox<>();
+        renderModeComboBox.getItems().addAll(RenderMode.values());
+        renderModeComboBox.setValue(RenderMode.POOLED);
+        renderModeComboBox.setOnAction(e -> applyRenderMode(renderModeComboBox.getValue()));
         startButton = new Button("开始游戏"); // 设置按钮文本
         startButton.setFont(Font.font(16)); // 设置字体大小
         startButton.setOnAction(e -> startGame()); // 设置按钮点击事件处理器
-        hbox.getChildren().add(startButton); // 添加按钮
+        hbox.getChildren().addAll(createStyledLabel("密度:", 14, Color.WHITE), densityComboBox,
+                createStyledLabel("渲染:", 14, Color.WHITE), renderModeComboBox, startButton); // 添加控件
         return hbox;
     }
 
@@ -168,11 +260,14 @@ public class AdvancedReactionTestFX extends Application {
         // 重置所有统计数据
         currentTrial = 0;
         score = 0;
-        correctHits = 0;
-        incorrectHits = 0;
-        misses = 0;
-        totalReactionTimeMillis = 0;
+        statistics.reset();
+        reactionTimer.resetStatistics();
         startButton.setDisable(true); // 禁用开始按钮，防止重复点击
+        densityComboBox.setDisable(true); // 一轮中不允许更改密度
+        renderModeComboBox.setDisable(true);
+        if (renderMode == RenderMode.POOLED) {
+            ensurePoolCapacity(densityLevel.shapeCount); // 节点在开始前一次性创建好
+        }
         startNextTrial(); // 开始第一次试次
     }
 
@@ -187,21 +282,18 @@ public class AdvancedReactionTestFX extends Application {
         }
         currentState = GameState.GET_READY; // 设置状态为准备
         currentTrial++; // 增加试次数
-        correctTargetNode = null; // 重置上一轮的目标节点引用
-        gamePane.getChildren().clear(); // 清空游戏区域中的所有图形
+        clearStimulus(); // 清空游戏区域中的所有图形
 
         // 随机决定本轮的目标形状是圆形还是方形
-        targetShapeDefinition = random.nextBoolean() ? new Circle(TARGET_SIZE / 2) : new Rectangle(TARGET_SIZE, TARGET_SIZE);
-        String targetName = (targetShapeDefinition instanceof Circle) ? "圆形" : "方形"; // 获取目标形状的中文名
+        targetIsCircle = random.nextBoolean();
+        String targetName = targetIsCircle ? "圆形" : "方形"; // 获取目标形状的中文名
         instructionLabel.setText("准备... 点击 " + targetName + "!"); // 更新指示信息
 
         updateUI(); // 更新界面上的试次计数器
 
         // 计算并设置随机的等待时间
         double waitSeconds = MIN_WAIT_SECONDS + random.nextDouble() * (MAX_WAIT_SECONDS - MIN_WAIT_SECONDS);
-        waitTimer = new PauseTransition(Duration.seconds(waitSeconds));
-        waitTimer.setOnFinished(event -> showStimulus()); // 设定延迟结束后调用 showStimulus 方法
-        waitTimer.play(); // 启动延迟计时器
+        waitTimer = FxTimers.scheduleSeconds(waitSeconds, showStimulusCallback); // 延迟结束后调用 showStimulus 方法
     }
 
     /**
@@ -211,114 +303,221 @@ public class AdvancedReactionTestFX extends Application {
         currentState = GameState.SHOWING_STIMULUS; // 设置状态为显示刺激物
         instructionLabel.setText("点击!"); // 提示用户点击
 
-        List<Node> shapes = generateShapes(); // 生成包含目标和干扰项的图形列表
-        placeShapesRandomly(shapes); // 将图形随机放置在游戏区域
-        gamePane.getChildren().addAll(shapes); // 将图形添加到游戏区域面板上
+        generateShapes(); // 决定目标和干扰项的形状、颜色和位置
+        switch (renderMode) {
+            case NODES:
+                showNewNodes();
+                break;
+            case POOLED:
+                showPooledNodes();
+                break;
+            case CANVAS:
+                drawCanvas();
+                break;
+        }
 
-        stimulusAppearTimeNanos = System.nanoTime(); // 记录图形出现的精确纳秒时间
+        reactionTimer.stimulusShown(); // 从下一次脉冲 (图形真正画出来的那一帧) 开始计时
+        stimulusTimer = FxTimers.scheduleSeconds(STIMULUS_DURATION_SECONDS, stimulusTimeoutCallback); // 启动显示时间限制计时器
+    }
 
-        // 设置一个计时器，用于限制图形显示的时间
-        stimulusTimer = new Timeline(new KeyFrame(Duration.seconds(STIMULUS_DURATION_SECONDS), event -> {
-            // 检查计时器结束时，状态是否仍然是 SHOWING_STIMULUS (即用户尚未点击)
-            if (currentState == GameState.SHOWING_STIMULUS) {
-                handleMiss(); // 如果超时未点击，则算作错过
-            }
-        }));
-        stimulusTimer.play(); // 启动显示时间限制计时器
+    /**
+     * 限制图形显示时间的计时器到期
+     */
+    private void onStimulusTimeout() {
+        // 检查计时器结束时，状态是否仍然是 SHOWING_STIMULUS (即用户尚未点击)
+        if (currentState == GameState.SHOWING_STIMULUS) {
+            handleMiss(); // 如果超时未点击，则算作错过
+        }
     }
 
     /**
-     * 生成包含一个正确目标和若干干扰项的图形列表
-     * @return 包含 JavaFX Shape 节点的列表
+     * 生成一个正确目标和若干干扰项 (下标 0 是目标)，结果保存在 shapeCircle / shapeColors 和采样器的坐标中，三种渲染方式共用
+     * <p>
+     * 位置来自泊松圆盘采样 (任意两个中心的距离不小于图形尺寸的 1.5 倍)，与已放置图形的比较由
+     * 采样器内部的均匀网格完成，复杂度与图形数量成正比。区域放不下所有图形时减少干扰项的数量。
      */
-    private List<Node> generateShapes() {
-        List<Node> shapes = new ArrayList<>();
+    private void generateShapes() {
+        double paneWidth = gamePane.getWidth(); // 获取游戏区域宽度
+        double paneHeight = gamePane.getHeight(); // 获取游戏区域高度
+        // 如果面板尺寸尚未计算出来（例如布局还未完成），使用预设值
+        if (paneWidth <= 0 || paneHeight <= 0) {
+            paneWidth = 600;
+            paneHeight = 400;
+        }
 
-        // 首先创建正确的那个目标图形
-        if (targetShapeDefinition instanceof Circle) {
-            correctTargetNode = new Circle(TARGET_SIZE / 2, TARGET_COLOR);
-        } else {
-            correctTargetNode = new Rectangle(TARGET_SIZE, TARGET_SIZE, TARGET_COLOR);
+        double size = densityLevel.shapeSize;
+        // 中心点离开边缘一个图形尺寸
+        shapeCount = sampler.sample(size, size, paneWidth - size, paneHeight - size, size * MIN_SPACING,
+                densityLevel.shapeCount);
+        if (shapeCircle.length < shapeCount) {
+            shapeCircle = new boolean[shapeCount];
+            shapeColors = new Color[shapeCount];
         }
-        addClickHandler(correctTargetNode, true); // 为其添加点击处理器，并标记为正确目标
-        shapes.add(correctTargetNode); // 添加到列表中
 
-        // 添加干扰项图形
-        for (int i = 1; i < NUM_TARGETS_TOTAL; i++) { // 从 1 开始，因为已经添加了一个目标
-            Shape distractor; // 干扰项形状
+        // 首先是正确的那个目标图形
+        shapeCircle[0] = targetIsCircle;
+        shapeColors[0] = TARGET_COLOR;
+
+        // 干扰项图形
+        for (int i = 1; i < shapeCount; i++) { // 从 1 开始，因为已经添加了一个目标
             // 随机决定干扰项与目标的区别：是形状不同还是颜色不同
             boolean useDifferentShape = random.nextBoolean();
-            Color distractorColor = random.nextBoolean() ? DISTRACTOR_COLOR_1 : DISTRACTOR_COLOR_2; // 随机选择一个干扰色
-
-            if (useDifferentShape) {
-                // 使用与目标形状相反的形状
-                if (targetShapeDefinition instanceof Circle) { // 如果目标是圆，干扰项是方
-                    distractor = new Rectangle(TARGET_SIZE, TARGET_SIZE, distractorColor);
-                } else { // 如果目标是方，干扰项是圆
-                    distractor = new Circle(TARGET_SIZE / 2, distractorColor);
-                }
+            // 使用与目标形状相反的形状，或与目标形状相同的形状但颜色不同
+            shapeCircle[i] = useDifferentShape != targetIsCircle;
+            shapeColors[i] = random.nextBoolean() ? DISTRACTOR_COLOR_1 : DISTRACTOR_COLOR_2; // 随机选择一个干扰色
+        }
+    }
+
+    /**
+     * 每个图形新建一个节点并添加点击处理器 (原来的方式，用于对比)
+     */
+    private void showNewNodes() {
+        double size = densityLevel.shapeSize;
+        List<Node> shapes = new ArrayList<>();
+        for (int i = 0; i < shapeCount; i++) {
+            Shape shape = shapeCircle[i] ? new Circle(size / 2, shapeColors[i]) : new Rectangle(size, size, shapeColors[i]);
+            addClickHandler(shape, i == 0); // 为其添加点击处理器，并标记是否为正确目标
+            positionShape(shape, i);
+            shapes.add(shape); // 添加到列表中
+        }
+        gamePane.getChildren().addAll(shapes); // 将图形添加到游戏区域面板上
+    }
+
+    /**
+     * 从节点池中取出图形并修改属性后显示，节点和点击处理器只在池子第一次变大时创建
+     */
+    private void showPooledNodes() {
+        double size = densityLevel.shapeSize;
+        for (int i = 0; i < shapeCount; i++) {
+            Shape shape;
+            if (shapeCircle[i]) {
+                Circle circle = circlePool.get(pooledCircles++);
+                circle.setRadius(size / 2);
+                shape = circle;
             } else {
-                // 使用与目标形状相同的形状，但颜色不同
-                if (targetShapeDefinition instanceof Circle) {
-                    distractor = new Circle(TARGET_SIZE / 2, distractorColor);
-                } else {
-                    distractor = new Rectangle(TARGET_SIZE, TARGET_SIZE, distractorColor);
-                }
+                Rectangle rectangle = rectanglePool.get(pooledRectangles++);
+                rectangle.setWidth(size);
+                rectangle.setHeight(size);
+                shape = rectangle;
+            }
+            if (i == 0) {
+                correctTargetNode = shape;
             }
+            shape.setFill(shapeColors[i]);
+            positionShape(shape, i);
+            shape.setVisible(true);
+        }
+    }
 
-            addClickHandler(distractor, false); // 为其添加点击处理器，并标记为干扰项（非正确目标）
-            shapes.add(distractor); // 添加到列表中
+    /**
+     * 确保节点池中每种图形至少有 n 个 (隐藏状态，已添加到游戏区域)
+     */
+    private void ensurePoolCapacity(int n) {
+        while (circlePool.size() < n) {
+            addPooledShape(circlePool, new Circle());
         }
+        while (rectanglePool.size() < n) {
+            addPooledShape(rectanglePool, new Rectangle());
+        }
+    }
 
-        return shapes; // 返回包含所有图形的列表
+    private <T extends Shape> void addPooledShape(List<T> pool, T shape) {
+        shape.setVisible(false);
+        // 处理器只添加一次，按节点是否为本次的目标判断对错
+        shape.setOnMousePressed(event -> handleShapePressed(shape == correctTargetNode, event));
+        pool.add(shape);
+        gamePane.getChildren().add(shape);
     }
 
     /**
-     * 将图形列表中的图形随机放置在游戏区域 (gamePane) 中，尝试避免重叠
-     * @param shapes 需要放置的图形节点列表
+     * 在 Canvas 上画出所有图形，并把中心点放入空间网格供点击检测
      */
-    private void placeShapesRandomly(List<Node> shapes) {
-        double paneWidth = gamePane.getWidth(); // 获取游戏区域宽度
-        double paneHeight = gamePane.getHeight(); // 获取游戏区域高度
-        // 如果面板尺寸尚未计算出来（例如布局还未完成），使用预设值
-        if (paneWidth <= 0 || paneHeight <= 0) {
-            paneWidth = 600;
-            paneHeight = 400;
+    private void drawCanvas() {
+        double size = densityLevel.shapeSize;
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        hitGrid.reset(Math.max(1, canvas.getWidth()), Math.max(1, canvas.getHeight()), size * MIN_SPACING);
+        for (int i = 0; i < shapeCount; i++) {
+            double x = sampler.getX(i);
+            double y = sampler.getY(i);
+            gc.setFill(shapeColors[i]);
+            if (shapeCircle[i]) {
+                gc.fillOval(x - size / 2, y - size / 2, size, size);
+            } else {
+                gc.fillRect(x - size / 2, y - size / 2, size, size);
+            }
+            hitGrid.insert(x, y); // 编号与下标 i 相同
         }
+    }
 
-        for (Node shape : shapes) {
-            double x, y;
-            boolean tooClose; // 标记是否与其他图形过于接近
-            int attempts = 0; // 尝试次数，防止无限循环
-
-            // 尝试为当前图形找到一个不与其他图形重叠的位置
-            do {
-                tooClose = false;
-                // 在有效范围内随机生成坐标 (稍微离开边缘)
-                x = TARGET_SIZE + random.nextDouble() * (paneWidth - 2 * TARGET_SIZE);
-                y = TARGET_SIZE + random.nextDouble() * (paneHeight - 2 * TARGET_SIZE);
-
-                // 检查与已放置图形的距离 (简化的重叠检测)
-                for (Node other : gamePane.getChildren()) { // 直接检查已在面板上的图形
-                    if (shape != other) { // 避免与自身比较
-                        double dx = x - (other.getLayoutX() + TARGET_SIZE / 2); // 计算中心点距离 X
-                        double dy = y - (other.getLayoutY() + TARGET_SIZE / 2); // 计算中心点距离 Y
-                        // 如果中心点距离小于图形尺寸的 1.5 倍，则认为太近
-                        if (Math.sqrt(dx * dx + dy * dy) < TARGET_SIZE * 1.5) {
-                            tooClose = true;
-                            break; // 一旦发现太近，无需再与其他图形比较，重新生成坐标
-                        }
-                    }
-                }
-                attempts++;
-            } while (tooClose && attempts < 20); // 限制尝试次数
+    /**
+     * Canvas 模式的点击检测: 在空间网格中找最近的中心，再精确判断是否落在图形内
+     * <p>
+     * 中心之间至少相距 1.5 倍图形尺寸，而图形内的点离自己中心最多 √2/2 倍尺寸，所以最近的中心就是唯一可能命中的图形。
+     * @return 命中的图形下标，没有命中时返回 -1
+     */
+    private int hitTest(double x, double y) {
+        double half = densityLevel.shapeSize / 2;
+        int id = hitGrid.nearest(x, y, half * Math.sqrt(2));
+        if (id < 0) {
+            return -1;
+        }
+        double dx = Math.abs(x - hitGrid.getX(id));
+        double dy = Math.abs(y - hitGrid.getY(id));
+        boolean inside = shapeCircle[id] ? dx * dx + dy * dy <= half * half : dx <= half && dy <= half;
+        return inside ? id : -1;
+    }
 
-            // 设置图形的布局位置 (shape 的坐标是左上角，需要调整使其中心在 x, y)
-            shape.setLayoutX(x - TARGET_SIZE / 2);
-            shape.setLayoutY(y - TARGET_SIZE / 2);
+    /**
+     * 把第 i 个图形放到采样得到的中心点上
+     */
+    private void positionShape(Shape shape, int i) {
+        // Circle 的布局原点是圆心，Rectangle 的布局原点是左上角
+        double offset = shape instanceof Circle ? 0 : densityLevel.shapeSize / 2;
+        shape.setLayoutX(sampler.getX(i) - offset);
+        shape.setLayoutY(sampler.getY(i) - offset);
+    }
+
+    /**
+     * 清除游戏区域中显示的图形
+     */
+    private void clearStimulus() {
+        correctTargetNode = null; // 重置上一轮的目标节点引用
+        switch (renderMode) {
+            case NODES:
+                gamePane.getChildren().clear();
+                break;
+            case POOLED:
+                for (int i = 0; i < pooledCircles; i++) {
+                    circlePool.get(i).setVisible(false);
+                }
+                for (int i = 0; i < pooledRectangles; i++) {
+                    rectanglePool.get(i).setVisible(false);
+                }
+                pooledCircles = 0;
+                pooledRectangles = 0;
+                break;
+            case CANVAS:
+                canvas.getGraphicsContext2D().clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+                hitGrid.clear();
+                break;
         }
     }
 
+    /**
+     * 切换渲染方式: 游戏区域只保留当前方式需要的节点 (节点池或 Canvas)
+     */
+    private void applyRenderMode(RenderMode mode) {
+        clearStimulus();
+        renderMode = mode;
+        gamePane.getChildren().clear();
+        if (mode == RenderMode.POOLED) {
+            gamePane.getChildren().addAll(circlePool);
+            gamePane.getChildren().addAll(rectanglePool);
+        } else if (mode == RenderMode.CANVAS) {
+            gamePane.getChildren().add(canvas);
+        }
+    }
 
     /**
      * 为指定的图形节点添加鼠标点击事件处理器
@@ -326,30 +525,39 @@ public class AdvancedReactionTestFX extends Application {
      * @param isCorrectTarget 布尔值，指示这个图形是否是本轮的正确目标
      */
     private void addClickHandler(Node shape, boolean isCorrectTarget) {
-        shape.setOnMouseClicked(event -> {
-            // 确保只在刺激物显示阶段处理点击事件
-            if (currentState == GameState.SHOWING_STIMULUS) {
-                stopTimers(); // 停止所有正在运行的计时器 (等待计时器和刺激显示计时器)
-                long reactionTimeMillis = (System.nanoTime() - stimulusAppearTimeNanos) / 1_000_000; // 计算反应时间（毫秒）
+        shape.setOnMousePressed(event -> handleShapePressed(isCorrectTarget, event));
+    }
 
-                if (isCorrectTarget) {
-                    handleCorrectHit(reactionTimeMillis); // 处理正确点击
-                } else {
-                    handleIncorrectHit(); // 处理错误点击（点中干扰项）
-                }
-                event.consume(); // 阻止事件继续传播（例如传播到父容器 gamePane 的点击事件）
+    /**
+     * 处理按下某个图形 (节点处理器或 Canvas 点击检测)
+     * <p>
+     * 用按下事件而不是 clicked 事件: clicked 在松开鼠标时才触发，会把按住的时间算进反应时间
+     */
+    private void handleShapePressed(boolean isCorrectTarget, MouseEvent event) {
+        // 确保只在刺激物显示阶段处理点击事件
+        if (currentState == GameState.SHOWING_STIMULUS) {
+            stopTimers(); // 停止所有正在运行的计时器 (等待计时器和刺激显示计时器)
+            FrameAccurateReactionTimer.Measurement measurement = reactionTimer.inputHandled();
+
+            if (measurement == null) {
+                handleInvalidTrial(); // 刺激物显示之前的按下，没有有效的反应时间
+            } else if (isCorrectTarget) {
+                handleCorrectHit(measurement.getReactionNanos()); // 处理正确点击
+            } else {
+                handleIncorrectHit(); // 处理错误点击（点中干扰项）
             }
-        });
+            event.consume(); // 阻止事件继续传播（例如传播到父容器 gamePane 的点击事件）
+        }
     }
 
     /**
      * 处理正确点击目标的情况
-     * @param reactionTimeMillis 本次点击的反应时间（毫秒）
+     * @param reactionTimeNanos 本次点击的反应时间（纳秒）
      */
-    private void handleCorrectHit(long reactionTimeMillis) {
+    private void handleCorrectHit(long reactionTimeNanos) {
         currentState = GameState.TRIAL_OVER; // 设置状态为单次试次结束
-        correctHits++; // 增加正确点击计数
-        totalReactionTimeMillis += reactionTimeMillis; // 累加反应时间，用于计算平均值
+        statistics.recordHit(reactionTimeNanos); // 记录到直方图，用于计算平均值和分位数
+        long reactionTimeMillis = reactionTimeNanos / 1_000_000;
 
         // 简单的计分逻辑：基础分100，反应越慢扣分越多，最低10分
         int trialScore = Math.max(10, 100 - (int)(reactionTimeMillis / 10));
@@ -358,12 +566,21 @@ public class AdvancedReactionTestFX extends Application {
         scheduleNextTrial(); // 安排下一次试次
     }
 
+    /**
+     * 本次试次无效 (按下时刺激物还没有显示出来): 不计分、不计入统计和历史，直接进入下一次
+     */
+    private void handleInvalidTrial() {
+        currentState = GameState.TRIAL_OVER;
+        instructionLabel.setText("点得太早，本次不计");
+        scheduleNextTrial();
+    }
+
     /**
      * 处理点击了干扰项（错误目标）的情况
      */
     private void handleIncorrectHit() {
         currentState = GameState.TRIAL_OVER; // 设置状态为单次试次结束
-        incorrectHits++; // 增加错误点击计数
+        statistics.recordWrongHit(); // 增加错误点击计数
         score -= 50; // 扣除较多分数作为惩罚
         instructionLabel.setText("点错了! -50分"); // 显示反馈信息
         scheduleNextTrial(); // 安排下一次试次
@@ -377,8 +594,9 @@ public class AdvancedReactionTestFX extends Application {
         if (currentState != GameState.SHOWING_STIMULUS) return;
 
         stopTimers(); // 停止所有计时器
+        reactionTimer.cancel();
         currentState = GameState.TRIAL_OVER; // 设置状态为单次试次结束
-        misses++; // 增加错过计数
+        statistics.recordMiss(); // 增加错过计数
         score -= 10; // 扣除少量分数
         instructionLabel.setText("超时或错过! -10分"); // 显示反馈信息
         scheduleNextTrial(); // 安排下一次试次
@@ -388,8 +606,8 @@ public class AdvancedReactionTestFX extends Application {
      * 停止所有可能正在运行的计时器
      */
     private void stopTimers() {
-        if (waitTimer != null) waitTimer.stop(); // 停止“准备”阶段的计时器
-        if (stimulusTimer != null) stimulusTimer.stop(); // 停止限制刺激显示时间的计时器
+        FxTimers.cancel(waitTimer); // 停止“准备”阶段的计时器
+        FxTimers.cancel(stimulusTimer); // 停止限制刺激显示时间的计时器
     }
 
 
@@ -398,10 +616,8 @@ public class AdvancedReactionTestFX extends Application {
      */
     private void scheduleNextTrial() {
         updateUI(); // 立刻更新界面上的分数等信息
-        // 设置一个短暂的停顿（例如1秒），让玩家看到本次试次的结果，然后再开始下一次
-        PauseTransition briefPause = new PauseTransition(Duration.seconds(1.0));
-        briefPause.setOnFinished(event -> startNextTrial()); // 停顿结束后调用 startNextTrial
-        briefPause.play(); // 启动停顿计时器
+        // 短暂的停顿（例如1秒），让玩家看到本次试次的结果，然后再开始下一次
+        FxTimers.scheduleMillis(1000, nextTrialCallback); // 停顿结束后调用 startNextTrial
     }
 
 
@@ -410,16 +626,20 @@ public class AdvancedReactionTestFX extends Application {
      */
     private void endRound() {
         currentState = GameState.ROUND_OVER; // 设置状态为整轮结束
-        gamePane.getChildren().clear(); // 清空游戏区域
+        clearStimulus(); // 清空游戏区域
 
-        // 计算平均反应时间（仅基于正确点击）
-        double avgTime = (correctHits > 0) ? (double)totalReactionTimeMillis / correctHits : 0;
-        // 显示最终的统计信息
+        // 显示最终的统计信息 (反应时间仅基于正确点击)
         instructionLabel.setText(String.format("测试结束! 总分: %d", score));
-        avgTimeLabel.setText(String.format("平均反应时间: %.0f ms", avgTime)); // %.0f 表示不带小数的浮点数
-        trialLabel.setText(String.format("正确: %d, 错误: %d, 错过: %d", correctHits, incorrectHits, misses));
+        avgTimeLabel.setText(String.format("平均 %.0f ms | p50 %.0f ms, p90 %.0f ms, p99 %.0f ms, 最大 %.0f ms",
+                statistics.getMeanMillis(), statistics.getPercentileMillis(50), statistics.getPercentileMillis(90),
+                statistics.getPercentileMillis(99), statistics.getMaxMillis())); // %.0f 表示不带小数的浮点数
+        trialLabel.setText(String.format("正确: %d, 错误: %d, 错过: %d",
+                statistics.getHits(), statistics.getWrongHits(), statistics.getMisses()));
+        saveSession();
 
         startButton.setDisable(false); // 重新启用开始按钮
+        densityComboBox.setDisable(false); // 允许更改密度
+        renderModeComboBox.setDisable(false);
         startButton.setText("再玩一轮"); // 修改按钮文本，提示可以重新开始
         updateUI(); // 更新最终的得分显示
     }
@@ -432,9 +652,55 @@ public class AdvancedReactionTestFX extends Application {
         // 只有在游戏进行中才更新试次和平均时间，避免覆盖最终结果显示
         if (currentState != GameState.ROUND_OVER) {
             trialLabel.setText("试次: " + currentTrial + " / " + NUM_TRIALS); // 更新试次进度
-            double avgTime = (correctHits > 0) ? (double)totalReactionTimeMillis / correctHits : 0; // 计算当前平均时间
-            avgTimeLabel.setText(String.format("平均反应时间: %.0f ms", avgTime)); // 更新平均时间显示
+            avgTimeLabel.setText(String.format("平均反应时间: %.0f ms", statistics.getMeanMillis())); // 更新平均时间显示
+        }
+        updateLatencyLabel();
+    }
+
+    /**
+     * 把本轮的摘要追加到历史文件 (只写一条定长记录，趋势统计增量更新)
+     */
+    private void saveSession() {
+        if (history == null || statistics.getTrials() == 0) {
+            return;
+        }
+        try {
+            history.append(ReactionHistory.Session.of(statistics, densityLevel.shapeCount, score,
+                    System.currentTimeMillis()));
+        } catch (IOException e) {
+            System.err.println("无法保存反应测试记录 " + history.getFile() + ": " + e.getMessage());
+        }
+        updateHistoryLabel();
+    }
+
+    /**
+     * 显示历史轮次的汇总和最近的趋势
+     */
+    private void updateHistoryLabel() {
+        if (history == null || history.getSessionCount() == 0) {
+            historyLabel.setText("");
+            return;
+        }
+        double trend = history.getTrendMillis();
+        historyLabel.setText(String.format("历史: %d 轮, 平均 %.0f ms, 最近 %d 轮 %.0f ms%s, 最好 p50 %.0f ms, 最高分 %d",
+                history.getSessionCount(), history.getOverallMeanMillis(), ReactionHistory.RECENT_SESSIONS,
+                history.getRecentMeanMillis(),
+                trend == 0 ? "" : String.format(" (%s%.0f ms)", trend > 0 ? "+" : "", trend),
+                history.getBestP50Millis(), history.getBestScore()));
+    }
+
+    /**
+     * 显示本轮的渲染延迟 (图形加入场景到显示) 和输入延迟 (按下到处理)，这两段不计入反应时间
+     */
+    private void updateLatencyLabel() {
+        LatencyHistogram display = reactionTimer.getDisplayLatency();
+        LatencyHistogram input = reactionTimer.getInputLatency();
+        if (display.getCount() == 0) {
+            latencyLabel.setText("");
+            return;
         }
+        latencyLabel.setText(String.format("刺激到显示: 平均 %.1f ms, 最大 %.1f ms | 输入到处理: 平均 %.2f ms, 最大 %.2f ms",
+                display.getMean() / 1e6, display.getMax() / 1e6, input.getMean() / 1e6, input.getMax() / 1e6));
     }
 
 
@@ -0,0 +1,98 @@
+package com.chqiuu.gamer.easygame;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * 按权重随机抽取下标的别名表 (Walker 别名法，Vose 的构建算法)
+ * <p>
+ * 构建时把 n 个权重归一化为平均值 1，再把每个低于平均的项与一个高于平均的项配对，填满 n 个等宽的桶:
+ * 每个桶只有 "自己" 和 "别名" 两种结果。抽取时用一个随机数同时选桶 (整数部分) 和决定取哪一个 (小数部分)，
+ * 与权重的个数无关，O(1)。构建 O(n)，应在载入关卡时完成一次，之后只读，可以被多个线程共享。
+ */
+public final class AliasTable {
+
+    private final double[] probability; // 桶中保留自己的概率
+    private final int[] alias; // 桶的另一个结果
+    private final double[] normalized; // 每个下标被抽中的概率 (用于显示和调参)
+
+    /**
+     * @param weights 非负权重，至少有一个为正数
+     */
+    public AliasTable(double[] weights) {
+        int n = weights.length;
+        double total = 0;
+        for (double weight : weights) {
+            if (!(weight >= 0) || Double.isInfinite(weight)) {
+                throw new IllegalArgumentException("权重必须是非负的有限数: " + weight);
+            }
+            total += weight;
+        }
+        if (n == 0 || total <= 0) {
+            throw new IllegalArgumentException("至少需要一个正的权重");
+        }
+        probability = new double[n];
+        alias = new int[n];
+        normalized = new double[n];
+
+        double[] scaled = new double[n];
+        int[] small = new int[n]; // 两个工作栈
+        int[] large = new int[n];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < n; i++) {
+            normalized[i] = weights[i] / total;
+            scaled[i] = normalized[i] * n;
+            if (scaled[i] < 1) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            probability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1; // 把多出的部分继续分给其他桶
+            if (scaled[more] < 1) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        // 剩下的项在浮点误差范围内都等于 1
+        while (largeCount > 0) {
+            int i = large[--largeCount];
+            probability[i] = 1;
+            alias[i] = i;
+        }
+        while (smallCount > 0) {
+            int i = small[--smallCount];
+            probability[i] = 1;
+            alias[i] = i;
+        }
+    }
+
+    /**
+     * @return 按权重随机抽取的下标 (只用一个随机数)
+     */
+    public int sample(RandomGenerator random) {
+        double u = random.nextDouble() * probability.length;
+        int bucket = (int) u;
+        if (bucket == probability.length) {
+            bucket--; // nextDouble 接近 1 时的舍入
+        }
+        return u - bucket < probability[bucket] ? bucket : alias[bucket];
+    }
+
+    public int size() {
+        return probability.length;
+    }
+
+    /**
+     * @return 下标 i 被抽中的概率
+     */
+    public double getProbability(int i) {
+        return normalized[i];
+    }
+}
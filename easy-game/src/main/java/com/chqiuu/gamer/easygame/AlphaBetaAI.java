@@ -0,0 +1,468 @@
+package com.chqiuu.gamer.easygame;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * 基于 Negamax + Alpha-Beta 剪枝的电脑玩家
+ * <ul>
+ *     <li>Zobrist 哈希置换表: 复用已经搜索过的局面，并提供上一轮迭代的最佳着法</li>
+ *     <li>着法排序: 置换表着法优先，其余按 "能连成多少子 / 能堵住对方多少子" 打分排序</li>
+ *     <li>迭代加深: 在时间预算内逐层加深，超时则使用上一层完整搜索的结果</li>
+ * </ul>
+ * 3x3 棋盘可以直接搜索到终局；大棋盘只考虑已有棋子附近的空位，并对每层候选数做截断。
+ * 实例持有置换表，不是线程安全的。
+ */
+public class AlphaBetaAI implements TicTacToeAI {
+
+    private static final int WIN_SCORE = 1_000_000; // 获胜分数 (减去步数，越快获胜分越高)
+    private static final int WIN_THRESHOLD = WIN_SCORE - 10_000; // 超过该值视为必胜/必败
+    private static final int INFINITY = WIN_SCORE + 1;
+
+    private static final int TT_BITS = 20; // 置换表 2^20 项
+    private static final byte TT_EXACT = 0;
+    private static final byte TT_LOWER = 1; // 分数是下界 (发生了 beta 截断)
+    private static final byte TT_UPPER = 2; // 分数是上界 (没有着法超过 alpha)
+
+    private static final int SMALL_BOARD_CELLS = 16; // 不超过该格子数的棋盘考虑全部空位
+    private static final int NEIGHBOR_RADIUS = 2; // 大棋盘只考虑距离已有棋子 2 格以内的空位
+    private static final int MAX_BRANCHING = 12; // 大棋盘每层最多展开的候选着法数
+    private static final int NODE_CHECK_INTERVAL = 1024; // 每搜索这么多节点检查一次时间
+    private static final int MAX_PLY = 512;
+
+    private static final int[] DIR_ROW = {0, 1, 1, 1};
+    private static final int[] DIR_COL = {1, 0, 1, -1};
+
+    private final long timeBudgetNanos;
+    private final int maxDepth;
+
+    // --- 置换表 (并行数组，避免为每个条目分配对象) ---
+    private final long[] ttKeys = new long[1 << TT_BITS];
+    private final int[] ttScores = new int[1 << TT_BITS];
+    private final int[] ttMoves = new int[1 << TT_BITS];
+    private final byte[] ttDepths = new byte[1 << TT_BITS];
+    private final byte[] ttFlags = new byte[1 << TT_BITS];
+    private final int ttMask = (1 << TT_BITS) - 1;
+
+    // --- Zobrist 随机数，按棋盘格子数生成 ---
+    private long[] zobristX = new long[0];
+    private long[] zobristO = new long[0];
+
+    // --- 单次搜索的状态 ---
+    private LineGameBoard board;
+    private int rows;
+    private int cols;
+    private int cellCount;
+    private int winLength;
+    private int[] windowWeights;
+    private long hash;
+    private int[] neighborCount; // 大棋盘: 每个格子周围的棋子数
+    private final int[][] moveBuffers = new int[MAX_PLY][];
+    private final int[][] scoreBuffers = new int[MAX_PLY][];
+    private long deadline;
+    private boolean aborted;
+    private long nodes;
+
+    // --- 最近一次搜索的统计信息 ---
+    private int lastDepth;
+    private long lastNodes;
+    private int lastScore;
+
+    /**
+     * @param timeBudgetMillis 每步思考的时间预算 (毫秒)
+     * @param maxDepth 最大搜索深度
+     */
+    public AlphaBetaAI(long timeBudgetMillis, int maxDepth) {
+        if (timeBudgetMillis <= 0 || maxDepth <= 0) {
+            throw new IllegalArgumentException("时间预算和搜索深度必须为正数");
+        }
+        this.timeBudgetNanos = timeBudgetMillis * 1_000_000L;
+        this.maxDepth = Math.min(maxDepth, MAX_PLY - 1);
+    }
+
+    @Override
+    public String getName() {
+        return "Alpha-Beta";
+    }
+
+    @Override
+    public int chooseMove(LineGameBoard position) {
+        if (position.isGameOver()) {
+            throw new IllegalStateException("游戏已结束");
+        }
+        prepareSearch(position);
+        deadline = System.nanoTime() + timeBudgetNanos;
+        aborted = false;
+        nodes = 0;
+
+        int remaining = cellCount - board.getMoveCount();
+        int bestMove = -1;
+        lastDepth = 0;
+        lastScore = 0;
+        for (int depth = 1; depth <= Math.min(maxDepth, remaining); depth++) {
+            int[] result = searchRoot(depth);
+            if (aborted) {
+                break; // 本层没有搜完，沿用上一层的结果
+            }
+            bestMove = result[0];
+            lastScore = result[1];
+            lastDepth = depth;
+            if (Math.abs(lastScore) >= WIN_THRESHOLD) {
+                break; // 已经找到必胜/必败的结论，继续加深没有意义
+            }
+        }
+        if (bestMove < 0) {
+            // 连一层都没搜完 (时间预算过小)，退回到排序后的第一个候选
+            bestMove = generateMoves(0, -1) > 0 ? moveBuffers[0][0] : firstEmptyCell();
+        }
+        lastNodes = nodes;
+        board = null;
+        return bestMove;
+    }
+
+    /**
+     * @return 最近一次搜索完整完成的深度
+     */
+    public int getLastDepth() {
+        return lastDepth;
+    }
+
+    /**
+     * @return 最近一次搜索访问的节点数
+     */
+    public long getLastNodes() {
+        return lastNodes;
+    }
+
+    /**
+     * @return 最近一次搜索的评估分数 (当前玩家视角)
+     */
+    public int getLastScore() {
+        return lastScore;
+    }
+
+    /**
+     * 复制局面并准备 Zobrist 哈希、邻居计数和候选缓冲区
+     */
+    private void prepareSearch(LineGameBoard position) {
+        board = position.copy();
+        rows = board.getRows();
+        cols = board.getCols();
+        winLength = board.getWinLength();
+        if (board.getCellCount() != cellCount) {
+            cellCount = board.getCellCount();
+            initZobrist();
+            Arrays.fill(ttDepths, (byte) 0); // 换了棋盘，旧的置换表全部作废
+            for (int i = 0; i < MAX_PLY; i++) {
+                moveBuffers[i] = null;
+                scoreBuffers[i] = null;
+            }
+            neighborCount = new int[cellCount];
+        }
+        windowWeights = new int[winLength + 1];
+        int weight = 1;
+        for (int i = 1; i <= winLength; i++) {
+            windowWeights[i] = weight;
+            weight = Math.min(weight * 10, 1_000_000);
+        }
+
+        hash = 0;
+        Arrays.fill(neighborCount, 0);
+        for (int i = 0; i < cellCount; i++) {
+            char cell = board.getCell(i);
+            if (cell != LineGameBoard.EMPTY) {
+                hash ^= cell == LineGameBoard.PLAYER_X ? zobristX[i] : zobristO[i];
+                updateNeighbors(i, 1);
+            }
+        }
+    }
+
+    private void initZobrist() {
+        Random random = new Random(0x5EED_0000L + cellCount); // 固定种子，保证结果可复现
+        zobristX = new long[cellCount];
+        zobristO = new long[cellCount];
+        for (int i = 0; i < cellCount; i++) {
+            zobristX[i] = random.nextLong();
+            zobristO[i] = random.nextLong();
+        }
+    }
+
+    /**
+     * 根节点搜索
+     * @return {最佳着法, 分数}
+     */
+    private int[] searchRoot(int depth) {
+        int rootMove = probeMove();
+        int count = generateMoves(0, rootMove);
+        int alpha = -INFINITY;
+        int bestMove = moveBuffers[0][0];
+        for (int i = 0; i < count; i++) {
+            int move = moveBuffers[0][i];
+            doMove(move);
+            int score = -negamax(depth - 1, 1, -INFINITY, -alpha);
+            undoMove(move);
+            if (aborted) {
+                break;
+            }
+            if (score > alpha) {
+                alpha = score;
+                bestMove = move;
+            }
+        }
+        if (!aborted) {
+            store(depth, alpha, TT_EXACT, bestMove, 0);
+        }
+        return new int[]{bestMove, alpha};
+    }
+
+    private int negamax(int depth, int ply, int alpha, int beta) {
+        if ((++nodes & (NODE_CHECK_INTERVAL - 1)) == 0 && System.nanoTime() > deadline) {
+            aborted = true;
+        }
+        if (aborted) {
+            return 0;
+        }
+        // 对方刚走的一步连成了线: 当前玩家已经输了
+        if (board.getWinner() != LineGameBoard.EMPTY) {
+            return -(WIN_SCORE - ply);
+        }
+        if (board.getMoveCount() == cellCount) {
+            return 0; // 平局
+        }
+        if (depth == 0) {
+            return evaluate();
+        }
+
+        int alphaOrig = alpha;
+        int slot = (int) hash & ttMask;
+        int ttMove = -1;
+        if (ttKeys[slot] == hash && ttDepths[slot] != 0) {
+            ttMove = ttMoves[slot];
+            if (ttDepths[slot] >= depth) {
+                int ttScore = fromTable(ttScores[slot], ply);
+                byte flag = ttFlags[slot];
+                if (flag == TT_EXACT) {
+                    return ttScore;
+                } else if (flag == TT_LOWER) {
+                    alpha = Math.max(alpha, ttScore);
+                } else {
+                    beta = Math.min(beta, ttScore);
+                }
+                if (alpha >= beta) {
+                    return ttScore;
+                }
+            }
+        }
+
+        int count = generateMoves(ply, ttMove);
+        int[] moves = moveBuffers[ply];
+        int best = -INFINITY;
+        int bestMove = moves[0];
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            doMove(move);
+            int score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+            undoMove(move);
+            if (aborted) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestMove = move;
+            }
+            if (best > alpha) {
+                alpha = best;
+            }
+            if (alpha >= beta) {
+                break; // beta 截断
+            }
+        }
+
+        byte flag = best <= alphaOrig ? TT_UPPER : (best >= beta ? TT_LOWER : TT_EXACT);
+        store(depth, best, flag, bestMove, ply);
+        return best;
+    }
+
+    private void store(int depth, int score, byte flag, int move, int ply) {
+        int slot = (int) hash & ttMask;
+        // 不同局面直接覆盖；同一局面只用更深的结果覆盖
+        if (ttKeys[slot] != hash || depth >= ttDepths[slot]) {
+            ttKeys[slot] = hash;
+            ttScores[slot] = toTable(score, ply);
+            ttMoves[slot] = move;
+            ttDepths[slot] = (byte) Math.min(depth, Byte.MAX_VALUE);
+            ttFlags[slot] = flag;
+        }
+    }
+
+    /**
+     * @return 置换表中当前局面的最佳着法，没有则返回 -1
+     */
+    private int probeMove() {
+        int slot = (int) hash & ttMask;
+        return ttKeys[slot] == hash && ttDepths[slot] != 0 ? ttMoves[slot] : -1;
+    }
+
+    /** 胜负分数存成 "距离当前节点的步数"，取出时再换算回根节点视角 */
+    private static int toTable(int score, int ply) {
+        if (score >= WIN_THRESHOLD) return score + ply;
+        if (score <= -WIN_THRESHOLD) return score - ply;
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= WIN_THRESHOLD) return score - ply;
+        if (score <= -WIN_THRESHOLD) return score + ply;
+        return score;
+    }
+
+    private void doMove(int move) {
+        hash ^= board.getCurrentPlayer() == LineGameBoard.PLAYER_X ? zobristX[move] : zobristO[move];
+        board.play(move);
+        updateNeighbors(move, 1);
+    }
+
+    private void undoMove(int move) {
+        board.undo();
+        hash ^= board.getCurrentPlayer() == LineGameBoard.PLAYER_X ? zobristX[move] : zobristO[move];
+        updateNeighbors(move, -1);
+    }
+
+    private void updateNeighbors(int index, int delta) {
+        if (cellCount <= SMALL_BOARD_CELLS) {
+            return;
+        }
+        int row = index / cols;
+        int col = index % cols;
+        for (int r = Math.max(0, row - NEIGHBOR_RADIUS); r <= Math.min(rows - 1, row + NEIGHBOR_RADIUS); r++) {
+            for (int c = Math.max(0, col - NEIGHBOR_RADIUS); c <= Math.min(cols - 1, col + NEIGHBOR_RADIUS); c++) {
+                neighborCount[r * cols + c] += delta;
+            }
+        }
+    }
+
+    /**
+     * 生成并排序当前局面的候选着法，结果写入 moveBuffers[ply]
+     * @param ttMove 置换表给出的着法，排在最前面
+     * @return 候选着法数量
+     */
+    private int generateMoves(int ply, int ttMove) {
+        if (moveBuffers[ply] == null) {
+            moveBuffers[ply] = new int[cellCount];
+            scoreBuffers[ply] = new int[cellCount];
+        }
+        int[] moves = moveBuffers[ply];
+        int[] scores = scoreBuffers[ply];
+        boolean smallBoard = cellCount <= SMALL_BOARD_CELLS;
+        int count = 0;
+        for (int i = 0; i < cellCount; i++) {
+            if (board.isEmptyCell(i) && (smallBoard || neighborCount[i] > 0)) {
+                int score = i == ttMove ? Integer.MAX_VALUE : orderScore(i);
+                // 插入排序 (按分数从高到低)
+                int j = count++;
+                while (j > 0 && scores[j - 1] < score) {
+                    moves[j] = moves[j - 1];
+                    scores[j] = scores[j - 1];
+                    j--;
+                }
+                moves[j] = i;
+                scores[j] = score;
+            }
+        }
+        if (count == 0) {
+            moves[0] = (rows / 2) * cols + cols / 2; // 空棋盘: 下在中央
+            return 1;
+        }
+        return smallBoard ? count : Math.min(count, MAX_BRANCHING);
+    }
+
+    /**
+     * 着法排序分数: 在 index 落子后己方能连成的子数，以及能堵住的对方子数
+     */
+    private int orderScore(int index) {
+        char me = board.getCurrentPlayer();
+        char opponent = me == LineGameBoard.PLAYER_X ? LineGameBoard.PLAYER_O : LineGameBoard.PLAYER_X;
+        int row = index / cols;
+        int col = index % cols;
+        int score = 0;
+        for (int dir = 0; dir < DIR_ROW.length; dir++) {
+            int own = countLine(row, col, dir, me);
+            int theirs = countLine(row, col, dir, opponent);
+            if (own >= winLength - 1) {
+                score += 1_000_000; // 直接获胜
+            }
+            if (theirs >= winLength - 1) {
+                score += 500_000; // 必须堵住
+            }
+            score += own * own * 4 + theirs * theirs * 3;
+        }
+        // 同等条件下偏向中央
+        int centerDistance = Math.abs(row - rows / 2) + Math.abs(col - cols / 2);
+        return score * 16 - centerDistance;
+    }
+
+    /**
+     * @return 从 (row, col) 两侧沿 dir 方向相邻的 player 棋子总数 (不含该格本身)
+     */
+    private int countLine(int row, int col, int dir, char player) {
+        int dr = DIR_ROW[dir];
+        int dc = DIR_COL[dir];
+        int count = 0;
+        for (int r = row + dr, c = col + dc; r >= 0 && r < rows && c >= 0 && c < cols && board.getCell(r * cols + c) == player; r += dr, c += dc) {
+            count++;
+        }
+        for (int r = row - dr, c = col - dc; r >= 0 && r < rows && c >= 0 && c < cols && board.getCell(r * cols + c) == player; r -= dr, c -= dc) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 静态评估 (当前玩家视角): 统计所有长度为 k 的窗口，只含一方棋子的窗口按子数加权
+     */
+    private int evaluate() {
+        long total = 0;
+        for (int dir = 0; dir < DIR_ROW.length; dir++) {
+            int dr = DIR_ROW[dir];
+            int dc = DIR_COL[dir];
+            for (int row = 0; row < rows; row++) {
+                int endRow = row + dr * (winLength - 1);
+                if (endRow >= rows) {
+                    continue;
+                }
+                for (int col = 0; col < cols; col++) {
+                    int endCol = col + dc * (winLength - 1);
+                    if (endCol < 0 || endCol >= cols) {
+                        continue;
+                    }
+                    int xCount = 0;
+                    int oCount = 0;
+                    for (int i = 0, r = row, c = col; i < winLength; i++, r += dr, c += dc) {
+                        char cell = board.getCell(r * cols + c);
+                        if (cell == LineGameBoard.PLAYER_X) {
+                            xCount++;
+                        } else if (cell == LineGameBoard.PLAYER_O) {
+                            oCount++;
+                        }
+                    }
+                    if (oCount == 0) {
+                        total += windowWeights[xCount];
+                    } else if (xCount == 0) {
+                        total -= windowWeights[oCount];
+                    }
+                }
+            }
+        }
+        int score = (int) Math.max(-WIN_THRESHOLD + 1, Math.min(WIN_THRESHOLD - 1, total));
+        return board.getCurrentPlayer() == LineGameBoard.PLAYER_X ? score : -score;
+    }
+
+    private int firstEmptyCell() {
+        for (int i = 0; i < cellCount; i++) {
+            if (board.isEmptyCell(i)) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("棋盘已满");
+    }
+}
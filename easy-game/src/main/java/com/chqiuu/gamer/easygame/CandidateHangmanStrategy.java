@@ -0,0 +1,80 @@
+package com.chqiuu.gamer.easygame;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 在词库中维护与当前局面一致的候选单词，并据此选字母的策略
+ * <p>
+ * 每个长度的位图索引只构建一次，由 {@link #CandidateHangmanStrategy(CandidateHangmanStrategy)} 创建的
+ * 副本共享 (每个副本只有自己的候选位图)，适合多线程批量求解。
+ * 候选集合为空 (秘密单词不在词库中) 或单词超过 63 个字母时退回按字母频率猜测。
+ */
+public class CandidateHangmanStrategy implements HangmanStrategy {
+
+    private final CompactWordTrie words;
+    private final boolean byInformation;
+    private final Map<Integer, HangmanCandidateIndex> sharedIndexes; // 所有副本共享，只读
+    private final Map<Integer, HangmanCandidateIndex> ownIndexes = new HashMap<>();
+    private HangmanCandidateIndex candidates;
+    private int appliedMask; // 已经用来过滤候选的字母
+
+    /**
+     * @param words 词库
+     * @param byInformation true: 选期望信息量最大的字母；false: 选出现概率最高的字母
+     */
+    public CandidateHangmanStrategy(CompactWordTrie words, boolean byInformation) {
+        this.words = words;
+        this.byInformation = byInformation;
+        this.sharedIndexes = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * 创建一个共享词库位图的副本 (给另一个线程使用)
+     */
+    public CandidateHangmanStrategy(CandidateHangmanStrategy shared) {
+        this.words = shared.words;
+        this.byInformation = shared.byInformation;
+        this.sharedIndexes = shared.sharedIndexes;
+    }
+
+    @Override
+    public void newGame(HangmanGameState state) {
+        int length = state.getLength();
+        appliedMask = 0;
+        candidates = null;
+        if (length > HangmanCandidateIndex.MAX_LENGTH || !words.hasLength(length)) {
+            return;
+        }
+        candidates = ownIndexes.computeIfAbsent(length, l -> new HangmanCandidateIndex(
+                sharedIndexes.computeIfAbsent(l, key -> new HangmanCandidateIndex(words.packWords(key), key))));
+        candidates.reset();
+    }
+
+    @Override
+    public char nextGuess(HangmanGameState state) {
+        int guessed = state.getGuessedMask();
+        if (candidates != null) {
+            int pending = guessed & ~appliedMask;
+            while (pending != 0) {
+                int letter = Integer.numberOfTrailingZeros(pending);
+                pending &= pending - 1;
+                candidates.restrict(letter, state.getRevealedPositions((char) ('A' + letter)));
+            }
+            appliedMask = guessed;
+        }
+        if (candidates == null || candidates.getAliveCount() == 0) {
+            return FrequencyHangmanStrategy.nextByFrequency(guessed);
+        }
+        if (byInformation) {
+            return HangmanHintEngine.rank(candidates, guessed, false).get(0).getLetter();
+        }
+        return HangmanHintEngine.mostLikelyLetter(candidates, guessed, false);
+    }
+
+    @Override
+    public String getName() {
+        return byInformation ? "Information" : "Likely";
+    }
+}
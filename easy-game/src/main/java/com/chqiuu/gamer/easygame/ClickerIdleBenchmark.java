@@ -0,0 +1,51 @@
+package com.chqiuu.gamer.easygame;
+
+/**
+ * 离线收益的性能测试: {@link ClickerIdleGame#advanceSeconds(long)} 一次算完与逐秒调用 tick 的耗时和结果对比
+ * <p>
+ * 两局从相同的状态开始 (一级 "点数/秒"、一台设施，打开自动购买)，结果应当完全一致。
+ * <p>
+ * 用法: ClickerIdleBenchmark [--seconds 离线秒数]
+ */
+public final class ClickerIdleBenchmark {
+
+    private ClickerIdleBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        CommandLine options = CommandLine.parse(args, "ClickerIdleBenchmark [--seconds N]", "seconds");
+        if (options == null) {
+            return;
+        }
+        long seconds = options.getLong("seconds", 30L * 24 * 3600); // 默认一个月
+
+        ClickerIdleGame offline = new ClickerIdleGame();
+        ClickerIdleGame ticked = new ClickerIdleGame();
+        for (ClickerIdleGame game : new ClickerIdleGame[]{offline, ticked}) {
+            for (int i = 0; i < 40; i++) {
+                game.click(); // 买第一级“点数/秒”和第一台设施的本钱
+            }
+            game.buyPpsUpgrade();
+            game.buyGenerator(0);
+            game.setAutoBuy(true);
+        }
+
+        long start = System.nanoTime();
+        long bought = offline.advanceSeconds(seconds);
+        double offlineMillis = (System.nanoTime() - start) / 1e6;
+        start = System.nanoTime();
+        long tickedBought = 0;
+        for (long s = 0; s < seconds; s++) {
+            tickedBought += ticked.tick();
+        }
+        double tickMillis = (System.nanoTime() - start) / 1e6;
+
+        System.out.printf("离线 %,d 秒: 一次计算 %.3f 毫秒, 逐秒模拟 %.1f 毫秒%n", seconds, offlineMillis, tickMillis);
+        System.out.printf("一次计算: 点数 %s, 每秒收益 %s, 等级 %d, 自动购买 %d 次%n", offline.getPoints(),
+                offline.getIncome(), offline.getPpsLevel(), bought);
+        System.out.printf("逐秒模拟: 点数 %s, 每秒收益 %s, 等级 %d, 自动购买 %d 次%n", ticked.getPoints(),
+                ticked.getIncome(), ticked.getPpsLevel(), tickedBought);
+        System.out.println(offline.getPoints().equals(ticked.getPoints()) && offline.getPpsLevel() == ticked.getPpsLevel()
+                ? "结果一致" : "结果不一致!");
+    }
+}
@@ -0,0 +1,454 @@
+package com.chqiuu.gamer.easygame;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * 点击放置游戏的规则核心，SimpleClickerIdleFX 只负责显示和转交按钮
+ * <p>
+ * 每秒一次 {@link #tick()}: 点数增加每秒收益 ("点数/秒" 升级加上 {@link IdleGeneratorEngine} 中生产设施的总产量)，
+ * 打开自动购买时随后买下所有买得起的 "点数/秒" 升级。设施的总产量是缓存的，每秒的开销与设施的种数无关。
+ * 离线的时间由 {@link #advanceSeconds(long)} 一次算完: 两次购买之间的产量是常数，
+ * 直接算出攒够下一次升级需要的秒数并跳过去，不逐秒模拟。升级成本按 1.15 倍增长而产量只是按等级的平方增长，
+ * 购买次数只与离线时长的对数相当，离开一个月 (260 万秒) 也只需几百步。
+ * 点数和每秒收益都是小于 10^15 的整数时 (IdleNumber 的整数是精确的) 结果与逐秒调用 tick 完全相同。
+ * <p>
+ * 一次购买多级升级 ({@link #buyPpcUpgrades(long)}、{@link #buyPpsUpgrades(long)}) 的总成本与逐级购买完全相同:
+ * 总成本小于 10^15 时逐级累加 (最多两百多级)，更大时按等比数列的求和公式计算。
+ * 最多买得起的级数 ({@link #maxAffordablePpc()}、{@link #maxAffordablePps()}) 用对数直接求出，再用总成本校正。
+ * <p>
+ * 进度保存在一个小的二进制文件中 (见 {@link #save(Path)})，其中记下保存的时刻，载入时补上离线收益。
+ * 实例不是线程安全的。离线计算与逐秒模拟的对比见 {@link ClickerIdleBenchmark}。
+ */
+public class ClickerIdleGame {
+
+    /** 指定存档文件的系统属性，默认使用 ~/.easy-game/clicker/save.bin */
+    public static final String FILE_PROPERTY = "clicker.save.file";
+
+    // --- 常量定义 ---
+    static final double UPGRADE_COST_MULTIPLIER = 1.15; // 每次升级后成本增加的倍数
+    static final long PPC_INCREASE_BASE = 1;      // 每次升级PPC增加的基础值
+    static final long PPS_INCREASE_BASE = 1;      // 每次升级PPS增加的基础值
+    private static final double PPC_BASE_COST = 10;
+    private static final double PPS_BASE_COST = 25;
+    private static final double EXACT_BULK_COST = 1e15; // 批量购买的总成本低于它时逐级累加 (IdleNumber 的整数在此以下是精确的)
+
+    private static final int MAGIC = 0x45434C4B; // "ECLK"
+    private static final int VERSION = 2; // 版本 2 在末尾加上生产设施的状态
+    private static final int FILE_SIZE = 4 + 4 + 8 + 3 * 16 + 4 + 4 + 1; // 版本 1 的大小
+
+    // --- 游戏核心状态 ---
+    // 使用 IdleNumber (尾数 + 指数) 以支持任意大的数值，long 在长时间放置后会溢出；运算都在原对象上进行，不分配对象
+    private final IdleNumber points = new IdleNumber(0); // 当前点数
+    private final IdleNumber pointsPerClick = new IdleNumber(1); // 每次点击增加的点数
+    private final IdleNumber pointsPerSecond = new IdleNumber(0); // 每秒自动增加的点数
+    private final IdleNumber ppcUpgradeCost = new IdleNumber(PPC_BASE_COST); // 升级“点数/点击”的当前成本
+    private final IdleNumber ppsUpgradeCost = new IdleNumber(PPS_BASE_COST); // 升级“点数/秒”的当前成本
+    private int ppcLevel = 1; // “点数/点击”的等级
+    private int ppsLevel = 0; // “点数/秒”的等级
+    private boolean autoBuy; // 每秒自动购买“点数/秒”升级
+    private final IdleGeneratorEngine generators = IdleGeneratorEngine.loadDefault(); // 生产设施和倍率升级
+    private final IdleNumber income = new IdleNumber(); // 每秒收益: 点数/秒 + 设施的总产量
+    private final IdleNumber scratch = new IdleNumber(); // 计算用的临时数值
+    private final IdleNumber bulkCost = new IdleNumber(); // 批量购买的总成本
+    private final IdleNumber bulkTerm = new IdleNumber(); // 逐级累加总成本时的单级成本
+
+    /**
+     * 点击一次
+     */
+    public void click() {
+        points.add(pointsPerClick);
+    }
+
+    /**
+     * 购买“点数/点击”升级
+     * @return 点数不足时返回 false
+     */
+    public boolean buyPpcUpgrade() {
+        if (points.compareTo(ppcUpgradeCost) < 0) {
+            return false;
+        }
+        points.subtract(ppcUpgradeCost); // 扣除成本
+        ppcLevel++;
+        updatePpc();
+        return true;
+    }
+
+    /**
+     * 购买“点数/秒”升级
+     * @return 点数不足时返回 false
+     */
+    public boolean buyPpsUpgrade() {
+        if (points.compareTo(ppsUpgradeCost) < 0) {
+            return false;
+        }
+        points.subtract(ppsUpgradeCost); // 扣除成本
+        ppsLevel++;
+        pointsPerSecond.add(ppsIncrease(ppsLevel)); // 每秒点数稳定增长，等级高了略快
+        updatePpsCost();
+        return true;
+    }
+
+    private void updatePpc() {
+        // 每次点击点数稍微加速增长
+        pointsPerClick.setPower(PPC_INCREASE_BASE * 1.2, ppcLevel - 1).floor().add(1);
+        // 下一次升级的成本（指数增长）
+        ppcUpgradeCost.setPower(UPGRADE_COST_MULTIPLIER, ppcLevel - 1).multiply(PPC_BASE_COST).floor();
+    }
+
+    private void updatePpsCost() {
+        ppsUpgradeCost.setPower(UPGRADE_COST_MULTIPLIER, ppsLevel).multiply(PPS_BASE_COST).floor();
+    }
+
+    /**
+     * @return 升到 level 级时“点数/秒”增加的点数
+     */
+    static long ppsIncrease(int level) {
+        return PPS_INCREASE_BASE + (level / 2);
+    }
+
+    /**
+     * @return 从 0 级升到 level 级，“点数/秒”一共增加的点数 (∑ 1 + ⌊l/2⌋ = level + ⌊level/2⌋ × ⌈level/2⌉)
+     */
+    static long ppsTotalIncrease(long level) {
+        return PPS_INCREASE_BASE * level + (level / 2) * ((level + 1) / 2);
+    }
+
+    // --- 批量购买: 第 k 级的成本是 base × r^k，连续 n 级的总成本是 base × r^k × (r^n - 1) / (r - 1) ---
+
+    /**
+     * 一次购买 n 级“点数/点击”升级，点数不够时一级也不买
+     * @return 是否买下
+     */
+    public boolean buyPpcUpgrades(long n) {
+        if (n <= 0 || n > Integer.MAX_VALUE - ppcLevel
+                || points.compareTo(bulkCost(PPC_BASE_COST, ppcLevel - 1, n, bulkCost)) < 0) {
+            return false;
+        }
+        points.subtract(bulkCost);
+        ppcLevel += (int) n;
+        updatePpc(); // 点击收益只取决于等级
+        return true;
+    }
+
+    /**
+     * 一次购买 n 级“点数/秒”升级，点数不够时一级也不买
+     * @return 是否买下
+     */
+    public boolean buyPpsUpgrades(long n) {
+        if (n <= 0 || n > Integer.MAX_VALUE - ppsLevel
+                || points.compareTo(bulkCost(PPS_BASE_COST, ppsLevel, n, bulkCost)) < 0) {
+            return false;
+        }
+        points.subtract(bulkCost);
+        pointsPerSecond.add(ppsTotalIncrease(ppsLevel + n) - ppsTotalIncrease(ppsLevel));
+        ppsLevel += (int) n;
+        updatePpsCost();
+        return true;
+    }
+
+    /**
+     * @return 接下来 n 级“点数/点击”升级的总成本 (写入 out)
+     */
+    public IdleNumber getPpcUpgradeCost(long n, IdleNumber out) {
+        return bulkCost(PPC_BASE_COST, ppcLevel - 1, n, out);
+    }
+
+    /**
+     * @return 接下来 n 级“点数/秒”升级的总成本 (写入 out)
+     */
+    public IdleNumber getPpsUpgradeCost(long n, IdleNumber out) {
+        return bulkCost(PPS_BASE_COST, ppsLevel, n, out);
+    }
+
+    /**
+     * @return 现在的点数最多买得起几级“点数/点击”升级
+     */
+    public long maxAffordablePpc() {
+        return maxAffordable(PPC_BASE_COST, ppcLevel - 1, Integer.MAX_VALUE - ppcLevel);
+    }
+
+    /**
+     * @return 现在的点数最多买得起几级“点数/秒”升级
+     */
+    public long maxAffordablePps() {
+        return maxAffordable(PPS_BASE_COST, ppsLevel, Integer.MAX_VALUE - ppsLevel);
+    }
+
+    /**
+     * 从第 first 级起连续 n 级的总成本，与逐级购买 n 次花的点数相同
+     * <p>
+     * 逐级购买时每一级的成本分别向下取整，等比数列的求和公式只取整一次，最多会多出 n - 1 点。
+     * 所以先用公式估计: 小于 10^15 时改为逐级累加取整后的成本 (每级成本至少按 1.15 倍增长，最多两百多级，
+     * 和是 double 能精确表示的整数)；更大时各级取整的差别小于 IdleNumber 的精度，直接使用公式。
+     */
+    private IdleNumber bulkCost(double base, long first, long n, IdleNumber out) {
+        if (n == 1) {
+            return out.setPower(UPGRADE_COST_MULTIPLIER, first).multiply(base).floor(); // 与单级购买完全相同
+        }
+        double growth = n * Math.log(UPGRADE_COST_MULTIPLIER);
+        if (growth < 700) {
+            out.setPower(UPGRADE_COST_MULTIPLIER, first).multiply(Math.expm1(growth)); // r^n - 1 没有相减的误差
+        } else {
+            out.setPower(UPGRADE_COST_MULTIPLIER, first + n); // r^n 远大于 1
+        }
+        out.multiply(base / (UPGRADE_COST_MULTIPLIER - 1)).floor();
+        if (out.toDouble() < EXACT_BULK_COST) {
+            double sum = 0;
+            for (long level = first; level < first + n; level++) {
+                // 与 updatePpc / updatePpsCost 中单级成本的算法相同
+                sum += bulkTerm.setPower(UPGRADE_COST_MULTIPLIER, level).multiply(base).floor().toDouble();
+            }
+            out.set(sum);
+        }
+        return out;
+    }
+
+    /**
+     * 解 base × r^first × (r^n - 1) / (r - 1) ≤ points: n = ⌊log_r(points × (r - 1) / (base × r^first) + 1)⌋
+     * <p>
+     * 在对数上计算，不会溢出；浮点误差可能使结果差一级，再用 {@link #bulkCost} 校正。
+     */
+    private long maxAffordable(double base, long first, long limit) {
+        if (points.signum() <= 0) {
+            return 0;
+        }
+        double logR = Math.log10(UPGRADE_COST_MULTIPLIER);
+        // log10(points × (r - 1) / (base × r^first))
+        double logX = points.log10() + Math.log10(UPGRADE_COST_MULTIPLIER - 1) - Math.log10(base) - first * logR;
+        double estimate = logX > 15 ? logX / logR : Math.log10(Math.pow(10, logX) + 1) / logR; // x 很大时 x + 1 ≈ x
+        long n = (long) Math.min(limit, Math.max(0, Math.floor(estimate)));
+        while (n > 0 && points.compareTo(bulkCost(base, first, n, bulkCost)) < 0) {
+            n--;
+        }
+        while (n < limit && points.compareTo(bulkCost(base, first, n + 1, bulkCost)) >= 0) {
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * 购买一台第 i 种生产设施
+     * @return 点数不足时返回 false
+     */
+    public boolean buyGenerator(int i) {
+        return generators.buyGenerator(i, points);
+    }
+
+    /**
+     * 购买第 j 个倍率升级
+     * @return 已经买过或点数不足时返回 false
+     */
+    public boolean buyMultiplier(int j) {
+        return generators.buyMultiplier(j, points);
+    }
+
+    /**
+     * 一秒: 增加自动产生的点数，然后自动购买
+     * @return 自动购买的次数
+     */
+    public int tick() {
+        points.add(updateIncome());
+        return autoBuy ? buyAffordablePps() : 0;
+    }
+
+    /**
+     * 重新算出每秒收益 (设施的总产量取缓存，只是一次加法)
+     */
+    private IdleNumber updateIncome() {
+        return income.set(pointsPerSecond).add(generators.getProductionPerSecond());
+    }
+
+    private int buyAffordablePps() {
+        int bought = 0;
+        while (buyPpsUpgrade()) {
+            bought++;
+        }
+        return bought;
+    }
+
+    /**
+     * 一次算完 seconds 秒的收益 (离线进度)，结果与调用 seconds 次 {@link #tick()} 相同
+     * @return 自动购买的次数
+     */
+    public long advanceSeconds(long seconds) {
+        long bought = 0;
+        long remaining = seconds;
+        while (remaining > 0) {
+            updateIncome(); // 自动购买只改变点数/秒，设施的产量在离线期间不变
+            if (autoBuy && income.isZero() && points.compareTo(ppsUpgradeCost) >= 0) {
+                bought += tick(); // 还没有收益但已经买得起: 这一秒照常购买
+                remaining--;
+                continue;
+            }
+            if (!autoBuy || income.isZero()) {
+                if (!income.isZero()) {
+                    points.add(scratch.set(income).multiply(remaining)); // 产量不变: 一次乘法
+                }
+                break;
+            }
+            long wait = secondsUntil(ppsUpgradeCost, remaining);
+            if (wait > remaining) {
+                points.add(scratch.set(income).multiply(remaining));
+                break;
+            }
+            // 第 wait 秒的 tick 之后第一次买得起: 跳过前面的秒数，这一秒照常执行 (包括连续购买)
+            if (wait > 1) {
+                points.add(scratch.set(income).multiply(wait - 1));
+            }
+            bought += tick();
+            remaining -= wait;
+        }
+        return bought;
+    }
+
+    /**
+     * @return 以当前的每秒收益，点数达到 target 需要的秒数 (至少 1)；超过 limit 时返回 limit + 1
+     */
+    private long secondsUntil(IdleNumber target, long limit) {
+        double estimate = Math.ceil(scratch.set(target).subtract(points).ratio(income)); // 浮点估计
+        if (!(estimate <= limit)) {
+            return limit + 1;
+        }
+        // 估计值可能差一秒，用与 tick 相同的加法校正
+        long wait = Math.max(1, (long) estimate - 1);
+        while (wait <= limit && scratch.set(income).multiply(wait).add(points).compareTo(target) < 0) {
+            wait++;
+        }
+        return wait;
+    }
+
+    // --- 存档: "ECLK" + 版本 + 保存时刻 + 三个 IdleNumber (尾数 double + 指数 long) + 两个等级 + 自动购买 + 设施 ---
+
+    /**
+     * @return 存档文件的默认位置 (可通过系统属性 clicker.save.file 覆盖)
+     */
+    public static Path defaultPath() {
+        String configured = System.getProperty(FILE_PROPERTY);
+        if (configured != null && !configured.isEmpty()) {
+            return Paths.get(configured);
+        }
+        return Paths.get(System.getProperty("user.home"), ".easy-game", "clicker", "save.bin");
+    }
+
+    /**
+     * 保存进度和当前时刻 (先写临时文件再原子替换)
+     */
+    public void save(Path file, long nowMillis) throws IOException {
+        ByteBuffer out = ByteBuffer.allocate(FILE_SIZE + generators.stateSize());
+        out.putInt(MAGIC).putInt(VERSION).putLong(nowMillis);
+        for (IdleNumber value : new IdleNumber[]{points, pointsPerClick, pointsPerSecond}) {
+            out.putDouble(value.getMantissa()).putLong(value.getExponent());
+        }
+        out.putInt(ppcLevel).putInt(ppsLevel).put((byte) (autoBuy ? 1 : 0));
+        generators.writeState(out);
+
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null) {
+            Files.createDirectories(dir);
+        }
+        Path temp = Files.createTempFile(dir, "clicker", ".tmp");
+        Files.write(temp, out.array());
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public void save(Path file) throws IOException {
+        save(file, System.currentTimeMillis());
+    }
+
+    /**
+     * 读取存档 (升级成本按等级重新计算；版本 1 的存档没有生产设施)
+     * @return 保存时的时刻 (毫秒)；文件不存在时返回 -1，进度不变
+     * @throws IOException 文件无法读取或不是点击放置游戏的存档
+     */
+    public long load(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return -1;
+        }
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (in.limit() < FILE_SIZE || in.getInt() != MAGIC) {
+            throw new IOException("不是点击放置游戏的存档: " + file);
+        }
+        int version = in.getInt();
+        if (version != 1 && version != VERSION) {
+            throw new IOException("不支持的存档版本 " + version + ": " + file);
+        }
+        long savedAt = in.getLong();
+        try {
+            for (IdleNumber value : new IdleNumber[]{points, pointsPerClick, pointsPerSecond}) {
+                value.set(in.getDouble(), in.getLong());
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IOException("存档已损坏: " + file, e);
+        }
+        ppcLevel = Math.max(1, in.getInt());
+        ppsLevel = Math.max(0, in.getInt());
+        autoBuy = in.get() != 0;
+        try {
+            if (version >= 2) {
+                generators.readState(in);
+            } else {
+                generators.readState(ByteBuffer.allocate(8)); // 没有设施
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("存档已损坏: " + file, e);
+        }
+        ppcUpgradeCost.setPower(UPGRADE_COST_MULTIPLIER, ppcLevel - 1).multiply(PPC_BASE_COST).floor();
+        updatePpsCost();
+        return savedAt;
+    }
+
+    // --- 查询 ---
+
+    public IdleNumber getPoints() {
+        return points;
+    }
+
+    public IdleNumber getPointsPerClick() {
+        return pointsPerClick;
+    }
+
+    public IdleNumber getPointsPerSecond() {
+        return pointsPerSecond;
+    }
+
+    /**
+     * @return 每秒的总收益 (点数/秒 + 生产设施的产量)
+     */
+    public IdleNumber getIncome() {
+        return updateIncome();
+    }
+
+    public IdleGeneratorEngine getGenerators() {
+        return generators;
+    }
+
+    public IdleNumber getPpcUpgradeCost() {
+        return ppcUpgradeCost;
+    }
+
+    public IdleNumber getPpsUpgradeCost() {
+        return ppsUpgradeCost;
+    }
+
+    public int getPpcLevel() {
+        return ppcLevel;
+    }
+
+    public int getPpsLevel() {
+        return ppsLevel;
+    }
+
+    public boolean isAutoBuy() {
+        return autoBuy;
+    }
+
+    public void setAutoBuy(boolean autoBuy) {
+        this.autoBuy = autoBuy;
+    }
+}
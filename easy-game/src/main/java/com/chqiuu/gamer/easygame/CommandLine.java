@@ -0,0 +1,109 @@
+package com.chqiuu.gamer.easygame;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 性能测试和命令行工具共用的参数解析
+ * <p>
+ * 只接受 "--名称 值" 形式的参数。遇到未知的名称或缺少值时打印用法，{@link #parse} 返回 null，
+ * 调用方直接结束；取值时再转换类型，没有给出的参数使用调用方的默认值。
+ */
+final class CommandLine {
+
+    private final Map<String, String> values = new HashMap<>();
+
+    private CommandLine() {
+    }
+
+    /**
+     * @param usage 用法，如 "ClickerIdleBenchmark [--seconds N]"
+     * @param names 接受的参数名 (不含 "--")
+     * @return 解析结果，参数不正确时为 null (已经打印了用法)
+     */
+    static CommandLine parse(String[] args, String usage, String... names) {
+        List<String> accepted = Arrays.asList(names);
+        CommandLine result = new CommandLine();
+        for (int i = 0; i < args.length; i++) {
+            String name = args[i].startsWith("--") ? args[i].substring(2) : "";
+            if (!accepted.contains(name)) {
+                printUsage("未知参数: " + args[i], usage);
+                return null;
+            }
+            if (i + 1 == args.length) {
+                printUsage("缺少参数值: " + args[i], usage);
+                return null;
+            }
+            result.values.put(name, args[++i]);
+        }
+        return result;
+    }
+
+    /**
+     * 打印参数错误和用法，供调用方在取值后的校验中使用
+     */
+    static void printUsage(String problem, String usage) {
+        System.out.println(problem);
+        System.out.println("用法: " + usage);
+    }
+
+    String get(String name, String defaultValue) {
+        return values.getOrDefault(name, defaultValue);
+    }
+
+    int getInt(String name, int defaultValue) {
+        String value = values.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    long getLong(String name, long defaultValue) {
+        String value = values.get(name);
+        return value == null ? defaultValue : Long.parseLong(value.trim());
+    }
+
+    double getDouble(String name, double defaultValue) {
+        String value = values.get(name);
+        return value == null ? defaultValue : Double.parseDouble(value.trim());
+    }
+
+    Path getPath(String name, Path defaultValue) {
+        String value = values.get(name);
+        return value == null ? defaultValue : Paths.get(value);
+    }
+
+    /**
+     * 逗号分隔的整数列表，如 "10,100,1000"
+     */
+    int[] getInts(String name, int[] defaultValue) {
+        String value = values.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        String[] parts = value.split(",");
+        int[] result = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            result[i] = Integer.parseInt(parts[i].trim());
+        }
+        return result;
+    }
+
+    /**
+     * 逗号分隔的小数列表，如 "0.1,0.15,0.2"
+     */
+    double[] getDoubles(String name, double[] defaultValue) {
+        String value = values.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        String[] parts = value.split(",");
+        double[] result = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            result[i] = Double.parseDouble(parts[i].trim());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,473 @@
+package com.chqiuu.gamer.easygame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.random.RandomGenerator;
+
+/**
+ * 不可变的压缩单词图 (DAWG: 前缀和后缀都共享的最小确定性有限自动机)
+ * <p>
+ * 只接受 A-Z 组成的单词 (构建时转成大写)，最长 63 个字母。构建完成后整个结构只有几个基本类型数组:
+ * 每个状态的第一条边下标、是否为单词结尾、可接受的单词数和剩余长度掩码；每条边一个字节的字母和一个目标状态。
+ * 英文词表通常只需要相当于 {@code List<String>} 一小部分的堆内存。
+ * <p>
+ * 每个状态记录其后可接受的单词数，因此可以 O(单词长度 × 26) 地按序号取词或随机选词；
+ * 剩余长度掩码用于在模式查询 (例如 "P_N_A") 时提前剪掉长度不符的分支。
+ * 实例不可变，可以在多个线程之间共享。
+ */
+public class CompactWordTrie {
+
+    public static final int MAX_WORD_LENGTH = 63;
+    public static final int ALPHABET_SIZE = 26;
+    public static final char BLANK = '_'; // 模式中未知的位置
+
+    private final int[] firstEdge; // 状态 s 的边位于 [firstEdge[s], firstEdge[s + 1])
+    private final long[] finalBits; // 状态 s 是否为某个单词的结尾
+    private final int[] wordCounts; // 从状态 s 出发可接受的单词数 (含 s 自身)
+    private final long[] lengthMasks; // 第 L 位为 1 表示从状态 s 出发存在剩余长度为 L 的单词
+    private final byte[] edgeLetters; // 字母序号 0-25，同一状态的边按字母升序
+    private final int[] edgeTargets;
+
+    private CompactWordTrie(int[] firstEdge, long[] finalBits, int[] wordCounts, long[] lengthMasks,
+                            byte[] edgeLetters, int[] edgeTargets) {
+        this.firstEdge = firstEdge;
+        this.finalBits = finalBits;
+        this.wordCounts = wordCounts;
+        this.lengthMasks = lengthMasks;
+        this.edgeLetters = edgeLetters;
+        this.edgeTargets = edgeTargets;
+    }
+
+    /**
+     * 从任意顺序的单词集合构建 (内部会排序、去重；含有 A-Z 以外字符或过长的单词会被跳过)
+     */
+    public static CompactWordTrie of(Collection<String> words) {
+        String[] sorted = new String[words.size()];
+        int n = 0;
+        for (String word : words) {
+            String upper = word.trim().toUpperCase();
+            if (isValidWord(upper)) {
+                sorted[n++] = upper;
+            }
+        }
+        Arrays.sort(sorted, 0, n);
+        Builder builder = new Builder();
+        for (int i = 0; i < n; i++) {
+            if (i == 0 || !sorted[i].equals(sorted[i - 1])) {
+                builder.add(sorted[i]);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return 单词是否只由 A-Z 组成且长度在 1-63 之间
+     */
+    public static boolean isValidWord(CharSequence word) {
+        int length = word.length();
+        if (length == 0 || length > MAX_WORD_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = word.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return 单词总数
+     */
+    public int size() {
+        return wordCounts[0];
+    }
+
+    public int getStateCount() {
+        return wordCounts.length;
+    }
+
+    public int getEdgeCount() {
+        return edgeTargets.length;
+    }
+
+    /**
+     * @return 数组占用的大致字节数 (不含对象头)
+     */
+    public long getMemoryBytes() {
+        return 4L * firstEdge.length + 8L * finalBits.length + 4L * wordCounts.length + 8L * lengthMasks.length
+                + edgeLetters.length + 4L * edgeTargets.length;
+    }
+
+    /**
+     * @return 是否存在长度为 length 的单词
+     */
+    public boolean hasLength(int length) {
+        return length >= 0 && length <= MAX_WORD_LENGTH && (lengthMasks[0] & (1L << length)) != 0;
+    }
+
+    public boolean contains(CharSequence word) {
+        int state = 0;
+        for (int i = 0; i < word.length(); i++) {
+            state = child(state, word.charAt(i) - 'A');
+            if (state < 0) {
+                return false;
+            }
+        }
+        return isFinal(state);
+    }
+
+    /**
+     * 按字母顺序取第 index 个单词
+     */
+    public String getWord(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("单词序号越界: " + index);
+        }
+        StringBuilder word = new StringBuilder();
+        int state = 0;
+        int remaining = index;
+        while (true) {
+            if (isFinal(state)) {
+                if (remaining == 0) {
+                    return word.toString();
+                }
+                remaining--;
+            }
+            for (int e = firstEdge[state]; e < firstEdge[state + 1]; e++) {
+                int target = edgeTargets[e];
+                if (remaining < wordCounts[target]) {
+                    word.append((char) ('A' + edgeLetters[e]));
+                    state = target;
+                    break;
+                }
+                remaining -= wordCounts[target];
+            }
+        }
+    }
+
+    /**
+     * 等概率随机选一个单词
+     * @return 单词；没有单词时返回 null
+     */
+    public String randomWord(RandomGenerator random) {
+        return size() == 0 ? null : getWord(random.nextInt(size()));
+    }
+
+    /**
+     * 统计与模式匹配的单词数，不分配对象
+     * @see #forEachMatch(CharSequence, int, Consumer)
+     */
+    public int countMatches(CharSequence pattern, int excludedMask) {
+        int[] count = new int[1];
+        match(0, pattern, 0, blankMask(pattern, excludedMask), new char[pattern.length()], word -> count[0]++, false);
+        return count[0];
+    }
+
+    /**
+     * 按字母顺序遍历与刽子手模式匹配的单词
+     * <p>
+     * 模式中的字母必须出现在对应位置，{@link #BLANK} 位置可以是任意字母，但不能是 excludedMask 中的字母，
+     * 也不能是模式中已经出现过的字母 (刽子手规则: 猜中的字母会在所有位置同时显示)。
+     * @param pattern 例如 "P_N_A"
+     * @param excludedMask 已知不在单词中的字母，第 i 位表示 'A' + i
+     */
+    public void forEachMatch(CharSequence pattern, int excludedMask, Consumer<String> action) {
+        match(0, pattern, 0, blankMask(pattern, excludedMask), new char[pattern.length()], action, true);
+    }
+
+    /**
+     * @return 所有匹配模式的单词 (方便小词表使用，大词表请用 {@link #forEachMatch})
+     */
+    public List<String> findMatches(CharSequence pattern, int excludedMask) {
+        List<String> result = new ArrayList<>();
+        forEachMatch(pattern, excludedMask, result::add);
+        return result;
+    }
+
+    /**
+     * 把所有长度为 length 的单词按字母顺序依次写入一个字节数组 (每个字母一个字节 'A'-'Z'，无分隔符)
+     * @return 长度为 单词数 × length 的数组
+     */
+    public byte[] packWords(int length) {
+        if (!hasLength(length)) {
+            return new byte[0];
+        }
+        byte[][] out = {new byte[Math.max(length, 64 * length)]};
+        int[] written = {0};
+        byte[] word = new byte[length];
+        pack(0, 0, length, word, out, written);
+        return Arrays.copyOf(out[0], written[0]);
+    }
+
+    private void pack(int state, int depth, int length, byte[] word, byte[][] out, int[] written) {
+        if (depth == length) {
+            if (isFinal(state)) {
+                if (written[0] + length > out[0].length) {
+                    out[0] = Arrays.copyOf(out[0], out[0].length * 2);
+                }
+                System.arraycopy(word, 0, out[0], written[0], length);
+                written[0] += length;
+            }
+            return;
+        }
+        long need = 1L << (length - depth);
+        for (int e = firstEdge[state]; e < firstEdge[state + 1]; e++) {
+            int target = edgeTargets[e];
+            if ((lengthMasks[target] & (need >>> 1)) != 0) {
+                word[depth] = (byte) ('A' + edgeLetters[e]);
+                pack(target, depth + 1, length, word, out, written);
+            }
+        }
+    }
+
+    private static int blankMask(CharSequence pattern, int excludedMask) {
+        int forbidden = excludedMask;
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                forbidden |= 1 << (c - 'A');
+            }
+        }
+        return ~forbidden & ((1 << ALPHABET_SIZE) - 1);
+    }
+
+    private void match(int state, CharSequence pattern, int depth, int blankAllowed, char[] word,
+                       Consumer<String> action, boolean materialize) {
+        int length = pattern.length();
+        if ((lengthMasks[state] & (1L << (length - depth))) == 0) {
+            return;
+        }
+        if (depth == length) {
+            action.accept(materialize ? new String(word) : null);
+            return;
+        }
+        char c = pattern.charAt(depth);
+        if (c != BLANK) {
+            int target = child(state, c - 'A');
+            if (target >= 0) {
+                word[depth] = c;
+                match(target, pattern, depth + 1, blankAllowed, word, action, materialize);
+            }
+            return;
+        }
+        for (int e = firstEdge[state]; e < firstEdge[state + 1]; e++) {
+            int letter = edgeLetters[e];
+            if ((blankAllowed & (1 << letter)) != 0) {
+                word[depth] = (char) ('A' + letter);
+                match(edgeTargets[e], pattern, depth + 1, blankAllowed, word, action, materialize);
+            }
+        }
+    }
+
+    private boolean isFinal(int state) {
+        return (finalBits[state >>> 6] & (1L << state)) != 0;
+    }
+
+    /**
+     * @return 沿字母 letter (0-25) 到达的状态，没有该边时返回 -1
+     */
+    private int child(int state, int letter) {
+        if (letter < 0 || letter >= ALPHABET_SIZE) {
+            return -1;
+        }
+        for (int e = firstEdge[state]; e < firstEdge[state + 1]; e++) {
+            if (edgeLetters[e] == letter) {
+                return edgeTargets[e];
+            }
+            if (edgeLetters[e] > letter) {
+                break;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 增量构建最小 DAWG (Daciuk 等人的有序输入算法)
+     * <p>
+     * 单词必须按字母升序且不重复地加入，构建过程中只有当前单词路径上的状态是可变的，
+     * 其余状态一旦确定就登记到等价表中共享，所以峰值内存与最终结构同一量级。
+     */
+    public static class Builder {
+
+        private final Node root = new Node();
+        private final Map<Node, Node> register = new HashMap<>();
+        private final StringBuilder previous = new StringBuilder(); // 上一个加入的单词
+        private int nextId = 1; // 0 保留给根状态
+        private boolean built;
+
+        /**
+         * 加入一个单词 (大写 A-Z)，必须严格大于上一个加入的单词
+         * <p>
+         * 单词的内容会被复制，调用方可以复用同一个 CharSequence (例如 CharBuffer) 逐个加入。
+         */
+        public Builder add(CharSequence word) {
+            if (built) {
+                throw new IllegalStateException("已经调用过 build()");
+            }
+            if (!isValidWord(word)) {
+                throw new IllegalArgumentException("单词只能由 A-Z 组成且长度为 1-" + MAX_WORD_LENGTH + ": " + word);
+            }
+            if (CharSequence.compare(word, previous) <= 0) {
+                throw new IllegalArgumentException("单词必须按字母升序且不重复加入: " + word);
+            }
+            int prefix = 0;
+            int limit = Math.min(word.length(), previous.length());
+            while (prefix < limit && word.charAt(prefix) == previous.charAt(prefix)) {
+                prefix++;
+            }
+            Node last = root;
+            for (int i = 0; i < prefix; i++) {
+                last = last.lastChild();
+            }
+            if (last.size > 0) {
+                replaceOrRegister(last);
+            }
+            for (int i = prefix; i < word.length(); i++) {
+                Node child = new Node();
+                last.addChild((byte) (word.charAt(i) - 'A'), child);
+                last = child;
+            }
+            last.isFinal = true;
+            previous.setLength(0);
+            previous.append(word);
+            return this;
+        }
+
+        private void replaceOrRegister(Node state) {
+            Node child = state.lastChild();
+            if (child.size > 0) {
+                replaceOrRegister(child);
+            }
+            Node existing = register.get(child);
+            if (existing != null) {
+                state.children[state.size - 1] = existing;
+            } else {
+                child.freeze(nextId++);
+                register.put(child, child);
+            }
+        }
+
+        public CompactWordTrie build() {
+            if (!built) {
+                if (root.size > 0) {
+                    replaceOrRegister(root);
+                }
+                root.freeze(0);
+                built = true;
+            }
+            int stateCount = nextId;
+            Node[] states = new Node[stateCount];
+            states[0] = root;
+            int edgeCount = root.size;
+            for (Node node : register.keySet()) {
+                states[node.id] = node;
+                edgeCount += node.size;
+            }
+
+            int[] firstEdge = new int[stateCount + 1];
+            long[] finalBits = new long[(stateCount + 63) >>> 6];
+            int[] wordCounts = new int[stateCount];
+            long[] lengthMasks = new long[stateCount];
+            byte[] edgeLetters = new byte[edgeCount];
+            int[] edgeTargets = new int[edgeCount];
+            int e = 0;
+            for (int s = 0; s < stateCount; s++) {
+                Node node = states[s];
+                firstEdge[s] = e;
+                if (node.isFinal) {
+                    finalBits[s >>> 6] |= 1L << s;
+                }
+                wordCounts[s] = node.wordCount;
+                lengthMasks[s] = node.lengthMask;
+                for (int i = 0; i < node.size; i++) {
+                    edgeLetters[e] = node.letters[i];
+                    edgeTargets[e] = node.children[i].id;
+                    e++;
+                }
+            }
+            firstEdge[stateCount] = e;
+            return new CompactWordTrie(firstEdge, finalBits, wordCounts, lengthMasks, edgeLetters, edgeTargets);
+        }
+    }
+
+    /**
+     * 构建期间的可变状态；登记 (freeze) 之后不再修改，按 "结尾标记 + 出边" 判断等价
+     */
+    private static final class Node {
+        byte[] letters = new byte[2];
+        Node[] children = new Node[2];
+        int size;
+        boolean isFinal;
+        int id = -1;
+        int wordCount;
+        long lengthMask;
+        private int hash;
+
+        Node lastChild() {
+            return children[size - 1];
+        }
+
+        void addChild(byte letter, Node child) {
+            if (size == letters.length) {
+                letters = Arrays.copyOf(letters, size * 2);
+                children = Arrays.copyOf(children, size * 2);
+            }
+            letters[size] = letter;
+            children[size] = child;
+            size++;
+        }
+
+        /**
+         * 子状态都已登记，计算统计信息并收紧数组
+         */
+        void freeze(int id) {
+            this.id = id;
+            letters = Arrays.copyOf(letters, size);
+            children = Arrays.copyOf(children, size);
+            wordCount = isFinal ? 1 : 0;
+            lengthMask = isFinal ? 1L : 0L;
+            for (Node child : children) {
+                wordCount += child.wordCount;
+                lengthMask |= child.lengthMask << 1;
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Node)) {
+                return false;
+            }
+            Node other = (Node) o;
+            if (isFinal != other.isFinal || size != other.size) {
+                return false;
+            }
+            for (int i = 0; i < size; i++) {
+                // 子状态都已登记，等价即同一个对象
+                if (letters[i] != other.letters[i] || children[i] != other.children[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            if (hash == 0) {
+                int h = isFinal ? 1 : 2;
+                for (int i = 0; i < size; i++) {
+                    h = h * 31 + letters[i];
+                    h = h * 31 + children[i].id;
+                }
+                hash = h == 0 ? 1 : h;
+            }
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.chqiuu.gamer.easygame;
+
+import javafx.application.Platform;
+import javafx.event.EventHandler;
+import javafx.scene.Scene;
+import javafx.scene.input.MouseEvent;
+
+/**
+ * 以 JavaFX 脉冲为基准的反应计时器
+ * <p>
+ * 把节点加入场景时图形还没有画到屏幕上，要等下一次脉冲 (pulse) 完成 CSS、布局并同步给渲染线程后才会显示；
+ * 鼠标事件也要在事件队列中排队，再沿着场景图分发到节点的处理器。本类把这几个时刻分开记录:
+ * <ul>
+ *     <li>请求时刻: 调用 {@link #stimulusShown()} 时 (节点刚加入场景)</li>
+ *     <li>显示时刻: 之后第一次脉冲的 post-layout 回调，这一帧就是带有刺激物的画面</li>
+ *     <li>输入时刻: 场景上的 MOUSE_PRESSED 事件过滤器，事件分发最早经过的位置</li>
+ *     <li>处理时刻: 节点的处理器调用 {@link #inputHandled()} 时</li>
+ * </ul>
+ * 反应时间 = 输入时刻 - 显示时刻；"刺激到显示" 和 "输入到处理" 两段延迟分别累计在直方图中 (纳秒)。
+ * JavaFX 的 MouseEvent 不带操作系统的时间戳，所以系统事件队列中的等待时间无法测出，输入时刻只能取过滤器被调用的时间。
+ * 只能在 JavaFX 应用线程上使用。
+ */
+public class FrameAccurateReactionTimer {
+
+    /**
+     * 一次反应的测量结果 (纳秒)
+     */
+    public static final class Measurement {
+        private final long reactionNanos;
+        private final long stimulusToDisplayNanos;
+        private final long inputToHandlerNanos;
+
+        Measurement(long reactionNanos, long stimulusToDisplayNanos, long inputToHandlerNanos) {
+            this.reactionNanos = reactionNanos;
+            this.stimulusToDisplayNanos = stimulusToDisplayNanos;
+            this.inputToHandlerNanos = inputToHandlerNanos;
+        }
+
+        /**
+         * @return 从刺激物显示的那一帧到按下鼠标的时间
+         */
+        public long getReactionNanos() {
+            return reactionNanos;
+        }
+
+        public long getReactionMillis() {
+            return reactionNanos / 1_000_000;
+        }
+
+        /**
+         * @return 从节点加入场景到显示这一帧的延迟
+         */
+        public long getStimulusToDisplayNanos() {
+            return stimulusToDisplayNanos;
+        }
+
+        /**
+         * @return 从事件进入场景到处理器被调用的延迟
+         */
+        public long getInputToHandlerNanos() {
+            return inputToHandlerNanos;
+        }
+    }
+
+    private final LatencyHistogram displayLatency = new LatencyHistogram();
+    private final LatencyHistogram inputLatency = new LatencyHistogram();
+    private final Runnable pulseListener = this::onPulse;
+    private final EventHandler<MouseEvent> pressFilter = event -> onInput();
+    private Scene scene;
+
+    private long requestNanos; // 刺激物加入场景的时刻
+    private long displayNanos; // 第一次带有刺激物的脉冲时刻，0 表示尚未显示
+    private long inputNanos; // 最近一次按下鼠标的时刻
+    private boolean waitingForDisplay;
+
+    /**
+     * 在场景上安装脉冲监听器和鼠标事件过滤器 (替换之前安装的场景)
+     */
+    public void attach(Scene scene) {
+        detach();
+        this.scene = scene;
+        scene.addPostLayoutPulseListener(pulseListener);
+        scene.addEventFilter(MouseEvent.MOUSE_PRESSED, pressFilter);
+    }
+
+    /**
+     * 移除安装在场景上的监听器
+     */
+    public void detach() {
+        if (scene != null) {
+            scene.removePostLayoutPulseListener(pulseListener);
+            scene.removeEventFilter(MouseEvent.MOUSE_PRESSED, pressFilter);
+            scene = null;
+        }
+    }
+
+    /**
+     * 刺激物的节点刚刚加入场景，等待下一次脉冲把它显示出来
+     */
+    public void stimulusShown() {
+        requestNanos = System.nanoTime();
+        displayNanos = 0;
+        inputNanos = 0;
+        waitingForDisplay = true;
+        Platform.requestNextPulse();
+    }
+
+    /**
+     * 本次刺激已经结束 (超时等)，不再记录
+     */
+    public void cancel() {
+        waitingForDisplay = false;
+        displayNanos = 0;
+    }
+
+    private void onPulse() {
+        if (waitingForDisplay) {
+            displayNanos = System.nanoTime();
+            waitingForDisplay = false;
+        }
+    }
+
+    private void onInput() {
+        inputNanos = System.nanoTime();
+    }
+
+    /**
+     * 在节点的鼠标处理器中调用，结束本次刺激的计时
+     * @return 测量结果；刺激物还没显示过、没有记录到按下事件或按下早于显示时返回 null (本次无效)
+     */
+    public Measurement inputHandled() {
+        long now = System.nanoTime();
+        if (waitingForDisplay) {
+            // 在显示这一帧的脉冲之前就处理了输入 (不应发生)，以当前时刻作为显示时刻
+            onPulse();
+        }
+        if (displayNanos == 0 || inputNanos == 0 || inputNanos < displayNanos) {
+            displayNanos = 0;
+            return null; // 按下时刺激物还看不见，不是一次反应
+        }
+        long display = displayNanos - requestNanos;
+        long input = now - inputNanos;
+        displayLatency.record(display);
+        inputLatency.record(input);
+        Measurement measurement = new Measurement(inputNanos - displayNanos, display, input);
+        displayNanos = 0;
+        return measurement;
+    }
+
+    /**
+     * @return 刺激到显示延迟的统计 (纳秒)
+     */
+    public LatencyHistogram getDisplayLatency() {
+        return displayLatency;
+    }
+
+    /**
+     * @return 输入到处理延迟的统计 (纳秒)
+     */
+    public LatencyHistogram getInputLatency() {
+        return inputLatency;
+    }
+
+    /**
+     * 清空延迟统计
+     */
+    public void resetStatistics() {
+        displayLatency.reset();
+        inputLatency.reset();
+    }
+}
@@ -0,0 +1,143 @@
+package com.chqiuu.gamer.easygame;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * 固定容量 [0, capacity) 的空闲位置集合
+ * <p>
+ * 位图记录每个位置是否空闲，另有一个紧凑数组保存所有空闲位置 (及每个位置在数组中的下标)；
+ * 占用时把数组最后一个元素换到被删除的位置 (swap-remove)。标记占用/空闲、随机取一个空闲位置都是 O(1)，
+ * 不分配对象；按位图可以跳过空闲位置，快速遍历所有被占用的位置。实例不是线程安全的，只在一个线程 (如 JavaFX 应用线程) 中使用。
+ */
+public class FreeSlotSet {
+
+    private final int capacity;
+    private final long[] freeBits; // 第 i 位为 1 表示位置 i 空闲
+    private final int[] freeSlots; // [0, freeCount) 是所有空闲位置，顺序任意
+    private final int[] indexInFree; // 空闲位置在 freeSlots 中的下标
+    private int freeCount;
+
+    /**
+     * 创建一个所有位置都空闲的集合
+     */
+    public FreeSlotSet(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("容量不能为负数: " + capacity);
+        }
+        this.capacity = capacity;
+        this.freeBits = new long[(capacity + 63) >>> 6];
+        this.freeSlots = new int[capacity];
+        this.indexInFree = new int[capacity];
+        reset();
+    }
+
+    /**
+     * 把所有位置标记为空闲
+     */
+    public void reset() {
+        Arrays.fill(freeBits, -1L);
+        if (capacity % 64 != 0) {
+            freeBits[freeBits.length - 1] = (1L << capacity) - 1; // 超出容量的位保持为 0
+        }
+        for (int i = 0; i < capacity; i++) {
+            freeSlots[i] = i;
+            indexInFree[i] = i;
+        }
+        freeCount = capacity;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return 空闲位置的数量
+     */
+    public int freeCount() {
+        return freeCount;
+    }
+
+    /**
+     * @return 被占用位置的数量
+     */
+    public int usedCount() {
+        return capacity - freeCount;
+    }
+
+    public boolean isFree(int slot) {
+        return (freeBits[slot >>> 6] & (1L << slot)) != 0;
+    }
+
+    /**
+     * 把位置标记为占用
+     * @return 原来是否空闲
+     */
+    public boolean markUsed(int slot) {
+        if (!isFree(slot)) {
+            return false;
+        }
+        freeBits[slot >>> 6] &= ~(1L << slot);
+        int index = indexInFree[slot];
+        int last = freeSlots[--freeCount];
+        freeSlots[index] = last;
+        indexInFree[last] = index;
+        return true;
+    }
+
+    /**
+     * 把位置标记为空闲
+     * @return 原来是否被占用
+     */
+    public boolean markFree(int slot) {
+        if (isFree(slot)) {
+            return false;
+        }
+        freeBits[slot >>> 6] |= 1L << slot;
+        freeSlots[freeCount] = slot;
+        indexInFree[slot] = freeCount++;
+        return true;
+    }
+
+    /**
+     * 等概率地随机选一个空闲位置 (不改变状态)
+     * @return 位置；没有空闲位置时返回 -1
+     */
+    public int randomFree(RandomGenerator random) {
+        return freeCount == 0 ? -1 : freeSlots[random.nextInt(freeCount)];
+    }
+
+    /**
+     * 随机选一个空闲位置并标记为占用
+     * @return 位置；没有空闲位置时返回 -1
+     */
+    public int acquireRandom(RandomGenerator random) {
+        int slot = randomFree(random);
+        if (slot >= 0) {
+            markUsed(slot);
+        }
+        return slot;
+    }
+
+    /**
+     * 查找 from 及之后第一个被占用的位置，用于遍历: {@code for (int i = set.nextUsed(0); i >= 0; i = set.nextUsed(i + 1))}
+     * @return 位置；没有时返回 -1
+     */
+    public int nextUsed(int from) {
+        if (from >= capacity) {
+            return -1;
+        }
+        int word = from >>> 6;
+        long used = ~freeBits[word] & (-1L << from);
+        while (true) {
+            if (used != 0) {
+                int slot = (word << 6) + Long.numberOfTrailingZeros(used);
+                return slot < capacity ? slot : -1;
+            }
+            if (++word == freeBits.length) {
+                return -1;
+            }
+            used = ~freeBits[word];
+        }
+    }
+}
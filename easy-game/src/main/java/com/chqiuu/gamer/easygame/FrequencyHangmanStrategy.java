@@ -0,0 +1,33 @@
+package com.chqiuu.gamer.easygame;
+
+/**
+ * 按固定的英文字母频率顺序猜测的策略，不看词库，用作基准
+ */
+public class FrequencyHangmanStrategy implements HangmanStrategy {
+
+    /** 英文文本中的字母频率顺序 */
+    public static final String ENGLISH_ORDER = "ETAOINSHRDLCUMWFGYPBVKJXQZ";
+
+    @Override
+    public char nextGuess(HangmanGameState state) {
+        return nextByFrequency(state.getGuessedMask());
+    }
+
+    /**
+     * @return 按频率顺序第一个没猜过的字母
+     */
+    static char nextByFrequency(int guessedMask) {
+        for (int i = 0; i < ENGLISH_ORDER.length(); i++) {
+            char c = ENGLISH_ORDER.charAt(i);
+            if ((guessedMask & (1 << (c - 'A'))) == 0) {
+                return c;
+            }
+        }
+        throw new IllegalStateException("所有字母都已猜过");
+    }
+
+    @Override
+    public String getName() {
+        return "Frequency";
+    }
+}
@@ -0,0 +1,87 @@
+package com.chqiuu.gamer.easygame;
+
+import javafx.animation.AnimationTimer;
+
+/**
+ * 所有 JavaFX 小游戏共用的定时器: 一个 {@link TimerWheel}，由一个 AnimationTimer 在每次脉冲时推进
+ * <p>
+ * 代替到处 new PauseTransition / Timeline 的写法: 调用方预先创建好回调 (Runnable 字段)，
+ * 每次调度只在时间轮的数组中占一项，取消 O(1)，不产生新的动画对象。回调在 JavaFX 应用线程上、
+ * 脉冲开始时执行，精度为一帧 (约 16 毫秒)。没有等待中的任务时 AnimationTimer 自动停止，不占用脉冲。
+ * 只能在 JavaFX 应用线程上使用。
+ */
+public final class FxTimers {
+
+    private static final long TICK_NANOS = 1_000_000; // 1 毫秒一个刻度
+    private static final int WHEEL_SIZE = 1024; // 一圈约 1 秒，更长的延迟留在槽中等下一圈
+
+    private static final TimerWheel WHEEL = new TimerWheel(TICK_NANOS, WHEEL_SIZE, System.nanoTime());
+    private static final AnimationTimer PULSE = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            WHEEL.advanceTo(now);
+            if (WHEEL.size() == 0) {
+                stop();
+                running = false;
+            }
+        }
+    };
+    private static boolean running;
+
+    private FxTimers() {
+    }
+
+    /**
+     * 延迟 delayMillis 毫秒后执行一次回调
+     * @return 句柄，用于 {@link #cancel(long)}
+     */
+    public static long scheduleMillis(long delayMillis, Runnable callback) {
+        return schedule(delayMillis * 1_000_000, callback);
+    }
+
+    /**
+     * 延迟 seconds 秒后执行一次回调
+     * @return 句柄，用于 {@link #cancel(long)}
+     */
+    public static long scheduleSeconds(double seconds, Runnable callback) {
+        return schedule(Math.round(seconds * 1e9), callback);
+    }
+
+    private static long schedule(long delayNanos, Runnable callback) {
+        long handle = WHEEL.scheduleAt(System.nanoTime() + delayNanos, callback);
+        ensureRunning();
+        return handle;
+    }
+
+    /**
+     * 每隔 periodMillis 毫秒执行一次回调，直到被取消
+     * @return 句柄，用于 {@link #cancel(long)}
+     */
+    public static long scheduleRepeatingMillis(long periodMillis, Runnable callback) {
+        long handle = WHEEL.scheduleRepeating(System.nanoTime(), periodMillis * 1_000_000, callback);
+        ensureRunning();
+        return handle;
+    }
+
+    /**
+     * 取消任务 (已经执行或已经取消的句柄、0 都会被忽略)
+     * @return 任务是否还在等待
+     */
+    public static boolean cancel(long handle) {
+        return WHEEL.cancel(handle);
+    }
+
+    /**
+     * @return 句柄对应的任务是否还在等待
+     */
+    public static boolean isPending(long handle) {
+        return WHEEL.isPending(handle);
+    }
+
+    private static void ensureRunning() {
+        if (!running) {
+            running = true;
+            PULSE.start();
+        }
+    }
+}
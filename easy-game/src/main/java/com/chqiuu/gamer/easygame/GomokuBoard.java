@@ -0,0 +1,292 @@
+package com.chqiuu.gamer.easygame;
+
+import java.util.Arrays;
+
+/**
+ * 任意 N×M 棋盘上的 k 子连线规则引擎 (例如 15×15、19×19 五子棋)
+ * <p>
+ * 对每个格子和 4 个方向 (横、竖、两条斜线) 维护 "连续同色棋子段" 的长度，
+ * 只在段的两个端点保存有效值。落子时只需读取相邻两格的段长并写回新段的两个端点，
+ * 每个方向 O(1)，因此胜负判断与棋盘大小和 k 无关。
+ * 每步被覆盖的旧值压入撤销栈，悔棋同样是 O(1)，适合 AI 搜索和随机对局。
+ */
+public class GomokuBoard implements LineGameBoard {
+
+    private static final byte NONE = 0;
+    private static final byte X = 1;
+    private static final byte O = 2;
+
+    /** 4 个方向: 横、竖、主对角线、副对角线 */
+    private static final int[] DIR_ROW = {0, 1, 1, 1};
+    private static final int[] DIR_COL = {1, 0, 1, -1};
+    private static final int DIRECTIONS = 4;
+    private static final int UNDO_ENTRIES_PER_MOVE = DIRECTIONS * 2; // 每个方向改写两个端点
+
+    private final int rows;
+    private final int cols;
+    private final int winLength;
+
+    private final byte[] cells; // 每个格子的归属
+    private final int[] runs; // runs[index * 4 + dir]: 段端点处保存的段长
+    private final int[] history; // 落子顺序
+    private final int[] undoSlots; // 被改写的 runs 下标
+    private final int[] undoValues; // 被改写前的旧值
+    private int moveCount;
+
+    private int winMove = -1; // 形成连线的那一步 (格子下标)
+    private int winDirection = -1; // 形成连线的方向
+
+    /**
+     * @param rows 行数
+     * @param cols 列数
+     * @param winLength 获胜所需的连子数
+     */
+    public GomokuBoard(int rows, int cols, int winLength) {
+        if (rows <= 0 || cols <= 0) {
+            throw new IllegalArgumentException("棋盘大小必须为正数: " + rows + "x" + cols);
+        }
+        if (winLength <= 0 || winLength > Math.max(rows, cols)) {
+            throw new IllegalArgumentException("连子数超出棋盘范围: " + winLength);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.winLength = winLength;
+        int cellCount = rows * cols;
+        this.cells = new byte[cellCount];
+        this.runs = new int[cellCount * DIRECTIONS];
+        this.history = new int[cellCount];
+        this.undoSlots = new int[cellCount * UNDO_ENTRIES_PER_MOVE];
+        this.undoValues = new int[cellCount * UNDO_ENTRIES_PER_MOVE];
+    }
+
+    /**
+     * 复制构造，用于 AI 在副本上搜索
+     * @param other 要复制的棋盘
+     */
+    public GomokuBoard(GomokuBoard other) {
+        this.rows = other.rows;
+        this.cols = other.cols;
+        this.winLength = other.winLength;
+        this.cells = other.cells.clone();
+        this.runs = other.runs.clone();
+        this.history = other.history.clone();
+        this.undoSlots = other.undoSlots.clone();
+        this.undoValues = other.undoValues.clone();
+        this.moveCount = other.moveCount;
+        this.winMove = other.winMove;
+        this.winDirection = other.winDirection;
+    }
+
+    @Override
+    public int getRows() {
+        return rows;
+    }
+
+    @Override
+    public int getCols() {
+        return cols;
+    }
+
+    @Override
+    public int getWinLength() {
+        return winLength;
+    }
+
+    @Override
+    public int getCellCount() {
+        return cells.length;
+    }
+
+    @Override
+    public char getCell(int index) {
+        switch (cells[index]) {
+            case X:
+                return PLAYER_X;
+            case O:
+                return PLAYER_O;
+            default:
+                return EMPTY;
+        }
+    }
+
+    @Override
+    public boolean isEmptyCell(int index) {
+        return cells[index] == NONE;
+    }
+
+    @Override
+    public void play(int index) {
+        if (cells[index] != NONE) {
+            throw new IllegalStateException("格子 " + index + " 已被占用");
+        }
+        if (isGameOver()) {
+            throw new IllegalStateException("游戏已结束");
+        }
+        byte owner = (moveCount & 1) == 0 ? X : O;
+        cells[index] = owner;
+        int row = index / cols;
+        int col = index - row * cols;
+        int undoBase = moveCount * UNDO_ENTRIES_PER_MOVE;
+
+        for (int dir = 0; dir < DIRECTIONS; dir++) {
+            int dr = DIR_ROW[dir];
+            int dc = DIR_COL[dir];
+            // 相邻格子如果是同色棋子，一定是某一段的端点，其中保存着该段长度
+            int before = runAt(row - dr, col - dc, dir, owner);
+            int after = runAt(row + dr, col + dc, dir, owner);
+            int total = before + 1 + after;
+
+            int startSlot = ((row - before * dr) * cols + (col - before * dc)) * DIRECTIONS + dir;
+            int endSlot = ((row + after * dr) * cols + (col + after * dc)) * DIRECTIONS + dir;
+            int u = undoBase + dir * 2;
+            undoSlots[u] = startSlot;
+            undoValues[u] = runs[startSlot];
+            undoSlots[u + 1] = endSlot;
+            undoValues[u + 1] = runs[endSlot];
+            runs[startSlot] = total;
+            runs[endSlot] = total;
+
+            if (total >= winLength && winMove < 0) {
+                winMove = index;
+                winDirection = dir;
+            }
+        }
+        history[moveCount++] = index;
+    }
+
+    /**
+     * @return (row, col) 处属于 owner 的段长，越界或不是 owner 的棋子时返回 0
+     */
+    private int runAt(int row, int col, int dir, byte owner) {
+        if (row < 0 || row >= rows || col < 0 || col >= cols) {
+            return 0;
+        }
+        int index = row * cols + col;
+        return cells[index] == owner ? runs[index * DIRECTIONS + dir] : 0;
+    }
+
+    @Override
+    public void undo() {
+        if (moveCount == 0) {
+            throw new IllegalStateException("没有可以撤销的棋步");
+        }
+        int index = history[--moveCount];
+        int undoBase = moveCount * UNDO_ENTRIES_PER_MOVE;
+        // 逆序恢复，保证段长为 1 时 (起点与终点相同) 恢复的是最早的旧值
+        for (int u = undoBase + UNDO_ENTRIES_PER_MOVE - 1; u >= undoBase; u--) {
+            runs[undoSlots[u]] = undoValues[u];
+        }
+        cells[index] = NONE;
+        if (winMove == index) {
+            winMove = -1;
+            winDirection = -1;
+        }
+    }
+
+    @Override
+    public void reset() {
+        Arrays.fill(cells, NONE);
+        Arrays.fill(runs, 0);
+        moveCount = 0;
+        winMove = -1;
+        winDirection = -1;
+    }
+
+    @Override
+    public char getCurrentPlayer() {
+        return (moveCount & 1) == 0 ? PLAYER_X : PLAYER_O;
+    }
+
+    @Override
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    @Override
+    public int getLastMove() {
+        return moveCount == 0 ? -1 : history[moveCount - 1];
+    }
+
+    /**
+     * @return 第 n 步棋的格子下标 (从 0 开始)
+     */
+    public int getMove(int n) {
+        return history[n];
+    }
+
+    /**
+     * 查询经过某个已落子格子、指定方向上的同色连子数，供 AI 评估使用
+     * @param index 已落子的格子
+     * @param dir 方向 (0 横、1 竖、2 主对角线、3 副对角线)
+     */
+    public int getRunLength(int index, int dir) {
+        byte owner = cells[index];
+        if (owner == NONE) {
+            return 0;
+        }
+        int row = index / cols;
+        int col = index - row * cols;
+        int dr = DIR_ROW[dir];
+        int dc = DIR_COL[dir];
+        int length = 1;
+        // index 不一定是段端点，直接向两侧数同色棋子 (只走过这一段)
+        int r = row - dr;
+        int c = col - dc;
+        while (r >= 0 && r < rows && c >= 0 && c < cols && cells[r * cols + c] == owner) {
+            length++;
+            r -= dr;
+            c -= dc;
+        }
+        r = row + dr;
+        c = col + dc;
+        while (r >= 0 && r < rows && c >= 0 && c < cols && cells[r * cols + c] == owner) {
+            length++;
+            r += dr;
+            c += dc;
+        }
+        return length;
+    }
+
+    @Override
+    public char getWinner() {
+        return winMove < 0 ? EMPTY : getCell(winMove);
+    }
+
+    @Override
+    public boolean isDraw() {
+        return winMove < 0 && moveCount == cells.length;
+    }
+
+    @Override
+    public boolean isGameOver() {
+        return winMove >= 0 || moveCount == cells.length;
+    }
+
+    @Override
+    public int[] getWinningCells() {
+        if (winMove < 0) {
+            return new int[0];
+        }
+        int length = getRunLength(winMove, winDirection);
+        int dr = DIR_ROW[winDirection];
+        int dc = DIR_COL[winDirection];
+        byte owner = cells[winMove];
+        // 先退到连线起点，再顺着方向收集
+        int r = winMove / cols;
+        int c = winMove % cols;
+        while (r - dr >= 0 && r - dr < rows && c - dc >= 0 && c - dc < cols && cells[(r - dr) * cols + (c - dc)] == owner) {
+            r -= dr;
+            c -= dc;
+        }
+        int[] line = new int[length];
+        for (int i = 0; i < length; i++) {
+            line[i] = (r + i * dr) * cols + (c + i * dc);
+        }
+        return line;
+    }
+
+    @Override
+    public GomokuBoard copy() {
+        return new GomokuBoard(this);
+    }
+}
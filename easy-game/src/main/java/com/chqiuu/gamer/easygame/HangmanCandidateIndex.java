@@ -0,0 +1,336 @@
+package com.chqiuu.gamer.easygame;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * 固定长度候选单词的位图索引，用于 "邪恶刽子手" 模式和提示计算
+ * <p>
+ * 单词以紧凑字节数组保存 (每个字母一个字节 'A'-'Z'，无分隔符，见 {@link CompactWordTrie#packWords(int)})。
+ * 构建时为每个 (字母, 位置) 建立一个位图，第 i 位表示第 i 个单词在该位置是该字母；
+ * 另外为每个字母建立 "单词中含有该字母" 的位图。当前仍然可能的候选单词用 alive 位图表示。
+ * <p>
+ * 按猜测字母把候选单词划分为 "单词家族" (该字母出现的位置集合相同的单词) 时，
+ * 不含该字母的家族用一次位图与运算 + popcount 统计，只有含该字母的单词需要逐个取出位置掩码；
+ * 选定家族后用 L 个位图的与运算一次性更新 alive，不需要任何字符串比较。
+ * 实例不是线程安全的；多个线程可以用 {@link #HangmanCandidateIndex(HangmanCandidateIndex)} 共享同一份位图。
+ */
+public class HangmanCandidateIndex {
+
+    public static final int MAX_LENGTH = 63; // 位置掩码用一个 long 表示
+
+    private final byte[] words;
+    private final int length;
+    private final int wordCount;
+    private final int blocks; // 每个位图的 long 数
+    private final long[] positionBits; // [(letter * length + position) * blocks + block]
+    private final long[] letterBits; // [letter * blocks + block]
+    private final long[] alive;
+    private final int[] activeBlocks; // alive 中非零的块，按升序排列；候选变少后只遍历这些块
+    private int activeCount;
+    private final long[] blockSlice;
+    private int aliveCount;
+
+    // 划分家族时复用的开放寻址表 (键为位置掩码)
+    private long[] familyMasks = new long[64];
+    private int[] familyCounts = new int[64];
+    private boolean[] familyUsed = new boolean[64];
+
+    /**
+     * @param words 连续存放的单词 (大写 'A'-'Z')，长度必须是 length 的整数倍
+     * @param length 单词长度 (1-63)
+     */
+    public HangmanCandidateIndex(byte[] words, int length) {
+        if (length < 1 || length > MAX_LENGTH || words.length % length != 0) {
+            throw new IllegalArgumentException("单词长度不正确: " + length);
+        }
+        this.words = words;
+        this.length = length;
+        this.wordCount = words.length / length;
+        this.blocks = (wordCount + 63) >>> 6;
+        this.positionBits = new long[CompactWordTrie.ALPHABET_SIZE * length * blocks];
+        this.letterBits = new long[CompactWordTrie.ALPHABET_SIZE * blocks];
+        this.alive = new long[blocks];
+        this.activeBlocks = new int[blocks];
+        this.blockSlice = new long[length];
+        for (int i = 0; i < wordCount; i++) {
+            int block = i >>> 6;
+            long bit = 1L << i;
+            for (int p = 0; p < length; p++) {
+                int letter = words[i * length + p] - 'A';
+                if (letter < 0 || letter >= CompactWordTrie.ALPHABET_SIZE) {
+                    throw new IllegalArgumentException("第 " + i + " 个单词含有 A-Z 以外的字符");
+                }
+                positionBits[(letter * length + p) * blocks + block] |= bit;
+                letterBits[letter * blocks + block] |= bit;
+            }
+        }
+        reset();
+    }
+
+    /**
+     * 与另一个索引共享单词和位图 (只读)，但拥有独立的候选集合，用于多个线程同时在同一批单词上求解
+     */
+    public HangmanCandidateIndex(HangmanCandidateIndex shared) {
+        this.words = shared.words;
+        this.length = shared.length;
+        this.wordCount = shared.wordCount;
+        this.blocks = shared.blocks;
+        this.positionBits = shared.positionBits;
+        this.letterBits = shared.letterBits;
+        this.alive = new long[blocks];
+        this.activeBlocks = new int[blocks];
+        this.blockSlice = new long[length];
+        reset();
+    }
+
+    /**
+     * 所有单词重新成为候选
+     */
+    public void reset() {
+        Arrays.fill(alive, -1L);
+        if ((wordCount & 63) != 0) {
+            alive[blocks - 1] = (1L << wordCount) - 1; // 清掉最后一块中多余的位
+        }
+        for (int b = 0; b < blocks; b++) {
+            activeBlocks[b] = b;
+        }
+        activeCount = blocks;
+        aliveCount = wordCount;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public int getWordCount() {
+        return wordCount;
+    }
+
+    public int getAliveCount() {
+        return aliveCount;
+    }
+
+    /**
+     * @return 第 i 个单词
+     */
+    public String getWord(int i) {
+        return new String(words, i * length, length, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * @return 第 i 个单词是否仍是候选
+     */
+    public boolean isAlive(int i) {
+        return (alive[i >>> 6] & (1L << i)) != 0;
+    }
+
+    /**
+     * 随机返回一个仍然可能的单词 (O(非空块数))
+     * @return 单词；没有候选时返回 null
+     */
+    public String randomAliveWord(RandomGenerator random) {
+        if (aliveCount == 0) {
+            return null;
+        }
+        int skip = random.nextInt(aliveCount);
+        for (int k = 0; k < activeCount; k++) {
+            int b = activeBlocks[k];
+            int count = Long.bitCount(alive[b]);
+            if (skip < count) {
+                long bits = alive[b];
+                for (int i = 0; i < skip; i++) {
+                    bits &= bits - 1; // 去掉最低位
+                }
+                return getWord((b << 6) + Long.numberOfTrailingZeros(bits));
+            }
+            skip -= count;
+        }
+        throw new IllegalStateException("候选计数与位图不一致");
+    }
+
+    /**
+     * @return 含有候选单词的块数 (按块并行统计时用于划分范围)
+     */
+    public int getActiveBlockCount() {
+        return activeCount;
+    }
+
+    /**
+     * 统计第 [from, to) 个非空块中的候选单词每个字母的出现情况，累加到 counts
+     * <p>
+     * counts 的布局为每个字母 (length + 1) 个计数: 第 0 个是含有该字母的单词数，
+     * 第 1 + p 个是位置 p 为该字母的单词数。全部用位图与运算 + popcount 完成。
+     * @param counts 长度至少为 26 * (length + 1)
+     */
+    public void accumulateLetterCounts(int from, int to, int[] counts) {
+        int stride = length + 1;
+        for (int letter = 0; letter < CompactWordTrie.ALPHABET_SIZE; letter++) {
+            int base = letter * stride;
+            int letterBase = letter * blocks;
+            int present = countAlive(letterBits, letterBase, from, to);
+            counts[base] += present;
+            if (present == 0) {
+                continue; // 不含该字母，各位置计数必为 0
+            }
+            for (int p = 0; p < length; p++) {
+                counts[base + 1 + p] += countAlive(positionBits, (letter * length + p) * blocks, from, to);
+            }
+        }
+    }
+
+    /**
+     * @return 第 [from, to) 个非空块中，alive 与 bits[base..] 的交集大小
+     */
+    private int countAlive(long[] bits, int base, int from, int to) {
+        int total = 0;
+        if (activeCount == blocks) {
+            // 所有块都非空时第 k 个非空块就是第 k 块，省掉一次间接寻址
+            for (int b = from; b < to; b++) {
+                total += Long.bitCount(alive[b] & bits[base + b]);
+            }
+        } else {
+            for (int k = from; k < to; k++) {
+                int b = activeBlocks[k];
+                total += Long.bitCount(alive[b] & bits[base + b]);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 只保留字母 letter 恰好出现在 positionMask 所示位置的单词 (positionMask 为 0 表示不含该字母)
+     * @param letter 字母序号 0-25
+     * @param positionMask 第 p 位表示位置 p
+     */
+    public void restrict(int letter, long positionMask) {
+        int count = 0;
+        int kept = 0;
+        for (int k = 0; k < activeCount; k++) {
+            int b = activeBlocks[k];
+            long bits = alive[b];
+            if (positionMask == 0) {
+                bits &= ~letterBits[letter * blocks + b];
+            } else {
+                for (int p = 0; p < length && bits != 0; p++) {
+                    long at = positionBits[(letter * length + p) * blocks + b];
+                    bits &= (positionMask & (1L << p)) != 0 ? at : ~at;
+                }
+            }
+            alive[b] = bits;
+            if (bits != 0) {
+                activeBlocks[kept++] = b;
+                count += Long.bitCount(bits);
+            }
+        }
+        activeCount = kept;
+        aliveCount = count;
+    }
+
+    /**
+     * 邪恶刽子手的一步: 按字母 letter 的出现位置把候选单词分成家族，保留最大的家族
+     * <p>
+     * 同样大小时优先选择不含该字母的家族，其次是揭示位置更少的家族，最后按掩码大小，保证结果确定。
+     * @param letter 字母序号 0-25
+     * @return 保留下来的家族中该字母的位置掩码 (0 表示猜错)
+     */
+    public long chooseLargestFamily(int letter) {
+        Arrays.fill(familyUsed, false);
+        int absent = 0;
+        int distinct = 0;
+        long[] slice = blockSlice;
+        for (int k = 0; k < activeCount; k++) {
+            int b = activeBlocks[k];
+            long with = alive[b] & letterBits[letter * blocks + b];
+            absent += Long.bitCount(alive[b] & ~with);
+            if (with == 0) {
+                continue;
+            }
+            // 先把这一块的 L 个位置位图读到连续的小数组里，逐个单词取位置掩码时不再跨步访问大数组
+            for (int p = 0; p < length; p++) {
+                slice[p] = positionBits[(letter * length + p) * blocks + b];
+            }
+            while (with != 0) {
+                int bit = Long.numberOfTrailingZeros(with);
+                with &= with - 1;
+                long mask = 0;
+                for (int p = 0; p < length; p++) {
+                    mask |= ((slice[p] >>> bit) & 1L) << p;
+                }
+                if (addToFamily(mask)) {
+                    distinct++;
+                    if (distinct * 2 > familyMasks.length) {
+                        growFamilies();
+                    }
+                }
+            }
+        }
+
+        long bestMask = 0;
+        int bestCount = absent;
+        for (int i = 0; i < familyMasks.length; i++) {
+            if (!familyUsed[i]) {
+                continue;
+            }
+            long mask = familyMasks[i];
+            int count = familyCounts[i];
+            if (count > bestCount || (count == bestCount && bestMask != 0 && isBetterTie(mask, bestMask))) {
+                bestMask = mask;
+                bestCount = count;
+            }
+        }
+        restrict(letter, bestMask);
+        return bestMask;
+    }
+
+    private static boolean isBetterTie(long mask, long bestMask) {
+        int revealed = Long.bitCount(mask);
+        int bestRevealed = Long.bitCount(bestMask);
+        return revealed < bestRevealed || (revealed == bestRevealed && Long.compareUnsigned(mask, bestMask) < 0);
+    }
+
+    /**
+     * @return 是否新建了一个家族
+     */
+    private boolean addToFamily(long mask) {
+        int slot = slotOf(mask, familyMasks.length);
+        while (familyUsed[slot]) {
+            if (familyMasks[slot] == mask) {
+                familyCounts[slot]++;
+                return false;
+            }
+            slot = (slot + 1) & (familyMasks.length - 1);
+        }
+        familyUsed[slot] = true;
+        familyMasks[slot] = mask;
+        familyCounts[slot] = 1;
+        return true;
+    }
+
+    private void growFamilies() {
+        long[] oldMasks = familyMasks;
+        int[] oldCounts = familyCounts;
+        boolean[] oldUsed = familyUsed;
+        int capacity = oldMasks.length * 2;
+        familyMasks = new long[capacity];
+        familyCounts = new int[capacity];
+        familyUsed = new boolean[capacity];
+        for (int i = 0; i < oldMasks.length; i++) {
+            if (oldUsed[i]) {
+                int slot = slotOf(oldMasks[i], capacity);
+                while (familyUsed[slot]) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                familyUsed[slot] = true;
+                familyMasks[slot] = oldMasks[i];
+                familyCounts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    private static int slotOf(long mask, int capacity) {
+        long h = mask * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 40) & (capacity - 1);
+    }
+}
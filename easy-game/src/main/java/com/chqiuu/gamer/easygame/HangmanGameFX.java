@@ -1,12 +1,14 @@
 package com.chqiuu.gamer.easygame;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.scene.layout.*;
@@ -15,31 +17,47 @@ import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.stage.Stage;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class HangmanGameFX extends Application {
 
     // --- 常量定义 ---
-    private static final int MAX_ERRORS = 6; // 最大允许错误次数 (对应小人绘制的6个部分)
     private static final double CANVAS_WIDTH = 300;
     private static final double CANVAS_HEIGHT = 300;
     private static final Color HANGMAN_COLOR = Color.BLACK;
     private static final double LINE_WIDTH = 3.0;
 
     // --- 单词库 ---
-    private Map<String, List<String>> wordCategories = new HashMap<>();
+    private Map<String, CompactWordTrie> wordCategories = new HashMap<>(); // 内置单词 (压缩单词图)
+    private MappedWordDictionary dictionary; // 外部大词库 (内存映射)，没有时为 null，使用内置单词
     private String currentCategory = "Animals"; // 默认分类
-
-    // --- 游戏状态变量 ---
-    private String secretWord; // 要猜的秘密单词 (大写)
-    private StringBuilder displayedWord; // 显示给玩家的单词 (带下划线)
-    private int errors; // 当前错误次数
-    private Set<Character> guessedLetters; // 已猜过的所有字母 (大写)
-    private boolean gameOver; // 游戏是否结束
+    private final Random random = new Random();
+
+    // --- 游戏状态 (秘密单词、已猜字母、错误次数，规则见 HangmanGameState) ---
+    private final HangmanGameState game = new HangmanGameState();
+
+    // --- 邪恶模式: 不预先确定单词，每次猜测后保留最大的单词家族 ---
+    private boolean evilMode;
+    private HangmanCandidateIndex evilCandidates; // 当前局的候选单词，null 表示普通模式
+    private Map<String, HangmanCandidateIndex> candidateIndexCache = new HashMap<>(); // 键: 分类 + 长度
+
+    // --- 提示 ---
+    // 大词库第一次提示时要建单词图和候选索引，放到后台线程，避免卡住 JavaFX 应用线程
+    private final ExecutorService hintExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "hangman-hint");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Set<String> buildingIndexKeys = new HashSet<>(); // 正在后台构建的候选索引
+    private String hintWaitingKey; // 本局提示正在等待的候选索引，没有时为 null
 
     // --- UI 元素 ---
     private Label categoryLabel;
     private ComboBox<String> categoryComboBox;
+    private CheckBox evilModeCheckBox;
     private Label statusLabel; // 显示游戏提示信息
     private Label wordLabel; // 显示带下划线的单词
     private Label errorsLabel; // 显示错误次数/剩余机会
@@ -48,6 +66,7 @@ public class HangmanGameFX extends Application {
     private GraphicsContext gc; // 画布的绘图上下文
     private TilePane keyboardPane; // 放置字母按钮的面板
     private Button newGameButton;
+    private Button hintButton;
     private Map<Character, Button> keyboardButtons = new HashMap<>(); // 存储字母按钮引用
 
     @Override
@@ -90,9 +109,22 @@ public class HangmanGameFX extends Application {
 
     // --- 初始化单词分类 ---
     private void initializeWordCategories() {
-        wordCategories.put("Animals", Arrays.asList("TIGER", "PANDA", "ELEPHANT", "GIRAFFE", "MONKEY", "KANGAROO", "PENGUIN", "SNAKE", "LION"));
-        wordCategories.put("Fruits", Arrays.asList("APPLE", "BANANA", "STRAWBERRY", "GRAPE", "WATERMELON", "ORANGE", "MANGO", "PEACH"));
-        wordCategories.put("Countries", Arrays.asList("CHINA", "AMERICA", "JAPAN", "FRANCE", "GERMANY", "BRAZIL", "INDIA", "CANADA", "RUSSIA"));
+        // 优先使用外部词库目录 (每个分类一个 .txt 文件)，只列出文件，单词在选中分类时才按需索引
+        try {
+            dictionary = MappedWordDictionary.openDefault();
+        } catch (IOException e) {
+            System.err.println("无法打开词库目录 " + MappedWordDictionary.defaultPath() + ": " + e.getMessage());
+        }
+        if (dictionary != null) {
+            if (!dictionary.getCategories().contains(currentCategory)) {
+                currentCategory = dictionary.getCategories().get(0);
+            }
+            return;
+        }
+
+        wordCategories.put("Animals", CompactWordTrie.of(Arrays.asList("TIGER", "PANDA", "ELEPHANT", "GIRAFFE", "MONKEY", "KANGAROO", "PENGUIN", "SNAKE", "LION")));
+        wordCategories.put("Fruits", CompactWordTrie.of(Arrays.asList("APPLE", "BANANA", "STRAWBERRY", "GRAPE", "WATERMELON", "ORANGE", "MANGO", "PEACH")));
+        wordCategories.put("Countries", CompactWordTrie.of(Arrays.asList("CHINA", "AMERICA", "JAPAN", "FRANCE", "GERMANY", "BRAZIL", "INDIA", "CANADA", "RUSSIA")));
         // 可以根据需要添加更多分类和单词
     }
 
@@ -106,14 +138,20 @@ public class HangmanGameFX extends Application {
         categorySelection.setAlignment(Pos.CENTER);
         categoryLabel = new Label("选择单词分类:");
         categoryComboBox = new ComboBox<>();
-        categoryComboBox.getItems().addAll(wordCategories.keySet());
+        categoryComboBox.getItems().addAll(dictionary != null ? dictionary.getCategories() : wordCategories.keySet());
         categoryComboBox.setValue(currentCategory);
         // 当选择新分类时，自动开始新游戏
         categoryComboBox.setOnAction(e -> {
             currentCategory = categoryComboBox.getValue();
             initializeGame();
         });
-        categorySelection.getChildren().addAll(categoryLabel, categoryComboBox);
+        evilModeCheckBox = new CheckBox("邪恶模式");
+        // 切换模式时重新开始
+        evilModeCheckBox.setOnAction(e -> {
+            evilMode = evilModeCheckBox.isSelected();
+            initializeGame();
+        });
+        categorySelection.getChildren().addAll(categoryLabel, categoryComboBox, evilModeCheckBox);
 
         statusLabel = new Label("请点击字母开始猜词");
         statusLabel.setFont(Font.font("System", FontWeight.BOLD, 16));
@@ -154,7 +192,14 @@ public class HangmanGameFX extends Application {
         newGameButton.setFont(Font.font(16));
         newGameButton.setOnAction(e -> initializeGame());
 
-        vbox.getChildren().addAll(wordLabel, errorsLabel, wrongGuessesLabel, newGameButton);
+        hintButton = new Button("提示");
+        hintButton.setFont(Font.font(16));
+        hintButton.setOnAction(e -> showHint());
+
+        HBox buttons = new HBox(10, newGameButton, hintButton);
+        buttons.setAlignment(Pos.CENTER);
+
+        vbox.getChildren().addAll(wordLabel, errorsLabel, wrongGuessesLabel, buttons);
         return vbox;
     }
 
@@ -186,56 +231,112 @@ public class HangmanGameFX extends Application {
      * 初始化或重置游戏
      */
     private void initializeGame() {
-        errors = 0;
-        guessedLetters = new HashSet<>();
-        gameOver = false;
-
-        // 选择新单词
-        chooseNewWord();
-
-        // 初始化显示的单词 (下划线)
-        displayedWord = new StringBuilder();
-        for (int i = 0; i < secretWord.length(); i++) {
-            // 处理多音字或特殊情况，这里简单处理，认为一个汉字占一个下划线位
-            if (Character.isLetter(secretWord.charAt(i))) { // 假设单词库都是字母或汉字
-                displayedWord.append("_ "); // 用下划线和空格代替
-            } else if (Character.toString(secretWord.charAt(i)).matches("\\p{IsHan}")) { // 判断是否汉字
-                displayedWord.append("_ ");
-            } else {
-                displayedWord.append(secretWord.charAt(i)).append(" "); // 其他字符（如空格、标点）直接显示
-            }
-        }
-        // 移除末尾多余的空格
-        if(displayedWord.length() > 0) displayedWord.setLength(displayedWord.length()-1);
-
+        // 选择新单词: 邪恶模式直接从候选中取，候选不可用时才退回普通模式随机选词
+        hintWaitingKey = null; // 上一局还没算完的提示不再显示
+        evilCandidates = evilMode ? prepareEvilCandidates() : null;
+        String word = evilCandidates != null ? evilCandidates.randomAliveWord(random) : chooseNewWord();
+        game.reset(word != null ? word : ""); // A-Z 显示为下划线，其他字符（如空格、标点）直接显示
 
         // --- 重置 UI ---
         statusLabel.setText("游戏开始！猜猜这个 " + currentCategory + " 词");
         statusLabel.setTextFill(Color.DARKBLUE);
-        wordLabel.setText(displayedWord.toString());
-        errorsLabel.setText("错误次数: 0 / " + MAX_ERRORS);
+        updateWordLabel();
+        errorsLabel.setText("错误次数: 0 / " + HangmanGameState.MAX_ERRORS);
         wrongGuessesLabel.setText("猜错的字母: ");
         clearCanvas(); // 清空画布
         drawGallows(); // 绘制基础绞刑架
         resetKeyboard(); // 启用所有键盘按钮
         categoryComboBox.setDisable(false); // 允许更改分类
+
+        if (word == null) {
+            showWordError("错误：找不到分类 '" + currentCategory + "' 的单词!");
+        } else if (game.getHiddenCount() == 0) {
+            // 只有 A-Z 可以猜，没有这些字母的单词一开局就算赢，键盘也没有用
+            showWordError("错误：单词 '" + word + "' 中没有可猜的字母 (A-Z)!");
+        }
+    }
+
+    /**
+     * 没有可玩的单词: 显示错误并禁用键盘，可以换一个分类或重新开始
+     */
+    private void showWordError(String message) {
+        statusLabel.setText(message);
+        statusLabel.setTextFill(Color.RED);
+        disableKeyboard();
     }
 
     /**
      * 从当前分类中随机选择一个新单词
+     * @return 秘密单词 (大写)；分类无效或为空时返回 null
      */
-    private void chooseNewWord() {
-        List<String> wordList = wordCategories.get(currentCategory);
-        if (wordList == null || wordList.isEmpty()) {
-            // 如果分类无效或为空，提供一个默认词
-            secretWord = "默认单词"; // 或者可以抛出异常或提示用户
-            statusLabel.setText("错误：找不到分类 '" + currentCategory + "' 的单词!");
-            statusLabel.setTextFill(Color.RED);
-        } else {
-            Random random = new Random();
-            secretWord = wordList.get(random.nextInt(wordList.size())).toUpperCase(); // 转换为大写处理
-            // System.out.println("秘密单词: " + secretWord); // 调试用
+    private String chooseNewWord() {
+        if (dictionary != null) {
+            return chooseDictionaryWord();
+        }
+        CompactWordTrie words = wordCategories.get(currentCategory);
+        if (words == null || words.size() == 0) {
+            return null;
+        }
+        return words.randomWord(random); // 单词图中的单词都是大写
+    }
+
+    /**
+     * 邪恶模式: 随机确定单词长度，取出当前分类中该长度的全部单词作为候选
+     * <p>
+     * 秘密单词始终是某个仍然可能的候选单词，因此揭示字母、判断胜负的逻辑与普通模式完全相同。
+     * @return 候选索引；分类中没有可用单词时返回 null (退回普通模式)
+     */
+    private HangmanCandidateIndex prepareEvilCandidates() {
+        CompactWordTrie words = currentWordTrie();
+        if (words == null || words.size() == 0) {
+            return null;
+        }
+        String word = words.randomWord(random);
+        int length = word.length();
+        if (length > HangmanCandidateIndex.MAX_LENGTH) {
+            return null;
+        }
+        HangmanCandidateIndex candidates = candidateIndexCache.computeIfAbsent(currentCategory + ":" + length,
+                key -> new HangmanCandidateIndex(words.packWords(length), length));
+        candidates.reset();
+        return candidates;
+    }
+
+    /**
+     * @return 当前分类的压缩单词图 (外部词库第一次使用时构建)，没有时返回 null
+     */
+    private CompactWordTrie currentWordTrie() {
+        return wordTrie(currentCategory);
+    }
+
+    /**
+     * 可以在后台线程调用: 内置单词图启动后不再修改，外部词库按分类加锁构建
+     * @return 指定分类的压缩单词图，没有时返回 null
+     */
+    private CompactWordTrie wordTrie(String category) {
+        if (dictionary == null) {
+            return wordCategories.get(category);
+        }
+        try {
+            return dictionary.getTrie(category);
+        } catch (IOException e) {
+            System.err.println("读取词库分类 '" + category + "' 失败: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 从外部词库的当前分类中随机选择一个单词 (O(1)，不需要把分类读成列表)
+     * @return 单词；分类为空或读取失败时返回 null
+     */
+    private String chooseDictionaryWord() {
+        String word = null;
+        try {
+            word = dictionary.randomWord(currentCategory, random);
+        } catch (IOException e) {
+            System.err.println("读取词库分类 '" + currentCategory + "' 失败: " + e.getMessage());
         }
+        return word;
     }
 
     /**
@@ -243,101 +344,179 @@ public class HangmanGameFX extends Application {
      * @param letter 玩家猜的字母 (大写)
      */
     private void handleGuess(char letter) {
-        if (gameOver) return; // 游戏已结束，不处理
+        if (game.isGameOver()) return; // 游戏已结束，不处理
 
         letter = Character.toUpperCase(letter); // 确保是大写
 
         // 检查字母是否已经猜过
-        if (guessedLetters.contains(letter)) {
+        if (game.isGuessed(letter)) {
             statusLabel.setText("你已经猜过字母 '" + letter + "' 了");
             statusLabel.setTextFill(Color.ORANGE);
             return;
         }
 
-        guessedLetters.add(letter); // 将字母加入已猜集合
         keyboardButtons.get(letter).setDisable(true); // 禁用对应键盘按钮
 
-        boolean found = false; // 标记本次猜测是否正确
-        StringBuilder newDisplayedWord = new StringBuilder();
-        String currentWordString = displayedWord.toString().replace(" ", ""); // 获取当前显示的不带空格的版本
-
-        // 遍历秘密单词，检查猜测的字母是否存在
-        for (int i = 0; i < secretWord.length(); i++) {
-            if (secretWord.charAt(i) == letter) {
-                // 如果找到匹配的字母，更新显示的单词
-                // 注意：这里需要正确处理空格，我们按索引更新
-                int displayIndex = i * 2; // 因为每个字符后有空格，所以索引乘以2
-                if (displayIndex < displayedWord.length()) {
-                    displayedWord.setCharAt(displayIndex, letter);
-                }
-                found = true;
-            }
+        if (evilCandidates != null) {
+            // 邪恶模式: 保留最大的单词家族，并换成该家族中的某个单词
+            evilCandidates.chooseLargestFamily(letter - 'A');
+            game.replaceSecret(evilCandidates.randomAliveWord(random));
         }
 
+        HangmanGameState.GuessResult result = game.guess(letter);
 
         // 更新界面上的单词显示
-        wordLabel.setText(displayedWord.toString());
+        updateWordLabel();
 
         // 处理猜测结果
-        if (found) {
+        if (result == HangmanGameState.GuessResult.HIT) {
             statusLabel.setText("猜对了！字母 '" + letter + "' 在单词中！");
             statusLabel.setTextFill(Color.GREEN);
             // 检查是否获胜
-            if (checkWin()) {
+            if (game.isWon()) {
                 endGame(true);
             }
         } else {
             // 猜错了
-            errors++;
-            errorsLabel.setText("错误次数: " + errors + " / " + MAX_ERRORS);
+            int errors = game.getErrors();
+            errorsLabel.setText("错误次数: " + errors + " / " + HangmanGameState.MAX_ERRORS);
             drawHangmanPart(errors); // 绘制小人的一部分
             updateWrongGuessesLabel(letter); // 更新猜错字母列表
             statusLabel.setText("猜错了！单词中没有字母 '" + letter + "'");
             statusLabel.setTextFill(Color.RED);
             // 检查是否失败
-            if (checkLoss()) {
+            if (game.isLost()) {
                 endGame(false);
             }
         }
     }
 
     /**
-     * 更新显示猜错字母的标签
-     * @param wrongLetter 刚刚猜错的字母
+     * 按当前局面显示单词 (未揭示的位置显示为下划线，字符之间用空格分隔)
      */
-    private void updateWrongGuessesLabel(char wrongLetter) {
-        String currentText = wrongGuessesLabel.getText();
-        if (currentText.equals("猜错的字母: ")) {
-            wrongGuessesLabel.setText(currentText + wrongLetter);
-        } else {
-            wrongGuessesLabel.setText(currentText + ", " + wrongLetter);
+    private void updateWordLabel() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < game.getLength(); i++) {
+            if (i > 0) text.append(' ');
+            text.append(game.getDisplayedChar(i));
+        }
+        wordLabel.setText(text.toString());
+    }
+
+    /**
+     * 提示: 在所有与当前局面一致的单词上为未猜过的字母打分，显示最推荐的字母
+     */
+    private void showHint() {
+        if (game.isGameOver()) return;
+
+        HangmanCandidateIndex candidates = evilCandidates; // 邪恶模式下的候选本身就与局面一致
+        if (candidates == null) {
+            String key = hintIndexKey();
+            if (key != null && !candidateIndexCache.containsKey(key)) {
+                buildHintIndex(key);
+                return;
+            }
+            candidates = key == null ? null : consistentCandidates(candidateIndexCache.get(key));
+        }
+        if (candidates == null || candidates.getAliveCount() == 0) {
+            showNoCandidates();
+            return;
+        }
+
+        List<HangmanHintEngine.LetterScore> scores = HangmanHintEngine.rank(candidates, game.getGuessedMask());
+        if (scores.isEmpty()) {
+            return;
         }
+        HangmanHintEngine.LetterScore best = scores.get(0);
+        statusLabel.setText(String.format("提示：推荐猜 '%c' (剩余 %d 个候选单词，出现概率 %.0f%%)",
+                best.getLetter(), candidates.getAliveCount(), best.getHitProbability() * 100));
+        statusLabel.setTextFill(Color.PURPLE);
     }
 
+    private void showNoCandidates() {
+        statusLabel.setText("提示：词库中没有与当前局面一致的单词");
+        statusLabel.setTextFill(Color.ORANGE);
+    }
 
     /**
-     * 检查玩家是否获胜 (所有字母都已猜出)
-     * @return 如果获胜返回 true
+     * @return 普通模式提示用的候选索引的键 (分类 + 秘密单词长度)；秘密单词含有 A-Z 以外的字符或过长时返回 null
      */
-    private boolean checkWin() {
-        // 如果显示的单词中不再包含下划线，则获胜
-        return !displayedWord.toString().contains("_");
+    private String hintIndexKey() {
+        int length = game.getLength();
+        if (!CompactWordTrie.isValidWord(game.getSecretWord()) || length > HangmanCandidateIndex.MAX_LENGTH) {
+            return null;
+        }
+        return currentCategory + ":" + length;
     }
 
     /**
-     * 检查玩家是否失败 (错误次数达到上限)
-     * @return 如果失败返回 true
+     * 在后台线程构建当前分类、当前长度的候选索引，期间显示 "计算中"；
+     * 建好后回到 JavaFX 应用线程放入缓存，如果仍是同一局则接着显示提示
      */
-    private boolean checkLoss() {
-        return errors >= MAX_ERRORS;
+    private void buildHintIndex(String key) {
+        statusLabel.setText("提示：计算中…");
+        statusLabel.setTextFill(Color.PURPLE);
+        hintWaitingKey = key;
+        if (!buildingIndexKeys.add(key)) {
+            return; // 已经在构建 (例如上一局点过提示)
+        }
+        String category = currentCategory;
+        int length = game.getLength();
+        hintExecutor.execute(() -> {
+            CompactWordTrie words = wordTrie(category);
+            HangmanCandidateIndex index = words == null ? null : new HangmanCandidateIndex(words.packWords(length), length);
+            Platform.runLater(() -> {
+                buildingIndexKeys.remove(key);
+                if (index != null) {
+                    candidateIndexCache.putIfAbsent(key, index);
+                }
+                if (!key.equals(hintWaitingKey)) {
+                    return; // 期间开始了新游戏
+                }
+                hintWaitingKey = null;
+                if (index == null) {
+                    showNoCandidates();
+                } else {
+                    showHint();
+                }
+            });
+        });
     }
 
+    /**
+     * 普通模式: 把与秘密单词同样长度的候选按已猜字母 (猜中的位置 / 猜错) 过滤
+     * @param candidates 当前分类、当前长度的候选索引
+     * @return 过滤后的 candidates
+     */
+    private HangmanCandidateIndex consistentCandidates(HangmanCandidateIndex candidates) {
+        candidates.reset();
+        for (char c = 'A'; c <= 'Z'; c++) {
+            if (game.isGuessed(c)) {
+                candidates.restrict(c - 'A', game.getRevealedPositions(c));
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * 更新显示猜错字母的标签
+     * @param wrongLetter 刚刚猜错的字母
+     */
+    private void updateWrongGuessesLabel(char wrongLetter) {
+        String currentText = wrongGuessesLabel.getText();
+        if (currentText.equals("猜错的字母: ")) {
+            wrongGuessesLabel.setText(currentText + wrongLetter);
+        } else {
+            wrongGuessesLabel.setText(currentText + ", " + wrongLetter);
+        }
+    }
+
+
     /**
      * 结束游戏的处理逻辑
      * @param won 玩家是否获胜
      */
     private void endGame(boolean won) {
-        gameOver = true;
         disableKeyboard(); // 禁用所有键盘按钮
         categoryComboBox.setDisable(true); // 禁用分类选择
 
@@ -345,6 +524,7 @@ public class HangmanGameFX extends Application {
             statusLabel.setText("恭喜你！你赢了！");
             statusLabel.setTextFill(Color.GREEN);
         } else {
+            String secretWord = game.getSecretWord();
             statusLabel.setText("很遗憾，你输了... 答案是: " + secretWord);
             statusLabel.setTextFill(Color.DARKRED);
             // 将答案显示出来，替换掉下划线
@@ -433,6 +613,11 @@ public class HangmanGameFX extends Application {
     }
 
     // --- 主方法 ---
+    @Override
+    public void stop() {
+        hintExecutor.shutdownNow(); // 关闭窗口时放弃还没建完的提示索引
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
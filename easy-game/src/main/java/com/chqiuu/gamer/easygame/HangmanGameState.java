@@ -0,0 +1,218 @@
+package com.chqiuu.gamer.easygame;
+
+/**
+ * 刽子手游戏规则，HangmanGameFX 与批量求解基准共用
+ * <p>
+ * 秘密单词保存在可复用的 char 数组中，已猜字母和猜错字母各用一个 26 位掩码表示，
+ * 每个位置是否已揭示用 boolean 数组表示；重新开局和猜测都不分配对象 (单词变长时数组才会扩容)。
+ * 只有 A-Z 可以被猜，单词中的其他字符 (空格、连字符、汉字等) 开局时直接显示；
+ * 没有 A-Z 的单词开局时 {@link #getHiddenCount()} 为 0、已经算赢，调用方应拒绝这样的单词。
+ * 实例不是线程安全的。
+ */
+public class HangmanGameState {
+
+    public static final int MAX_ERRORS = 6; // 最大允许错误次数 (对应小人绘制的6个部分)
+    public static final char HIDDEN = '_';
+
+    /**
+     * 一次猜测的结果
+     */
+    public enum GuessResult {
+        ALREADY_GUESSED,
+        HIT,
+        MISS
+    }
+
+    private char[] secret = new char[16];
+    private boolean[] revealed = new boolean[16];
+    private int length;
+    private int hiddenCount; // 尚未揭示的位置数
+    private int guessedMask; // 已猜过的字母，第 i 位表示 'A' + i
+    private int wrongMask; // 猜错的字母
+    private int errors;
+
+    /**
+     * 用新的秘密单词开始一局 (转换为大写)
+     */
+    public void reset(CharSequence word) {
+        int n = word.length();
+        ensureCapacity(n);
+        for (int i = 0; i < n; i++) {
+            secret[i] = Character.toUpperCase(word.charAt(i));
+        }
+        startGame(n);
+    }
+
+    /**
+     * 用紧凑字节数组中的一个单词开始一局 (每个字母一个字节 'A'-'Z'，见 {@link CompactWordTrie#packWords(int)})
+     */
+    public void reset(byte[] words, int offset, int length) {
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++) {
+            secret[i] = (char) words[offset + i];
+        }
+        startGame(length);
+    }
+
+    private void ensureCapacity(int n) {
+        if (secret.length < n) {
+            secret = new char[Math.max(n, secret.length * 2)];
+            revealed = new boolean[secret.length];
+        }
+    }
+
+    private void startGame(int n) {
+        length = n;
+        hiddenCount = 0;
+        for (int i = 0; i < n; i++) {
+            revealed[i] = !isGuessable(secret[i]);
+            if (!revealed[i]) {
+                hiddenCount++;
+            }
+        }
+        guessedMask = 0;
+        wrongMask = 0;
+        errors = 0;
+    }
+
+    private static boolean isGuessable(char c) {
+        return c >= 'A' && c <= 'Z';
+    }
+
+    /**
+     * 猜一个字母 (与 HangmanGameFX 原来的规则相同: 猜中时揭示所有该字母的位置，猜错时错误次数加 1)
+     * @param letter 字母 (大小写均可)
+     * @return 猜测结果；游戏已结束或不是 A-Z 时视为 {@link GuessResult#ALREADY_GUESSED}
+     */
+    public GuessResult guess(char letter) {
+        letter = Character.toUpperCase(letter);
+        if (isGameOver() || !isGuessable(letter)) {
+            return GuessResult.ALREADY_GUESSED;
+        }
+        int bit = 1 << (letter - 'A');
+        if ((guessedMask & bit) != 0) {
+            return GuessResult.ALREADY_GUESSED;
+        }
+        guessedMask |= bit;
+
+        boolean found = false;
+        for (int i = 0; i < length; i++) {
+            if (secret[i] == letter) {
+                revealed[i] = true;
+                hiddenCount--;
+                found = true;
+            }
+        }
+        if (found) {
+            return GuessResult.HIT;
+        }
+        wrongMask |= bit;
+        errors++;
+        return GuessResult.MISS;
+    }
+
+    /**
+     * 邪恶模式: 把秘密单词换成另一个与已有猜测一致的同长度单词 (已揭示位置和猜错字母保持不变)
+     */
+    public void replaceSecret(CharSequence word) {
+        if (word.length() != length) {
+            throw new IllegalArgumentException("替换的单词长度必须为 " + length + ": " + word);
+        }
+        for (int i = 0; i < length; i++) {
+            secret[i] = Character.toUpperCase(word.charAt(i));
+        }
+    }
+
+    public boolean isWon() {
+        return hiddenCount == 0;
+    }
+
+    public boolean isLost() {
+        return errors >= MAX_ERRORS;
+    }
+
+    public boolean isGameOver() {
+        return isWon() || isLost();
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public int getErrors() {
+        return errors;
+    }
+
+    /**
+     * @return 尚未揭示的位置数
+     */
+    public int getHiddenCount() {
+        return hiddenCount;
+    }
+
+    /**
+     * @return 已猜过的字母，第 i 位表示 'A' + i
+     */
+    public int getGuessedMask() {
+        return guessedMask;
+    }
+
+    /**
+     * @return 猜错的字母，第 i 位表示 'A' + i
+     */
+    public int getWrongMask() {
+        return wrongMask;
+    }
+
+    public boolean isGuessed(char letter) {
+        letter = Character.toUpperCase(letter);
+        return isGuessable(letter) && (guessedMask & (1 << (letter - 'A'))) != 0;
+    }
+
+    public boolean isRevealed(int position) {
+        return revealed[position];
+    }
+
+    /**
+     * @return 位置 position 显示的字符，未揭示时为 {@link #HIDDEN}
+     */
+    public char getDisplayedChar(int position) {
+        return revealed[position] ? secret[position] : HIDDEN;
+    }
+
+    /**
+     * 已猜中的字母在单词中的位置 (只看前 64 个位置)，供求解策略过滤候选单词
+     * @return 第 p 位表示位置 p；字母未猜过或未猜中时返回 0
+     */
+    public long getRevealedPositions(char letter) {
+        letter = Character.toUpperCase(letter);
+        if (!isGuessed(letter)) {
+            return 0;
+        }
+        long mask = 0;
+        for (int i = 0; i < Math.min(length, 64); i++) {
+            if (secret[i] == letter) {
+                mask |= 1L << i;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * @return 当前显示的模式，例如 "P_N_A"
+     */
+    public String getPattern() {
+        char[] pattern = new char[length];
+        for (int i = 0; i < length; i++) {
+            pattern[i] = getDisplayedChar(i);
+        }
+        return new String(pattern);
+    }
+
+    /**
+     * @return 秘密单词 (显示答案时使用)
+     */
+    public String getSecretWord() {
+        return new String(secret, 0, length);
+    }
+}
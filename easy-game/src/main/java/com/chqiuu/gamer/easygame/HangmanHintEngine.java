@@ -0,0 +1,152 @@
+package com.chqiuu.gamer.easygame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * 刽子手提示引擎: 在当前所有可能的候选单词上为未猜过的字母打分
+ * <p>
+ * 对每个字母统计 "含有该字母的候选数" 和 "每个位置为该字母的候选数"，
+ * 用各位置出现与否的二元熵之和估计猜这个字母能得到的信息量 (比特)。
+ * 该值是按位置掩码划分单词家族的真实熵的上界，在各位置相互独立时相等；
+ * 计数全部来自 {@link HangmanCandidateIndex} 的位图 popcount，候选较多时按块并行统计。
+ */
+public class HangmanHintEngine {
+
+    private static final int PARALLEL_BLOCKS = 1024; // 每个并行任务处理的块数 (每块 64 个单词)
+
+    /**
+     * 一个字母的得分
+     */
+    public static final class LetterScore {
+        private final char letter;
+        private final int hits;
+        private final int candidates;
+        private final double information;
+
+        LetterScore(char letter, int hits, int candidates, double information) {
+            this.letter = letter;
+            this.hits = hits;
+            this.candidates = candidates;
+            this.information = information;
+        }
+
+        public char getLetter() {
+            return letter;
+        }
+
+        /**
+         * @return 含有该字母的候选单词数
+         */
+        public int getHits() {
+            return hits;
+        }
+
+        /**
+         * @return 该字母在单词中的概率 (即猜对的概率)
+         */
+        public double getHitProbability() {
+            return candidates == 0 ? 0 : (double) hits / candidates;
+        }
+
+        /**
+         * @return 猜这个字母的期望信息量 (比特)
+         */
+        public double getInformation() {
+            return information;
+        }
+    }
+
+    private HangmanHintEngine() {
+    }
+
+    /**
+     * 为所有未猜过的字母打分并排序 (信息量高的在前，相同时猜对概率高的在前)
+     * @param candidates 已按当前局面过滤好的候选索引
+     * @param guessedMask 已猜过的字母，第 i 位表示 'A' + i
+     */
+    public static List<LetterScore> rank(HangmanCandidateIndex candidates, int guessedMask) {
+        return rank(candidates, guessedMask, true);
+    }
+
+    /**
+     * @param parallel 候选较多时是否按块并行统计 (调用方自己已经按线程并行时传 false)
+     * @see #rank(HangmanCandidateIndex, int)
+     */
+    public static List<LetterScore> rank(HangmanCandidateIndex candidates, int guessedMask, boolean parallel) {
+        int[] counts = countLetters(candidates, parallel);
+        int n = candidates.getAliveCount();
+        int length = candidates.getLength();
+        int stride = length + 1;
+        List<LetterScore> scores = new ArrayList<>();
+        for (int letter = 0; letter < CompactWordTrie.ALPHABET_SIZE; letter++) {
+            if ((guessedMask & (1 << letter)) != 0) {
+                continue;
+            }
+            double information = 0;
+            for (int p = 0; p < length; p++) {
+                information += binaryEntropy(counts[letter * stride + 1 + p], n);
+            }
+            scores.add(new LetterScore((char) ('A' + letter), counts[letter * stride], n, information));
+        }
+        scores.sort((a, b) -> a.information != b.information
+                ? Double.compare(b.information, a.information)
+                : Integer.compare(b.hits, a.hits));
+        return scores;
+    }
+
+    /**
+     * 选出在候选单词中出现概率最高的未猜字母 (最不容易猜错)
+     * @return 字母；没有未猜字母时返回 0
+     */
+    public static char mostLikelyLetter(HangmanCandidateIndex candidates, int guessedMask, boolean parallel) {
+        int[] counts = countLetters(candidates, parallel);
+        int stride = candidates.getLength() + 1;
+        char best = 0;
+        int bestHits = -1;
+        for (int letter = 0; letter < CompactWordTrie.ALPHABET_SIZE; letter++) {
+            if ((guessedMask & (1 << letter)) == 0 && counts[letter * stride] > bestHits) {
+                bestHits = counts[letter * stride];
+                best = (char) ('A' + letter);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return 每个字母 (length + 1) 个计数，布局见 {@link HangmanCandidateIndex#accumulateLetterCounts}
+     */
+    static int[] countLetters(HangmanCandidateIndex candidates, boolean parallel) {
+        int blocks = candidates.getActiveBlockCount();
+        int size = CompactWordTrie.ALPHABET_SIZE * (candidates.getLength() + 1);
+        if (!parallel || blocks <= PARALLEL_BLOCKS) {
+            int[] counts = new int[size];
+            candidates.accumulateLetterCounts(0, blocks, counts);
+            return counts;
+        }
+        int tasks = (blocks + PARALLEL_BLOCKS - 1) / PARALLEL_BLOCKS;
+        return IntStream.range(0, tasks).parallel()
+                .mapToObj(task -> {
+                    int[] counts = new int[size];
+                    candidates.accumulateLetterCounts(task * PARALLEL_BLOCKS,
+                            Math.min(blocks, (task + 1) * PARALLEL_BLOCKS), counts);
+                    return counts;
+                })
+                .reduce((a, b) -> {
+                    for (int i = 0; i < size; i++) {
+                        a[i] += b[i];
+                    }
+                    return a;
+                })
+                .orElseGet(() -> new int[size]);
+    }
+
+    private static double binaryEntropy(int k, int n) {
+        if (k == 0 || k == n) {
+            return 0;
+        }
+        double p = (double) k / n;
+        return -(p * Math.log(p) + (1 - p) * Math.log(1 - p)) / Math.log(2);
+    }
+}
@@ -0,0 +1,165 @@
+package com.chqiuu.gamer.easygame;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * 刽子手求解基准: 用词库中的每一个单词分别与各个猜词策略对局
+ * <p>
+ * 规则与 HangmanGameFX 完全相同 (共用 {@link HangmanGameState}，最多错 6 次)。
+ * 单词按长度打包成字节数组后分块交给线程池，每个线程复用自己的局面对象和策略实例，
+ * 结束后输出每种策略的胜率、平均猜错次数和每秒对局数，用来比较词库难度和策略强弱。
+ * <p>
+ * 用法: HangmanSolverBenchmark [--dir 词库目录] [--category 分类1,分类2] [--strategies frequency,likely,information]
+ * [--threads 线程数]
+ * <p>
+ * 词库目录的格式见 {@link MappedWordDictionary}，默认使用 ~/.easy-game/hangman；只统计由 A-Z 组成的单词。
+ */
+public class HangmanSolverBenchmark {
+
+    private static final int WORDS_PER_CHUNK = 2000; // 每个任务连续求解的单词数
+
+    /**
+     * 一块单词的统计结果
+     */
+    private static final class ChunkResult {
+        long games;
+        long wins;
+        long wrongGuesses;
+    }
+
+    private final int threads;
+
+    public HangmanSolverBenchmark(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * 用一种策略求解词库中的所有单词并打印结果
+     * @param strategies 每次调用返回一个新的策略实例 (每个线程一个)
+     */
+    public void run(String category, CompactWordTrie words, Supplier<HangmanStrategy> strategies)
+            throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "hangman-solver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ThreadLocal<HangmanStrategy> threadStrategy = ThreadLocal.withInitial(strategies);
+        ThreadLocal<HangmanGameState> threadState = ThreadLocal.withInitial(HangmanGameState::new);
+
+        long start = System.nanoTime();
+        List<Future<ChunkResult>> futures = new ArrayList<>();
+        for (int length = 1; length <= CompactWordTrie.MAX_WORD_LENGTH; length++) {
+            if (!words.hasLength(length)) {
+                continue;
+            }
+            byte[] packed = words.packWords(length);
+            int count = packed.length / length;
+            for (int from = 0; from < count; from += WORDS_PER_CHUNK) {
+                int wordLength = length;
+                int first = from;
+                int last = Math.min(count, from + WORDS_PER_CHUNK);
+                futures.add(executor.submit(() ->
+                        solveChunk(packed, wordLength, first, last, threadStrategy.get(), threadState.get())));
+            }
+        }
+
+        ChunkResult total = new ChunkResult();
+        try {
+            for (Future<ChunkResult> future : futures) {
+                ChunkResult result = future.get();
+                total.games += result.games;
+                total.wins += result.wins;
+                total.wrongGuesses += result.wrongGuesses;
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("求解失败", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        String name = strategies.get().getName();
+        System.out.printf("%-16s%-14s%,12d%10.2f%%%12.3f%,16.0f%n", category, name, total.games,
+                total.games == 0 ? 0 : 100.0 * total.wins / total.games,
+                total.games == 0 ? 0 : (double) total.wrongGuesses / total.games,
+                total.games / seconds);
+    }
+
+    /**
+     * 依次求解 packed 中第 [from, to) 个单词
+     */
+    private static ChunkResult solveChunk(byte[] packed, int length, int from, int to,
+                                          HangmanStrategy strategy, HangmanGameState state) {
+        ChunkResult result = new ChunkResult();
+        for (int i = from; i < to; i++) {
+            state.reset(packed, i * length, length);
+            strategy.newGame(state);
+            while (!state.isGameOver()) {
+                if (state.guess(strategy.nextGuess(state)) == HangmanGameState.GuessResult.ALREADY_GUESSED) {
+                    throw new IllegalStateException(strategy.getName() + " 策略猜了重复或无效的字母");
+                }
+            }
+            result.games++;
+            if (state.isWon()) {
+                result.wins++;
+            }
+            result.wrongGuesses += state.getErrors();
+        }
+        return result;
+    }
+
+    /**
+     * @return 按名称创建的策略工厂 (同一工厂创建的候选策略共享位图索引)
+     */
+    private static Supplier<HangmanStrategy> strategyFactory(String name, CompactWordTrie words) {
+        switch (name) {
+            case "frequency":
+                return FrequencyHangmanStrategy::new;
+            case "likely":
+            case "information": {
+                CandidateHangmanStrategy prototype = new CandidateHangmanStrategy(words, name.equals("information"));
+                return () -> new CandidateHangmanStrategy(prototype);
+            }
+            default:
+                throw new IllegalArgumentException("未知的策略: " + name);
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        CommandLine options = CommandLine.parse(args, "HangmanSolverBenchmark [--dir 词库目录] [--category 分类1,分类2]"
+                + " [--strategies frequency,likely,information] [--threads N]", "dir", "category", "strategies", "threads");
+        if (options == null) {
+            return;
+        }
+        Path directory = options.getPath("dir", MappedWordDictionary.defaultPath());
+        String categorySpec = options.get("category", null);
+        String strategySpec = options.get("strategies", "frequency,likely,information");
+        int threads = options.getInt("threads", Runtime.getRuntime().availableProcessors());
+
+        MappedWordDictionary dictionary = MappedWordDictionary.open(directory);
+        List<String> categories = categorySpec == null ? dictionary.getCategories() : List.of(categorySpec.split(","));
+        if (categories.isEmpty()) {
+            System.out.println("词库目录中没有分类文件 (*.txt): " + directory);
+            return;
+        }
+
+        HangmanSolverBenchmark benchmark = new HangmanSolverBenchmark(threads);
+        System.out.printf("词库 %s, 线程 %d%n", directory, threads);
+        System.out.printf("%-16s%-14s%12s%11s%12s%16s%n", "分类", "策略", "单词数", "胜率", "平均猜错", "每秒单词数");
+        for (String category : categories) {
+            CompactWordTrie words = dictionary.getTrie(category.trim());
+            for (String name : strategySpec.split(",")) {
+                benchmark.run(category.trim(), words, strategyFactory(name.trim().toLowerCase(), words));
+            }
+        }
+    }
+}
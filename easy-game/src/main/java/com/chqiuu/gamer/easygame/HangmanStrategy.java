@@ -0,0 +1,28 @@
+package com.chqiuu.gamer.easygame;
+
+/**
+ * 刽子手猜词策略的通用接口
+ * <p>
+ * 实现类可以持有候选集合等内部状态，因此同一个实例不保证线程安全，
+ * 多线程求解时每个线程使用自己的实例。
+ */
+public interface HangmanStrategy {
+
+    /**
+     * 新的一局开始时调用 (state 已经重置)
+     */
+    default void newGame(HangmanGameState state) {
+    }
+
+    /**
+     * 选择下一个要猜的字母
+     * @param state 当前局面，实现类不得修改它
+     * @return 尚未猜过的字母 'A'-'Z'
+     */
+    char nextGuess(HangmanGameState state);
+
+    /**
+     * @return 显示给玩家的名称
+     */
+    String getName();
+}
@@ -0,0 +1,83 @@
+package com.chqiuu.gamer.easygame;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+/**
+ * {@link IdleGeneratorEngine} 的性能测试: 每秒计时的开销和购买后重新累加总产量的开销与设施种数的关系
+ * <p>
+ * 计时只读取缓存的总产量，开销应当与设施的种数无关；购买一台设施后的下一次读取重新累加，与种数成正比。
+ * <p>
+ * 用法: IdleGeneratorBenchmark [--generators 10,100,1000,10000] [--ticks N]
+ */
+public final class IdleGeneratorBenchmark {
+
+    private IdleGeneratorBenchmark() {
+    }
+
+    /**
+     * 生成有 n 种设施的定义，每种设施有一个翻倍的倍率升级
+     */
+    private static IdleGeneratorEngine synthetic(int n) throws IOException {
+        StringBuilder definition = new StringBuilder("generators=");
+        for (int i = 0; i < n; i++) {
+            definition.append(i > 0 ? "," : "").append('g').append(i);
+        }
+        definition.append("\nmultipliers=");
+        for (int i = 0; i < n; i++) {
+            definition.append(i > 0 ? "," : "").append('m').append(i);
+        }
+        definition.append('\n');
+        for (int i = 0; i < n; i++) {
+            definition.append("generator.g").append(i).append(".cost=").append(10 + i * 7).append('\n')
+                    .append("generator.g").append(i).append(".production=").append(1 + i).append('\n')
+                    .append("multiplier.m").append(i).append(".cost=").append(100 + i).append('\n')
+                    .append("multiplier.m").append(i).append(".target=g").append(i).append('\n')
+                    .append("multiplier.m").append(i).append(".factor=2\n");
+        }
+        return IdleGeneratorEngine.load(new StringReader(definition.toString()));
+    }
+
+    public static void main(String[] args) throws IOException {
+        CommandLine options = CommandLine.parse(args, "IdleGeneratorBenchmark [--generators N[,N...]] [--ticks N]",
+                "generators", "ticks");
+        if (options == null) {
+            return;
+        }
+        int[] sizes = options.getInts("generators", new int[]{10, 100, 1000, 10_000});
+        int ticks = options.getInt("ticks", 10_000_000);
+
+        System.out.printf("%10s%14s%14s%18s%n", "设施", "每次计时", "购买并累加", "每秒产量");
+        for (int round = 0; round < 2; round++) { // 第一轮预热 JIT
+            for (int n : sizes) {
+                IdleGeneratorEngine engine = synthetic(n);
+                IdleNumber points = new IdleNumber(1e30);
+                for (int i = 0; i < n; i++) {
+                    for (int k = 0; k < 5; k++) {
+                        engine.buyGenerator(i, points);
+                    }
+                    engine.buyMultiplier(i, points);
+                }
+                IdleNumber production = new IdleNumber(engine.getProductionPerSecond());
+                points.setZero();
+                long start = System.nanoTime();
+                for (int t = 0; t < ticks; t++) {
+                    points.add(engine.getProductionPerSecond()); // 与 ClickerIdleGame.tick 相同
+                }
+                double tickNanos = (double) (System.nanoTime() - start) / ticks;
+                // 每次购买一台 (轮流买各种设施) 后读取一次总产量，点数足够多，不会买不起
+                int purchases = Math.max(1, 10_000_000 / n);
+                points.setPower(10, 1e9);
+                start = System.nanoTime();
+                for (int r = 0; r < purchases; r++) {
+                    engine.buyGenerator(r % n, points);
+                    engine.getProductionPerSecond();
+                }
+                double purchaseNanos = (double) (System.nanoTime() - start) / purchases;
+                if (round == 1) {
+                    System.out.printf("%,10d%11.1f ns%11.0f ns%18s%n", n, tickNanos, purchaseNanos, production);
+                }
+            }
+        }
+    }
+}
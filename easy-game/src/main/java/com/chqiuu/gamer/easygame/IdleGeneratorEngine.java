@@ -0,0 +1,395 @@
+package com.chqiuu.gamer.easygame;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * 点击放置游戏的生产设施和倍率升级，从定义文件载入
+ * <p>
+ * 定义是 UTF-8 的 properties 文件 (默认是类路径上的 {@value #DEFAULT_RESOURCE}):
+ * <pre>
+ * generators=cursor,farm,...               设施的 id，按顺序显示
+ * generator.&lt;id&gt;.name=自动点击器
+ * generator.&lt;id&gt;.cost=15                 第一台的成本
+ * generator.&lt;id&gt;.costMultiplier=1.15     每买一台成本增加的倍数 (默认 1.15)
+ * generator.&lt;id&gt;.production=1           每台每秒的产量
+ * multipliers=cursor-2x,all-2x,...         倍率升级的 id (每个只能买一次)
+ * multiplier.&lt;id&gt;.name=强化点击器
+ * multiplier.&lt;id&gt;.cost=1000
+ * multiplier.&lt;id&gt;.target=cursor         作用的设施，* 表示所有设施
+ * multiplier.&lt;id&gt;.factor=2              产量的倍数
+ * </pre>
+ * 所有定义和状态都按 "结构的数组" 存放在基本类型数组中 (第 i 种设施的数量是 counts[i]，每台产量是 baseProduction[i]...)，
+ * 不为每种设施创建对象。每秒的总产量缓存在 {@link #getProductionPerSecond()} 中，只有购买之后
+ * (数量或倍率变化) 才在一个紧凑的循环中重新累加一次，每秒的计时只读取缓存，与设施的数量无关。
+ * 产量和倍率都是整数时总产量也是精确的整数 (小于 10^15 时)。实例不是线程安全的。
+ * 计时开销与设施数量的关系见 {@link IdleGeneratorBenchmark}。
+ */
+public final class IdleGeneratorEngine {
+
+    /** 默认定义文件 (与本类在同一个包中) */
+    public static final String DEFAULT_RESOURCE = "idle-generators.properties";
+
+    private static final double DEFAULT_COST_MULTIPLIER = 1.15;
+    private static final int ALL_GENERATORS = -1; // 倍率升级作用于所有设施
+
+    // --- 设施的定义 ---
+    private final String[] generatorIds;
+    private final String[] generatorNames;
+    private final double[] baseCosts;
+    private final double[] costMultipliers;
+    private final double[] baseProduction; // 每台每秒的产量 (未乘倍率)
+    // --- 倍率升级的定义 ---
+    private final String[] multiplierIds;
+    private final String[] multiplierNames;
+    private final double[] multiplierCosts;
+    private final int[] multiplierTargets; // 设施的下标，ALL_GENERATORS 表示所有设施
+    private final double[] multiplierFactors;
+
+    // --- 状态 ---
+    private final long[] counts; // 每种设施拥有的数量
+    private final double[] generatorFactors; // 每种设施已买下的倍率之积
+    private double globalFactor = 1; // 作用于所有设施的倍率之积
+    private final boolean[] multiplierBought;
+
+    private final IdleNumber production = new IdleNumber(); // 缓存的每秒总产量
+    private boolean dirty = true; // 购买后需要重新累加
+    private final IdleNumber scratch = new IdleNumber(); // 计算用的临时数值
+
+    private IdleGeneratorEngine(String[] generatorIds, String[] generatorNames, double[] baseCosts,
+                                double[] costMultipliers, double[] baseProduction, String[] multiplierIds,
+                                String[] multiplierNames, double[] multiplierCosts, int[] multiplierTargets,
+                                double[] multiplierFactors) {
+        this.generatorIds = generatorIds;
+        this.generatorNames = generatorNames;
+        this.baseCosts = baseCosts;
+        this.costMultipliers = costMultipliers;
+        this.baseProduction = baseProduction;
+        this.multiplierIds = multiplierIds;
+        this.multiplierNames = multiplierNames;
+        this.multiplierCosts = multiplierCosts;
+        this.multiplierTargets = multiplierTargets;
+        this.multiplierFactors = multiplierFactors;
+        this.counts = new long[generatorIds.length];
+        this.generatorFactors = new double[generatorIds.length];
+        Arrays.fill(generatorFactors, 1);
+        this.multiplierBought = new boolean[multiplierIds.length];
+    }
+
+    /**
+     * @return 用类路径上默认定义创建的新引擎 (状态是可变的，每次返回新实例)
+     * @throws UncheckedIOException 定义文件缺失或无法读取
+     */
+    public static IdleGeneratorEngine loadDefault() {
+        try (InputStream in = IdleGeneratorEngine.class.getResourceAsStream(DEFAULT_RESOURCE)) {
+            if (in == null) {
+                throw new IOException("找不到定义文件 " + DEFAULT_RESOURCE);
+            }
+            return load(new InputStreamReader(in, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("无法载入生产设施定义", e);
+        }
+    }
+
+    /**
+     * 从 properties 格式的定义载入设施和倍率升级
+     * @throws IllegalArgumentException 定义不正确
+     */
+    public static IdleGeneratorEngine load(Reader reader) throws IOException {
+        Properties properties = new Properties();
+        properties.load(reader);
+
+        String[] generatorIds = list(properties, "generators", true).toArray(new String[0]);
+        int n = generatorIds.length;
+        String[] generatorNames = new String[n];
+        double[] baseCosts = new double[n];
+        double[] costMultipliers = new double[n];
+        double[] baseProduction = new double[n];
+        Map<String, Integer> indexById = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            String id = generatorIds[i];
+            String prefix = "generator." + id + ".";
+            generatorNames[i] = properties.getProperty(prefix + "name", id);
+            baseCosts[i] = number(properties, prefix + "cost", Double.NaN);
+            costMultipliers[i] = number(properties, prefix + "costMultiplier", DEFAULT_COST_MULTIPLIER);
+            baseProduction[i] = number(properties, prefix + "production", Double.NaN);
+            if (!(baseCosts[i] > 0) || !(costMultipliers[i] >= 1) || !(baseProduction[i] >= 0)) {
+                throw new IllegalArgumentException("设施 " + id + " 的成本或产量不正确");
+            }
+            if (indexById.put(id, i) != null) {
+                throw new IllegalArgumentException("设施重复: " + id);
+            }
+        }
+
+        String[] multiplierIds = list(properties, "multipliers", false).toArray(new String[0]);
+        int m = multiplierIds.length;
+        String[] multiplierNames = new String[m];
+        double[] multiplierCosts = new double[m];
+        int[] multiplierTargets = new int[m];
+        double[] multiplierFactors = new double[m];
+        for (int j = 0; j < m; j++) {
+            String id = multiplierIds[j];
+            String prefix = "multiplier." + id + ".";
+            multiplierNames[j] = properties.getProperty(prefix + "name", id);
+            String target = properties.getProperty(prefix + "target", "*").trim();
+            Integer targetIndex = target.equals("*") ? Integer.valueOf(ALL_GENERATORS) : indexById.get(target);
+            if (targetIndex == null) {
+                throw new IllegalArgumentException("倍率升级 " + id + " 作用的设施不存在: " + target);
+            }
+            multiplierTargets[j] = targetIndex;
+            multiplierCosts[j] = number(properties, prefix + "cost", Double.NaN);
+            multiplierFactors[j] = number(properties, prefix + "factor", Double.NaN);
+            if (!(multiplierCosts[j] > 0) || !(multiplierFactors[j] > 0)) {
+                throw new IllegalArgumentException("倍率升级 " + id + " 的成本或倍数不正确");
+            }
+        }
+        return new IdleGeneratorEngine(generatorIds, generatorNames, baseCosts, costMultipliers, baseProduction,
+                multiplierIds, multiplierNames, multiplierCosts, multiplierTargets, multiplierFactors);
+    }
+
+    private static double number(Properties properties, String key, double defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank()) {
+            if (Double.isNaN(defaultValue)) {
+                throw new IllegalArgumentException("缺少定义项: " + key);
+            }
+            return defaultValue;
+        }
+        return Double.parseDouble(value.trim());
+    }
+
+    private static List<String> list(Properties properties, String key, boolean required) {
+        List<String> result = new ArrayList<>();
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank()) {
+            if (required) {
+                throw new IllegalArgumentException("缺少定义项: " + key);
+            }
+            return result;
+        }
+        for (String part : value.split(",")) {
+            if (!part.isBlank()) {
+                result.add(part.trim());
+            }
+        }
+        return result;
+    }
+
+    // --- 产量 ---
+
+    /**
+     * @return 每秒的总产量 (缓存，只在购买后重新计算；不要修改)
+     */
+    public IdleNumber getProductionPerSecond() {
+        if (dirty) {
+            // 所有设施的产量在一个循环中累加，只读基本类型数组；每一项用 IdleNumber 相乘，超过 1e308 也不会溢出
+            production.setZero();
+            for (int i = 0; i < counts.length; i++) {
+                production.add(scratch.set(baseProduction[i]).multiply(counts[i]).multiply(generatorFactors[i]));
+            }
+            production.multiply(globalFactor);
+            dirty = false;
+        }
+        return production;
+    }
+
+    /**
+     * @return 第 i 种设施每秒的总产量，包括所有倍率 (写入 out)
+     */
+    public IdleNumber getProduction(int i, IdleNumber out) {
+        return out.set(baseProduction[i]).multiply(counts[i]).multiply(generatorFactors[i]).multiply(globalFactor);
+    }
+
+    // --- 购买 ---
+
+    /**
+     * @return 第 i 种设施下一台的成本 base × r^数量，取整 (写入 out)
+     */
+    public IdleNumber getCost(int i, IdleNumber out) {
+        return out.setPower(costMultipliers[i], counts[i]).multiply(baseCosts[i]).floor();
+    }
+
+    /**
+     * 用 points 购买一台第 i 种设施
+     * @return 点数不足时返回 false
+     */
+    public boolean buyGenerator(int i, IdleNumber points) {
+        if (points.compareTo(getCost(i, scratch)) < 0) {
+            return false;
+        }
+        points.subtract(scratch);
+        counts[i]++;
+        dirty = true;
+        return true;
+    }
+
+    /**
+     * 用 points 购买第 j 个倍率升级
+     * @return 已经买过或点数不足时返回 false
+     */
+    public boolean buyMultiplier(int j, IdleNumber points) {
+        if (multiplierBought[j] || points.compareTo(scratch.set(multiplierCosts[j])) < 0) {
+            return false;
+        }
+        points.subtract(scratch);
+        multiplierBought[j] = true;
+        applyMultiplier(j);
+        return true;
+    }
+
+    private void applyMultiplier(int j) {
+        if (multiplierTargets[j] == ALL_GENERATORS) {
+            globalFactor *= multiplierFactors[j];
+        } else {
+            generatorFactors[multiplierTargets[j]] *= multiplierFactors[j];
+        }
+        dirty = true;
+    }
+
+    // --- 查询 ---
+
+    public int getGeneratorCount() {
+        return counts.length;
+    }
+
+    public String getGeneratorId(int i) {
+        return generatorIds[i];
+    }
+
+    public String getGeneratorName(int i) {
+        return generatorNames[i];
+    }
+
+    /**
+     * @return 拥有的第 i 种设施的数量
+     */
+    public long getCount(int i) {
+        return counts[i];
+    }
+
+    public int getMultiplierCount() {
+        return multiplierIds.length;
+    }
+
+    public String getMultiplierName(int j) {
+        return multiplierNames[j];
+    }
+
+    public double getMultiplierCost(int j) {
+        return multiplierCosts[j];
+    }
+
+    public double getMultiplierFactor(int j) {
+        return multiplierFactors[j];
+    }
+
+    /**
+     * @return 倍率升级作用的设施名称，作用于所有设施时为 null
+     */
+    public String getMultiplierTargetName(int j) {
+        return multiplierTargets[j] == ALL_GENERATORS ? null : generatorNames[multiplierTargets[j]];
+    }
+
+    public boolean isMultiplierBought(int j) {
+        return multiplierBought[j];
+    }
+
+    // --- 存档: 按 id 保存 (定义中增删设施后旧存档仍然可用) ---
+
+    /**
+     * @return {@link #writeState(ByteBuffer)} 需要的字节数
+     */
+    int stateSize() {
+        int size = 8;
+        for (int i = 0; i < counts.length; i++) {
+            size += 2 + generatorIds[i].getBytes(StandardCharsets.UTF_8).length + 8;
+        }
+        for (int j = 0; j < multiplierIds.length; j++) {
+            if (multiplierBought[j]) {
+                size += 2 + multiplierIds[j].getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 写入设施数量和已买下的倍率升级: 设施数 int | (id, 数量 long)... | 升级数 int | id...
+     */
+    void writeState(ByteBuffer out) {
+        out.putInt(counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            putString(out, generatorIds[i]);
+            out.putLong(counts[i]);
+        }
+        int bought = 0;
+        for (boolean b : multiplierBought) {
+            if (b) {
+                bought++;
+            }
+        }
+        out.putInt(bought);
+        for (int j = 0; j < multiplierIds.length; j++) {
+            if (multiplierBought[j]) {
+                putString(out, multiplierIds[j]);
+            }
+        }
+    }
+
+    /**
+     * 读取 {@link #writeState(ByteBuffer)} 写入的状态 (定义中已经没有的 id 被忽略)
+     * @throws java.nio.BufferUnderflowException 数据被截断
+     */
+    void readState(ByteBuffer in) {
+        Map<String, Integer> generatorIndex = indexOf(generatorIds);
+        Map<String, Integer> multiplierIndex = indexOf(multiplierIds);
+        Arrays.fill(counts, 0);
+        Arrays.fill(generatorFactors, 1);
+        globalFactor = 1;
+        Arrays.fill(multiplierBought, false);
+        for (int k = in.getInt(); k > 0; k--) {
+            Integer i = generatorIndex.get(getString(in));
+            long count = in.getLong();
+            if (i != null) {
+                counts[i] = Math.max(0, count);
+            }
+        }
+        for (int k = in.getInt(); k > 0; k--) {
+            Integer j = multiplierIndex.get(getString(in));
+            if (j != null && !multiplierBought[j]) {
+                multiplierBought[j] = true;
+                applyMultiplier(j);
+            }
+        }
+        dirty = true;
+    }
+
+    private static Map<String, Integer> indexOf(String[] ids) {
+        Map<String, Integer> result = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            result.put(ids[i], i);
+        }
+        return result;
+    }
+
+    private static void putString(ByteBuffer out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.putShort((short) bytes.length).put(bytes);
+    }
+
+    private static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,373 @@
+package com.chqiuu.gamer.easygame;
+
+/**
+ * 放置类游戏用的大数: 值 = 尾数 × 10^指数
+ * <p>
+ * 尾数是 double，指数是非负的 long。小于 10^15 的值指数为 0，尾数就是值本身，
+ * 整数的加减与 long 一样精确；更大的值把尾数规格化到 [10^14, 10^15)，保留约 15 位有效数字，
+ * 指数可以大到 long 的范围 (远远超过 double 的 1e308)。
+ * <p>
+ * 实例是可变的: add、multiply 等运算直接修改自身并返回自身，便于链式调用，不分配对象，
+ * 每秒的计时和按钮处理中不需要 BigDecimal。实例不是线程安全的。
+ * 显示格式见 {@link #appendTo(StringBuilder)}: "123,456"、"1.23M"、"1.23e45"。
+ */
+public final class IdleNumber implements Comparable<IdleNumber> {
+
+    private static final double LIMIT = 1e15; // 尾数的上界 (不含)
+    private static final int DIGITS = 14; // 规格化后尾数的十进制指数
+    private static final int NEGLIGIBLE = 18; // 指数相差超过它时，较小的一方对结果没有影响
+    private static final double[] POW10 = new double[309];
+    // 大数的后缀，第 i 个表示 10^(3i)
+    private static final String[] SUFFIXES = {"", "K", "M", "B", "T", "Qa", "Qi", "Sx", "Sp", "Oc", "No", "Dc"};
+
+    static {
+        for (int i = 0; i < POW10.length; i++) {
+            POW10[i] = Double.parseDouble("1e" + i); // 每一项都是最接近的 double
+        }
+    }
+
+    private double mantissa;
+    private long exponent;
+
+    public IdleNumber() {
+    }
+
+    public IdleNumber(double value) {
+        set(value);
+    }
+
+    public IdleNumber(IdleNumber other) {
+        set(other);
+    }
+
+    // --- 赋值 ---
+
+    public IdleNumber set(IdleNumber other) {
+        mantissa = other.mantissa;
+        exponent = other.exponent;
+        return this;
+    }
+
+    /**
+     * @throws IllegalArgumentException value 不是有限数
+     */
+    public IdleNumber set(double value) {
+        return set(value, 0);
+    }
+
+    /**
+     * 设为 mantissa × 10^exponent (例如读取保存的 {@link #getMantissa()} 和 {@link #getExponent()})
+     * @throws IllegalArgumentException mantissa 不是有限数或 exponent 为负数
+     */
+    public IdleNumber set(double mantissa, long exponent) {
+        if (!Double.isFinite(mantissa) || exponent < 0) {
+            throw new IllegalArgumentException("不正确的数值: " + mantissa + "e" + exponent);
+        }
+        this.mantissa = mantissa;
+        this.exponent = exponent;
+        return normalize();
+    }
+
+    /**
+     * 设为 base^power (base 为正数)，结果超过 10^15 时用对数计算，不会溢出
+     */
+    public IdleNumber setPower(double base, double power) {
+        double log = power * Math.log10(base);
+        if (log < DIGITS) {
+            mantissa = Math.pow(base, power); // 小的值与直接计算完全相同
+            exponent = 0;
+            return this;
+        }
+        if (!(log < Long.MAX_VALUE)) {
+            throw new ArithmeticException("数值超出范围: " + base + "^" + power);
+        }
+        long whole = (long) Math.floor(log);
+        exponent = whole - DIGITS;
+        mantissa = Math.pow(10, log - whole + DIGITS);
+        return normalize(); // 舍入可能使尾数刚好等于 10^15
+    }
+
+    public IdleNumber setZero() {
+        mantissa = 0;
+        exponent = 0;
+        return this;
+    }
+
+    // --- 运算 (都修改自身并返回自身) ---
+
+    public IdleNumber add(IdleNumber other) {
+        return add(other.mantissa, other.exponent);
+    }
+
+    public IdleNumber add(double value) {
+        if (Math.abs(value) >= LIMIT) {
+            long shift = scaleOf(value);
+            return add(value / pow10(shift), shift);
+        }
+        return add(value, 0);
+    }
+
+    public IdleNumber subtract(IdleNumber other) {
+        return add(-other.mantissa, other.exponent);
+    }
+
+    public IdleNumber multiply(IdleNumber other) {
+        mantissa *= other.mantissa; // 两个尾数都小于 10^15，乘积不会溢出
+        exponent += other.exponent;
+        return normalize();
+    }
+
+    /**
+     * @throws IllegalArgumentException factor 不是有限数
+     */
+    public IdleNumber multiply(double factor) {
+        if (!Double.isFinite(factor)) {
+            throw new IllegalArgumentException("不正确的倍数: " + factor);
+        }
+        if (Math.abs(factor) >= LIMIT) {
+            long shift = scaleOf(factor);
+            mantissa *= factor / pow10(shift);
+            exponent += shift;
+        } else {
+            mantissa *= factor;
+        }
+        return normalize();
+    }
+
+    /**
+     * 舍去小数部分 (向负无穷取整)；大于 10^15 的值本来就是整数
+     */
+    public IdleNumber floor() {
+        if (exponent == 0) {
+            mantissa = Math.floor(mantissa);
+        }
+        return this;
+    }
+
+    /**
+     * 保留较大的一个
+     */
+    public IdleNumber max(IdleNumber other) {
+        return compareTo(other) < 0 ? set(other) : this;
+    }
+
+    private IdleNumber add(double otherMantissa, long otherExponent) {
+        if (otherMantissa == 0) {
+            return this;
+        }
+        if (mantissa == 0) {
+            mantissa = otherMantissa;
+            exponent = otherExponent;
+            return normalize();
+        }
+        long difference = exponent - otherExponent;
+        if (difference >= 0) {
+            if (difference <= NEGLIGIBLE) {
+                mantissa += otherMantissa / POW10[(int) difference];
+            }
+        } else if (difference >= -NEGLIGIBLE) {
+            mantissa = otherMantissa + mantissa / POW10[(int) -difference];
+            exponent = otherExponent;
+        } else {
+            mantissa = otherMantissa;
+            exponent = otherExponent;
+        }
+        return normalize();
+    }
+
+    /**
+     * 规格化: 指数为 0 且尾数小于 10^15，或者尾数在 [10^14, 10^15) 之间 (大小相同的数表示唯一)
+     */
+    private IdleNumber normalize() {
+        double abs = Math.abs(mantissa);
+        if (abs >= LIMIT) {
+            if (abs < LIMIT * 10) { // 加法进位，最常见的情况
+                mantissa /= 10;
+                exponent++;
+            } else {
+                long shift = scaleOf(mantissa);
+                mantissa /= pow10(shift);
+                exponent += shift;
+            }
+            if (Math.abs(mantissa) >= LIMIT) { // 除法的舍入
+                mantissa /= 10;
+                exponent++;
+            }
+        } else if (exponent > 0 && abs < LIMIT / 10) {
+            if (abs == 0) {
+                exponent = 0;
+                return this;
+            }
+            long shift = Math.min(exponent, DIGITS - (long) Math.floor(Math.log10(abs))); // 减法后变小
+            mantissa *= pow10(shift);
+            exponent -= shift;
+            if (exponent > 0 && Math.abs(mantissa) >= LIMIT) {
+                mantissa /= 10;
+                exponent++;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @return 把 |value| 缩小到 [10^14, 10^15) 需要除以的 10 的幂次
+     */
+    private static long scaleOf(double value) {
+        return Math.max(0, (long) Math.floor(Math.log10(Math.abs(value))) - DIGITS);
+    }
+
+    private static double pow10(long power) {
+        return power < POW10.length ? POW10[(int) power] : Math.pow(10, power);
+    }
+
+    // --- 查询 ---
+
+    @Override
+    public int compareTo(IdleNumber other) {
+        int sign = signum();
+        int otherSign = other.signum();
+        if (sign != otherSign) {
+            return Integer.compare(sign, otherSign);
+        }
+        if (sign == 0) {
+            return 0; // 0.0 和 -0.0
+        }
+        if (exponent != other.exponent) { // 规格化后指数大的绝对值大
+            return exponent > other.exponent ? sign : -sign;
+        }
+        return Double.compare(mantissa, other.mantissa);
+    }
+
+    public boolean isZero() {
+        return mantissa == 0;
+    }
+
+    public int signum() {
+        return mantissa > 0 ? 1 : mantissa < 0 ? -1 : 0;
+    }
+
+    /**
+     * @return 尾数 (指数为 0 时就是值本身)
+     */
+    public double getMantissa() {
+        return mantissa;
+    }
+
+    public long getExponent() {
+        return exponent;
+    }
+
+    /**
+     * @return log10(|值|)，值为 0 时是负无穷
+     */
+    public double log10() {
+        return Math.log10(Math.abs(mantissa)) + exponent;
+    }
+
+    /**
+     * @return this / divisor 的 double 近似 (超出 double 的范围时为无穷大或 0)，例如攒够目标需要的秒数
+     */
+    public double ratio(IdleNumber divisor) {
+        double quotient = mantissa / divisor.mantissa;
+        long shift = exponent - divisor.exponent;
+        if (shift == 0 || quotient == 0 || Double.isNaN(quotient)) {
+            return quotient;
+        }
+        if (shift > 0) {
+            return shift > 616 ? quotient * Double.POSITIVE_INFINITY : quotient * pow10(shift);
+        }
+        return shift < -616 ? quotient * 0 : quotient / pow10(-shift);
+    }
+
+    /**
+     * @return 最接近的 double (超过 1e308 时为无穷大)
+     */
+    public double toDouble() {
+        return exponent == 0 ? mantissa : mantissa * pow10(exponent);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IdleNumber)) {
+            return false;
+        }
+        IdleNumber other = (IdleNumber) o;
+        return compareTo(other) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Double.hashCode(mantissa + 0.0) * 31 + Long.hashCode(exponent); // +0.0 使 -0.0 与 0.0 相同
+    }
+
+    // --- 显示 ---
+
+    /**
+     * 追加紧凑的显示形式 (小数部分截断，不四舍五入，避免显示出还没有达到的值):
+     * 小于一百万显示带千位分隔符的整数，如 "123,456"；之后用后缀，如 "1.23M"、"45.60Qa"；
+     * 超过后缀的范围用科学计数法，如 "1.23e45"
+     */
+    public StringBuilder appendTo(StringBuilder out) {
+        if (mantissa < 0) {
+            out.append('-');
+        }
+        double abs = Math.abs(mantissa);
+        if (exponent == 0 && abs < 1_000_000) {
+            appendGrouped(out, (long) abs);
+            return out;
+        }
+        long magnitude = (long) Math.floor(Math.log10(abs)) + exponent; // 值的十进制指数
+        double leading = abs / pow10(magnitude - exponent); // [1, 10)
+        if (leading >= 10) { // log10 的舍入
+            leading /= 10;
+            magnitude++;
+        }
+        long group = magnitude / 3;
+        if (group < SUFFIXES.length) {
+            appendFixed(out, leading * POW10[(int) (magnitude % 3)]);
+            out.append(SUFFIXES[(int) group]);
+        } else {
+            appendFixed(out, leading);
+            out.append('e').append(magnitude);
+        }
+        return out;
+    }
+
+    private static void appendGrouped(StringBuilder out, long value) {
+        if (value >= 1000) {
+            appendGrouped(out, value / 1000);
+            out.append(',');
+            long rest = value % 1000;
+            if (rest < 100) {
+                out.append('0');
+            }
+            if (rest < 10) {
+                out.append('0');
+            }
+            out.append(rest);
+        } else {
+            out.append(value);
+        }
+    }
+
+    /**
+     * 追加保留两位小数 (截断) 的正数
+     */
+    private static void appendFixed(StringBuilder out, double value) {
+        long hundredths = (long) Math.floor(value * 100 + 1e-6); // 容忍 1.23 被存成 1.2299999...
+        out.append(hundredths / 100).append('.');
+        long fraction = hundredths % 100;
+        if (fraction < 10) {
+            out.append('0');
+        }
+        out.append(fraction);
+    }
+
+    @Override
+    public String toString() {
+        return appendTo(new StringBuilder(16)).toString();
+    }
+}
@@ -0,0 +1,121 @@
+package com.chqiuu.gamer.easygame;
+
+import java.util.Arrays;
+
+/**
+ * 固定内存的对数分桶直方图 (类似 HdrHistogram)，用于记录延迟、反应时间等非负整数
+ * <p>
+ * 小于 32 的值各占一个桶；更大的值按 2 的幂分段，每段再线性分成 32 个子桶，
+ * 相对误差不超过 1/32 (约 3%)。总共 1920 个 long 计数，记录一个值只需几次位运算，
+ * 不分配任何对象。实例不是线程安全的，多线程统计时每个线程使用自己的实例，最后用
+ * {@link #add(LatencyHistogram)} 合并。
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS; // 每段 32 个子桶
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long totalCount;
+    private double sum;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    /**
+     * 记录一个值 (负数按 0 处理)
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts[indexOf(value)]++;
+        totalCount++;
+        sum += value;
+        if (value < min) min = value;
+        if (value > max) max = value;
+    }
+
+    /**
+     * 合并另一个直方图的全部计数
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    public long getCount() {
+        return totalCount;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * @return 最小值，没有记录时返回 0
+     */
+    public long getMin() {
+        return totalCount == 0 ? 0 : min;
+    }
+
+    /**
+     * @return 平均值，没有记录时返回 0
+     */
+    public double getMean() {
+        return totalCount == 0 ? 0 : sum / totalCount;
+    }
+
+    /**
+     * 查询百分位数
+     * @param percentile 百分位 (0-100)，例如 99 表示 p99
+     * @return 该百分位所在桶的上界 (不超过记录到的最大值)，没有记录时返回 0
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(Math.max(0, Math.min(100, percentile)) / 100.0 * totalCount);
+        target = Math.max(1, target);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(max, Math.max(getMin(), upperBoundOf(i)));
+            }
+        }
+        return max;
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value); // floor(log2(value)) >= 5
+        int shift = magnitude - SUB_BUCKET_BITS;
+        int sub = (int) (value >>> shift) - SUB_BUCKETS; // 去掉最高位后的 5 位
+        return (shift + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long upperBoundOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long sub = SUB_BUCKETS + index % SUB_BUCKETS;
+        return ((sub + 1) << shift) - 1;
+    }
+}
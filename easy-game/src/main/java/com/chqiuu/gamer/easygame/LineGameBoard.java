@@ -0,0 +1,80 @@
+package com.chqiuu.gamer.easygame;
+
+/**
+ * 连珠类棋盘 (井字棋、五子棋等 "k 子连线" 游戏) 的通用规则接口
+ * <p>
+ * 格子用一维下标 index = row * getCols() + col 表示，X 永远先手。
+ */
+public interface LineGameBoard {
+
+    char PLAYER_X = 'X';
+    char PLAYER_O = 'O';
+    char EMPTY = ' ';
+
+    int getRows();
+
+    int getCols();
+
+    /**
+     * @return 获胜所需的连子数 k
+     */
+    int getWinLength();
+
+    default int getCellCount() {
+        return getRows() * getCols();
+    }
+
+    /**
+     * @return 指定格子的内容 ('X'、'O' 或 ' ')
+     */
+    char getCell(int index);
+
+    boolean isEmptyCell(int index);
+
+    /**
+     * 当前玩家在指定格子落子，随后轮到对方
+     * @throws IllegalStateException 格子已被占用或游戏已结束
+     */
+    void play(int index);
+
+    /**
+     * 撤销最后一步棋
+     */
+    void undo();
+
+    /**
+     * 清空棋盘，X 先手
+     */
+    void reset();
+
+    char getCurrentPlayer();
+
+    int getMoveCount();
+
+    /**
+     * @return 最后一步棋的格子下标，还没有人落子时返回 -1
+     */
+    int getLastMove();
+
+    /**
+     * @return 获胜者 ('X' 或 'O')，尚无获胜者时返回 ' '
+     */
+    char getWinner();
+
+    /**
+     * @return 棋盘已满且无人获胜时返回 true
+     */
+    boolean isDraw();
+
+    boolean isGameOver();
+
+    /**
+     * @return 获胜连线上各格子的下标，无人获胜时返回空数组
+     */
+    int[] getWinningCells();
+
+    /**
+     * @return 独立的棋盘副本，供 AI 搜索或回放使用
+     */
+    LineGameBoard copy();
+}
@@ -0,0 +1,406 @@
+package com.chqiuu.gamer.easygame;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.random.RandomGenerator;
+
+/**
+ * 基于内存映射文件的刽子手单词库
+ * <p>
+ * 词库目录下每个 {@code <分类名>.txt} 文件是一个分类，每行一个单词 (UTF-8/ASCII，忽略空行和 # 开头的注释行)。
+ * 打开词库时只列出文件，不读取内容；某个分类第一次被使用时才映射文件并扫描一遍换行符，
+ * 建立 "起始偏移 + 长度" 两个基本类型数组的索引，按长度分组的索引则在第一次按长度查询时再建立。
+ * 随机选词只需在索引数组里取一个下标，再解码这一行的几个字节，复杂度 O(1)，不会生成 {@code List<String>}。
+ * <p>
+ * 单个文件不能超过 2GB (一次映射的上限)。索引的建立是同步的，同一个实例可以在多个线程间共享。
+ */
+public class MappedWordDictionary {
+
+    /** 指定词库目录的系统属性，默认使用 ~/.easy-game/hangman */
+    public static final String DIRECTORY_PROPERTY = "hangman.dict.dir";
+    private static final String FILE_SUFFIX = ".txt";
+    private static final int MAX_WORD_LENGTH = 255; // 长度用一个无符号字节保存，更长的行被忽略
+
+    private final Map<String, Category> categories = new TreeMap<>();
+
+    private MappedWordDictionary() {
+    }
+
+    /**
+     * 打开词库目录 (只列出分类文件，不读取内容)
+     * @param directory 词库目录
+     * @throws IOException 目录无法读取
+     */
+    public static MappedWordDictionary open(Path directory) throws IOException {
+        MappedWordDictionary dictionary = new MappedWordDictionary();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + FILE_SUFFIX)) {
+            for (Path file : files) {
+                if (Files.isRegularFile(file)) {
+                    String name = file.getFileName().toString();
+                    String category = name.substring(0, name.length() - FILE_SUFFIX.length());
+                    dictionary.categories.put(category, new Category(file));
+                }
+            }
+        }
+        return dictionary;
+    }
+
+    /**
+     * 打开默认位置的词库
+     * @return 词库；目录不存在或其中没有分类文件时返回 null
+     */
+    public static MappedWordDictionary openDefault() throws IOException {
+        Path directory = defaultPath();
+        if (!Files.isDirectory(directory)) {
+            return null;
+        }
+        MappedWordDictionary dictionary = open(directory);
+        return dictionary.categories.isEmpty() ? null : dictionary;
+    }
+
+    /**
+     * @return 词库目录的默认位置 (可通过系统属性 hangman.dict.dir 覆盖)
+     */
+    public static Path defaultPath() {
+        String configured = System.getProperty(DIRECTORY_PROPERTY);
+        if (configured != null && !configured.isEmpty()) {
+            return Paths.get(configured);
+        }
+        return Paths.get(System.getProperty("user.home"), ".easy-game", "hangman");
+    }
+
+    /**
+     * @return 所有分类名 (按字母顺序)
+     */
+    public List<String> getCategories() {
+        return new ArrayList<>(categories.keySet());
+    }
+
+    /**
+     * @return 分类中的单词数，分类不存在时返回 0 (第一次调用会建立该分类的索引)
+     */
+    public int getWordCount(String category) throws IOException {
+        Category c = categories.get(category);
+        return c == null ? 0 : c.index().count;
+    }
+
+    /**
+     * @return 分类中长度为 length 的单词数
+     */
+    public int getWordCount(String category, int length) throws IOException {
+        Category c = categories.get(category);
+        if (c == null || length < 0 || length > MAX_WORD_LENGTH) {
+            return 0;
+        }
+        int[] bounds = c.index().lengthBounds();
+        return bounds[length + 1] - bounds[length];
+    }
+
+    /**
+     * 读取分类中的第 i 个单词 (文件中的顺序)
+     */
+    public String getWord(String category, int i) throws IOException {
+        Index index = requireCategory(category).index();
+        if (i < 0 || i >= index.count) {
+            throw new IndexOutOfBoundsException("单词下标越界: " + i);
+        }
+        return index.decode(index.starts[i], index.lengths[i] & 0xFF);
+    }
+
+    /**
+     * 从分类中随机选一个单词 (大写)
+     * @return 单词；分类为空时返回 null
+     */
+    public String randomWord(String category, RandomGenerator random) throws IOException {
+        Index index = requireCategory(category).index();
+        if (index.count == 0) {
+            return null;
+        }
+        int i = random.nextInt(index.count);
+        return index.decode(index.starts[i], index.lengths[i] & 0xFF);
+    }
+
+    /**
+     * 从分类中随机选一个指定长度的单词 (大写)
+     * @return 单词；没有该长度的单词时返回 null
+     */
+    public String randomWord(String category, int length, RandomGenerator random) throws IOException {
+        Index index = requireCategory(category).index();
+        if (length < 0 || length > MAX_WORD_LENGTH) {
+            return null;
+        }
+        int[] bounds = index.lengthBounds();
+        int from = bounds[length];
+        int count = bounds[length + 1] - from;
+        if (count == 0) {
+            return null;
+        }
+        return index.decode(index.byLength[from + random.nextInt(count)], length);
+    }
+
+    /**
+     * 获取分类的压缩单词图，第一次调用时构建 (之后缓存)，用于模式查询等需要遍历全部单词的场景
+     * <p>
+     * 构建时直接按映射文件中的字节给单词下标排序，再逐个送入 {@link CompactWordTrie.Builder}，
+     * 不为每个单词创建字符串，额外的堆内存只有一个 int 下标数组。含有 A-Z 以外字符的单词不会进入单词图。
+     */
+    public CompactWordTrie getTrie(String category) throws IOException {
+        return requireCategory(category).trie();
+    }
+
+    private Category requireCategory(String category) {
+        Category c = categories.get(category);
+        if (c == null) {
+            throw new IllegalArgumentException("找不到分类: " + category);
+        }
+        return c;
+    }
+
+    /**
+     * 一个分类文件，第一次使用时才映射并建立索引
+     */
+    private static final class Category {
+        final Path file;
+        private Index index;
+        private CompactWordTrie trie;
+
+        Category(Path file) {
+            this.file = file;
+        }
+
+        synchronized Index index() throws IOException {
+            if (index == null) {
+                index = Index.build(file);
+            }
+            return index;
+        }
+
+        synchronized CompactWordTrie trie() throws IOException {
+            if (trie == null) {
+                Index index = index();
+                int[] order = index.sortedTrieWords();
+                CompactWordTrie.Builder builder = new CompactWordTrie.Builder();
+                char[] letters = new char[CompactWordTrie.MAX_WORD_LENGTH];
+                CharBuffer word = CharBuffer.wrap(letters); // 复用的视图，builder 会复制内容
+                for (int k = 0; k < order.length; k++) {
+                    int i = order[k];
+                    if (k > 0 && index.compareWords(order[k - 1], i) == 0) {
+                        continue; // 重复的单词
+                    }
+                    int start = index.starts[i];
+                    int length = index.lengths[i] & 0xFF;
+                    for (int j = 0; j < length; j++) {
+                        letters[j] = (char) Index.upperCase(index.data.get(start + j));
+                    }
+                    builder.add(word.clear().limit(length));
+                }
+                trie = builder.build();
+            }
+            return trie;
+        }
+    }
+
+    /**
+     * 一个已映射分类文件的偏移索引
+     */
+    private static final class Index {
+        final MappedByteBuffer data;
+        final int count;
+        final int[] starts; // 第 i 个单词在文件中的起始偏移
+        final byte[] lengths; // 第 i 个单词的字节数 (无符号)
+        private int[] byLength; // 按长度分组后的起始偏移
+        private int[] lengthBounds; // 长度为 L 的单词位于 byLength[lengthBounds[L], lengthBounds[L + 1])
+
+        private Index(MappedByteBuffer data, int count, int[] starts, byte[] lengths) {
+            this.data = data;
+            this.count = count;
+            this.starts = starts;
+            this.lengths = lengths;
+        }
+
+        static Index build(Path file) throws IOException {
+            MappedByteBuffer data;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                if (channel.size() > Integer.MAX_VALUE) {
+                    throw new IOException("词库文件超过 2GB: " + file);
+                }
+                // 映射在通道关闭后仍然有效
+                data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+
+            int size = data.limit();
+            int[] starts = new int[Math.max(16, size / 8)]; // 按平均 8 字节一行预估，不够再扩容
+            byte[] lengths = new byte[starts.length];
+            int count = 0;
+            int lineStart = 0;
+            for (int pos = 0; pos <= size; pos++) {
+                if (pos < size && data.get(pos) != '\n') {
+                    continue;
+                }
+                int end = pos;
+                while (end > lineStart && isBlank(data.get(end - 1))) {
+                    end--;
+                }
+                int start = lineStart;
+                while (start < end && isBlank(data.get(start))) {
+                    start++;
+                }
+                int length = end - start;
+                if (length > 0 && length <= MAX_WORD_LENGTH && data.get(start) != '#') {
+                    if (count == starts.length) {
+                        starts = Arrays.copyOf(starts, count * 2);
+                        lengths = Arrays.copyOf(lengths, count * 2);
+                    }
+                    starts[count] = start;
+                    lengths[count] = (byte) length;
+                    count++;
+                }
+                lineStart = pos + 1;
+            }
+            return new Index(data, count, Arrays.copyOf(starts, count), Arrays.copyOf(lengths, count));
+        }
+
+        private static boolean isBlank(byte b) {
+            return b == ' ' || b == '\t' || b == '\r';
+        }
+
+        /**
+         * @return 能进入单词图的单词 (只含 ASCII 字母，不超过 {@link CompactWordTrie#MAX_WORD_LENGTH})
+         *         的下标，按大写后的字母顺序排序，重复的单词相邻
+         */
+        int[] sortedTrieWords() {
+            int[] order = new int[count];
+            int n = 0;
+            for (int i = 0; i < count; i++) {
+                if (isTrieWord(i)) {
+                    order[n++] = i;
+                }
+            }
+            order = Arrays.copyOf(order, n);
+            sort(order, 0, n);
+            return order;
+        }
+
+        private boolean isTrieWord(int i) {
+            int length = lengths[i] & 0xFF;
+            if (length > CompactWordTrie.MAX_WORD_LENGTH) {
+                return false;
+            }
+            for (int pos = starts[i], end = pos + length; pos < end; pos++) {
+                int c = upperCase(data.get(pos));
+                if (c < 'A' || c > 'Z') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 比较第 i 个和第 j 个单词大写后的字母顺序 (与 String.compareTo 一致)，直接读取映射的字节
+         */
+        int compareWords(int i, int j) {
+            int a = starts[i];
+            int b = starts[j];
+            int lengthA = lengths[i] & 0xFF;
+            int lengthB = lengths[j] & 0xFF;
+            for (int k = 0, n = Math.min(lengthA, lengthB); k < n; k++) {
+                int diff = upperCase(data.get(a + k)) - upperCase(data.get(b + k));
+                if (diff != 0) {
+                    return diff;
+                }
+            }
+            return lengthA - lengthB;
+        }
+
+        /**
+         * 三路快速排序 order[from, to) (重复的单词很多时也不会退化)，较长的一侧用循环代替递归
+         */
+        private void sort(int[] order, int from, int to) {
+            while (to - from > 16) {
+                int pivot = order[from + (to - from) / 2];
+                int lt = from;
+                int gt = to - 1;
+                int i = from;
+                while (i <= gt) {
+                    int c = compareWords(order[i], pivot);
+                    if (c < 0) {
+                        swap(order, lt++, i++);
+                    } else if (c > 0) {
+                        swap(order, i, gt--);
+                    } else {
+                        i++;
+                    }
+                }
+                // [from, lt) 小于、[lt, gt] 等于、(gt, to) 大于基准
+                if (lt - from < to - gt - 1) {
+                    sort(order, from, lt);
+                    from = gt + 1;
+                } else {
+                    sort(order, gt + 1, to);
+                    to = lt;
+                }
+            }
+            for (int i = from + 1; i < to; i++) { // 小区间用插入排序
+                int value = order[i];
+                int j = i - 1;
+                while (j >= from && compareWords(order[j], value) > 0) {
+                    order[j + 1] = order[j];
+                    j--;
+                }
+                order[j + 1] = value;
+            }
+        }
+
+        private static void swap(int[] order, int i, int j) {
+            int t = order[i];
+            order[i] = order[j];
+            order[j] = t;
+        }
+
+        /**
+         * 按长度做一次计数排序，第一次按长度查询时建立
+         */
+        synchronized int[] lengthBounds() {
+            if (lengthBounds == null) {
+                int[] bounds = new int[MAX_WORD_LENGTH + 2];
+                for (int i = 0; i < count; i++) {
+                    bounds[(lengths[i] & 0xFF) + 1]++;
+                }
+                for (int length = 1; length < bounds.length; length++) {
+                    bounds[length] += bounds[length - 1];
+                }
+                int[] next = Arrays.copyOf(bounds, bounds.length);
+                int[] grouped = new int[count];
+                for (int i = 0; i < count; i++) {
+                    grouped[next[lengths[i] & 0xFF]++] = starts[i];
+                }
+                byLength = grouped;
+                lengthBounds = bounds;
+            }
+            return lengthBounds;
+        }
+
+        private static int upperCase(byte b) {
+            return b >= 'a' && b <= 'z' ? b - ('a' - 'A') : b;
+        }
+
+        String decode(int start, int length) {
+            byte[] bytes = new byte[length];
+            data.get(start, bytes); // 绝对位置读取，不改变缓冲区状态
+            return new String(bytes, StandardCharsets.UTF_8).toUpperCase();
+        }
+    }
+}
@@ -0,0 +1,461 @@
+package com.chqiuu.gamer.easygame;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 并行蒙特卡洛树搜索 (MCTS / UCT) 电脑玩家，适合大棋盘的 k 子连线游戏
+ * <p>
+ * 采用根并行: 每个工作线程在自己的棋盘副本上独立建树，互不加锁；
+ * 搜索结束时把各自根节点子节点的访问次数和得分累加到共享的原子数组中，取访问次数最多的着法。
+ * 树节点保存在预分配的并行数组里，随机走子通过 "空格数组 + 交换删除" 在 O(1) 内选点，
+ * 配合 {@link GomokuBoard} 的 O(1) 胜负判断，模拟阶段不分配任何对象。
+ * <p>
+ * 目标平台是 Java 17，没有虚拟线程；搜索是纯 CPU 计算，使用固定并行度的 ForkJoinPool。
+ */
+public class MonteCarloAI implements TicTacToeAI {
+
+    private static final double EXPLORATION = 1.41; // UCT 探索系数 (约为 sqrt(2))
+    private static final int NODE_CAPACITY = 1 << 17; // 每个线程的树最多节点数
+    private static final int NEIGHBOR_RADIUS = 2; // 大棋盘展开时只考虑已有棋子附近的空位
+    private static final int SMALL_BOARD_CELLS = 16;
+    private static final int BATCH = 64; // 每跑这么多次模拟检查一次时间和预算
+    private static final int MAX_PATH = 1024;
+
+    private static final int[] DIR_ROW = {0, 1, 1, 1};
+    private static final int[] DIR_COL = {1, 0, 1, -1};
+
+    private final long timeBudgetNanos;
+    private final long maxPlayouts; // 0 表示只受时间限制
+    private final int threads;
+    private final ForkJoinPool pool; // threads == 1 时为 null，直接在调用线程搜索
+    private final Worker[] workers;
+
+    // --- 各线程共享的根节点统计 (无锁累加) ---
+    private AtomicLongArray rootVisits = new AtomicLongArray(0);
+    private AtomicLongArray rootScores = new AtomicLongArray(0); // 胜 2 分、平 1 分
+    private final AtomicLong playouts = new AtomicLong();
+    private volatile long deadline;
+
+    // --- 最近一次搜索的统计 ---
+    private long lastPlayouts;
+    private double lastPlayoutsPerSecond;
+
+    /**
+     * @param timeBudgetMillis 每步思考的时间预算 (毫秒)
+     * @param maxPlayouts 每步最多模拟局数，0 表示只受时间限制
+     * @param threads 搜索线程数
+     */
+    public MonteCarloAI(long timeBudgetMillis, long maxPlayouts, int threads) {
+        if (timeBudgetMillis <= 0 || maxPlayouts < 0 || threads <= 0) {
+            throw new IllegalArgumentException("时间预算、模拟局数和线程数参数无效");
+        }
+        this.timeBudgetNanos = timeBudgetMillis * 1_000_000L;
+        this.maxPlayouts = maxPlayouts;
+        this.threads = threads;
+        this.pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        this.workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(0x9E3779B97F4A7C15L * (i + 1));
+        }
+    }
+
+    /**
+     * 使用全部 CPU 核心、只受时间限制的 MCTS
+     * @param timeBudgetMillis 每步思考的时间预算 (毫秒)
+     */
+    public MonteCarloAI(long timeBudgetMillis) {
+        this(timeBudgetMillis, 0, Runtime.getRuntime().availableProcessors());
+    }
+
+    @Override
+    public String getName() {
+        return "MCTS x" + threads;
+    }
+
+    @Override
+    public int chooseMove(LineGameBoard board) {
+        if (board.isGameOver()) {
+            throw new IllegalStateException("游戏已结束");
+        }
+        int forced = findForcedMove(board);
+        if (forced >= 0) {
+            lastPlayouts = 0;
+            lastPlayoutsPerSecond = 0;
+            return forced;
+        }
+
+        int cellCount = board.getCellCount();
+        if (rootVisits.length() != cellCount) {
+            rootVisits = new AtomicLongArray(cellCount);
+            rootScores = new AtomicLongArray(cellCount);
+        } else {
+            for (int i = 0; i < cellCount; i++) {
+                rootVisits.set(i, 0);
+                rootScores.set(i, 0);
+            }
+        }
+        playouts.set(0);
+        long start = System.nanoTime();
+        deadline = start + timeBudgetNanos;
+
+        if (pool == null) {
+            workers[0].search(board);
+        } else {
+            ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[threads];
+            for (int i = 0; i < threads; i++) {
+                Worker worker = workers[i];
+                tasks[i] = pool.submit(() -> worker.search(board));
+            }
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
+            }
+        }
+
+        long elapsed = Math.max(1, System.nanoTime() - start);
+        lastPlayouts = playouts.get();
+        lastPlayoutsPerSecond = lastPlayouts * 1e9 / elapsed;
+
+        // 选访问次数最多的着法 (最稳健)，次数相同时选得分高的
+        int bestMove = -1;
+        long bestVisits = -1;
+        long bestScore = -1;
+        for (int i = 0; i < cellCount; i++) {
+            long visits = rootVisits.get(i);
+            if (!board.isEmptyCell(i) || visits < bestVisits) {
+                continue;
+            }
+            long score = rootScores.get(i);
+            if (visits > bestVisits || score > bestScore) {
+                bestVisits = visits;
+                bestScore = score;
+                bestMove = i;
+            }
+        }
+        return bestMove;
+    }
+
+    /**
+     * @return 最近一次搜索的模拟局数 (所有线程合计)
+     */
+    public long getLastPlayouts() {
+        return lastPlayouts;
+    }
+
+    /**
+     * @return 最近一次搜索每秒的模拟局数 (所有线程合计)
+     */
+    public double getLastPlayoutsPerSecond() {
+        return lastPlayoutsPerSecond;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * 关闭搜索线程池
+     */
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * 战术检查: 能直接获胜就走，对方下一步能获胜就堵
+     * @return 必须走的格子，没有则返回 -1
+     */
+    private static int findForcedMove(LineGameBoard board) {
+        int cellCount = board.getCellCount();
+        char me = board.getCurrentPlayer();
+        char opponent = me == LineGameBoard.PLAYER_X ? LineGameBoard.PLAYER_O : LineGameBoard.PLAYER_X;
+        LineGameBoard probe = board.copy();
+        int block = -1;
+        for (int i = 0; i < cellCount; i++) {
+            if (!probe.isEmptyCell(i)) {
+                continue;
+            }
+            probe.play(i);
+            boolean wins = probe.getWinner() == me;
+            probe.undo();
+            if (wins) {
+                return i;
+            }
+            if (block < 0 && completesLine(board, i, opponent)) {
+                block = i;
+            }
+        }
+        return block;
+    }
+
+    /**
+     * @return player 在空格 index 落子后是否连成 k 子
+     */
+    private static boolean completesLine(LineGameBoard board, int index, char player) {
+        int rows = board.getRows();
+        int cols = board.getCols();
+        int row = index / cols;
+        int col = index % cols;
+        for (int dir = 0; dir < DIR_ROW.length; dir++) {
+            int dr = DIR_ROW[dir];
+            int dc = DIR_COL[dir];
+            int count = 1;
+            for (int r = row + dr, c = col + dc; r >= 0 && r < rows && c >= 0 && c < cols && board.getCell(r * cols + c) == player; r += dr, c += dc) {
+                count++;
+            }
+            for (int r = row - dr, c = col - dc; r >= 0 && r < rows && c >= 0 && c < cols && board.getCell(r * cols + c) == player; r -= dr, c -= dc) {
+                count++;
+            }
+            if (count >= board.getWinLength()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 单个搜索线程: 持有自己的棋盘副本、搜索树和随机数发生器，多次搜索之间复用所有数组
+     */
+    private final class Worker {
+        private final SplittableRandom random;
+
+        // --- 搜索树 (并行数组) ---
+        private final int[] nodeMove = new int[NODE_CAPACITY];
+        private final int[] nodeFirstChild = new int[NODE_CAPACITY]; // -1 表示尚未展开
+        private final int[] nodeChildCount = new int[NODE_CAPACITY];
+        private final int[] nodeVisits = new int[NODE_CAPACITY];
+        private final double[] nodeScores = new double[NODE_CAPACITY]; // 从走入该节点一方的视角累计得分
+        private int nodeCount;
+
+        // --- 棋盘副本和空格集合 ---
+        private LineGameBoard board;
+        private int cellCount;
+        private int rows;
+        private int cols;
+        private int[] emptyCells = new int[0]; // 空格列表 (前 emptyCount 个有效)
+        private int[] emptyPos = new int[0]; // 每个格子在 emptyCells 中的位置
+        private int emptyCount;
+        private int[] neighborCount = new int[0];
+        private int[] childBuffer = new int[0];
+
+        private final int[] path = new int[MAX_PATH]; // 本次迭代经过的节点
+        private final int[] moveStack = new int[MAX_PATH]; // 本次迭代走过的棋步 (用于撤销)
+
+        Worker(long seed) {
+            this.random = new SplittableRandom(seed);
+        }
+
+        void search(LineGameBoard position) {
+            prepare(position);
+            char rootPlayer = board.getCurrentPlayer();
+            nodeCount = 1;
+            nodeMove[0] = -1;
+            nodeFirstChild[0] = -1;
+            nodeVisits[0] = 0;
+            nodeScores[0] = 0;
+
+            while (true) {
+                for (int i = 0; i < BATCH; i++) {
+                    iterate(rootPlayer);
+                }
+                long total = playouts.addAndGet(BATCH);
+                if ((maxPlayouts > 0 && total >= maxPlayouts) || System.nanoTime() >= deadline) {
+                    break;
+                }
+            }
+
+            // 把本线程根节点子节点的统计累加到共享数组
+            int first = nodeFirstChild[0];
+            for (int c = 0; first >= 0 && c < nodeChildCount[0]; c++) {
+                int child = first + c;
+                rootVisits.addAndGet(nodeMove[child], nodeVisits[child]);
+                rootScores.addAndGet(nodeMove[child], Math.round(nodeScores[child] * 2));
+            }
+            board = null;
+        }
+
+        private void prepare(LineGameBoard position) {
+            board = position.copy();
+            cellCount = board.getCellCount();
+            rows = board.getRows();
+            cols = board.getCols();
+            if (emptyCells.length != cellCount) {
+                emptyCells = new int[cellCount];
+                emptyPos = new int[cellCount];
+                neighborCount = new int[cellCount];
+                childBuffer = new int[cellCount];
+            }
+            emptyCount = 0;
+            Arrays.fill(neighborCount, 0);
+            for (int i = 0; i < cellCount; i++) {
+                if (board.isEmptyCell(i)) {
+                    emptyPos[i] = emptyCount;
+                    emptyCells[emptyCount++] = i;
+                } else {
+                    updateNeighbors(i, 1);
+                }
+            }
+        }
+
+        /**
+         * 一次 MCTS 迭代: 选择 -> 展开 -> 随机模拟 -> 回传，最后把棋盘撤销回根局面
+         */
+        private void iterate(char rootPlayer) {
+            int depth = 0;
+            int node = 0;
+            path[0] = 0;
+
+            // 选择: 沿 UCT 值最大的子节点下降到未展开的节点
+            while (nodeFirstChild[node] >= 0 && nodeChildCount[node] > 0 && !board.isGameOver() && depth < MAX_PATH - 2) {
+                node = selectChild(node);
+                play(nodeMove[node]);
+                moveStack[depth] = nodeMove[node];
+                path[++depth] = node;
+            }
+
+            // 展开: 访问过一次的叶子节点才展开，节省节点池
+            if (!board.isGameOver() && nodeVisits[node] > 0 && nodeFirstChild[node] < 0) {
+                if (expand(node)) {
+                    node = nodeFirstChild[node] + random.nextInt(nodeChildCount[node]);
+                    play(nodeMove[node]);
+                    moveStack[depth] = nodeMove[node];
+                    path[++depth] = node;
+                }
+            }
+            int treeMoves = depth;
+
+            // 模拟: 在所有空格中均匀随机落子直到终局
+            int playoutMoves = 0;
+            while (!board.isGameOver() && treeMoves + playoutMoves < MAX_PATH) {
+                int cell = emptyCells[random.nextInt(emptyCount)];
+                playPlayout(cell);
+                moveStack[treeMoves + playoutMoves++] = cell;
+            }
+            char winner = board.getWinner();
+
+            // 回传: 节点得分记在 "走入该节点的一方" 名下
+            for (int d = depth; d >= 0; d--) {
+                int n = path[d];
+                nodeVisits[n]++;
+                // 深度为奇数的节点由根节点一方走入
+                char mover = (d & 1) == 1 ? rootPlayer : opponentOf(rootPlayer);
+                if (winner == mover) {
+                    nodeScores[n] += 1.0;
+                } else if (winner == LineGameBoard.EMPTY) {
+                    nodeScores[n] += 0.5;
+                }
+            }
+
+            // 撤销本次迭代的所有棋步
+            for (int i = treeMoves + playoutMoves - 1; i >= treeMoves; i--) {
+                unplayPlayout(moveStack[i]);
+            }
+            for (int i = treeMoves - 1; i >= 0; i--) {
+                unplay(moveStack[i]);
+            }
+        }
+
+        private int selectChild(int node) {
+            int first = nodeFirstChild[node];
+            int count = nodeChildCount[node];
+            double logParent = Math.log(Math.max(1, nodeVisits[node]));
+            int best = first;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (int child = first; child < first + count; child++) {
+                int visits = nodeVisits[child];
+                if (visits == 0) {
+                    return child; // 未访问过的子节点优先
+                }
+                double value = nodeScores[child] / visits + EXPLORATION * Math.sqrt(logParent / visits);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = child;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * 为节点生成全部子节点
+         * @return 节点池已满或没有候选时返回 false
+         */
+        private boolean expand(int node) {
+            boolean smallBoard = cellCount <= SMALL_BOARD_CELLS;
+            int count = 0;
+            for (int i = 0; i < emptyCount; i++) {
+                int cell = emptyCells[i];
+                if (smallBoard || neighborCount[cell] > 0) {
+                    childBuffer[count++] = cell;
+                }
+            }
+            if (count == 0) {
+                childBuffer[count++] = emptyCells[random.nextInt(emptyCount)]; // 空棋盘
+            }
+            if (nodeCount + count > NODE_CAPACITY) {
+                return false;
+            }
+            int first = nodeCount;
+            for (int i = 0; i < count; i++) {
+                int child = first + i;
+                nodeMove[child] = childBuffer[i];
+                nodeFirstChild[child] = -1;
+                nodeChildCount[child] = 0;
+                nodeVisits[child] = 0;
+                nodeScores[child] = 0;
+            }
+            nodeFirstChild[node] = first;
+            nodeChildCount[node] = count;
+            nodeCount += count;
+            return true;
+        }
+
+        /** 树内落子: 同时维护邻居计数，供展开时筛选候选 */
+        private void play(int cell) {
+            playPlayout(cell);
+            updateNeighbors(cell, 1);
+        }
+
+        private void unplay(int cell) {
+            unplayPlayout(cell);
+            updateNeighbors(cell, -1);
+        }
+
+        /** 模拟阶段落子: 只维护空格集合 */
+        private void playPlayout(int cell) {
+            board.play(cell);
+            // 交换删除: 用最后一个空格填补被占用格子的位置
+            int pos = emptyPos[cell];
+            int last = emptyCells[--emptyCount];
+            emptyCells[pos] = last;
+            emptyPos[last] = pos;
+        }
+
+        private void unplayPlayout(int cell) {
+            board.undo();
+            emptyPos[cell] = emptyCount;
+            emptyCells[emptyCount++] = cell;
+        }
+
+        private void updateNeighbors(int index, int delta) {
+            if (cellCount <= SMALL_BOARD_CELLS) {
+                return;
+            }
+            int row = index / cols;
+            int col = index % cols;
+            for (int r = Math.max(0, row - NEIGHBOR_RADIUS); r <= Math.min(rows - 1, row + NEIGHBOR_RADIUS); r++) {
+                for (int c = Math.max(0, col - NEIGHBOR_RADIUS); c <= Math.min(cols - 1, col + NEIGHBOR_RADIUS); c++) {
+                    neighborCount[r * cols + c] += delta;
+                }
+            }
+        }
+    }
+
+    private static char opponentOf(char player) {
+        return player == LineGameBoard.PLAYER_X ? LineGameBoard.PLAYER_O : LineGameBoard.PLAYER_X;
+    }
+}
@@ -0,0 +1,124 @@
+package com.chqiuu.gamer.easygame;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Bridson 泊松圆盘采样: 在矩形内生成任意两点距离都不小于 minDistance 的随机点集
+ * <p>
+ * 背景网格的格子边长为 minDistance / √2，每个格子最多一个点，检查候选点只需看周围 5×5 个格子，
+ * 整体复杂度与生成的点数成正比。采样结果、活动列表和网格都保存在可复用的数组中，
+ * 同一个实例反复采样不会分配新对象 (点数超过历史最大值时才扩容)。实例不是线程安全的。
+ */
+public class PoissonDiskSampler {
+
+    private static final int DEFAULT_ATTEMPTS = 30; // 每个活动点尝试生成的候选数 (Bridson 论文中的 k)
+
+    private final RandomGenerator random;
+    private final SpatialHashGrid grid = new SpatialHashGrid(1, 1, 1);
+    private int[] active = new int[16];
+    private double[] xs = new double[16]; // 采样结果 (原坐标系)
+    private double[] ys = new double[16];
+    private int count;
+
+    public PoissonDiskSampler(RandomGenerator random) {
+        this.random = random;
+    }
+
+    /**
+     * 在矩形 [minX, maxX] × [minY, maxY] 内生成尽量填满的泊松圆盘点集
+     * @return 点的数量，用 {@link #getX(int)} / {@link #getY(int)} 读取
+     */
+    public int sample(double minX, double minY, double maxX, double maxY, double minDistance) {
+        double width = maxX - minX;
+        double height = maxY - minY;
+        if (width < 0 || height < 0 || minDistance <= 0) {
+            throw new IllegalArgumentException("采样区域或最小距离不正确");
+        }
+        // 网格坐标相对于 (minX, minY)
+        grid.reset(Math.max(width, minDistance), Math.max(height, minDistance), minDistance / Math.sqrt(2));
+        int activeCount = 0;
+
+        int first = grid.insert(random.nextDouble() * width, random.nextDouble() * height);
+        active = ensureCapacity(active, 1);
+        active[activeCount++] = first;
+
+        while (activeCount > 0) {
+            int slot = random.nextInt(activeCount);
+            int parent = active[slot];
+            double px = grid.getX(parent);
+            double py = grid.getY(parent);
+            boolean placed = false;
+            for (int attempt = 0; attempt < DEFAULT_ATTEMPTS; attempt++) {
+                // 在 [r, 2r) 的圆环中均匀取一点
+                double angle = random.nextDouble() * 2 * Math.PI;
+                double radius = minDistance * Math.sqrt(1 + 3 * random.nextDouble());
+                double x = px + radius * Math.cos(angle);
+                double y = py + radius * Math.sin(angle);
+                if (x < 0 || y < 0 || x > width || y > height || grid.hasPointWithin(x, y, minDistance)) {
+                    continue;
+                }
+                int id = grid.insert(x, y);
+                active = ensureCapacity(active, activeCount + 1);
+                active[activeCount++] = id;
+                placed = true;
+                break;
+            }
+            if (!placed) {
+                active[slot] = active[--activeCount]; // 周围已经放不下，移出活动列表
+            }
+        }
+
+        count = grid.size();
+        xs = ensureCapacity(xs, count);
+        ys = ensureCapacity(ys, count);
+        for (int i = 0; i < count; i++) {
+            xs[i] = minX + grid.getX(i);
+            ys[i] = minY + grid.getY(i);
+        }
+        return count;
+    }
+
+    /**
+     * 生成点集后随机选出 n 个点 (部分 Fisher-Yates 洗牌，选中的点排在前面)
+     * @return 实际得到的点数，区域放不下 n 个点时小于 n
+     */
+    public int sample(double minX, double minY, double maxX, double maxY, double minDistance, int n) {
+        int total = sample(minX, minY, maxX, maxY, minDistance);
+        int chosen = Math.min(n, total);
+        for (int i = 0; i < chosen; i++) {
+            int j = i + random.nextInt(total - i);
+            double tx = xs[i];
+            double ty = ys[i];
+            xs[i] = xs[j];
+            ys[i] = ys[j];
+            xs[j] = tx;
+            ys[j] = ty;
+        }
+        count = chosen;
+        return chosen;
+    }
+
+    /**
+     * @return 上一次采样得到的点数
+     */
+    public int getCount() {
+        return count;
+    }
+
+    public double getX(int i) {
+        return xs[i];
+    }
+
+    public double getY(int i) {
+        return ys[i];
+    }
+
+    private static int[] ensureCapacity(int[] array, int needed) {
+        return needed <= array.length ? array : Arrays.copyOf(array, Math.max(needed, array.length * 2));
+    }
+
+    private static double[] ensureCapacity(double[] array, int needed) {
+        return needed <= array.length ? array : Arrays.copyOf(array, Math.max(needed, array.length * 2));
+    }
+}
@@ -0,0 +1,35 @@
+package com.chqiuu.gamer.easygame;
+
+import java.util.SplittableRandom;
+
+/**
+ * 在所有空格中均匀随机落子的电脑玩家，主要用作对局测试的基准对手
+ */
+public class RandomAI implements TicTacToeAI {
+
+    private final SplittableRandom random;
+
+    public RandomAI(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public String getName() {
+        return "Random";
+    }
+
+    @Override
+    public int chooseMove(LineGameBoard board) {
+        if (board.isGameOver()) {
+            throw new IllegalStateException("游戏已结束");
+        }
+        int emptyCount = board.getCellCount() - board.getMoveCount();
+        int target = random.nextInt(emptyCount);
+        for (int i = 0; i < board.getCellCount(); i++) {
+            if (board.isEmptyCell(i) && target-- == 0) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("棋盘已满");
+    }
+}
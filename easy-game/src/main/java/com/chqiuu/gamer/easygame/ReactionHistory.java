@@ -0,0 +1,363 @@
+package com.chqiuu.gamer.easygame;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 反应测试的历史记录: 只追加的二进制文件 + 增量更新的趋势统计
+ * <p>
+ * 文件由 16 字节的文件头和若干条 64 字节的定长记录组成，每条记录是一轮测试的摘要
+ * (时间、图形数量、得分、命中/点错/错过次数、反应时间的总和与 p50/p90/p99/最小/最大值，单位微秒)。
+ * 打开时把整个文件映射到内存顺序扫描一遍，只做整数运算，几个月的记录也只需几毫秒；
+ * 之后每追加一轮只写一条记录，并在 O(1) 时间内更新累计值、最近 {@value #RECENT_SESSIONS} 轮的滑动窗口和最好成绩，
+ * 不需要重新读取文件。写到一半中断留下的不完整记录在打开时被忽略，下次追加时截掉。
+ * 实例不是线程安全的。
+ */
+public class ReactionHistory {
+
+    /** 指定历史文件的系统属性，默认使用 ~/.easy-game/reaction/sessions.bin */
+    public static final String FILE_PROPERTY = "reaction.history.file";
+    /** 趋势比较的窗口: 最近 N 轮与再之前 N 轮 */
+    public static final int RECENT_SESSIONS = 10;
+
+    private static final int MAGIC = 0x45525453; // "ERTS"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_SIZE = 64;
+
+    /**
+     * 一轮测试的摘要 (对应文件中的一条记录)
+     */
+    public static final class Session {
+        final long timestamp;
+        final int shapeCount;
+        final int score;
+        final int hits;
+        final int wrongHits;
+        final int misses;
+        final long sumMicros;
+        final int p50Micros;
+        final int p90Micros;
+        final int p99Micros;
+        final int minMicros;
+        final int maxMicros;
+
+        Session(long timestamp, int shapeCount, int score, int hits, int wrongHits, int misses, long sumMicros,
+                int p50Micros, int p90Micros, int p99Micros, int minMicros, int maxMicros) {
+            this.timestamp = timestamp;
+            this.shapeCount = shapeCount;
+            this.score = score;
+            this.hits = hits;
+            this.wrongHits = wrongHits;
+            this.misses = misses;
+            this.sumMicros = sumMicros;
+            this.p50Micros = p50Micros;
+            this.p90Micros = p90Micros;
+            this.p99Micros = p99Micros;
+            this.minMicros = minMicros;
+            this.maxMicros = maxMicros;
+        }
+
+        /**
+         * 从一轮的统计生成摘要
+         */
+        public static Session of(ReactionStatistics statistics, int shapeCount, int score, long timestamp) {
+            LatencyHistogram times = statistics.getReactionTimes();
+            return new Session(timestamp, shapeCount, score, statistics.getHits(), statistics.getWrongHits(),
+                    statistics.getMisses(), Math.round(times.getMean() * times.getCount() / 1000),
+                    micros(times.getValueAtPercentile(50)), micros(times.getValueAtPercentile(90)),
+                    micros(times.getValueAtPercentile(99)), micros(times.getMin()), micros(times.getMax()));
+        }
+
+        private static int micros(long nanos) {
+            return (int) Math.min(Integer.MAX_VALUE, nanos / 1000);
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public int getShapeCount() {
+            return shapeCount;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        public int getHits() {
+            return hits;
+        }
+
+        public int getWrongHits() {
+            return wrongHits;
+        }
+
+        public int getMisses() {
+            return misses;
+        }
+
+        /**
+         * @return 平均反应时间 (毫秒)，没有正确点击时为 0
+         */
+        public double getMeanMillis() {
+            return hits == 0 ? 0 : sumMicros / 1000.0 / hits;
+        }
+
+        public double getP50Millis() {
+            return p50Micros / 1000.0;
+        }
+
+        public double getP90Millis() {
+            return p90Micros / 1000.0;
+        }
+
+        public double getP99Millis() {
+            return p99Micros / 1000.0;
+        }
+
+        public double getMinMillis() {
+            return minMicros / 1000.0;
+        }
+
+        public double getMaxMillis() {
+            return maxMicros / 1000.0;
+        }
+    }
+
+    private final Path file;
+
+    // --- 累计值 ---
+    private int sessionCount;
+    private long totalHits;
+    private long totalWrongHits;
+    private long totalMisses;
+    private long totalMicros;
+    private int bestP50Micros = Integer.MAX_VALUE;
+    private int bestScore = Integer.MIN_VALUE;
+
+    // --- 最近 2N 轮的环形缓冲 (每轮的命中数和反应时间总和)，以及两个窗口的滑动和 ---
+    private final int[] windowHits = new int[RECENT_SESSIONS * 2];
+    private final long[] windowMicros = new long[RECENT_SESSIONS * 2];
+    private long recentHits;
+    private long recentMicros;
+    private long previousHits;
+    private long previousMicros;
+
+    private ReactionHistory(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * 打开历史文件并扫描所有记录 (文件不存在时为空历史，第一次追加时创建)
+     * @throws IOException 文件无法读取或不是反应测试历史文件
+     */
+    public static ReactionHistory open(Path file) throws IOException {
+        ReactionHistory history = new ReactionHistory(file);
+        if (!Files.exists(file)) {
+            return history;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return history;
+            }
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("历史文件超过 2GB: " + file);
+            }
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            checkHeader(data, file);
+            int records = (int) ((size - HEADER_SIZE) / RECORD_SIZE); // 忽略末尾不完整的记录
+            for (int i = 0; i < records; i++) {
+                history.accumulate(readSession(data, HEADER_SIZE + i * RECORD_SIZE));
+            }
+        }
+        return history;
+    }
+
+    /**
+     * 打开默认位置的历史文件
+     */
+    public static ReactionHistory openDefault() throws IOException {
+        return open(defaultPath());
+    }
+
+    /**
+     * @return 历史文件的默认位置 (可通过系统属性 reaction.history.file 覆盖)
+     */
+    public static Path defaultPath() {
+        String configured = System.getProperty(FILE_PROPERTY);
+        if (configured != null && !configured.isEmpty()) {
+            return Paths.get(configured);
+        }
+        return Paths.get(System.getProperty("user.home"), ".easy-game", "reaction", "sessions.bin");
+    }
+
+    private static void checkHeader(ByteBuffer data, Path file) throws IOException {
+        if (data.limit() < HEADER_SIZE || data.getInt(0) != MAGIC) {
+            throw new IOException("不是反应测试历史文件: " + file);
+        }
+        if (data.getInt(4) != VERSION || data.getInt(8) != RECORD_SIZE) {
+            throw new IOException("不支持的历史文件版本 " + data.getInt(4) + ": " + file);
+        }
+    }
+
+    private static Session readSession(ByteBuffer data, int offset) {
+        return new Session(data.getLong(offset), data.getInt(offset + 8), data.getInt(offset + 12),
+                data.getInt(offset + 16), data.getInt(offset + 20), data.getInt(offset + 24),
+                data.getLong(offset + 28), data.getInt(offset + 36), data.getInt(offset + 40),
+                data.getInt(offset + 44), data.getInt(offset + 48), data.getInt(offset + 52));
+    }
+
+    private static void writeSession(ByteBuffer buffer, Session session) {
+        buffer.putLong(session.timestamp)
+                .putInt(session.shapeCount)
+                .putInt(session.score)
+                .putInt(session.hits)
+                .putInt(session.wrongHits)
+                .putInt(session.misses)
+                .putLong(session.sumMicros)
+                .putInt(session.p50Micros)
+                .putInt(session.p90Micros)
+                .putInt(session.p99Micros)
+                .putInt(session.minMicros)
+                .putInt(session.maxMicros);
+        while (buffer.position() < buffer.limit()) {
+            buffer.put((byte) 0); // 保留字节
+        }
+    }
+
+    /**
+     * 把一轮的摘要追加到文件末尾，并更新趋势统计
+     * @throws IOException 写入失败 (此时统计不变)
+     */
+    public void append(Session session) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).putInt(RECORD_SIZE)
+                        .putInt(0);
+                header.flip();
+                channel.truncate(0);
+                channel.write(header, 0);
+                size = HEADER_SIZE;
+            } else {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                channel.read(header, 0);
+                checkHeader(header, file);
+                long aligned = HEADER_SIZE + (size - HEADER_SIZE) / RECORD_SIZE * RECORD_SIZE;
+                if (aligned != size) {
+                    channel.truncate(aligned); // 截掉上次中断留下的半条记录
+                    size = aligned;
+                }
+            }
+            ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+            writeSession(record, session);
+            record.flip();
+            while (record.hasRemaining()) {
+                channel.write(record, size + record.position());
+            }
+        }
+        accumulate(session);
+    }
+
+    /**
+     * 把一轮加入累计值和滑动窗口，O(1)
+     */
+    private void accumulate(Session session) {
+        totalHits += session.hits;
+        totalWrongHits += session.wrongHits;
+        totalMisses += session.misses;
+        totalMicros += session.sumMicros;
+        if (session.hits > 0) {
+            bestP50Micros = Math.min(bestP50Micros, session.p50Micros);
+        }
+        bestScore = Math.max(bestScore, session.score);
+
+        // 第 sessionCount 轮进入最近窗口，第 sessionCount - N 轮从最近窗口移到之前的窗口，第 sessionCount - 2N 轮移出
+        int slot = sessionCount % windowHits.length;
+        previousHits -= windowHits[slot];
+        previousMicros -= windowMicros[slot];
+        windowHits[slot] = session.hits;
+        windowMicros[slot] = session.sumMicros;
+        recentHits += session.hits;
+        recentMicros += session.sumMicros;
+        if (sessionCount >= RECENT_SESSIONS) {
+            int moved = (sessionCount - RECENT_SESSIONS) % windowHits.length;
+            recentHits -= windowHits[moved];
+            recentMicros -= windowMicros[moved];
+            previousHits += windowHits[moved];
+            previousMicros += windowMicros[moved];
+        }
+        sessionCount++;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public int getSessionCount() {
+        return sessionCount;
+    }
+
+    public long getTotalHits() {
+        return totalHits;
+    }
+
+    public long getTotalWrongHits() {
+        return totalWrongHits;
+    }
+
+    public long getTotalMisses() {
+        return totalMisses;
+    }
+
+    /**
+     * @return 所有轮次的平均反应时间 (毫秒)
+     */
+    public double getOverallMeanMillis() {
+        return totalHits == 0 ? 0 : totalMicros / 1000.0 / totalHits;
+    }
+
+    /**
+     * @return 最近 {@value #RECENT_SESSIONS} 轮的平均反应时间 (毫秒)
+     */
+    public double getRecentMeanMillis() {
+        return recentHits == 0 ? 0 : recentMicros / 1000.0 / recentHits;
+    }
+
+    /**
+     * @return 最近 N 轮与再之前 N 轮平均反应时间之差 (毫秒，负数表示变快)；记录不足时为 0
+     */
+    public double getTrendMillis() {
+        if (recentHits == 0 || previousHits == 0) {
+            return 0;
+        }
+        return getRecentMeanMillis() - previousMicros / 1000.0 / previousHits;
+    }
+
+    /**
+     * @return 历史最好的 p50 反应时间 (毫秒)，没有记录时为 0
+     */
+    public double getBestP50Millis() {
+        return bestP50Micros == Integer.MAX_VALUE ? 0 : bestP50Micros / 1000.0;
+    }
+
+    /**
+     * @return 历史最高分，没有记录时为 0
+     */
+    public int getBestScore() {
+        return sessionCount == 0 ? 0 : bestScore;
+    }
+}
@@ -0,0 +1,91 @@
+package com.chqiuu.gamer.easygame;
+
+/**
+ * 一轮反应测试的流式统计
+ * <p>
+ * 每次正确点击的反应时间 (纳秒) 记录在固定内存的 {@link LatencyHistogram} 中，
+ * 分位数随时可查，不保存单次数据；错过和点错只计数。实例不是线程安全的。
+ */
+public class ReactionStatistics {
+
+    private final LatencyHistogram reactionTimes = new LatencyHistogram();
+    private int wrongHits;
+    private int misses;
+
+    /**
+     * 记录一次正确点击
+     * @param reactionNanos 反应时间 (纳秒)
+     */
+    public void recordHit(long reactionNanos) {
+        reactionTimes.record(reactionNanos);
+    }
+
+    /**
+     * 记录一次点错 (点中干扰项)
+     */
+    public void recordWrongHit() {
+        wrongHits++;
+    }
+
+    /**
+     * 记录一次错过 (超时或点背景)
+     */
+    public void recordMiss() {
+        misses++;
+    }
+
+    public void reset() {
+        reactionTimes.reset();
+        wrongHits = 0;
+        misses = 0;
+    }
+
+    public int getHits() {
+        return (int) reactionTimes.getCount();
+    }
+
+    public int getWrongHits() {
+        return wrongHits;
+    }
+
+    public int getMisses() {
+        return misses;
+    }
+
+    /**
+     * @return 正确点击、点错和错过的总次数
+     */
+    public int getTrials() {
+        return getHits() + wrongHits + misses;
+    }
+
+    /**
+     * @return 平均反应时间 (毫秒)，没有正确点击时为 0
+     */
+    public double getMeanMillis() {
+        return reactionTimes.getMean() / 1e6;
+    }
+
+    /**
+     * @param percentile 0 - 100
+     * @return 反应时间的分位数 (毫秒，相对误差约 3%)，没有正确点击时为 0
+     */
+    public double getPercentileMillis(double percentile) {
+        return reactionTimes.getValueAtPercentile(percentile) / 1e6;
+    }
+
+    public double getMinMillis() {
+        return reactionTimes.getMin() / 1e6;
+    }
+
+    public double getMaxMillis() {
+        return reactionTimes.getMax() / 1e6;
+    }
+
+    /**
+     * @return 反应时间直方图 (纳秒)
+     */
+    public LatencyHistogram getReactionTimes() {
+        return reactionTimes;
+    }
+}
@@ -1,40 +1,31 @@
 package com.chqiuu.gamer.easygame;
 
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
 import javafx.application.Application;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.Label;
+import javafx.scene.control.ScrollPane;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.stage.Stage;
-import javafx.util.Duration;
 
-import java.text.NumberFormat;
+import java.io.IOException;
+import java.nio.file.Path;
 
 public class SimpleClickerIdleFX extends Application {
 
-    // --- 游戏核心状态变量 ---
-    private long points = 0; // 当前点数 (使用 long 以支持更大数值)
-    private long pointsPerClick = 1; // 每次点击增加的点数
-    private long pointsPerSecond = 0; // 每秒自动增加的点数
+    // --- 游戏状态 ---
+    // 点数、升级和离线收益的规则都在 ClickerIdleGame 中，这里只负责显示和转交按钮
+    private final ClickerIdleGame game = new ClickerIdleGame();
 
-    // --- 升级相关的状态变量 ---
-    private long ppcUpgradeCost = 10; // 升级“点数/点击”的当前成本
-    private long ppsUpgradeCost = 25; // 升级“点数/秒”的当前成本
-    private int ppcLevel = 1; // “点数/点击”的等级
-    private int ppsLevel = 0; // “点数/秒”的等级
-
-    // --- 常量定义 ---
-    private static final double UPGRADE_COST_MULTIPLIER = 1.15; // 每次升级后成本增加的倍数
-    private static final long PPC_INCREASE_BASE = 1;      // 每次升级PPC增加的基础值
-    private static final long PPS_INCREASE_BASE = 1;      // 每次升级PPS增加的基础值
+    private static final int[] BULK_AMOUNTS = {10, 100}; // 批量购买的级数 (另有“最大”)
 
     // --- UI 元素 ---
     private Label pointsLabel;      // 显示总点数
@@ -43,18 +34,33 @@ public class SimpleClickerIdleFX extends Application {
     private Button clickButton;      // 主要的点击按钮
     private Button ppcUpgradeButton; // 升级 PPC 的按钮
     private Button ppsUpgradeButton; // 升级 PPS 的按钮
+    private final Button[] ppcBulkButtons = new Button[BULK_AMOUNTS.length]; // 一次升级多级 PPC
+    private final Button[] ppsBulkButtons = new Button[BULK_AMOUNTS.length]; // 一次升级多级 PPS
+    private Button ppcMaxButton;     // 买下所有买得起的 PPC 升级
+    private Button ppsMaxButton;     // 买下所有买得起的 PPS 升级
     private Label ppcUpgradeLabel;  // 显示 PPC 升级信息
     private Label ppsUpgradeLabel;  // 显示 PPS 升级信息
-
-    private Timeline idleTimer;     // 自动产生点数的计时器
-    private NumberFormat numberFormatter; // 用于格式化数字显示
+    private CheckBox autoBuyCheckBox; // 每秒自动购买 PPS 升级 (离线时也生效)
+    private Label offlineLabel;     // 显示离线收益
+    private Label[] generatorLabels;  // 每种生产设施的数量、产量和成本
+    private Button[] generatorButtons; // 购买一台生产设施
+    private IdleNumber[] generatorCosts; // 每种设施下一台的成本 (与标签一起更新，每秒只用来比较)
+    private Label[] multiplierLabels; // 每个倍率升级的效果和成本
+    private Button[] multiplierButtons; // 购买倍率升级
+    private final IdleNumber shopThreshold = new IdleNumber(); // 商店中买不起的最低成本，点数达到它时才逐个重新判断
+    private boolean hasShopThreshold; // 是否还有买不起的设施或倍率升级
+    private boolean shopButtonsStale = true; // 购买或读取存档后点数可能变少，商店按钮要全部重新判断
+
+    private long idleTimer;         // 自动产生点数的计时器 (FxTimers 句柄)
+    private final IdleNumber ppcIncrease = new IdleNumber(); // 显示用: 下一次 PPC 升级增加的点数
+    private final IdleNumber production = new IdleNumber(); // 显示用: 一种设施的每秒产量
+    private final IdleNumber scratch = new IdleNumber(); // 计算用的临时数值
+    private final StringBuilder text = new StringBuilder(); // 格式化数字显示用
 
     @Override
     public void start(Stage primaryStage) {
         primaryStage.setTitle("简单点击放置游戏 (中文版)");
 
-        numberFormatter = NumberFormat.getNumberInstance(); // 获取默认的数字格式化器
-
         BorderPane root = new BorderPane();
         root.setPadding(new Insets(20));
 
@@ -74,11 +80,19 @@ public class SimpleClickerIdleFX extends Application {
         root.setBottom(bottomPane);
         BorderPane.setAlignment(bottomPane, Pos.CENTER);
 
-        // --- 初始化并启动游戏循环 ---
+        // --- 右侧：生产设施和倍率升级 (从定义文件载入) ---
+        ScrollPane shopPane = createShopPane();
+        root.setRight(shopPane);
+        BorderPane.setMargin(shopPane, new Insets(0, 0, 0, 20));
+
+        // --- 读取存档，补上离线收益，并启动游戏循环 ---
+        loadProgress();
         setupIdleTimer();
-        updateUI(); // 初始化UI显示
+        updateUpgradeLabels(); // 初始化UI显示
+        updateShopLabels();
+        updateUI();
 
-        Scene scene = new Scene(root, 450, 500); // 设置场景大小
+        Scene scene = new Scene(root, 1020, 560); // 设置场景大小
         primaryStage.setScene(scene);
         primaryStage.setResizable(false);
         primaryStage.show();
@@ -91,7 +105,10 @@ public class SimpleClickerIdleFX extends Application {
         vbox.setAlignment(Pos.CENTER);
         pointsLabel = new Label("点数: 0");
         pointsLabel.setFont(Font.font("Arial", FontWeight.BOLD, 32));
-        vbox.getChildren().add(pointsLabel);
+        offlineLabel = new Label(" ");
+        offlineLabel.setFont(Font.font(13));
+        offlineLabel.setTextFill(Color.DARKGREEN);
+        vbox.getChildren().addAll(pointsLabel, offlineLabel);
         return vbox;
     }
 
@@ -125,32 +142,105 @@ public class SimpleClickerIdleFX extends Application {
         // --- PPC 升级项 ---
         HBox ppcBox = new HBox(10);
         ppcBox.setAlignment(Pos.CENTER_LEFT);
-        ppcUpgradeLabel = new Label(); // 信息在 updateUI 中设置
+        ppcUpgradeLabel = new Label(); // 信息在 updateUpgradeLabels 中设置
         ppcUpgradeLabel.setMinWidth(250); // 固定宽度防止按钮跳动
         ppcUpgradeButton = new Button("购买");
         ppcUpgradeButton.setOnAction(e -> buyPpcUpgrade());
         ppcBox.getChildren().addAll(ppcUpgradeLabel, ppcUpgradeButton);
+        for (int i = 0; i < BULK_AMOUNTS.length; i++) {
+            int amount = BULK_AMOUNTS[i];
+            ppcBulkButtons[i] = new Button("×" + amount);
+            ppcBulkButtons[i].setOnAction(e -> buyPpcUpgrades(amount));
+            ppcBox.getChildren().add(ppcBulkButtons[i]);
+        }
+        ppcMaxButton = new Button("最大");
+        ppcMaxButton.setOnAction(e -> buyPpcUpgrades(game.maxAffordablePpc()));
+        ppcBox.getChildren().add(ppcMaxButton);
 
         // --- PPS 升级项 ---
         HBox ppsBox = new HBox(10);
         ppsBox.setAlignment(Pos.CENTER_LEFT);
-        ppsUpgradeLabel = new Label(); // 信息在 updateUI 中设置
+        ppsUpgradeLabel = new Label(); // 信息在 updateUpgradeLabels 中设置
         ppsUpgradeLabel.setMinWidth(250);
         ppsUpgradeButton = new Button("购买");
         ppsUpgradeButton.setOnAction(e -> buyPpsUpgrade());
         ppsBox.getChildren().addAll(ppsUpgradeLabel, ppsUpgradeButton);
+        for (int i = 0; i < BULK_AMOUNTS.length; i++) {
+            int amount = BULK_AMOUNTS[i];
+            ppsBulkButtons[i] = new Button("×" + amount);
+            ppsBulkButtons[i].setOnAction(e -> buyPpsUpgrades(amount));
+            ppsBox.getChildren().add(ppsBulkButtons[i]);
+        }
+        ppsMaxButton = new Button("最大");
+        ppsMaxButton.setOnAction(e -> buyPpsUpgrades(game.maxAffordablePps()));
+        ppsBox.getChildren().add(ppsMaxButton);
+
+        autoBuyCheckBox = new CheckBox("自动购买效率升级 (离线时也生效)");
+        autoBuyCheckBox.setOnAction(e -> game.setAutoBuy(autoBuyCheckBox.isSelected()));
 
-        vbox.getChildren().addAll(ppcBox, ppsBox);
+        vbox.getChildren().addAll(ppcBox, ppsBox, autoBuyCheckBox);
         return vbox;
     }
 
+    private ScrollPane createShopPane() {
+        IdleGeneratorEngine generators = game.getGenerators();
+        VBox vbox = new VBox(8);
+        vbox.setPadding(new Insets(10));
+
+        Label generatorsTitle = new Label("生产设施");
+        generatorsTitle.setFont(Font.font("Arial", FontWeight.BOLD, 16));
+        vbox.getChildren().add(generatorsTitle);
+        int generatorCount = generators.getGeneratorCount();
+        generatorLabels = new Label[generatorCount];
+        generatorButtons = new Button[generatorCount];
+        generatorCosts = new IdleNumber[generatorCount];
+        for (int i = 0; i < generatorCount; i++) {
+            int index = i;
+            generatorCosts[i] = new IdleNumber();
+            generatorLabels[i] = new Label(); // 信息在 updateGeneratorLabel 中设置
+            generatorLabels[i].setMinWidth(250);
+            generatorButtons[i] = new Button("购买");
+            generatorButtons[i].setOnAction(e -> buyGenerator(index));
+            HBox row = new HBox(10, generatorLabels[i], generatorButtons[i]);
+            row.setAlignment(Pos.CENTER_LEFT);
+            vbox.getChildren().add(row);
+        }
+
+        Label multipliersTitle = new Label("倍率升级");
+        multipliersTitle.setFont(Font.font("Arial", FontWeight.BOLD, 16));
+        vbox.getChildren().add(multipliersTitle);
+        int multiplierCount = generators.getMultiplierCount();
+        multiplierLabels = new Label[multiplierCount];
+        multiplierButtons = new Button[multiplierCount];
+        for (int j = 0; j < multiplierCount; j++) {
+            int index = j;
+            String target = generators.getMultiplierTargetName(j);
+            // 倍率升级的效果和成本不变，只在这里设置一次
+            multiplierLabels[j] = new Label(String.format("%s (%s产量 ×%s)\n成本: %s 点",
+                    generators.getMultiplierName(j), target != null ? target : "所有设施",
+                    format("", scratch.set(generators.getMultiplierFactor(j))),
+                    format("", scratch.set(generators.getMultiplierCost(j)))));
+            multiplierLabels[j].setMinWidth(250);
+            multiplierButtons[j] = new Button("购买");
+            multiplierButtons[j].setOnAction(e -> buyMultiplier(index));
+            HBox row = new HBox(10, multiplierLabels[j], multiplierButtons[j]);
+            row.setAlignment(Pos.CENTER_LEFT);
+            vbox.getChildren().add(row);
+        }
+
+        ScrollPane scrollPane = new ScrollPane(vbox); // 设施和升级可以有几百个
+        scrollPane.setPrefWidth(360);
+        scrollPane.setHbarPolicy(ScrollPane.ScrollBarPolicy.NEVER);
+        return scrollPane;
+    }
+
     // --- 游戏逻辑方法 ---
 
     /**
      * 处理主按钮的点击事件
      */
     private void handleClick() {
-        points += pointsPerClick; // 增加点数
+        game.click(); // 增加点数
         updateUI(); // 更新界面显示
     }
 
@@ -158,13 +248,8 @@ public class SimpleClickerIdleFX extends Application {
      * 购买“点数/点击”升级
      */
     private void buyPpcUpgrade() {
-        if (points >= ppcUpgradeCost) { // 检查点数是否足够
-            points -= ppcUpgradeCost; // 扣除成本
-            ppcLevel++; // 增加等级
-            // 简单地增加 PPC，可以调整这个逻辑
-            pointsPerClick = 1 + (long)Math.pow(PPC_INCREASE_BASE * 1.2, ppcLevel-1) ; // 每次点击点数稍微加速增长
-            // 更新下一次升级的成本（指数增长）
-            ppcUpgradeCost = (long) (10 * Math.pow(UPGRADE_COST_MULTIPLIER, ppcLevel -1));
+        if (game.buyPpcUpgrade()) {
+            updateUpgradeLabels();
             updateUI(); // 更新界面
         } else {
             // (可选) 可以在 statusLabel 显示“点数不足”的提示
@@ -176,13 +261,8 @@ public class SimpleClickerIdleFX extends Application {
      * 购买“点数/秒”升级
      */
     private void buyPpsUpgrade() {
-        if (points >= ppsUpgradeCost) { // 检查点数是否足够
-            points -= ppsUpgradeCost; // 扣除成本
-            ppsLevel++; // 增加等级
-            // 简单地增加 PPS
-            pointsPerSecond += PPS_INCREASE_BASE + (ppsLevel / 2) ; // 每秒点数稳定增长，等级高了略快
-            // 更新下一次升级的成本
-            ppsUpgradeCost = (long) (25 * Math.pow(UPGRADE_COST_MULTIPLIER, ppsLevel));
+        if (game.buyPpsUpgrade()) {
+            updateUpgradeLabels();
             updateUI(); // 更新界面
         } else {
             // (可选) 提示点数不足
@@ -190,39 +270,201 @@ public class SimpleClickerIdleFX extends Application {
         }
     }
 
+    /**
+     * 一次购买多级“点数/点击”升级 (总成本按等比数列一次算出，一次扣除)
+     */
+    private void buyPpcUpgrades(long levels) {
+        if (game.buyPpcUpgrades(levels)) {
+            updateUpgradeLabels();
+            updateUI();
+        }
+    }
+
+    /**
+     * 一次购买多级“点数/秒”升级
+     */
+    private void buyPpsUpgrades(long levels) {
+        if (game.buyPpsUpgrades(levels)) {
+            updateUpgradeLabels();
+            updateUI();
+        }
+    }
+
+    /**
+     * 购买一台生产设施 (每秒总产量在下一次读取时重新累加)；只有这种设施的标签需要更新
+     */
+    private void buyGenerator(int i) {
+        if (game.buyGenerator(i)) {
+            updateGeneratorLabel(i);
+            updateUI();
+        }
+    }
+
+    /**
+     * 购买倍率升级 (可能作用于所有设施，所有设施的标签都重新设置)
+     */
+    private void buyMultiplier(int j) {
+        if (game.buyMultiplier(j)) {
+            updateShopLabels();
+            updateUI();
+        }
+    }
+
     /**
      * 设置并启动自动产生点数的计时器 (Idle Timer)
      */
     private void setupIdleTimer() {
-        idleTimer = new Timeline(new KeyFrame(Duration.seconds(1), event -> {
-            points += pointsPerSecond; // 每秒增加自动产生的点数
+        // 调度在共用的 FxTimers 上，每秒一次，直到被取消
+        idleTimer = FxTimers.scheduleRepeatingMillis(1000, () -> {
+            if (game.tick() > 0) { // 每秒增加自动产生的点数 (并自动购买)
+                updateUpgradeLabels();
+            }
             updateUI(); // 更新界面
-        }));
-        idleTimer.setCycleCount(Timeline.INDEFINITE); // 无限循环
-        idleTimer.play(); // 启动计时器
+        });
+    }
+
+    /**
+     * 读取存档，一次算完离开期间的收益 (包括自动购买的升级)
+     */
+    private void loadProgress() {
+        Path file = ClickerIdleGame.defaultPath();
+        long savedAt;
+        try {
+            savedAt = game.load(file);
+        } catch (IOException e) {
+            System.err.println("无法读取点击放置游戏存档 " + file + ": " + e.getMessage());
+            return;
+        }
+        autoBuyCheckBox.setSelected(game.isAutoBuy());
+        long seconds = (System.currentTimeMillis() - savedAt) / 1000; // 系统时间被调回时为负数，不计收益
+        if (savedAt < 0 || seconds <= 0) {
+            return;
+        }
+        scratch.set(game.getPoints());
+        long bought = game.advanceSeconds(seconds);
+        scratch.subtract(game.getPoints()).multiply(-1); // 离线期间净增加的点数
+        text.setLength(0);
+        text.append("离线 ").append(seconds / 3600).append(" 小时 ").append(seconds / 60 % 60).append(" 分钟，获得 ");
+        scratch.appendTo(text).append(" 点");
+        if (bought > 0) {
+            text.append("，自动购买 ").append(bought).append(" 次升级");
+        }
+        offlineLabel.setText(text.toString());
+    }
+
+    @Override
+    public void stop() {
+        FxTimers.cancel(idleTimer);
+        try {
+            game.save(ClickerIdleGame.defaultPath()); // 关闭窗口时保存进度和时刻
+        } catch (IOException e) {
+            System.err.println("无法保存点击放置游戏存档 " + ClickerIdleGame.defaultPath() + ": " + e.getMessage());
+        }
     }
 
     /**
-     * 更新所有需要动态显示的 UI 元素
+     * 更新每秒都会变化的 UI 元素: 点数、收益和各个购买按钮是否可用
+     * (升级和设施的标签只在购买之后更新，见 updateUpgradeLabels 和 updateShopLabels；
+     * 商店按钮只在购买之后或点数达到 shopThreshold 时重新判断)
      */
     private void updateUI() {
-        // 使用 NumberFormat 格式化大数字，增加逗号分隔符
-        pointsLabel.setText("点数: " + numberFormatter.format(points));
-        ppcLabel.setText("点数/点击: " + numberFormatter.format(pointsPerClick));
-        ppsLabel.setText("点数/秒: " + numberFormatter.format(pointsPerSecond));
+        // IdleNumber 的紧凑格式: 小的数带逗号分隔符，大的数用后缀 (1.23M) 或科学计数法 (1.23e45)
+        IdleNumber points = game.getPoints();
+        pointsLabel.setText(format("点数: ", points));
+        ppsLabel.setText(format("点数/秒: ", game.getIncome())); // 包括生产设施的产量
+
+        // 如果点数不足则禁用按钮
+        ppcUpgradeButton.setDisable(points.compareTo(game.getPpcUpgradeCost()) < 0);
+        ppsUpgradeButton.setDisable(points.compareTo(game.getPpsUpgradeCost()) < 0);
+        for (int i = 0; i < BULK_AMOUNTS.length; i++) {
+            ppcBulkButtons[i].setDisable(points.compareTo(game.getPpcUpgradeCost(BULK_AMOUNTS[i], scratch)) < 0);
+            ppsBulkButtons[i].setDisable(points.compareTo(game.getPpsUpgradeCost(BULK_AMOUNTS[i], scratch)) < 0);
+        }
+        ppcMaxButton.setDisable(ppcUpgradeButton.isDisabled()); // 买得起一级就可以点“最大”
+        ppsMaxButton.setDisable(ppsUpgradeButton.isDisabled());
+
+        // 两次购买之间点数只增不减，买得起的不会变成买不起: 只在点数达到最低的买不起成本时才逐个判断
+        if (shopButtonsStale || (hasShopThreshold && points.compareTo(shopThreshold) >= 0)) {
+            updateShopButtons(points);
+        }
+    }
+
+    /**
+     * 逐个判断生产设施和倍率升级是否买得起，并记下买不起的最低成本
+     */
+    private void updateShopButtons(IdleNumber points) {
+        shopButtonsStale = false;
+        hasShopThreshold = false;
+        for (int i = 0; i < generatorButtons.length; i++) {
+            updateShopButton(generatorButtons[i], points, generatorCosts[i]);
+        }
+        IdleGeneratorEngine generators = game.getGenerators();
+        for (int j = 0; j < multiplierButtons.length; j++) {
+            if (generators.isMultiplierBought(j)) {
+                multiplierButtons[j].setDisable(true);
+            } else {
+                updateShopButton(multiplierButtons[j], points, scratch.set(generators.getMultiplierCost(j)));
+            }
+        }
+    }
 
-        // 更新升级按钮的文本和状态
+    private void updateShopButton(Button button, IdleNumber points, IdleNumber cost) {
+        boolean affordable = points.compareTo(cost) >= 0;
+        button.setDisable(!affordable);
+        if (!affordable && (!hasShopThreshold || cost.compareTo(shopThreshold) < 0)) {
+            shopThreshold.set(cost);
+            hasShopThreshold = true;
+        }
+    }
+
+    /**
+     * 更新“点数/点击”和两个升级的标签 (购买升级、自动购买或读取存档之后)
+     */
+    private void updateUpgradeLabels() {
+        shopButtonsStale = true; // 升级花掉了点数
+        ppcLabel.setText(format("点数/点击: ", game.getPointsPerClick()));
+
+        int ppcLevel = game.getPpcLevel();
+        ppcIncrease.setPower(ClickerIdleGame.PPC_INCREASE_BASE * 1.2, ppcLevel).floor() // 显示下一次增加多少
+                .subtract(scratch.setPower(ClickerIdleGame.PPC_INCREASE_BASE * 1.2, ppcLevel - 1).floor());
         ppcUpgradeLabel.setText(String.format("提升点击 Lv.%d (+%s PPC)\n成本: %s 点",
-                ppcLevel,
-                numberFormatter.format((long)Math.pow(PPC_INCREASE_BASE * 1.2, ppcLevel) - (long)Math.pow(PPC_INCREASE_BASE*1.2, ppcLevel -1)), // 显示下一次增加多少
-                numberFormatter.format(ppcUpgradeCost)));
-        ppcUpgradeButton.setDisable(points < ppcUpgradeCost); // 如果点数不足则禁用按钮
+                ppcLevel, ppcIncrease, game.getPpcUpgradeCost()));
 
         ppsUpgradeLabel.setText(String.format("提升效率 Lv.%d (+%s PPS)\n成本: %s 点",
-                ppsLevel + 1, // 显示将要达到的等级
-                numberFormatter.format(PPS_INCREASE_BASE + ((ppsLevel+1) / 2) - (ppsLevel/2) ), // 显示下一次增加多少
-                numberFormatter.format(ppsUpgradeCost)));
-        ppsUpgradeButton.setDisable(points < ppsUpgradeCost); // 如果点数不足则禁用按钮
+                game.getPpsLevel() + 1, // 显示将要达到的等级
+                ClickerIdleGame.ppsIncrease(game.getPpsLevel() + 1), // 显示下一次增加多少
+                game.getPpsUpgradeCost()));
+    }
+
+    /**
+     * 更新所有设施的标签和倍率升级按钮的文字 (购买倍率升级或读取存档之后)
+     */
+    private void updateShopLabels() {
+        shopButtonsStale = true; // 倍率升级花掉了点数，买过的按钮也要禁用
+        for (int i = 0; i < generatorLabels.length; i++) {
+            updateGeneratorLabel(i);
+        }
+        IdleGeneratorEngine generators = game.getGenerators();
+        for (int j = 0; j < multiplierButtons.length; j++) {
+            multiplierButtons[j].setText(generators.isMultiplierBought(j) ? "已购买" : "购买");
+        }
+    }
+
+    /**
+     * 更新第 i 种设施的数量、产量和成本 (同时记下成本，每秒判断买不买得起时使用)
+     */
+    private void updateGeneratorLabel(int i) {
+        IdleGeneratorEngine generators = game.getGenerators();
+        generators.getCost(i, generatorCosts[i]);
+        shopButtonsStale = true; // 成本变了，点数也可能变少
+        generatorLabels[i].setText(String.format("%s ×%d (%s 点/秒)\n成本: %s 点",
+                generators.getGeneratorName(i), generators.getCount(i),
+                format("", generators.getProduction(i, production)), generatorCosts[i]));
+    }
+
+    private String format(String prefix, IdleNumber value) {
+        text.setLength(0);
+        return value.appendTo(text.append(prefix)).toString();
     }
 
 
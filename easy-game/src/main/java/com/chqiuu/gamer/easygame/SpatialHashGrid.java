@@ -0,0 +1,149 @@
+package com.chqiuu.gamer.easygame;
+
+import java.util.Arrays;
+
+/**
+ * 矩形区域上的均匀网格点索引
+ * <p>
+ * 区域按固定边长切成格子，每个格子用 "头指针 + next 数组" 组成的链表保存落在其中的点，
+ * 插入 O(1)，距离查询只检查与查询圆相交的格子。所有数据都在可复用的基本类型数组中，
+ * {@link #reset(double, double, double)} 之后重复使用不会分配新对象 (点数或格子数超过历史最大值时才扩容)。
+ * 区域外的坐标会被夹到边缘的格子里，不影响结果的正确性。实例不是线程安全的。
+ */
+public class SpatialHashGrid {
+
+    private double cellSize;
+    private int cols;
+    private int rows;
+    private int[] heads = new int[0]; // 每个格子的第一个点，-1 表示空
+    private int[] next = new int[16]; // 同一格子中的下一个点
+    private double[] xs = new double[16];
+    private double[] ys = new double[16];
+    private int size;
+
+    public SpatialHashGrid(double width, double height, double cellSize) {
+        reset(width, height, cellSize);
+    }
+
+    /**
+     * 清空并重新设置区域大小和格子边长
+     */
+    public void reset(double width, double height, double cellSize) {
+        if (cellSize <= 0 || width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("区域和格子尺寸必须为正数");
+        }
+        this.cellSize = cellSize;
+        this.cols = Math.max(1, (int) Math.ceil(width / cellSize));
+        this.rows = Math.max(1, (int) Math.ceil(height / cellSize));
+        int cells = cols * rows;
+        if (heads.length < cells) {
+            heads = new int[cells];
+        }
+        clear();
+    }
+
+    /**
+     * 删除所有点，保留区域设置
+     */
+    public void clear() {
+        Arrays.fill(heads, 0, cols * rows, -1);
+        size = 0;
+    }
+
+    /**
+     * @return 点的数量
+     */
+    public int size() {
+        return size;
+    }
+
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * 插入一个点
+     * @return 点的编号 (按插入顺序从 0 开始)
+     */
+    public int insert(double x, double y) {
+        if (size == xs.length) {
+            int capacity = size * 2;
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+            next = Arrays.copyOf(next, capacity);
+        }
+        int id = size++;
+        xs[id] = x;
+        ys[id] = y;
+        int cell = cellRow(y) * cols + cellCol(x);
+        next[id] = heads[cell];
+        heads[cell] = id;
+        return id;
+    }
+
+    public double getX(int id) {
+        return xs[id];
+    }
+
+    public double getY(int id) {
+        return ys[id];
+    }
+
+    /**
+     * @return 是否存在与 (x, y) 距离小于 distance 的点
+     */
+    public boolean hasPointWithin(double x, double y, double distance) {
+        double limit = distance * distance;
+        int minCol = cellCol(x - distance);
+        int maxCol = cellCol(x + distance);
+        int maxRow = cellRow(y + distance);
+        for (int row = cellRow(y - distance); row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                for (int id = heads[row * cols + col]; id >= 0; id = next[id]) {
+                    double dx = xs[id] - x;
+                    double dy = ys[id] - y;
+                    if (dx * dx + dy * dy < limit) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 查找离 (x, y) 最近且距离不超过 maxDistance 的点
+     * @return 点的编号，没有时返回 -1
+     */
+    public int nearest(double x, double y, double maxDistance) {
+        double best = maxDistance * maxDistance;
+        int bestId = -1;
+        int minCol = cellCol(x - maxDistance);
+        int maxCol = cellCol(x + maxDistance);
+        int maxRow = cellRow(y + maxDistance);
+        for (int row = cellRow(y - maxDistance); row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                for (int id = heads[row * cols + col]; id >= 0; id = next[id]) {
+                    double dx = xs[id] - x;
+                    double dy = ys[id] - y;
+                    double d = dx * dx + dy * dy;
+                    if (d <= best) {
+                        best = d;
+                        bestId = id;
+                    }
+                }
+            }
+        }
+        return bestId;
+    }
+
+    private int cellCol(double x) {
+        int col = (int) Math.floor(x / cellSize);
+        return col < 0 ? 0 : Math.min(col, cols - 1);
+    }
+
+    private int cellRow(double y) {
+        int row = (int) Math.floor(y / cellSize);
+        return row < 0 ? 0 : Math.min(row, rows - 1);
+    }
+}
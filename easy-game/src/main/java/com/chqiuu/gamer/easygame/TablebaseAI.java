@@ -0,0 +1,62 @@
+package com.chqiuu.gamer.easygame;
+
+/**
+ * 基于 {@link TicTacToeTablebase} 的 3x3 井字棋完美电脑玩家
+ * <p>
+ * 每步只做一次残局库查询，没有任何搜索。
+ */
+public class TablebaseAI implements TicTacToeAI {
+
+    private final TicTacToeTablebase tablebase;
+
+    public TablebaseAI(TicTacToeTablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    @Override
+    public String getName() {
+        return "Tablebase";
+    }
+
+    /**
+     * @throws IllegalArgumentException 棋盘不是经典 3x3 井字棋
+     */
+    @Override
+    public int chooseMove(LineGameBoard board) {
+        if (board.isGameOver()) {
+            throw new IllegalStateException("游戏已结束");
+        }
+        return tablebase.bestMove(toTicTacToeBoard(board));
+    }
+
+    private static TicTacToeBoard toTicTacToeBoard(LineGameBoard board) {
+        if (board instanceof TicTacToeBoard) {
+            return (TicTacToeBoard) board;
+        }
+        if (board.getRows() != TicTacToeBoard.SIZE || board.getCols() != TicTacToeBoard.SIZE
+                || board.getWinLength() != TicTacToeBoard.SIZE) {
+            throw new IllegalArgumentException("残局库只支持 3x3 井字棋");
+        }
+        // 未结束的局面里任何一方都没有连线，按 X、O 交替重放即可得到相同局面
+        TicTacToeBoard copy = new TicTacToeBoard();
+        int x = 0;
+        int o = 0;
+        while (true) {
+            char wanted = copy.getCurrentPlayer();
+            int from = wanted == LineGameBoard.PLAYER_X ? x : o;
+            int cell = from;
+            while (cell < TicTacToeBoard.CELL_COUNT && board.getCell(cell) != wanted) {
+                cell++;
+            }
+            if (cell == TicTacToeBoard.CELL_COUNT) {
+                return copy;
+            }
+            copy.play(cell);
+            if (wanted == LineGameBoard.PLAYER_X) {
+                x = cell + 1;
+            } else {
+                o = cell + 1;
+            }
+        }
+    }
+}
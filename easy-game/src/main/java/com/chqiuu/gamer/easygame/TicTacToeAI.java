@@ -0,0 +1,23 @@
+package com.chqiuu.gamer.easygame;
+
+/**
+ * 井字棋 / 五子棋电脑玩家的通用接口
+ * <p>
+ * 实现类可以持有置换表等内部状态，因此同一个实例不保证线程安全，
+ * 同一时间只能有一个线程调用 {@link #chooseMove(LineGameBoard)}。
+ */
+public interface TicTacToeAI {
+
+    /**
+     * 为当前轮到的玩家选择一步棋
+     * @param board 当前局面，实现类不得修改它 (需要试走时请使用 {@link LineGameBoard#copy()})
+     * @return 选中的格子下标
+     * @throws IllegalStateException 游戏已经结束
+     */
+    int chooseMove(LineGameBoard board);
+
+    /**
+     * @return 显示给玩家的名称
+     */
+    String getName();
+}
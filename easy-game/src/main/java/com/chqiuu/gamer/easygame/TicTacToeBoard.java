@@ -0,0 +1,226 @@
+package com.chqiuu.gamer.easygame;
+
+/**
+ * 井字棋规则引擎
+ * <p>
+ * 每个玩家的落子用一个 int 位掩码保存，第 i 位对应格子 i = row * 3 + col。
+ * 8 条获胜连线预先计算成掩码，胜负判断只需几次 AND/比较运算，
+ * 便于机器人对战、回放等高频调用场景。
+ */
+public class TicTacToeBoard implements LineGameBoard {
+
+    public static final int SIZE = 3; // 棋盘边长
+    public static final int CELL_COUNT = SIZE * SIZE; // 格子总数
+
+    /** 所有格子都被占用时的掩码 */
+    public static final int FULL_MASK = (1 << CELL_COUNT) - 1;
+
+    /** 8 条获胜连线: 3 行、3 列、2 条对角线 */
+    public static final int[] WIN_MASKS = {
+            0b000_000_111, 0b000_111_000, 0b111_000_000, // 行
+            0b001_001_001, 0b010_010_010, 0b100_100_100, // 列
+            0b100_010_001, 0b001_010_100                 // 对角线
+    };
+
+    private int xBits; // X 的落子掩码
+    private int oBits; // O 的落子掩码
+    private final int[] history = new int[CELL_COUNT]; // 落子顺序，用于悔棋
+    private int moveCount;
+
+    public TicTacToeBoard() {
+    }
+
+    /**
+     * 复制构造，用于 AI 在副本上搜索
+     * @param other 要复制的棋盘
+     */
+    public TicTacToeBoard(TicTacToeBoard other) {
+        this.xBits = other.xBits;
+        this.oBits = other.oBits;
+        this.moveCount = other.moveCount;
+        System.arraycopy(other.history, 0, this.history, 0, other.moveCount);
+    }
+
+    @Override
+    public int getRows() {
+        return SIZE;
+    }
+
+    @Override
+    public int getCols() {
+        return SIZE;
+    }
+
+    @Override
+    public int getWinLength() {
+        return SIZE;
+    }
+
+    @Override
+    public int getCellCount() {
+        return CELL_COUNT;
+    }
+
+    @Override
+    public void reset() {
+        xBits = 0;
+        oBits = 0;
+        moveCount = 0;
+    }
+
+    /**
+     * 在指定格子落下当前玩家的棋子，随后轮到对方
+     * @param index 格子下标 (0-8)
+     * @throws IllegalStateException 格子已被占用或游戏已结束
+     */
+    @Override
+    public void play(int index) {
+        int bit = 1 << index;
+        if (((xBits | oBits) & bit) != 0) {
+            throw new IllegalStateException("格子 " + index + " 已被占用");
+        }
+        if (isGameOver()) {
+            throw new IllegalStateException("游戏已结束");
+        }
+        if ((moveCount & 1) == 0) {
+            xBits |= bit;
+        } else {
+            oBits |= bit;
+        }
+        history[moveCount++] = index;
+    }
+
+    /**
+     * 在 (row, col) 落子
+     */
+    public void play(int row, int col) {
+        play(row * SIZE + col);
+    }
+
+    @Override
+    public void undo() {
+        if (moveCount == 0) {
+            throw new IllegalStateException("没有可以撤销的棋步");
+        }
+        int bit = 1 << history[--moveCount];
+        xBits &= ~bit;
+        oBits &= ~bit;
+    }
+
+    @Override
+    public char getCurrentPlayer() {
+        return (moveCount & 1) == 0 ? PLAYER_X : PLAYER_O;
+    }
+
+    /**
+     * @return 指定格子的内容 ('X'、'O' 或 ' ')
+     */
+    public char getCell(int row, int col) {
+        return getCell(row * SIZE + col);
+    }
+
+    @Override
+    public char getCell(int index) {
+        int bit = 1 << index;
+        if ((xBits & bit) != 0) return PLAYER_X;
+        if ((oBits & bit) != 0) return PLAYER_O;
+        return EMPTY;
+    }
+
+    public boolean isEmpty(int row, int col) {
+        return isEmptyCell(row * SIZE + col);
+    }
+
+    @Override
+    public boolean isEmptyCell(int index) {
+        return ((xBits | oBits) & (1 << index)) == 0;
+    }
+
+    /**
+     * @return 空格子的掩码
+     */
+    public int getEmptyMask() {
+        return ~(xBits | oBits) & FULL_MASK;
+    }
+
+    public int getXBits() {
+        return xBits;
+    }
+
+    public int getOBits() {
+        return oBits;
+    }
+
+    @Override
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    @Override
+    public int getLastMove() {
+        return moveCount == 0 ? -1 : history[moveCount - 1];
+    }
+
+    /**
+     * 检查指定玩家是否获胜
+     * @param player 'X' 或 'O'
+     */
+    public boolean hasWon(char player) {
+        return winningMask(player == PLAYER_X ? xBits : oBits) != 0;
+    }
+
+    @Override
+    public char getWinner() {
+        // 只有刚落子的一方可能刚刚连成线，但回放等场景也可能直接设置局面，所以两方都查
+        if (winningMask(xBits) != 0) return PLAYER_X;
+        if (winningMask(oBits) != 0) return PLAYER_O;
+        return EMPTY;
+    }
+
+    /**
+     * @return 获胜连线的掩码，无人获胜时返回 0
+     */
+    public int getWinningLine() {
+        int line = winningMask(xBits);
+        return line != 0 ? line : winningMask(oBits);
+    }
+
+    @Override
+    public boolean isDraw() {
+        return (xBits | oBits) == FULL_MASK && getWinningLine() == 0;
+    }
+
+    @Override
+    public boolean isGameOver() {
+        return (xBits | oBits) == FULL_MASK || getWinningLine() != 0;
+    }
+
+    @Override
+    public int[] getWinningCells() {
+        int line = getWinningLine();
+        int[] cells = new int[Integer.bitCount(line)];
+        for (int i = 0; line != 0; i++) {
+            cells[i] = Integer.numberOfTrailingZeros(line);
+            line &= line - 1;
+        }
+        return cells;
+    }
+
+    @Override
+    public TicTacToeBoard copy() {
+        return new TicTacToeBoard(this);
+    }
+
+    /**
+     * 在获胜掩码表中查找被 bits 完全覆盖的连线
+     * @return 找到的连线掩码，没有则返回 0
+     */
+    private static int winningMask(int bits) {
+        for (int mask : WIN_MASKS) {
+            if ((bits & mask) == mask) {
+                return mask;
+            }
+        }
+        return 0;
+    }
+}
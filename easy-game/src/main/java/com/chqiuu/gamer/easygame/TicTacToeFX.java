@@ -1,37 +1,154 @@
 package com.chqiuu.gamer.easygame;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.stage.Stage;
 
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
 public class TicTacToeFX extends Application {
 
-    private static final int BOARD_SIZE = 3; // 棋盘大小为 3x3
+    /**
+     * 棋盘模式: 经典井字棋或更大的五子棋棋盘
+     */
+    private enum BoardMode {
+        CLASSIC("井字棋 3x3", 3, 3, 3, 80, 32, 10),
+        GOMOKU_15("五子棋 15x15", 15, 15, 5, 32, 14, 1),
+        GOMOKU_19("五子棋 19x19", 19, 19, 5, 28, 12, 1);
+
+        final String label;
+        final int rows;
+        final int cols;
+        final int winLength;
+        final double cellSize; // 按钮尺寸
+        final double fontSize; // 棋子字体大小
+        final double gap; // 按钮间距
+
+        BoardMode(String label, int rows, int cols, int winLength, double cellSize, double fontSize, double gap) {
+            this.label = label;
+            this.rows = rows;
+            this.cols = cols;
+            this.winLength = winLength;
+            this.cellSize = cellSize;
+            this.fontSize = fontSize;
+            this.gap = gap;
+        }
+
+        /**
+         * @return 该模式对应的规则引擎，3x3 使用位棋盘，其余使用增量连子计数棋盘
+         */
+        LineGameBoard createBoard() {
+            if (rows == TicTacToeBoard.SIZE && cols == TicTacToeBoard.SIZE && winLength == TicTacToeBoard.SIZE) {
+                return new TicTacToeBoard();
+            }
+            return new GomokuBoard(rows, cols, winLength);
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    /**
+     * 对手模式: 双人对战或与电脑对战 (电脑执 O 后手)
+     */
+    private enum OpponentMode {
+        HUMAN("双人对战"),
+        ALPHA_BETA("电脑 (Alpha-Beta)"),
+        MCTS("电脑 (蒙特卡洛树搜索)"),
+        TABLEBASE("电脑 (完美残局库)");
 
-    private char[][] board = new char[BOARD_SIZE][BOARD_SIZE]; // 内部逻辑棋盘, ' ' 表示空, 'X', 'O'
-    private char currentPlayer = 'X'; // 当前玩家，X 先手
+        final String label;
+
+        OpponentMode(String label) {
+            this.label = label;
+        }
+
+        /**
+         * @return 该模式在指定棋盘上使用的电脑玩家，双人对战时返回 null
+         */
+        TicTacToeAI createAI(BoardMode boardMode) {
+            switch (this) {
+                case ALPHA_BETA:
+                    // 3x3 可以直接搜到终局；大棋盘用迭代加深，每步最多思考 1 秒
+                    return boardMode == BoardMode.CLASSIC ? new AlphaBetaAI(500, 9) : new AlphaBetaAI(1000, 12);
+                case MCTS:
+                    // 使用全部 CPU 核心并行模拟
+                    return new MonteCarloAI(boardMode == BoardMode.CLASSIC ? 300 : 1000);
+                case TABLEBASE:
+                    if (boardMode == BoardMode.CLASSIC) {
+                        try {
+                            // 内存映射读取残局库，首次使用时自动生成
+                            return new TablebaseAI(TicTacToeTablebase.openDefault());
+                        } catch (IOException e) {
+                            System.err.println("无法加载残局库，改用 Alpha-Beta 搜索: " + e.getMessage());
+                        }
+                    }
+                    // 残局库只覆盖 3x3 井字棋，其余棋盘退回 Alpha-Beta 搜索
+                    return ALPHA_BETA.createAI(boardMode);
+                default:
+                    return null;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    private static final char AI_PLAYER = LineGameBoard.PLAYER_O; // 电脑执 O
+
+    private BoardMode currentMode = BoardMode.CLASSIC; // 默认经典井字棋
+    private LineGameBoard board = currentMode.createBoard(); // 内部规则引擎
     private boolean gameOver = false; // 游戏是否结束标志
 
+    // --- 电脑对手 ---
+    private OpponentMode opponentMode = OpponentMode.HUMAN; // 默认双人对战
+    private TicTacToeAI ai; // 当前使用的电脑玩家
+    private boolean aiThinking = false; // 电脑是否正在思考 (期间忽略玩家点击)
+    private int gameGeneration = 0; // 每局游戏的编号，用于丢弃过期的电脑着法
+    // 电脑在后台线程搜索，避免阻塞 JavaFX 应用线程
+    private final ExecutorService aiExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "tictactoe-ai");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     // --- UI 元素 ---
-    private Button[][] cellButtons = new Button[BOARD_SIZE][BOARD_SIZE]; // 棋盘按钮数组
+    private Stage primaryStage;
+    private BorderPane root;
+    private Button[][] cellButtons; // 棋盘按钮数组
     private Label statusLabel; // 显示游戏状态（轮到谁、获胜者、平局）的标签
+    private ComboBox<BoardMode> modeComboBox; // 棋盘模式选择
+    private ComboBox<OpponentMode> opponentComboBox; // 对手模式选择
     private Button newGameButton; // 新游戏按钮
 
     @Override
     public void start(Stage primaryStage) {
+        this.primaryStage = primaryStage;
         primaryStage.setTitle("井字棋游戏 (中文版)"); // 设置窗口标题
 
-        BorderPane root = new BorderPane(); // 使用 BorderPane 作为根布局
+        root = new BorderPane(); // 使用 BorderPane 作为根布局
+        root.setMinSize(350, 450); // 经典模式下保持原来的窗口大小
 
         // --- 顶部状态显示区域 ---
         VBox topPane = createTopPane();
@@ -40,9 +157,7 @@ public class TicTacToeFX extends Application {
         BorderPane.setMargin(topPane, new Insets(10));
 
         // --- 中间棋盘区域 ---
-        GridPane boardPane = createBoardPane();
-        root.setCenter(boardPane);
-        BorderPane.setAlignment(boardPane, Pos.CENTER);
+        rebuildBoardPane();
 
         // --- 底部新游戏按钮区域 ---
         VBox bottomPane = createBottomPane();
@@ -52,7 +167,7 @@ public class TicTacToeFX extends Application {
 
         initializeGame(); // 初始化游戏状态和棋盘
 
-        Scene scene = new Scene(root, 350, 450); // 设置场景大小
+        Scene scene = new Scene(root); // 场景大小随棋盘模式自适应
         primaryStage.setScene(scene);
         primaryStage.setResizable(false); // 禁止调整大小
         primaryStage.show(); // 显示窗口
@@ -61,35 +176,60 @@ public class TicTacToeFX extends Application {
     // --- UI 创建辅助方法 ---
 
     /**
-     * 创建顶部的状态显示面板
-     * @return 包含状态标签的 VBox
+     * 创建顶部的模式选择和状态显示面板
+     * @return 包含模式选择框和状态标签的 VBox
      */
     private VBox createTopPane() {
-        VBox vbox = new VBox();
+        VBox vbox = new VBox(8);
         vbox.setAlignment(Pos.CENTER);
+        modeComboBox = new ComboBox<>();
+        modeComboBox.getItems().addAll(BoardMode.values());
+        modeComboBox.setValue(currentMode);
+        // 切换模式时重建棋盘并开始新游戏
+        modeComboBox.setOnAction(event -> changeMode(modeComboBox.getValue()));
+        opponentComboBox = new ComboBox<>();
+        opponentComboBox.getItems().addAll(OpponentMode.values());
+        opponentComboBox.setValue(opponentMode);
+        // 切换对手时开始新游戏
+        opponentComboBox.setOnAction(event -> changeOpponent(opponentComboBox.getValue()));
+        HBox modeBox = new HBox(10, modeComboBox, opponentComboBox);
+        modeBox.setAlignment(Pos.CENTER);
         statusLabel = new Label(); // 初始化标签，文本在 updateStatusLabel 中设置
         statusLabel.setFont(Font.font("Arial", 18)); // 设置字体
-        vbox.getChildren().add(statusLabel);
+        vbox.getChildren().addAll(modeBox, statusLabel);
         return vbox;
     }
 
     /**
-     * 创建中间的 3x3 棋盘面板
+     * 按当前模式创建棋盘面板并放到窗口中央
+     */
+    private void rebuildBoardPane() {
+        GridPane boardPane = createBoardPane();
+        root.setCenter(boardPane);
+        BorderPane.setAlignment(boardPane, Pos.CENTER);
+    }
+
+    /**
+     * 创建中间的棋盘面板 (行列数由当前模式决定)
      * @return 包含按钮的 GridPane
      */
     private GridPane createBoardPane() {
         GridPane gridPane = new GridPane();
         gridPane.setAlignment(Pos.CENTER);
-        gridPane.setHgap(10); // 设置单元格水平间距
-        gridPane.setVgap(10); // 设置单元格垂直间距
+        gridPane.setHgap(currentMode.gap); // 设置单元格水平间距
+        gridPane.setVgap(currentMode.gap); // 设置单元格垂直间距
         gridPane.setPadding(new Insets(10)); // 设置内边距
 
-        // 创建 3x3 的按钮并添加到 GridPane
-        for (int row = 0; row < BOARD_SIZE; row++) {
-            for (int col = 0; col < BOARD_SIZE; col++) {
+        cellButtons = new Button[currentMode.rows][currentMode.cols];
+        for (int row = 0; row < currentMode.rows; row++) {
+            for (int col = 0; col < currentMode.cols; col++) {
                 Button button = new Button();
-                button.setMinSize(80, 80); // 设置按钮最小尺寸
-                button.setFont(Font.font("Arial", FontWeight.BOLD, 32)); // 设置按钮字体
+                button.setMinSize(currentMode.cellSize, currentMode.cellSize); // 设置按钮最小尺寸
+                button.setPrefSize(currentMode.cellSize, currentMode.cellSize);
+                if (currentMode != BoardMode.CLASSIC) {
+                    button.setPadding(Insets.EMPTY); // 小按钮去掉内边距，保证棋子能显示完整
+                }
+                button.setFont(Font.font("Arial", FontWeight.BOLD, currentMode.fontSize)); // 设置按钮字体
                 final int r = row; // final 变量用于 lambda 表达式
                 final int c = col;
                 // 为每个按钮设置点击事件处理器
@@ -117,38 +257,94 @@ public class TicTacToeFX extends Application {
 
     // --- 游戏逻辑方法 ---
 
+    /**
+     * 切换棋盘模式，重建规则引擎和棋盘界面
+     * @param mode 新的棋盘模式
+     */
+    private void changeMode(BoardMode mode) {
+        if (mode == null || mode == currentMode) {
+            return;
+        }
+        currentMode = mode;
+        board = mode.createBoard();
+        replaceAI(opponentMode.createAI(mode));
+        rebuildBoardPane();
+        initializeGame();
+        primaryStage.sizeToScene(); // 窗口大小跟随新棋盘调整
+    }
+
+    /**
+     * 切换对手模式并开始新游戏
+     * @param mode 新的对手模式
+     */
+    private void changeOpponent(OpponentMode mode) {
+        if (mode == null || mode == opponentMode) {
+            return;
+        }
+        opponentMode = mode;
+        replaceAI(mode.createAI(currentMode));
+        initializeGame();
+    }
+
+    /**
+     * 换用新的电脑玩家，关闭旧的蒙特卡洛搜索线程池
+     */
+    private void replaceAI(TicTacToeAI next) {
+        shutdownAI();
+        ai = next;
+    }
+
+    private void shutdownAI() {
+        if (ai instanceof MonteCarloAI) {
+            ((MonteCarloAI) ai).shutdown(); // 正在进行的搜索被取消，结果会被丢弃
+        }
+    }
+
     /**
      * 初始化或重置游戏状态和棋盘界面
      */
     private void initializeGame() {
-        // 重置内部逻辑棋盘
-        for (int row = 0; row < BOARD_SIZE; row++) {
-            for (int col = 0; col < BOARD_SIZE; col++) {
-                board[row][col] = ' '; // ' ' 代表空格子
+        gameGeneration++; // 让仍在计算中的电脑着法失效
+        aiThinking = false;
+        board.reset(); // 重置内部逻辑棋盘，X 先手
+        for (int row = 0; row < currentMode.rows; row++) {
+            for (int col = 0; col < currentMode.cols; col++) {
                 // 重置界面按钮
                 cellButtons[row][col].setText(""); // 清空按钮文本
                 cellButtons[row][col].setDisable(false); // 启用按钮
                 cellButtons[row][col].setStyle(""); // 清除可能存在的获胜样式
             }
         }
-        currentPlayer = 'X'; // X 先手
         gameOver = false; // 游戏未结束
         updateStatusLabel(); // 更新状态标签
     }
 
     /**
      * 处理棋盘单元格按钮的点击事件
-     * @param row 被点击按钮的行号 (0-2)
-     * @param col 被点击按钮的列号 (0-2)
+     * @param row 被点击按钮的行号
+     * @param col 被点击按钮的列号
      */
     private void handleCellClick(int row, int col) {
-        // 检查游戏是否已结束，或者当前格子是否已被占用
-        if (gameOver || board[row][col] != ' ') {
+        int index = row * currentMode.cols + col;
+        // 检查游戏是否已结束、电脑是否正在思考，或者当前格子是否已被占用
+        if (gameOver || aiThinking || !board.isEmptyCell(index)) {
             return; // 如果是，则不执行任何操作
         }
+        applyMove(index);
+        startAiTurnIfNeeded();
+    }
+
+    /**
+     * 在棋盘上落子并更新界面、判断胜负
+     * @param index 落子的格子下标
+     */
+    private void applyMove(int index) {
+        int row = index / currentMode.cols;
+        int col = index % currentMode.cols;
 
-        // 更新内部逻辑棋盘
-        board[row][col] = currentPlayer;
+        // 更新内部逻辑棋盘 (落子后自动轮到对方，胜负只检查经过这一步的连线)
+        char currentPlayer = board.getCurrentPlayer();
+        board.play(index);
 
         // 更新被点击的按钮界面
         Button clickedButton = cellButtons[row][col];
@@ -156,83 +352,64 @@ public class TicTacToeFX extends Application {
         clickedButton.setDisable(true); // 禁用已点击的按钮
 
         // 检查当前玩家是否获胜
-        if (checkWin(currentPlayer)) {
+        if (board.getWinner() == currentPlayer) {
             gameOver = true;
+            highlightWin(board.getWinningCells()); // 高亮获胜的连线
             updateStatusLabel();
-            // (可选) 高亮获胜的连线 - 稍微复杂，这里先用弹窗提示
             showResultAlert(currentPlayer + " 赢了!");
         }
         // 检查是否平局
-        else if (checkDraw()) {
+        else if (board.isDraw()) {
             gameOver = true;
             updateStatusLabel();
             showResultAlert("平局!");
         }
-        // 如果游戏未结束，切换玩家
+        // 如果游戏未结束，board.play 已经切换到对方玩家
         else {
-            switchPlayer();
             updateStatusLabel();
         }
     }
 
     /**
-     * 切换当前玩家 (X -> O, O -> X)
+     * 如果轮到电脑，则在后台线程搜索着法，算完后回到 JavaFX 应用线程落子
      */
-    private void switchPlayer() {
-        currentPlayer = (currentPlayer == 'X') ? 'O' : 'X';
-    }
-
-    /**
-     * 检查指定玩家是否获胜
-     * @param player 要检查的玩家 ('X' 或 'O')
-     * @return 如果该玩家获胜，返回 true，否则返回 false
-     */
-    private boolean checkWin(char player) {
-        // 检查所有行
-        for (int row = 0; row < BOARD_SIZE; row++) {
-            if (board[row][0] == player && board[row][1] == player && board[row][2] == player) {
-                // (可选) 高亮获胜行
-                // highlightWin(row, 0, row, 1, row, 2);
-                return true;
-            }
+    private void startAiTurnIfNeeded() {
+        if (gameOver || ai == null || board.getCurrentPlayer() != AI_PLAYER) {
+            return;
         }
-        // 检查所有列
-        for (int col = 0; col < BOARD_SIZE; col++) {
-            if (board[0][col] == player && board[1][col] == player && board[2][col] == player) {
-                // (可选) 高亮获胜列
-                // highlightWin(0, col, 1, col, 2, col);
-                return true;
+        aiThinking = true;
+        statusLabel.setText("电脑思考中...");
+        TicTacToeAI engine = ai;
+        LineGameBoard snapshot = board.copy(); // 电脑只读副本，不与界面线程共享棋盘
+        int generation = gameGeneration;
+        aiExecutor.execute(() -> {
+            int move;
+            try {
+                move = engine.chooseMove(snapshot);
+            } catch (CancellationException | RejectedExecutionException e) {
+                return; // 搜索期间换了电脑玩家，线程池已关闭
+            } catch (RuntimeException e) {
+                // 搜索出错时不能让界面一直停在 "电脑思考中"，改为随机落子
+                System.err.println("电脑玩家 " + engine.getName() + " 出错，改为随机落子: " + e);
+                move = -1;
             }
-        }
-        // 检查对角线
-        if (board[0][0] == player && board[1][1] == player && board[2][2] == player) {
-            // (可选) 高亮主对角线
-            // highlightWin(0, 0, 1, 1, 2, 2);
-            return true;
-        }
-        if (board[0][2] == player && board[1][1] == player && board[2][0] == player) {
-            // (可选) 高亮副对角线
-            // highlightWin(0, 2, 1, 1, 2, 0);
-            return true;
-        }
-        return false; // 没有获胜情况
-    }
-
-    /**
-     * 检查游戏是否为平局
-     * @return 如果棋盘已满且无人获胜，返回 true，否则返回 false
-     */
-    private boolean checkDraw() {
-        // 如果棋盘上还有空格子，则不可能是平局
-        for (int row = 0; row < BOARD_SIZE; row++) {
-            for (int col = 0; col < BOARD_SIZE; col++) {
-                if (board[row][col] == ' ') {
-                    return false;
+            int chosenMove = move;
+            Platform.runLater(() -> {
+                if (generation != gameGeneration) {
+                    return; // 期间开始了新游戏，丢弃这步棋
                 }
-            }
-        }
-        // 如果棋盘已满，并且走到这里说明没有人获胜 (因为 checkWin 先被调用了)
-        return true;
+                aiThinking = false;
+                boolean fallback = chosenMove < 0 || chosenMove >= board.getCellCount() || !board.isEmptyCell(chosenMove);
+                applyMove(fallback ? new RandomAI(System.nanoTime()).chooseMove(board) : chosenMove);
+                if (!gameOver && fallback) {
+                    statusLabel.setText(statusLabel.getText() + " (电脑出错，已随机落子)");
+                } else if (!gameOver && engine instanceof MonteCarloAI) {
+                    // 显示并行模拟的吞吐量
+                    statusLabel.setText(statusLabel.getText()
+                            + String.format(" (每秒模拟 %,.0f 局)", ((MonteCarloAI) engine).getLastPlayoutsPerSecond()));
+                }
+            });
+        });
     }
 
     /**
@@ -240,32 +417,26 @@ public class TicTacToeFX extends Application {
      */
     private void updateStatusLabel() {
         if (gameOver) {
-            if (checkWin('X')) {
-                statusLabel.setText("游戏结束 - X 获胜!");
-            } else if (checkWin('O')) {
-                statusLabel.setText("游戏结束 - O 获胜!");
-            } else if (checkDraw()) {
+            char winner = board.getWinner();
+            if (winner != LineGameBoard.EMPTY) {
+                statusLabel.setText("游戏结束 - " + winner + " 获胜!");
+            } else {
                 statusLabel.setText("游戏结束 - 平局!");
             }
         } else {
-            statusLabel.setText("轮到 " + currentPlayer + " 下棋"); // 提示当前轮到谁
+            statusLabel.setText("轮到 " + board.getCurrentPlayer() + " 下棋"); // 提示当前轮到谁
         }
     }
 
     /**
-     * (可选) 高亮显示获胜的三个格子
-     * @param r1 第一个格子的行
-     * @param c1 第一个格子的列
-     * @param r2 第二个格子的行
-     * @param c2 第二个格子的列
-     * @param r3 第三个格子的行
-     * @param c3 第三个格子的列
+     * 高亮显示获胜连线上的格子
+     * @param cells 获胜连线上各格子的下标 (index = row * 列数 + col)
      */
-    private void highlightWin(int r1, int c1, int r2, int c2, int r3, int c3) {
+    private void highlightWin(int[] cells) {
         String winStyle = "-fx-background-color: lightgreen;"; // 设置获胜格子的背景色
-        cellButtons[r1][c1].setStyle(winStyle);
-        cellButtons[r2][c2].setStyle(winStyle);
-        cellButtons[r3][c3].setStyle(winStyle);
+        for (int index : cells) {
+            cellButtons[index / currentMode.cols][index % currentMode.cols].setStyle(winStyle);
+        }
     }
 
     /**
@@ -280,8 +451,14 @@ public class TicTacToeFX extends Application {
         alert.showAndWait(); // 显示并等待用户关闭
     }
 
+    @Override
+    public void stop() {
+        aiExecutor.shutdownNow(); // 关闭窗口时停止后台搜索
+        shutdownAI();
+    }
+
     // --- 主方法 ---
     public static void main(String[] args) {
         launch(args); // 启动 JavaFX 应用
     }
-}
\ No newline at end of file
+}
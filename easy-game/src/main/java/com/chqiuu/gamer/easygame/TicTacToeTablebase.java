@@ -0,0 +1,250 @@
+package com.chqiuu.gamer.easygame;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 3x3 井字棋完美残局库
+ * <p>
+ * 文件格式: 8 字节文件头 ("TTTB" + 版本号 + 3 个保留字节)，随后是 3^9 = 19683 个字节，
+ * 按局面的三进制编码 (空=0, X=1, O=2，第 i 格权重 3^i) 直接寻址。
+ * 只有经过 8 种对称变换 (旋转、翻转) 后编码最小的 "规范局面" 才写入数据，其余字节为 0。
+ * 每个字节: 低 4 位是规范局面下的最佳着法 (终局为 0xF)，第 4-5 位是当前玩家视角的博弈值。
+ * <p>
+ * 查询时通过内存映射读取文件，只需计算 8 个对称编码取最小值再读一个字节，
+ * 不需要搜索，启动时也几乎不占用堆内存。
+ */
+public class TicTacToeTablebase {
+
+    public static final int VALUE_LOSS = 1; // 当前玩家必败
+    public static final int VALUE_DRAW = 2; // 双方最佳应对下平局
+    public static final int VALUE_WIN = 3; // 当前玩家必胜
+
+    private static final int MAGIC = 0x54545442; // "TTTB"
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int POSITION_COUNT = 19683; // 3^9
+    private static final int NO_MOVE = 0xF;
+
+    private static final int[] POW3 = new int[TicTacToeBoard.CELL_COUNT];
+    /** SYMMETRIES[s][i]: 第 s 种对称变换把格子 i 映射到的位置 */
+    private static final int[][] SYMMETRIES = new int[8][TicTacToeBoard.CELL_COUNT];
+    /** INVERSE[s][j]: 第 s 种对称变换下映射到 j 的原格子 */
+    private static final int[][] INVERSE = new int[8][TicTacToeBoard.CELL_COUNT];
+
+    static {
+        POW3[0] = 1;
+        for (int i = 1; i < POW3.length; i++) {
+            POW3[i] = POW3[i - 1] * 3;
+        }
+        for (int s = 0; s < 8; s++) {
+            for (int i = 0; i < TicTacToeBoard.CELL_COUNT; i++) {
+                int row = i / 3;
+                int col = i % 3;
+                // 先转置 (s 的最高位)，再顺时针旋转 s % 4 次
+                if (s >= 4) {
+                    int t = row;
+                    row = col;
+                    col = t;
+                }
+                for (int k = 0; k < s % 4; k++) {
+                    int t = row;
+                    row = col;
+                    col = 2 - t;
+                }
+                SYMMETRIES[s][i] = row * 3 + col;
+                INVERSE[s][row * 3 + col] = i;
+            }
+        }
+    }
+
+    private final ByteBuffer table;
+
+    private TicTacToeTablebase(ByteBuffer table) {
+        this.table = table;
+    }
+
+    /**
+     * 以只读内存映射方式打开残局库文件
+     * @param file 由 {@link #generate(Path)} 生成的文件
+     * @throws IOException 文件不存在、无法读取或格式不正确
+     */
+    public static TicTacToeTablebase open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() != HEADER_SIZE + POSITION_COUNT) {
+                throw new IOException("残局库文件大小不正确: " + file);
+            }
+            // 映射在通道关闭后仍然有效
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt(0) != MAGIC || buffer.get(4) != VERSION) {
+                throw new IOException("不是有效的井字棋残局库文件: " + file);
+            }
+            return new TicTacToeTablebase(buffer);
+        }
+    }
+
+    /**
+     * 打开默认位置 (~/.easy-game/tictactoe-3x3.tb) 的残局库，不存在时先生成
+     */
+    public static TicTacToeTablebase openDefault() throws IOException {
+        Path file = defaultPath();
+        if (!Files.exists(file)) {
+            generate(file);
+        }
+        return open(file);
+    }
+
+    /**
+     * @return 残局库文件的默认位置
+     */
+    public static Path defaultPath() {
+        return Paths.get(System.getProperty("user.home"), ".easy-game", "tictactoe-3x3.tb");
+    }
+
+    /**
+     * 穷举所有可达局面，求解后写入残局库文件 (先写临时文件再原子替换)
+     * @param file 输出文件
+     * @return 写入的规范局面数量
+     */
+    public static int generate(Path file) throws IOException {
+        byte[] entries = new byte[POSITION_COUNT];
+        solve(0, 0, entries);
+
+        int stored = 0;
+        ByteBuffer out = ByteBuffer.allocate(HEADER_SIZE + POSITION_COUNT);
+        out.putInt(MAGIC).put(VERSION).put((byte) 0).put((byte) 0).put((byte) 0);
+        for (int code = 0; code < POSITION_COUNT; code++) {
+            out.put(entries[code]);
+            if (entries[code] != 0) {
+                stored++;
+            }
+        }
+
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null) {
+            Files.createDirectories(dir);
+        }
+        Path temp = Files.createTempFile(dir, "tictactoe", ".tmp");
+        Files.write(temp, out.array());
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return stored;
+    }
+
+    /**
+     * 递归求解局面 (只在规范局面上记录结果)
+     * @return 当前玩家视角的博弈值
+     */
+    private static int solve(int xBits, int oBits, byte[] entries) {
+        int canonical = canonicalize(xBits, oBits);
+        int code = canonical >>> 3;
+        int symmetry = canonical & 0x7;
+        if (entries[code] != 0) {
+            return (entries[code] >> 4) & 0x3;
+        }
+
+        boolean xToMove = Integer.bitCount(xBits) == Integer.bitCount(oBits);
+        int lastMover = xToMove ? oBits : xBits;
+        int value;
+        int bestMove = NO_MOVE;
+        if (isWin(lastMover)) {
+            value = VALUE_LOSS; // 对方刚刚连成线
+        } else if ((xBits | oBits) == TicTacToeBoard.FULL_MASK) {
+            value = VALUE_DRAW;
+        } else {
+            value = 0;
+            for (int cell = 0; cell < TicTacToeBoard.CELL_COUNT; cell++) {
+                int bit = 1 << cell;
+                if (((xBits | oBits) & bit) != 0) {
+                    continue;
+                }
+                int child = xToMove ? solve(xBits | bit, oBits, entries) : solve(xBits, oBits | bit, entries);
+                int mine = VALUE_WIN + VALUE_LOSS - child; // 对方视角的值翻转成己方视角
+                if (mine > value) {
+                    value = mine;
+                    bestMove = SYMMETRIES[symmetry][cell]; // 存为规范局面下的格子
+                }
+            }
+        }
+        entries[code] = (byte) ((value << 4) | bestMove);
+        return value;
+    }
+
+    private static boolean isWin(int bits) {
+        for (int mask : TicTacToeBoard.WIN_MASKS) {
+            if ((bits & mask) == mask) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 计算 8 种对称变换下最小的三进制编码
+     * @return 打包结果: 高位为最小编码，低 3 位为得到该编码的对称变换编号
+     */
+    private static int canonicalize(int xBits, int oBits) {
+        int best = Integer.MAX_VALUE;
+        int bestSymmetry = 0;
+        for (int s = 0; s < 8; s++) {
+            int[] map = SYMMETRIES[s];
+            int code = 0;
+            for (int cell = 0; cell < TicTacToeBoard.CELL_COUNT; cell++) {
+                int bit = 1 << cell;
+                if ((xBits & bit) != 0) {
+                    code += POW3[map[cell]];
+                } else if ((oBits & bit) != 0) {
+                    code += 2 * POW3[map[cell]];
+                }
+            }
+            if (code < best) {
+                best = code;
+                bestSymmetry = s;
+            }
+        }
+        return (best << 3) | bestSymmetry;
+    }
+
+    /**
+     * 查询局面的最佳着法
+     * @return 原局面坐标下的最佳格子，终局时返回 -1
+     */
+    public int bestMove(TicTacToeBoard board) {
+        int canonical = canonicalize(board.getXBits(), board.getOBits());
+        int move = entry(canonical >>> 3) & 0xF;
+        return move == NO_MOVE ? -1 : INVERSE[canonical & 0x7][move];
+    }
+
+    /**
+     * 查询局面的博弈值 (当前玩家视角)
+     * @return {@link #VALUE_WIN}、{@link #VALUE_DRAW} 或 {@link #VALUE_LOSS}
+     */
+    public int value(TicTacToeBoard board) {
+        return (entry(canonicalize(board.getXBits(), board.getOBits()) >>> 3) >> 4) & 0x3;
+    }
+
+    private int entry(int code) {
+        int entry = table.get(HEADER_SIZE + code) & 0xFF;
+        if (entry == 0) {
+            throw new IllegalArgumentException("残局库中没有该局面 (不可达局面?)");
+        }
+        return entry;
+    }
+
+    /**
+     * 生成残局库文件
+     * @param args 可选: 输出文件路径，默认 ~/.easy-game/tictactoe-3x3.tb
+     */
+    public static void main(String[] args) throws IOException {
+        Path file = args.length > 0 ? Paths.get(args[0]) : defaultPath();
+        long start = System.nanoTime();
+        int stored = generate(file);
+        System.out.printf("已生成 %s: %d 个规范局面, 耗时 %.1f ms%n", file, stored, (System.nanoTime() - start) / 1e6);
+    }
+}
@@ -0,0 +1,300 @@
+package com.chqiuu.gamer.easygame;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 井字棋 / 五子棋电脑玩家的命令行循环赛
+ * <p>
+ * 每一对策略 (行玩家执 X，列玩家执 O，包括自我对局) 下指定局数，按块分发到线程池并行执行。
+ * 结束后输出每秒对局数、胜/平/负矩阵以及每种策略单步思考耗时的 p50/p90/p99/最大值，
+ * 用于发现 AI 的强度或性能回退。
+ * <p>
+ * 用法: TicTacToeTournament [--games 每对局数] [--board 行x列，如 3x3|15x15|19x19] [--win 连子数，默认 min(5, 最长边)]
+ * [--threads 线程数] [--players random,tablebase,alphabeta,mcts] [--mcts-playouts 每步模拟数] [--ab-millis 每步毫秒]
+ * <p>
+ * 目标平台是 Java 17，没有虚拟线程；对局是纯 CPU 计算，使用与核心数相同的固定线程池。
+ */
+public class TicTacToeTournament {
+
+    private static final int GAMES_PER_CHUNK = 500; // 每个任务连续下的局数
+    private static final int MAX_BOARD_SIDE = 100; // 命令行允许的最大棋盘边长
+    private static final List<String> KNOWN_PLAYERS = List.of("random", "tablebase", "alphabeta", "mcts");
+
+    private final int rows;
+    private final int cols;
+    private final int winLength;
+    private final List<String> players;
+    private final int mctsPlayouts;
+    private final long alphaBetaMillis;
+    private final AtomicLong seedSequence = new AtomicLong(1);
+
+    /** 每个线程缓存自己的 AI 实例 (AI 不是线程安全的，置换表等也值得复用) */
+    private final ThreadLocal<Map<String, TicTacToeAI>> threadPlayers = ThreadLocal.withInitial(HashMap::new);
+    private volatile TicTacToeTablebase tablebase;
+
+    public TicTacToeTournament(int rows, int cols, int winLength, List<String> players, int mctsPlayouts, long alphaBetaMillis) {
+        this.rows = rows;
+        this.cols = cols;
+        this.winLength = winLength;
+        this.players = players;
+        this.mctsPlayouts = mctsPlayouts;
+        this.alphaBetaMillis = alphaBetaMillis;
+    }
+
+    /**
+     * 一个对局块的统计结果 (由单个线程填写，最后在主线程合并)
+     */
+    private static final class ChunkResult {
+        final int xPlayer;
+        final int oPlayer;
+        long xWins;
+        long oWins;
+        long draws;
+        final LatencyHistogram xLatency = new LatencyHistogram();
+        final LatencyHistogram oLatency = new LatencyHistogram();
+
+        ChunkResult(int xPlayer, int oPlayer) {
+            this.xPlayer = xPlayer;
+            this.oPlayer = oPlayer;
+        }
+    }
+
+    /**
+     * 运行循环赛并打印结果
+     * @param gamesPerPair 每一对 (X, O) 组合的局数
+     * @param threads 线程数
+     */
+    public void run(long gamesPerPair, int threads) throws InterruptedException {
+        int n = players.size();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "tournament");
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<Future<ChunkResult>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int x = 0; x < n; x++) {
+            for (int o = 0; o < n; o++) {
+                for (long done = 0; done < gamesPerPair; done += GAMES_PER_CHUNK) {
+                    int xPlayer = x;
+                    int oPlayer = o;
+                    int games = (int) Math.min(GAMES_PER_CHUNK, gamesPerPair - done);
+                    futures.add(executor.submit(() -> playChunk(xPlayer, oPlayer, games)));
+                }
+            }
+        }
+
+        long[][] xWins = new long[n][n];
+        long[][] oWins = new long[n][n];
+        long[][] draws = new long[n][n];
+        LatencyHistogram[] latency = new LatencyHistogram[n];
+        for (int i = 0; i < n; i++) {
+            latency[i] = new LatencyHistogram();
+        }
+        try {
+            for (Future<ChunkResult> future : futures) {
+                ChunkResult result = future.get();
+                xWins[result.xPlayer][result.oPlayer] += result.xWins;
+                oWins[result.xPlayer][result.oPlayer] += result.oWins;
+                draws[result.xPlayer][result.oPlayer] += result.draws;
+                latency[result.xPlayer].add(result.xLatency);
+                latency[result.oPlayer].add(result.oLatency);
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("对局执行失败", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long totalGames = gamesPerPair * n * n;
+
+        System.out.printf("棋盘 %dx%d (连 %d 子), 线程 %d, 共 %,d 局, 耗时 %.2f 秒, 每秒 %,.0f 局%n",
+                rows, cols, winLength, threads, totalGames, seconds, totalGames / seconds);
+        System.out.println();
+        System.out.println("胜/平/负矩阵 (行玩家执 X 先手，列玩家执 O，从行玩家视角统计):");
+        System.out.printf("%-12s", "X \\ O");
+        for (String name : players) {
+            System.out.printf("%22s", name);
+        }
+        System.out.println();
+        for (int x = 0; x < n; x++) {
+            System.out.printf("%-12s", players.get(x));
+            for (int o = 0; o < n; o++) {
+                System.out.printf("%22s", xWins[x][o] + "/" + draws[x][o] + "/" + oWins[x][o]);
+            }
+            System.out.println();
+        }
+        System.out.println();
+        System.out.println("单步思考耗时 (微秒):");
+        System.out.printf("%-12s%14s%10s%10s%10s%10s%n", "策略", "步数", "p50", "p90", "p99", "最大");
+        for (int i = 0; i < n; i++) {
+            LatencyHistogram h = latency[i];
+            System.out.printf("%-12s%,14d%10.1f%10.1f%10.1f%10.1f%n", players.get(i), h.getCount(),
+                    h.getValueAtPercentile(50) / 1e3, h.getValueAtPercentile(90) / 1e3,
+                    h.getValueAtPercentile(99) / 1e3, h.getMax() / 1e3);
+        }
+    }
+
+    /**
+     * 在当前线程连续下若干局，复用同一个棋盘对象
+     */
+    private ChunkResult playChunk(int xPlayer, int oPlayer, int games) {
+        ChunkResult result = new ChunkResult(xPlayer, oPlayer);
+        TicTacToeAI x = playerFor(players.get(xPlayer));
+        TicTacToeAI o = playerFor(players.get(oPlayer));
+        LineGameBoard board = createBoard();
+        for (int g = 0; g < games; g++) {
+            board.reset();
+            while (!board.isGameOver()) {
+                boolean xToMove = board.getCurrentPlayer() == LineGameBoard.PLAYER_X;
+                long moveStart = System.nanoTime();
+                int move = (xToMove ? x : o).chooseMove(board);
+                long elapsed = System.nanoTime() - moveStart;
+                (xToMove ? result.xLatency : result.oLatency).record(elapsed);
+                board.play(move);
+            }
+            char winner = board.getWinner();
+            if (winner == LineGameBoard.PLAYER_X) {
+                result.xWins++;
+            } else if (winner == LineGameBoard.PLAYER_O) {
+                result.oWins++;
+            } else {
+                result.draws++;
+            }
+        }
+        return result;
+    }
+
+    private LineGameBoard createBoard() {
+        if (rows == TicTacToeBoard.SIZE && cols == TicTacToeBoard.SIZE && winLength == TicTacToeBoard.SIZE) {
+            return new TicTacToeBoard();
+        }
+        return new GomokuBoard(rows, cols, winLength);
+    }
+
+    /**
+     * @return 当前线程缓存的策略实例，第一次使用时创建
+     */
+    private TicTacToeAI playerFor(String name) {
+        return threadPlayers.get().computeIfAbsent(name, this::createPlayer);
+    }
+
+    private TicTacToeAI createPlayer(String name) {
+        boolean classic = rows * cols <= TicTacToeBoard.CELL_COUNT;
+        switch (name) {
+            case "random":
+                return new RandomAI(seedSequence.getAndIncrement());
+            case "tablebase":
+                return new TablebaseAI(sharedTablebase());
+            case "alphabeta":
+                return new AlphaBetaAI(alphaBetaMillis, classic ? 9 : 12);
+            case "mcts":
+                // 对局本身已经按线程并行，单个 MCTS 只用一个线程，并按模拟数而不是时间限制
+                return new MonteCarloAI(60_000, mctsPlayouts, 1);
+            default:
+                throw new IllegalArgumentException("未知的策略: " + name);
+        }
+    }
+
+    /**
+     * @return 所有线程共用的残局库 (只读内存映射)
+     */
+    private TicTacToeTablebase sharedTablebase() {
+        TicTacToeTablebase result = tablebase;
+        if (result == null) {
+            synchronized (this) {
+                result = tablebase;
+                if (result == null) {
+                    try {
+                        result = TicTacToeTablebase.openDefault();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("无法加载残局库", e);
+                    }
+                    tablebase = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        String usage = "TicTacToeTournament [--games N] [--board 行x列，如 3x3|15x15|19x19] [--win 连子数] [--threads N]"
+                + " [--players random,tablebase,alphabeta,mcts] [--mcts-playouts N] [--ab-millis N]";
+        CommandLine options = CommandLine.parse(args, usage,
+                "games", "board", "win", "threads", "players", "mcts-playouts", "ab-millis");
+        if (options == null) {
+            return;
+        }
+        String boardSpec = options.get("board", "3x3");
+        String playerSpec = options.get("players", null);
+
+        if (!boardSpec.matches("\\s*\\d{1,3}\\s*[xX]\\s*\\d{1,3}\\s*")) {
+            CommandLine.printUsage("棋盘大小应为 行x列: " + boardSpec, usage);
+            return;
+        }
+        String[] size = boardSpec.toLowerCase().split("x");
+        int rows = Integer.parseInt(size[0].trim());
+        int cols = Integer.parseInt(size[1].trim());
+        if (rows < 1 || cols < 1 || rows > MAX_BOARD_SIDE || cols > MAX_BOARD_SIDE) {
+            CommandLine.printUsage("棋盘边长应在 1 到 " + MAX_BOARD_SIDE + " 之间: " + boardSpec, usage);
+            return;
+        }
+        long games;
+        int threads;
+        int mctsPlayouts;
+        long alphaBetaMillis;
+        int winLength;
+        try {
+            games = options.getLong("games", 10_000);
+            threads = options.getInt("threads", Runtime.getRuntime().availableProcessors());
+            mctsPlayouts = options.getInt("mcts-playouts", 200);
+            alphaBetaMillis = options.getLong("ab-millis", 100);
+            // 默认连五，棋盘放不下五子时连满一行 (3x3 即井字棋)
+            winLength = options.getInt("win", Math.min(5, Math.max(rows, cols)));
+        } catch (NumberFormatException e) {
+            CommandLine.printUsage("参数不是整数: " + e.getMessage(), usage);
+            return;
+        }
+        if (winLength < 1 || winLength > Math.max(rows, cols)) {
+            CommandLine.printUsage("连子数应在 1 到 " + Math.max(rows, cols) + " 之间: " + winLength, usage);
+            return;
+        }
+        if (games < 1 || threads < 1 || mctsPlayouts < 1 || alphaBetaMillis < 1) {
+            CommandLine.printUsage("局数、线程数、模拟数和思考时间都必须为正数", usage);
+            return;
+        }
+        boolean classic = rows == TicTacToeBoard.SIZE && cols == TicTacToeBoard.SIZE && winLength == TicTacToeBoard.SIZE;
+        if (playerSpec == null) {
+            playerSpec = classic ? "random,tablebase,alphabeta,mcts" : "random,alphabeta,mcts";
+        }
+        List<String> players = new ArrayList<>();
+        for (String name : playerSpec.split(",")) {
+            name = name.trim().toLowerCase();
+            if (name.equals("tablebase") && !classic) {
+                System.out.println("残局库只支持 3x3 连三的井字棋，已跳过 tablebase");
+                continue;
+            }
+            if (!KNOWN_PLAYERS.contains(name)) {
+                CommandLine.printUsage("未知的策略: " + name, usage);
+                return;
+            }
+            players.add(name);
+        }
+        if (players.isEmpty()) {
+            CommandLine.printUsage("没有可以参赛的策略", usage);
+            return;
+        }
+
+        new TicTacToeTournament(rows, cols, winLength, players, mctsPlayouts, alphaBetaMillis).run(games, threads);
+    }
+}
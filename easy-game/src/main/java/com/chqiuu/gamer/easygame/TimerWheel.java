@@ -0,0 +1,319 @@
+package com.chqiuu.gamer.easygame;
+
+import java.util.Arrays;
+
+/**
+ * 哈希时间轮 (hashed timer wheel)，不读取系统时钟
+ * <p>
+ * 时间由调用方通过 {@link #advanceTo(long)} 推进 (JavaFX 的脉冲、模拟中的虚拟时钟等)，单位纳秒。
+ * 时间轴按固定的刻度切分，每个刻度落在轮上的一个槽里，到期时间超过一圈的任务留在槽中等下一圈。
+ * 每个任务占用基本类型数组中的一项 (到期刻度、周期、双向链表指针、代数)，回调由调用方预先创建并反复使用，
+ * 调度和取消都是 O(1)，不分配对象 (任务数超过历史最大值时数组才扩容)。另用一个位图记录非空的槽，
+ * 推进时直接跳过空槽，虚拟时钟一次推进很多刻度 (例如批量模拟) 时不必逐个刻度检查。
+ * <p>
+ * 调度返回的句柄由 "下标 + 代数" 组成，任务执行或取消后代数加 1，旧句柄自动失效，
+ * 因此调用方可以放心地取消一个可能已经执行过的句柄。0 永远不是有效句柄，可用作 "没有任务"。
+ * 回调在 {@link #advanceTo(long)} 中按到期刻度顺序执行 (同一刻度内顺序不定)，回调中可以再调度或取消任务。
+ * 实例不是线程安全的。
+ */
+public class TimerWheel {
+
+    private static final int NONE = -1;
+
+    private final long tickNanos;
+    private final int mask; // 槽数 - 1 (槽数是 2 的幂)
+    private final int[] slotHeads;
+    private final long[] occupied; // 非空槽的位图
+    private long currentTick; // 已经处理到的刻度
+
+    // --- 任务表 ---
+    private long[] deadlines = new long[16]; // 到期刻度
+    private long[] periods = new long[16]; // 重复周期 (刻度)，0 表示只执行一次
+    private Runnable[] callbacks = new Runnable[16];
+    private int[] next = new int[16];
+    private int[] prev = new int[16];
+    private int[] generations = new int[16];
+    private boolean[] firing = new boolean[16]; // 已从槽中取出、等待本次执行
+    private int capacity; // 使用过的任务项数
+    private int freeHead = NONE; // 空闲任务项链表 (借用 next)
+    private int size; // 等待中的任务数
+
+    private int[] fireQueue = new int[16]; // 同一刻度到期的任务
+    private int[] fireGenerations = new int[16]; // 取出时的代数，用于识别执行前被取消的重复任务
+    private boolean advancing;
+
+    /**
+     * @param tickNanos 刻度长度 (纳秒)，到期时间向上取整到刻度
+     * @param wheelSize 槽数 (向上取整到 2 的幂)，一圈覆盖 tickNanos * wheelSize 纳秒
+     * @param startNanos 起始时间
+     */
+    public TimerWheel(long tickNanos, int wheelSize, long startNanos) {
+        if (tickNanos <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("刻度长度和槽数必须为正数");
+        }
+        int slots = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.tickNanos = tickNanos;
+        this.mask = slots - 1;
+        this.slotHeads = new int[slots];
+        Arrays.fill(slotHeads, NONE);
+        this.occupied = new long[(slots + 63) >>> 6];
+        this.currentTick = Math.floorDiv(startNanos, tickNanos);
+    }
+
+    /**
+     * 在绝对时间 deadlineNanos 执行一次回调 (已经过去的时间在下一个刻度执行)
+     * @return 句柄
+     */
+    public long scheduleAt(long deadlineNanos, Runnable callback) {
+        return insert(toTick(deadlineNanos), 0, callback);
+    }
+
+    /**
+     * 从 nowNanos 起每隔 periodNanos 执行一次回调，直到被取消 (按固定频率，不累积误差)
+     * @return 句柄，每次执行后仍然有效
+     */
+    public long scheduleRepeating(long nowNanos, long periodNanos, Runnable callback) {
+        long period = Math.max(1, (periodNanos + tickNanos - 1) / tickNanos);
+        return insert(toTick(nowNanos + periodNanos), period, callback);
+    }
+
+    private long toTick(long nanos) {
+        long tick = Math.floorDiv(nanos, tickNanos) + (Math.floorMod(nanos, tickNanos) == 0 ? 0 : 1);
+        return Math.max(tick, currentTick + 1);
+    }
+
+    private long insert(long deadlineTick, long periodTicks, Runnable callback) {
+        if (callback == null) {
+            throw new IllegalArgumentException("回调不能为 null");
+        }
+        int entry = allocate();
+        deadlines[entry] = deadlineTick;
+        periods[entry] = periodTicks;
+        callbacks[entry] = callback;
+        link(entry);
+        size++;
+        return handleOf(entry);
+    }
+
+    /**
+     * 取消任务
+     * @return 任务是否还在等待 (false 表示已经执行、已经取消或句柄无效)
+     */
+    public boolean cancel(long handle) {
+        int entry = (int) handle;
+        if (handle == 0 || entry < 0 || entry >= capacity || generations[entry] != (int) (handle >>> 32)
+                || callbacks[entry] == null) {
+            return false;
+        }
+        if (firing[entry]) {
+            callbacks[entry] = null; // 已在本次推进的执行队列中，执行时跳过
+        } else {
+            unlink(entry);
+            release(entry);
+        }
+        size--;
+        return true;
+    }
+
+    /**
+     * @return 句柄对应的任务是否还在等待
+     */
+    public boolean isPending(long handle) {
+        int entry = (int) handle;
+        return handle != 0 && entry >= 0 && entry < capacity && generations[entry] == (int) (handle >>> 32)
+                && callbacks[entry] != null;
+    }
+
+    /**
+     * @return 时间轮当前的时间 (纳秒，对齐到刻度)；回调中为该回调到期的刻度
+     */
+    public long getTimeNanos() {
+        return currentTick * tickNanos;
+    }
+
+    /**
+     * @return 等待中的任务数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 推进到 nowNanos，执行所有到期的回调
+     * <p>
+     * 按刻度顺序检查非空的槽；一次推进超过一圈时 (例如程序被挂起) 每个槽只检查一次，这时不同槽之间的执行顺序不保证按到期时间。
+     * @return 执行的回调数
+     */
+    public int advanceTo(long nowNanos) {
+        if (advancing) {
+            throw new IllegalStateException("不能在回调中推进时间轮");
+        }
+        long targetTick = Math.floorDiv(nowNanos, tickNanos);
+        if (targetTick <= currentTick) {
+            return 0;
+        }
+        advancing = true;
+        int fired = 0;
+        try {
+            if (targetTick - currentTick > mask) {
+                currentTick = targetTick; // 回调中新调度的任务落在目标之后
+                for (int slot = nextOccupied(0); slot >= 0; slot = nextOccupied(slot + 1)) {
+                    fired += fireSlot(slot);
+                }
+            } else {
+                while (currentTick < targetTick) {
+                    int slot = (int) ((currentTick + 1) & mask);
+                    int found = nextOccupied(slot);
+                    if (found < 0) {
+                        found = nextOccupied(0); // 绕回轮的开头
+                    }
+                    long distance = found < 0 ? Long.MAX_VALUE : ((found - slot) & mask) + 1;
+                    if (distance > targetTick - currentTick) {
+                        currentTick = targetTick; // 目标之前没有非空的槽
+                        break;
+                    }
+                    currentTick += distance;
+                    fired += fireSlot(found);
+                }
+            }
+        } finally {
+            advancing = false;
+        }
+        return fired;
+    }
+
+    /**
+     * 取出一个槽中到期的任务 (到期刻度不晚于 currentTick) 并执行
+     */
+    private int fireSlot(int slot) {
+        int count = 0;
+        for (int entry = slotHeads[slot]; entry != NONE; entry = next[entry]) {
+            if (deadlines[entry] <= currentTick) {
+                if (count == fireQueue.length) {
+                    fireQueue = Arrays.copyOf(fireQueue, count * 2);
+                    fireGenerations = Arrays.copyOf(fireGenerations, count * 2);
+                }
+                fireQueue[count] = entry;
+                fireGenerations[count++] = generations[entry];
+            }
+        }
+        if (count == 0) {
+            return 0;
+        }
+        for (int i = 0; i < count; i++) {
+            int entry = fireQueue[i];
+            unlink(entry);
+            if (periods[entry] > 0) {
+                deadlines[entry] = Math.max(deadlines[entry] + periods[entry], currentTick + 1); // 落后太多时不补执行
+                link(entry); // 重复任务直接放回轮上，句柄不变，回调中仍可取消
+            } else {
+                firing[entry] = true;
+            }
+        }
+        int fired = 0;
+        for (int i = 0; i < count; i++) {
+            int entry = fireQueue[i];
+            if (generations[entry] != fireGenerations[i]) {
+                continue; // 重复任务已被前面的回调取消
+            }
+            Runnable callback = callbacks[entry];
+            if (callback == null) {
+                release(entry); // 在执行队列中被取消
+                continue;
+            }
+            if (periods[entry] == 0) {
+                release(entry); // 先释放，回调可以立即复用这一项重新调度自己
+                size--;
+            }
+            callback.run();
+            fired++;
+        }
+        return fired;
+    }
+
+    /**
+     * @return 从 slot 开始 (含) 的第一个非空槽，没有时返回 -1 (不绕回)
+     */
+    private int nextOccupied(int slot) {
+        if (slot > mask) {
+            return -1;
+        }
+        int word = slot >>> 6;
+        long bits = occupied[word] & (-1L << slot);
+        while (bits == 0) {
+            if (++word == occupied.length) {
+                return -1;
+            }
+            bits = occupied[word];
+        }
+        int found = (word << 6) + Long.numberOfTrailingZeros(bits);
+        return found <= mask ? found : -1;
+    }
+
+    private int allocate() {
+        int entry;
+        if (freeHead != NONE) {
+            entry = freeHead;
+            freeHead = next[entry];
+        } else {
+            if (capacity == deadlines.length) {
+                int newLength = capacity * 2;
+                deadlines = Arrays.copyOf(deadlines, newLength);
+                periods = Arrays.copyOf(periods, newLength);
+                callbacks = Arrays.copyOf(callbacks, newLength);
+                next = Arrays.copyOf(next, newLength);
+                prev = Arrays.copyOf(prev, newLength);
+                generations = Arrays.copyOf(generations, newLength);
+                firing = Arrays.copyOf(firing, newLength);
+            }
+            entry = capacity++;
+            generations[entry] = 1;
+        }
+        firing[entry] = false;
+        return entry;
+    }
+
+    private void release(int entry) {
+        callbacks[entry] = null;
+        firing[entry] = false;
+        generations[entry]++;
+        if (generations[entry] == 0) {
+            generations[entry] = 1; // 代数回绕时跳过 0，保证句柄不为 0
+        }
+        next[entry] = freeHead;
+        freeHead = entry;
+    }
+
+    private void link(int entry) {
+        int slot = (int) (deadlines[entry] & mask);
+        int head = slotHeads[slot];
+        prev[entry] = NONE;
+        next[entry] = head;
+        if (head != NONE) {
+            prev[head] = entry;
+        }
+        slotHeads[slot] = entry;
+        occupied[slot >>> 6] |= 1L << slot;
+    }
+
+    private void unlink(int entry) {
+        int before = prev[entry];
+        int after = next[entry];
+        if (before != NONE) {
+            next[before] = after;
+        } else {
+            int slot = (int) (deadlines[entry] & mask);
+            slotHeads[slot] = after;
+            if (after == NONE) {
+                occupied[slot >>> 6] &= ~(1L << slot);
+            }
+        }
+        if (after != NONE) {
+            prev[after] = before;
+        }
+    }
+
+    private long handleOf(int entry) {
+        return ((long) generations[entry] << 32) | entry;
+    }
+}
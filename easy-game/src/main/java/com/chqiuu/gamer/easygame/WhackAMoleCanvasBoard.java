@@ -0,0 +1,172 @@
+package com.chqiuu.gamer.easygame;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+
+import java.util.Arrays;
+
+/**
+ * 把整个打地鼠网格画在一个 Canvas 上的渲染器
+ * <p>
+ * 每个洞只保存两种颜色 (洞的颜色、物品的颜色，没有物品时为 null)，修改颜色时只把这个洞标记为脏，
+ * 每次脉冲由 AnimationTimer 统一重画脏的格子，一帧内的多次修改只画一次。洞之间的空隙永远不变，
+ * 所以只需重画洞所在的正方形。点击位置用除法直接换算成格子，不需要每个洞一个节点和处理器，
+ * 网格再大场景图中也只有一个节点。只能在 JavaFX 应用线程上使用。
+ */
+public class WhackAMoleCanvasBoard {
+
+    private final Canvas canvas;
+    private final int gridSize;
+    private final double holeSize;
+    private final double pitch; // 相邻两个洞左上角之间的距离 (洞 + 空隙)
+    private final double itemSizeRatio;
+    private final Color backgroundColor;
+
+    private final Color[] holeColors;
+    private final Color[] itemColors;
+    private final long[] dirtyBits;
+    private final int[] dirtyCells; // [0, dirtyCount) 是待重画的格子
+    private int dirtyCount;
+
+    private final AnimationTimer redrawTimer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            flush();
+        }
+    };
+
+    /**
+     * @param gridSize 每行 (列) 洞的数量
+     * @param holeSize 洞的直径
+     * @param gap 洞之间的空隙
+     * @param itemSizeRatio 物品相对于洞的大小比例
+     */
+    public WhackAMoleCanvasBoard(int gridSize, double holeSize, double gap, double itemSizeRatio,
+                                 Color holeColor, Color backgroundColor) {
+        this.gridSize = gridSize;
+        this.holeSize = holeSize;
+        this.pitch = holeSize + gap;
+        this.itemSizeRatio = itemSizeRatio;
+        this.backgroundColor = backgroundColor;
+        int cells = gridSize * gridSize;
+        this.holeColors = new Color[cells];
+        this.itemColors = new Color[cells];
+        this.dirtyBits = new long[(cells + 63) >>> 6];
+        this.dirtyCells = new int[cells];
+        Arrays.fill(holeColors, holeColor);
+        double extent = gridSize * holeSize + (gridSize - 1) * gap;
+        this.canvas = new Canvas(extent, extent);
+        redrawAll();
+    }
+
+    public Canvas getCanvas() {
+        return canvas;
+    }
+
+    /**
+     * 开始在每次脉冲时重画脏的格子
+     */
+    public void start() {
+        redrawTimer.start();
+    }
+
+    /**
+     * 停止重画 (不再显示时调用，避免 AnimationTimer 一直占用脉冲)
+     */
+    public void stop() {
+        redrawTimer.stop();
+    }
+
+    /**
+     * 设置洞的颜色 (例如击中时闪烁)
+     */
+    public void setHoleColor(int cell, Color color) {
+        if (holeColors[cell] != color) {
+            holeColors[cell] = color;
+            markDirty(cell);
+        }
+    }
+
+    /**
+     * 设置洞中物品的颜色
+     * @param color 物品颜色；null 表示没有物品
+     */
+    public void setItemColor(int cell, Color color) {
+        if (itemColors[cell] != color) {
+            itemColors[cell] = color;
+            markDirty(cell);
+        }
+    }
+
+    /**
+     * 把画布上的坐标换算成洞的编号 (行 * gridSize + 列)
+     * @return 编号；落在空隙或画布外时返回 -1
+     */
+    public int holeAt(double x, double y) {
+        if (x < 0 || y < 0) {
+            return -1;
+        }
+        int col = (int) (x / pitch);
+        int row = (int) (y / pitch);
+        if (col >= gridSize || row >= gridSize || x - col * pitch > holeSize || y - row * pitch > holeSize) {
+            return -1;
+        }
+        return row * gridSize + col;
+    }
+
+    private void markDirty(int cell) {
+        long bit = 1L << cell;
+        if ((dirtyBits[cell >>> 6] & bit) == 0) {
+            dirtyBits[cell >>> 6] |= bit;
+            dirtyCells[dirtyCount++] = cell;
+        }
+    }
+
+    /**
+     * 立即重画所有脏的格子
+     */
+    public void flush() {
+        if (dirtyCount == 0) {
+            return;
+        }
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        for (int i = 0; i < dirtyCount; i++) {
+            int cell = dirtyCells[i];
+            dirtyBits[cell >>> 6] &= ~(1L << cell);
+            drawCell(gc, cell);
+        }
+        dirtyCount = 0;
+    }
+
+    /**
+     * 重画整个画布
+     */
+    public void redrawAll() {
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.setFill(backgroundColor);
+        gc.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        for (int cell = 0; cell < holeColors.length; cell++) {
+            drawCell(gc, cell);
+        }
+        Arrays.fill(dirtyBits, 0);
+        dirtyCount = 0;
+    }
+
+    private void drawCell(GraphicsContext gc, int cell) {
+        double x = (cell % gridSize) * pitch;
+        double y = (cell / gridSize) * pitch;
+        gc.setFill(backgroundColor);
+        gc.fillRect(x, y, holeSize, holeSize);
+        gc.setFill(holeColors[cell]);
+        gc.fillOval(x, y, holeSize, holeSize);
+        Color item = itemColors[cell];
+        if (item != null) {
+            double itemSize = holeSize * itemSizeRatio;
+            double offset = (holeSize - itemSize) / 2;
+            gc.setFill(item);
+            gc.fillOval(x + offset, y + offset, itemSize, itemSize);
+        }
+    }
+}
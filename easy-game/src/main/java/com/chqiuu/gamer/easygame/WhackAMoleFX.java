@@ -1,14 +1,15 @@
 package com.chqiuu.gamer.easygame;
 
-import javafx.animation.KeyFrame;
-import javafx.animation.PauseTransition;
-import javafx.animation.Timeline;
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Cursor;
+import javafx.scene.Node;
 import javafx.scene.Scene;
+import javafx.scene.canvas.Canvas;
 import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.scene.effect.ColorAdjust;
 import javafx.scene.layout.*;
@@ -18,81 +19,135 @@ import javafx.scene.shape.Shape;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.stage.Stage;
-import javafx.util.Duration;
+import javafx.util.StringConverter;
 
+import com.chqiuu.gamer.easygame.WhackAMoleItems.Effect;
+import com.chqiuu.gamer.easygame.WhackAMoleItems.Item;
+import com.chqiuu.gamer.easygame.WhackAMoleItems.Level;
+
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 
+/**
+ * 打地鼠的界面: 游戏规则、随机数和计时都在 {@link WhackAMoleSimulation} 中，这里只负责显示和把点击转交给它
+ */
 public class WhackAMoleFX extends Application {
 
     // --- 常量定义 ---
-    private static final int GRID_SIZE = 3; // 网格大小 (3x3)
-    private static final double HOLE_SIZE = 110; // 洞的大小
+    private static final int DEFAULT_GRID_SIZE = 3; // 默认网格大小 (3x3)
+    private static final int MAX_GRID_SIZE = 100; // 最大网格大小 (100x100 的 "竞技场")
+    private static final Integer[] GRID_SIZE_OPTIONS = {3, 4, 5, 6, 8, 10, 15, 20, 30, 50, 75, MAX_GRID_SIZE};
+    private static final double HOLE_SIZE = 110; // 洞的最大尺寸
+    private static final double HOLE_GAP_RATIO = 20 / HOLE_SIZE; // 洞间距相对于洞尺寸的比例
+    private static final double ARENA_SIZE = 600; // 大网格时整个网格的最大边长 (像素)
     private static final double ITEM_SIZE_RATIO = 0.65; // 物品相对于洞的大小比例
 
     // 颜色定义
     private static final Color HOLE_COLOR = Color.rgb(139, 69, 19); // 洞 (棕色)
-    private static final Color MOLE_COLOR = Color.rgb(238, 82, 105); // 普通地鼠 (赭色)
-    private static final Color BOMB_COLOR = Color.BLACK;          // 炸弹 (黑色)
-    private static final Color BONUS_COLOR = Color.GOLD;          // 奖励 (金色)
     private static final Color BACKGROUND_COLOR = Color.LIGHTGREEN; // 背景 (浅绿)
-    private static final Color HIT_FLASH_COLOR = Color.LIGHTYELLOW; // 击中地鼠闪烁颜色
-    private static final Color BOMB_FLASH_COLOR = Color.RED;       // 击中炸弹闪烁颜色
-
-    // 时间和概率定义
-    private static final int GAME_DURATION_SECONDS = 45; // 游戏总时长（秒）
-    private static final double MIN_ITEM_UP_TIME_SECONDS = 0.45; // 物品出现最短时间
-    private static final double MAX_ITEM_UP_TIME_SECONDS = 1.1; // 物品出现最长时间
-    private static final double BASE_APPEAR_INTERVAL_SECONDS = 0.5; // 基础出现间隔
-    private static final double BOMB_PROBABILITY = 0.15; // 出现炸弹的概率 (15%)
-    private static final double BONUS_PROBABILITY = 0.05; // 出现奖励的概率 (5%) (地鼠概率 = 1 - BOMB - BONUS = 80%)
-
-    // 得分定义
-    private static final int MOLE_SCORE = 10; // 打中地鼠得分
-    private static final int BOMB_PENALTY = -25; // 打中炸弹扣分
-    private static final int BONUS_SCORE = 50; // 打中奖励得分
-
-    // --- 游戏状态变量 ---
-    private int score = 0;
-    private int timeLeft = GAME_DURATION_SECONDS;
-    private boolean gameActive = false;
-    private boolean acceptingInput = true; // 是否接受玩家点击（用于炸弹惩罚）
-
-    private Random random = new Random();
+    private static final Color HIT_FLASH_COLOR = Color.LIGHTYELLOW; // 击中加分物品闪烁颜色 (物品没有配置时)
+    private static final Color PENALTY_FLASH_COLOR = Color.RED;    // 击中扣分物品闪烁颜色 (物品没有配置时)
+    // 物品的颜色见 whack-a-mole-items.properties
+
+    private static final Integer[] REPLAY_SPEEDS = {1, 2, 4, 8}; // 回放倍速
+
+    // --- 游戏状态 ---
+    // 时间定义见 WhackAMoleSimulation.Rules 的默认值，物品、概率和得分见关卡配置
+    private final WhackAMoleItems catalog = WhackAMoleItems.getDefault();
+    private final WhackAMoleSimulation.Rules rules = new WhackAMoleSimulation.Rules().level(catalog.getDefaultLevel());
+    private final Color[] itemColors = new Color[catalog.getItems().size()]; // 按物品编号，显示物品的外观颜色
+    private final Color[] flashColors = new Color[catalog.getItems().size()]; // 按物品编号，没有配置时为 null
+    private WhackAMoleSimulation simulation; // 随网格大小重建
+    private final Random seeds = new Random(); // 每局的随机种子
+
+    // --- 录像和回放 ---
+    private WhackAMoleRecorder recorder; // 模拟的监听器: 录下每一局，并把通知转交给 SimulationView
+    private final WhackAMoleReplay replay = new WhackAMoleReplay(rules); // 回放用自己的模拟，不影响 simulation 的时钟
+    private WhackAMoleRecording lastRecording; // 最近一局的录像
+    private boolean replaying = false;
+    private long replayStartNanos; // 回放开始的脉冲时间，-1 表示下一次脉冲时记录
+    private final AnimationTimer replayClock = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            if (replayStartNanos < 0) {
+                replayStartNanos = now;
+            }
+            if (!replay.advanceTo((now - replayStartNanos) * replaySpeedComboBox.getValue())) {
+                finishReplay();
+            }
+        }
+    };
+
+    private int gridSize = DEFAULT_GRID_SIZE; // 当前网格大小
+    private double holeSize = HOLE_SIZE; // 当前洞的大小，随网格变大而缩小
     private List<ItemHole> itemHoles = new ArrayList<>(); // 存储所有洞对象
-    private Timeline gameTimer; // 游戏主计时器
-    private Timeline itemSpawner; // 物品生成计时器
+    // 反馈的定时都调度在共用的 FxTimers 上，回调只创建一次，句柄为 0 表示没有任务
+    private long clearFeedbackTimer; // 清除反馈信息
+    private final Runnable clearFeedbackCallback = this::clearFeedback;
+    // 游戏进行中每次脉冲把模拟推进到当前时间
+    private final AnimationTimer clock = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            simulation.advanceTo(now);
+        }
+    };
+    private final ColorAdjust darken = new ColorAdjust(0, 0, -0.5, 0); // 禁止点击 (LOCK) 时降低亮度
 
     // --- UI 元素 ---
     private Label scoreLabel;
     private Label timeLabel;
     private Label feedbackLabel; // 用于显示额外反馈信息（如“炸弹！”）
+    private Label effectLabel; // 正在生效的物品效果 (双倍得分、时间冻结)
     private Button startButton;
-    private GridPane gameGrid;
+    private ComboBox<Integer> gridSizeComboBox;
+    private ComboBox<Level> levelComboBox;
+    private ComboBox<RenderMode> renderModeComboBox;
+    private Button replayButton;
+    private ComboBox<Integer> replaySpeedComboBox;
+    private Node boardView; // 中间的游戏区域 (GridPane 或 Canvas)，炸弹惩罚时变暗
+    private WhackAMoleCanvasBoard canvasBoard; // Canvas 模式的渲染器，节点模式下为 null
+    private BorderPane root;
+    private Stage stage;
+
+    // --- 渲染方式 ---
+    private enum RenderMode {
+        NODES("节点"),   // 每个洞一个 StackPane + Circle
+        CANVAS("Canvas"); // 整个网格画在一个 Canvas 上
+
+        final String label;
+
+        RenderMode(String label) {
+            this.label = label;
+        }
 
-    // --- 物品类型枚举 ---
-    private enum ItemType {
-        MOLE, BOMB, BONUS
+        @Override
+        public String toString() {
+            return label;
+        }
     }
+    private RenderMode renderMode = RenderMode.NODES;
 
     // --- 内部类: 代表一个洞及其中的物品 ---
     private class ItemHole {
-        StackPane pane; // 包含洞和物品的面板
-        Shape itemShape; // 代表物品的图形 (用 Shape 更通用)
-        ItemType currentItemType = null; // 当前洞中物品的类型
-        boolean itemVisible = false;
-        PauseTransition hideTimer; // 控制自动隐藏
-        PauseTransition flashTimer; // 控制背景闪烁恢复
-
-        ItemHole() {
+        final int index; // 在 itemHoles 中的下标，也是模拟中洞的编号
+        StackPane pane; // 包含洞和物品的面板 (Canvas 模式下为 null)
+        Shape itemShape; // 代表物品的图形 (用 Shape 更通用，Canvas 模式下为 null)
+        long flashTimer; // 控制背景闪烁恢复 (FxTimers 句柄)
+        final Runnable restoreHoleColor = () -> setHoleColor(HOLE_COLOR); // 恢复原背景
+
+        ItemHole(int index) {
+            this.index = index;
+            if (canvasBoard != null) {
+                return; // Canvas 模式: 洞和物品由 canvasBoard 绘制，点击由画布换算
+            }
             pane = new StackPane();
-            pane.setPrefSize(HOLE_SIZE, HOLE_SIZE);
-            pane.setStyle("-fx-background-color: #" + HOLE_COLOR.toString().substring(2) + "; " +
-                    "-fx-background-radius: " + (HOLE_SIZE / 2) + ";");
+            pane.setPrefSize(holeSize, holeSize);
+            pane.setStyle(holeStyle(HOLE_COLOR));
 
             // 创建一个通用的圆形作为物品占位符，颜色和可见性后面设置
-            itemShape = new Circle(HOLE_SIZE * ITEM_SIZE_RATIO / 2);
+            itemShape = new Circle(holeSize * ITEM_SIZE_RATIO / 2);
             itemShape.setVisible(false);
             itemShape.setCursor(Cursor.HAND);
             itemShape.setMouseTransparent(true); // 让点击事件穿透到 pane，方便统一处理
@@ -100,100 +155,50 @@ public class WhackAMoleFX extends Application {
             pane.getChildren().add(itemShape);
 
             // 在 Pane 上处理点击，这样即使物品图形没完全覆盖也能点到
-            pane.setOnMouseClicked(event -> {
-                if (gameActive && acceptingInput && itemVisible) {
-                    handleWhack(); // 处理敲击事件
-                }
-            });
+            pane.setOnMouseClicked(event -> onClicked());
         }
 
-        // 显示指定类型的物品
-        void showItem(ItemType type) {
-            if (!itemVisible && gameActive) {
-                itemVisible = true;
-                currentItemType = type;
-
-                // 根据类型设置外观
-                switch (type) {
-                    case MOLE:
-                        ((Circle) itemShape).setFill(MOLE_COLOR);
-                        // 可以给地鼠加点细节，比如眼睛，但需要更复杂的绘图
-                        break;
-                    case BOMB:
-                        ((Circle) itemShape).setFill(BOMB_COLOR);
-                        // 可以把形状改成方的或者加引线效果
-                        // itemShape = new Rectangle(HOLE_SIZE * ITEM_SIZE_RATIO * 0.8, HOLE_SIZE * ITEM_SIZE_RATIO * 0.8, BOMB_COLOR); // 示例：方形炸弹
-                        break;
-                    case BONUS:
-                        ((Circle) itemShape).setFill(BONUS_COLOR);
-                        // 可以加闪烁效果或用特殊形状
-                        break;
-                }
-
-                itemShape.setVisible(true);
-
-                // 设置随机时间后自动隐藏
-                double upTime = MIN_ITEM_UP_TIME_SECONDS + random.nextDouble() * (MAX_ITEM_UP_TIME_SECONDS - MIN_ITEM_UP_TIME_SECONDS);
-                hideTimer = new PauseTransition(Duration.seconds(upTime));
-                hideTimer.setOnFinished(e -> hideItem(false)); // false 表示非主动敲击隐藏
-                hideTimer.play();
+        // 洞被点击: 先把模拟推进到点击的时刻，是否打中、得分多少都由模拟决定，结果通过 SimulationView 显示
+        void onClicked() {
+            if (!replaying && simulation.isGameActive()) {
+                simulation.advanceTo(System.nanoTime());
+                simulation.whack(index);
             }
         }
 
-        // 隐藏物品
-        void hideItem(boolean whackOccurred) {
-            if (itemVisible) {
-                if (hideTimer != null) {
-                    hideTimer.stop();
-                    hideTimer = null;
-                }
-                itemVisible = false;
+        // 显示物品的颜色，null 表示隐藏物品
+        void setItemColor(Color color) {
+            if (canvasBoard != null) {
+                canvasBoard.setItemColor(index, color);
+            } else if (color == null) {
                 itemShape.setVisible(false);
-                currentItemType = null; // 清除当前物品类型
-                // 如果是因为超时自动隐藏，而不是被敲击，可以考虑是否要扣分或有其他逻辑
-                // if (!whackOccurred) { /* 处理错过逻辑 */ }
+            } else {
+                itemShape.setFill(color);
+                itemShape.setVisible(true);
             }
         }
 
-        // 处理敲击事件
-        void handleWhack() {
-            if (currentItemType == null) return; // 如果没有物品则不处理
-
-            switch (currentItemType) {
-                case MOLE:
-                    score += MOLE_SCORE;
-                    setFeedback("打中地鼠! +" + MOLE_SCORE, Color.GREEN);
-                    flashBackground(HIT_FLASH_COLOR);
-                    // (可选) 播放打中音效
-                    break;
-                case BOMB:
-                    score += BOMB_PENALTY;
-                    setFeedback("炸弹! " + BOMB_PENALTY, Color.RED);
-                    flashBackground(BOMB_FLASH_COLOR);
-                    triggerBombPenalty(); // 触发炸弹惩罚效果
-                    // (可选) 播放爆炸音效
-                    break;
-                case BONUS:
-                    score += BONUS_SCORE;
-                    setFeedback("奖励! +" + BONUS_SCORE, Color.GOLD);
-                    flashBackground(BONUS_COLOR);
-                    // (可选) 播放奖励音效
-                    break;
+        // 设置洞的背景颜色
+        void setHoleColor(Color color) {
+            if (canvasBoard != null) {
+                canvasBoard.setHoleColor(index, color);
+            } else {
+                pane.setStyle(holeStyle(color));
             }
-            updateScoreLabel();
-            hideItem(true); // true 表示是主动敲击导致隐藏
+        }
+
+        String holeStyle(Color color) {
+            return "-fx-background-color: #" + color.toString().substring(2) + "; " +
+                    "-fx-background-radius: " + (holeSize / 2) + ";";
         }
 
         // 短暂改变背景颜色以示反馈
         void flashBackground(Color flashColor) {
-            if (flashTimer != null) flashTimer.stop(); // 停止上一个闪烁
+            FxTimers.cancel(flashTimer); // 停止上一个闪烁
 
-            String originalStyle = pane.getStyle();
-            pane.setStyle(originalStyle.replaceFirst("-fx-background-color: #[a-fA-F0-9]+;", "-fx-background-color: #" + flashColor.toString().substring(2) + ";"));
+            setHoleColor(flashColor);
 
-            flashTimer = new PauseTransition(Duration.millis(150)); // 闪烁持续时间
-            flashTimer.setOnFinished(e -> pane.setStyle(originalStyle)); // 恢复原背景
-            flashTimer.play();
+            flashTimer = FxTimers.scheduleMillis(150, restoreHoleColor); // 闪烁持续时间
         }
     }
 
@@ -202,7 +207,14 @@ public class WhackAMoleFX extends Application {
     public void start(Stage primaryStage) {
         primaryStage.setTitle("高级打地鼠游戏 (中文版)");
 
-        BorderPane root = new BorderPane();
+        stage = primaryStage;
+        for (Item item : catalog.getItems()) {
+            itemColors[item.getIndex()] = Color.web(item.getAppearance().getColor());
+            if (item.getFlashColor() != null) {
+                flashColors[item.getIndex()] = Color.web(item.getFlashColor());
+            }
+        }
+        root = new BorderPane();
         root.setBackground(new Background(new BackgroundFill(BACKGROUND_COLOR, CornerRadii.EMPTY, Insets.EMPTY)));
         root.setPadding(new Insets(15));
 
@@ -213,9 +225,7 @@ public class WhackAMoleFX extends Application {
         BorderPane.setMargin(infoPane, new Insets(0, 0, 15, 0));
 
         // --- 中间游戏网格 ---
-        gameGrid = createGameGrid();
-        root.setCenter(gameGrid);
-        BorderPane.setAlignment(gameGrid, Pos.CENTER);
+        rebuildBoard();
 
         // --- 底部控制面板 ---
         HBox controlPane = createControlPane();
@@ -237,25 +247,75 @@ public class WhackAMoleFX extends Application {
         vbox.setAlignment(Pos.CENTER);
         scoreLabel = new Label("得分: 0");
         scoreLabel.setFont(Font.font("Arial", FontWeight.BOLD, 20));
-        timeLabel = new Label("时间: " + GAME_DURATION_SECONDS + " 秒");
+        timeLabel = new Label("时间: " + rules.getDurationSeconds() + " 秒");
         timeLabel.setFont(Font.font("Arial", FontWeight.BOLD, 20));
         feedbackLabel = new Label(" "); // 初始为空白，用于显示临时反馈
         feedbackLabel.setFont(Font.font("Arial", FontWeight.BOLD, 16));
         feedbackLabel.setMinHeight(20); // 给反馈标签留出空间
-        vbox.getChildren().addAll(scoreLabel, timeLabel, feedbackLabel);
+        effectLabel = new Label(" ");
+        effectLabel.setFont(Font.font("Arial", FontWeight.BOLD, 14));
+        effectLabel.setTextFill(Color.DARKBLUE);
+        vbox.getChildren().addAll(scoreLabel, timeLabel, feedbackLabel, effectLabel);
         return vbox;
     }
 
-    private GridPane createGameGrid() {
+    /**
+     * 按当前的网格大小和渲染方式重建所有的洞，并放到窗口中间
+     */
+    private void rebuildBoard() {
+        if (canvasBoard != null) {
+            canvasBoard.stop();
+            canvasBoard = null;
+        }
+        // 网格变大时缩小洞的尺寸，使整个网格不超过 ARENA_SIZE (3x3 时仍是原来的 110 像素)
+        if (simulation != null) {
+            simulation.setListener(null);
+        }
+        holeSize = Math.min(HOLE_SIZE, ARENA_SIZE / (gridSize + HOLE_GAP_RATIO * (gridSize - 1)));
+        double gap = holeSize * HOLE_GAP_RATIO;
+        int holeCount = gridSize * gridSize;
+        SimulationView view = new SimulationView();
+        simulation = new WhackAMoleSimulation(rules, holeCount, System.nanoTime());
+        recorder = new WhackAMoleRecorder(simulation, view);
+        simulation.setListener(recorder);
+        replay.setView(view);
+
+        if (renderMode == RenderMode.CANVAS) {
+            canvasBoard = new WhackAMoleCanvasBoard(gridSize, holeSize, gap, ITEM_SIZE_RATIO, HOLE_COLOR, BACKGROUND_COLOR);
+            Canvas canvas = canvasBoard.getCanvas();
+            canvas.setCursor(Cursor.HAND);
+            canvas.setOnMouseClicked(event -> {
+                int index = canvasBoard.holeAt(event.getX(), event.getY()); // 直接换算成洞的编号
+                if (index >= 0) {
+                    itemHoles.get(index).onClicked();
+                }
+            });
+            itemHoles.clear();
+            for (int i = 0; i < holeCount; i++) {
+                itemHoles.add(new ItemHole(i));
+            }
+            canvasBoard.start();
+            boardView = canvas;
+        } else {
+            boardView = createGameGrid(gap);
+        }
+        root.setCenter(boardView);
+        BorderPane.setAlignment(boardView, Pos.CENTER);
+        if (stage.isShowing()) {
+            stage.sizeToScene();
+        }
+    }
+
+    private GridPane createGameGrid(double gap) {
         GridPane gridPane = new GridPane();
         gridPane.setAlignment(Pos.CENTER);
-        gridPane.setHgap(20); // 增加洞间距
-        gridPane.setVgap(20);
+        gridPane.setHgap(gap); // 增加洞间距
+        gridPane.setVgap(gap);
 
         itemHoles.clear(); // 清空旧的洞（如果重玩）
-        for (int row = 0; row < GRID_SIZE; row++) {
-            for (int col = 0; col < GRID_SIZE; col++) {
-                ItemHole itemHole = new ItemHole();
+        for (int row = 0; row < gridSize; row++) {
+            for (int col = 0; col < gridSize; col++) {
+                ItemHole itemHole = new ItemHole(itemHoles.size());
                 itemHoles.add(itemHole);
                 gridPane.add(itemHole.pane, col, row);
             }
@@ -264,19 +324,97 @@ public class WhackAMoleFX extends Application {
     }
 
     private HBox createControlPane() {
-        HBox hbox = new HBox();
+        HBox hbox = new HBox(10);
         hbox.setAlignment(Pos.CENTER);
+        Label gridLabel = new Label("网格:");
+        gridLabel.setFont(Font.font(16));
+        gridSizeComboBox = new ComboBox<>();
+        gridSizeComboBox.getItems().addAll(GRID_SIZE_OPTIONS);
+        gridSizeComboBox.setValue(gridSize);
+        gridSizeComboBox.setConverter(new StringConverter<>() {
+            @Override
+            public String toString(Integer size) {
+                return size == null ? "" : size + " x " + size;
+            }
+
+            @Override
+            public Integer fromString(String text) {
+                return Integer.valueOf(text.substring(0, text.indexOf(' ')));
+            }
+        });
+        gridSizeComboBox.setOnAction(e -> changeGridSize(gridSizeComboBox.getValue()));
+        Label levelLabel = new Label("关卡:");
+        levelLabel.setFont(Font.font(16));
+        levelComboBox = new ComboBox<>();
+        levelComboBox.getItems().addAll(catalog.getLevels());
+        levelComboBox.setValue(rules.getLevel());
+        levelComboBox.setOnAction(e -> {
+            if (!isBusy() && levelComboBox.getValue() != null) {
+                rules.level(levelComboBox.getValue()); // 下一局开始时生效
+            }
+        });
+        Label renderLabel = new Label("渲染:");
+        renderLabel.setFont(Font.font(16));
+        renderModeComboBox = new ComboBox<>();
+        renderModeComboBox.getItems().addAll(RenderMode.values());
+        renderModeComboBox.setValue(renderMode);
+        renderModeComboBox.setOnAction(e -> {
+            if (!isBusy() && renderModeComboBox.getValue() != renderMode) {
+                renderMode = renderModeComboBox.getValue();
+                rebuildBoard();
+            }
+        });
         startButton = new Button("开始游戏");
         startButton.setFont(Font.font(18)); // 增大按钮字体
         startButton.setOnAction(e -> toggleGame());
-        hbox.getChildren().add(startButton);
+        replayButton = new Button("回放上一局");
+        replayButton.setFont(Font.font(16));
+        replayButton.setDisable(true); // 玩完一局后才有录像
+        replayButton.setOnAction(e -> startReplay());
+        replaySpeedComboBox = new ComboBox<>();
+        replaySpeedComboBox.getItems().addAll(REPLAY_SPEEDS);
+        replaySpeedComboBox.setValue(REPLAY_SPEEDS[0]);
+        replaySpeedComboBox.setConverter(new StringConverter<>() {
+            @Override
+            public String toString(Integer speed) {
+                return speed == null ? "" : speed + "x";
+            }
+
+            @Override
+            public Integer fromString(String text) {
+                return Integer.valueOf(text.substring(0, text.length() - 1));
+            }
+        });
+        hbox.getChildren().addAll(gridLabel, gridSizeComboBox, levelLabel, levelComboBox, renderLabel, renderModeComboBox, startButton,
+                replayButton, replaySpeedComboBox);
         return hbox;
     }
 
+    /**
+     * 更换网格大小并重建所有的洞 (游戏进行中不允许)
+     */
+    private void changeGridSize(int size) {
+        if (isBusy() || size == gridSize || size < 1 || size > MAX_GRID_SIZE) {
+            return;
+        }
+        gridSize = size;
+        rebuildBoard();
+    }
+
     // --- 游戏逻辑方法 ---
 
+    /**
+     * @return 是否正在游戏或回放 (此时不能更换网格和渲染方式)
+     */
+    private boolean isBusy() {
+        return replaying || simulation.isGameActive();
+    }
+
     private void toggleGame() {
-        if (gameActive) {
+        if (replaying) {
+            replay.stop(); // 中止回放，界面处理见 SimulationView.gameOver
+            finishReplay();
+        } else if (simulation.isGameActive()) {
             stopGame();
         } else {
             startGame();
@@ -284,99 +422,175 @@ public class WhackAMoleFX extends Application {
     }
 
     private void startGame() {
-        gameActive = true;
-        acceptingInput = true; // 确保开始时能接受输入
-        score = 0;
-        timeLeft = GAME_DURATION_SECONDS;
         startButton.setText("停止游戏");
-        updateScoreLabel();
-        updateTimeLabel();
+        gridSizeComboBox.setDisable(true);
+        levelComboBox.setDisable(true);
+        renderModeComboBox.setDisable(true);
+        replayButton.setDisable(true);
         setFeedback("游戏开始!", Color.BLUE); // 清除旧反馈
 
-        for (ItemHole ih : itemHoles) {
-            ih.hideItem(false); // 隐藏所有物品
-        }
-
-        // 启动游戏倒计时器
-        gameTimer = new Timeline(new KeyFrame(Duration.seconds(1), event -> {
-            timeLeft--;
-            updateTimeLabel();
-            if (timeLeft <= 0) {
-                stopGame();
-            }
-        }));
-        gameTimer.setCycleCount(Timeline.INDEFINITE);
-        gameTimer.play();
-
-        // 启动物品生成计时器
-        itemSpawner = new Timeline(new KeyFrame(Duration.seconds(BASE_APPEAR_INTERVAL_SECONDS * (0.7 + random.nextDouble() * 0.6)), // 加入随机间隔
-                event -> {
-                    if (gameActive) {
-                        popRandomItem();
-                    }
-                }));
-        itemSpawner.setCycleCount(Timeline.INDEFINITE);
-        itemSpawner.play();
+        simulation.advanceTo(System.nanoTime());
+        long seed = seeds.nextLong();
+        recorder.begin(gridSize, seed);
+        simulation.start(seed); // 倒计时和物品生成都调度在模拟自己的时间轮上
+        updateScoreLabel();
+        clock.start();
     }
 
     private void stopGame() {
-        gameActive = false;
-        startButton.setText("开始游戏");
+        simulation.stop(); // 结束后的界面处理见 SimulationView.gameOver
+    }
 
-        if (gameTimer != null) gameTimer.stop();
-        if (itemSpawner != null) itemSpawner.stop();
+    /**
+     * 在当前棋盘上回放上一局的录像 (按选择的倍速，网格大小不同时先切换网格)
+     */
+    private void startReplay() {
+        if (lastRecording == null || isBusy()) {
+            return;
+        }
+        if (lastRecording.getGridSize() != gridSize) {
+            gridSize = lastRecording.getGridSize();
+            gridSizeComboBox.setValue(gridSize);
+            rebuildBoard();
+        }
+        replaying = true;
+        startButton.setText("停止回放");
+        gridSizeComboBox.setDisable(true);
+        levelComboBox.setDisable(true);
+        renderModeComboBox.setDisable(true);
+        replayButton.setDisable(true);
+        replaySpeedComboBox.setDisable(true);
+        setFeedback("回放中 (" + replaySpeedComboBox.getValue() + "x)", Color.BLUE);
+
+        replay.load(lastRecording);
+        updateScoreLabel();
+        replayStartNanos = -1;
+        replayClock.start();
+    }
 
-        for (ItemHole ih : itemHoles) {
-            ih.hideItem(false);
+    /**
+     * 回放结束或被中止: 显示重新计算的得分和校验结果
+     */
+    private void finishReplay() {
+        replayClock.stop();
+        replaying = false;
+        replayButton.setDisable(false);
+        replaySpeedComboBox.setDisable(false);
+        if (replay.getFailure() != null) {
+            setFeedback("回放校验失败: " + replay.getFailure(), Color.RED);
+        } else if (replay.isCompleted()) {
+            setFeedback("回放结束! 得分: " + replay.getScore() + " (与录像一致)", Color.DARKMAGENTA);
+        } else {
+            setFeedback("回放已停止", Color.DARKMAGENTA);
         }
+    }
 
-        setFeedback("游戏结束! 最终得分: " + score, Color.DARKMAGENTA);
-        // 确保输入是可接受的，为下一轮做准备
-        acceptingInput = true;
-        gameGrid.setEffect(null); // 移除可能的模糊效果
+    /**
+     * 把录像追加到录像文件 (几百字节)
+     */
+    private void saveRecording(WhackAMoleRecording recording) {
+        try {
+            recording.appendTo(WhackAMoleRecording.defaultPath());
+        } catch (IOException e) {
+            System.err.println("无法保存打地鼠录像 " + WhackAMoleRecording.defaultPath() + ": " + e.getMessage());
+        }
     }
 
     /**
-     * 根据概率随机选择一个物品类型
-     * @return 随机选中的 ItemType
+     * 显示正在生效的加成效果 (LOCK 用变暗表示)
      */
-    private ItemType chooseRandomItemType() {
-        double chance = random.nextDouble(); // 生成 0.0 到 1.0 之间的随机数
-        if (chance < BOMB_PROBABILITY) {
-            return ItemType.BOMB;
-        } else if (chance < BOMB_PROBABILITY + BONUS_PROBABILITY) {
-            return ItemType.BONUS;
-        } else {
-            return ItemType.MOLE;
+    private void updateEffectLabel() {
+        WhackAMoleSimulation shown = displayed();
+        StringBuilder text = new StringBuilder();
+        if (shown.isEffectActive(Effect.DOUBLE_SCORE)) {
+            text.append("双倍得分 ");
+        }
+        if (shown.isEffectActive(Effect.FREEZE)) {
+            text.append("时间冻结 ");
         }
+        effectLabel.setText(text.length() == 0 ? " " : text.toString().trim());
     }
 
     /**
-     * 从一个随机的、当前没有物品的洞中弹出一个随机类型的物品
+     * 把模拟中的状态变化显示到界面上
      */
-    private void popRandomItem() {
-        List<ItemHole> availableHoles = new ArrayList<>();
-        for (ItemHole ih : itemHoles) {
-            if (!ih.itemVisible) {
-                availableHoles.add(ih);
+    private class SimulationView implements WhackAMoleSimulation.Listener {
+        @Override
+        public void itemShown(int hole, Item item) {
+            itemHoles.get(hole).setItemColor(itemColors[item.getIndex()]); // 诱饵显示为它模仿的物品
+        }
+
+        @Override
+        public void itemHidden(int hole) {
+            itemHoles.get(hole).setItemColor(null);
+        }
+
+        @Override
+        public void whacked(int hole, Item item, int scoreDelta) {
+            Color flash = flashColors[item.getIndex()];
+            if (scoreDelta < 0) {
+                setFeedback(item.getName() + "! " + scoreDelta, Color.RED);
+                // (可选) 播放爆炸音效
+            } else {
+                setFeedback(item.getName() + "! +" + scoreDelta, flash != null ? flash : Color.GREEN);
+                // (可选) 播放打中音效
             }
+            itemHoles.get(hole).flashBackground(flash != null ? flash
+                    : scoreDelta < 0 ? PENALTY_FLASH_COLOR : HIT_FLASH_COLOR);
+            updateScoreLabel();
+        }
+
+        @Override
+        public void effectChanged(Effect effect, boolean active) {
+            if (effect == Effect.LOCK) {
+                // 禁止点击期间整个游戏区域变暗，模拟同时拒绝点击
+                boardView.setEffect(active ? darken : null);
+            } else {
+                updateEffectLabel();
+            }
+        }
+
+        @Override
+        public void timeChanged(int secondsLeft) {
+            updateTimeLabel();
         }
 
-        if (!availableHoles.isEmpty()) {
-            int randomIndex = random.nextInt(availableHoles.size());
-            ItemType typeToSpawn = chooseRandomItemType(); // 决定本次生成的物品类型
-            availableHoles.get(randomIndex).showItem(typeToSpawn); // 显示该类型的物品
+        @Override
+        public void gameOver(int score) {
+            startButton.setText("开始游戏");
+            gridSizeComboBox.setDisable(false);
+            levelComboBox.setDisable(false);
+            renderModeComboBox.setDisable(false);
+            boardView.setEffect(null); // 移除可能的变暗效果
+            effectLabel.setText(" ");
+            if (replaying) {
+                return; // 回放的结果见 finishReplay
+            }
+            clock.stop();
+            setFeedback("游戏结束! 最终得分: " + score, Color.DARKMAGENTA);
+            lastRecording = recorder.getLastRecording(); // 录像在转交 gameOver 之前已经生成
+            if (lastRecording != null) {
+                saveRecording(lastRecording);
+                replayButton.setDisable(false);
+            }
         }
     }
 
     /** 更新得分标签 */
     private void updateScoreLabel() {
-        scoreLabel.setText("得分: " + score);
+        scoreLabel.setText("得分: " + displayed().getScore());
     }
 
     /** 更新时间标签 */
     private void updateTimeLabel() {
-        timeLabel.setText("时间: " + timeLeft + " 秒");
+        timeLabel.setText("时间: " + displayed().getTimeLeft() + " 秒");
+    }
+
+    /**
+     * @return 界面当前显示的模拟 (回放时是回放用的模拟)
+     */
+    private WhackAMoleSimulation displayed() {
+        return replaying ? replay.getSimulation() : simulation;
     }
 
     /**
@@ -387,34 +601,13 @@ public class WhackAMoleFX extends Application {
     private void setFeedback(String message, Color color) {
         feedbackLabel.setText(message);
         feedbackLabel.setTextFill(color);
-        // 可以加一个定时器，让反馈信息在几秒后自动消失
-        PauseTransition clearFeedbackTimer = new PauseTransition(Duration.seconds(1.5));
-        clearFeedbackTimer.setOnFinished(e -> {
-            // 检查当前反馈是否还是我们设置的这个，避免清除后续的新反馈
-            if(feedbackLabel.getText().equals(message)){
-                feedbackLabel.setText(" ");
-            }
-        });
-        clearFeedbackTimer.play();
+        // 让反馈信息在几秒后自动消失；新的反馈会取消旧的清除任务，避免清除后续的新反馈
+        FxTimers.cancel(clearFeedbackTimer);
+        clearFeedbackTimer = FxTimers.scheduleMillis(1500, clearFeedbackCallback);
     }
 
-    /**
-     * 触发炸弹惩罚效果（例如，暂时禁止点击）
-     */
-    private void triggerBombPenalty() {
-        acceptingInput = false; // 禁用输入
-        // 添加视觉效果，比如整个游戏区域模糊或变暗
-        ColorAdjust darken = new ColorAdjust();
-        darken.setBrightness(-0.5); // 降低亮度
-        gameGrid.setEffect(darken);
-
-        // 设置一个短暂的暂停计时器，之后恢复输入和视觉效果
-        PauseTransition penaltyTimer = new PauseTransition(Duration.seconds(0.7)); // 惩罚持续时间
-        penaltyTimer.setOnFinished(e -> {
-            acceptingInput = true; // 恢复输入
-            gameGrid.setEffect(null); // 移除效果
-        });
-        penaltyTimer.play();
+    private void clearFeedback() {
+        feedbackLabel.setText(" ");
     }
 
 
@@ -0,0 +1,393 @@
+package com.chqiuu.gamer.easygame;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.random.RandomGenerator;
+
+/**
+ * 打地鼠的物品和关卡定义，从配置文件载入
+ * <p>
+ * 配置是 UTF-8 的 properties 文件 (默认是类路径上的 {@value #DEFAULT_RESOURCE}):
+ * <pre>
+ * items=mole,bomb,...                 物品的 id，顺序即物品的编号 (录像中使用，只能在末尾追加)
+ * item.&lt;id&gt;.name=地鼠                  显示的名称
+ * item.&lt;id&gt;.color=#EE5269            颜色 (CSS 颜色格式，由界面解析)
+ * item.&lt;id&gt;.score=10                  打中的得分 (可以为负数)
+ * item.&lt;id&gt;.effect=LOCK              可选，打中后的效果 (见 {@link Effect})
+ * item.&lt;id&gt;.effectSeconds=0.7        效果持续的时间
+ * item.&lt;id&gt;.looksLike=mole           可选，外观与另一种物品相同 (诱饵)
+ * item.&lt;id&gt;.flashColor=#FFD700       可选，打中时洞闪烁的颜色
+ * levels=classic,...                  关卡的 id，第一个是默认关卡
+ * level.&lt;id&gt;.name=经典
+ * level.&lt;id&gt;.items=mole:80,bomb:15    物品表: 物品 id 和权重
+ * </pre>
+ * 每个关卡的物品表在载入时编译成 {@link AliasTable}，生成物品时 O(1) 抽取，不逐项累加概率。
+ * 载入后只读，可以被多个线程共享。
+ */
+public final class WhackAMoleItems {
+
+    /** 默认配置文件 (与本类在同一个包中) */
+    public static final String DEFAULT_RESOURCE = "whack-a-mole-items.properties";
+
+    /**
+     * 打中物品后的效果，持续 effectSeconds 秒 (再次触发时重新计时)
+     */
+    public enum Effect {
+        NONE,
+        LOCK,         // 禁止点击 (炸弹惩罚)
+        DOUBLE_SCORE, // 正的得分翻倍
+        FREEZE        // 倒计时暂停
+    }
+
+    /**
+     * 一种物品
+     */
+    public static final class Item {
+        private final int index;
+        private final String id;
+        private final String name;
+        private final String color;
+        private final int score;
+        private final Effect effect;
+        private final double effectSeconds;
+        private final String flashColor;
+        private Item appearance = this; // 诱饵显示为另一种物品
+
+        Item(int index, String id, String name, String color, int score, Effect effect, double effectSeconds,
+             String flashColor) {
+            this.index = index;
+            this.id = id;
+            this.name = name;
+            this.color = color;
+            this.score = score;
+            this.effect = effect;
+            this.effectSeconds = effectSeconds;
+            this.flashColor = flashColor;
+        }
+
+        /**
+         * @return 物品在配置中的编号 (从 0 开始)
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return 物品自身的颜色 (CSS 颜色格式)；显示时应使用 {@link #getAppearance()} 的颜色
+         */
+        public String getColor() {
+            return color;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        public Effect getEffect() {
+            return effect;
+        }
+
+        public double getEffectSeconds() {
+            return effectSeconds;
+        }
+
+        /**
+         * @return 打中时闪烁的颜色，未配置时为 null
+         */
+        public String getFlashColor() {
+            return flashColor;
+        }
+
+        /**
+         * @return 玩家看到的物品 (诱饵返回它模仿的物品，其他返回自己)
+         */
+        public Item getAppearance() {
+            return appearance;
+        }
+
+        @Override
+        public String toString() {
+            return id;
+        }
+    }
+
+    /**
+     * 一个关卡的物品表 (载入时编译好别名表)
+     */
+    public static final class Level {
+        private final String id;
+        private final String name;
+        private final int catalogSize;
+        private final Item[] items;
+        private final double[] weights;
+        private final AliasTable table;
+
+        Level(String id, String name, int catalogSize, Item[] items, double[] weights) {
+            this.id = id;
+            this.name = name;
+            this.catalogSize = catalogSize;
+            this.items = items;
+            this.weights = weights;
+            this.table = new AliasTable(weights);
+        }
+
+        /**
+         * @return 按权重随机抽取的物品，O(1)
+         */
+        public Item sample(RandomGenerator random) {
+            return items[table.sample(random)];
+        }
+
+        /**
+         * 生成一个把某种物品的出现概率改为 probability 的关卡 (其他物品按原来的比例分配剩下的概率)，用于调参
+         */
+        public Level withProbability(String itemId, double probability) {
+            if (!(probability >= 0 && probability <= 1)) {
+                throw new IllegalArgumentException("概率不正确: " + probability);
+            }
+            int target = -1;
+            double others = 0;
+            for (int i = 0; i < items.length; i++) {
+                if (items[i].id.equals(itemId)) {
+                    target = i;
+                } else {
+                    others += weights[i];
+                }
+            }
+            if (target < 0) {
+                throw new IllegalArgumentException("关卡 " + id + " 中没有物品: " + itemId);
+            }
+            double[] adjusted = new double[weights.length];
+            for (int i = 0; i < weights.length; i++) {
+                adjusted[i] = i == target ? probability : (others > 0 ? weights[i] / others * (1 - probability) : 0);
+            }
+            return new Level(id, name, catalogSize, items, adjusted);
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return 配置中物品的总数 (物品编号的上界，录像编码使用)
+         */
+        public int getCatalogSize() {
+            return catalogSize;
+        }
+
+        /**
+         * @return 物品表中的物品
+         */
+        public List<Item> getItems() {
+            return Collections.unmodifiableList(Arrays.asList(items));
+        }
+
+        /**
+         * @return 物品表中第 i 项的出现概率
+         */
+        public double getProbability(int i) {
+            return table.getProbability(i);
+        }
+
+        /**
+         * @return 某种物品的出现概率，不在物品表中时为 0
+         */
+        public double getProbability(String itemId) {
+            double result = 0;
+            for (int i = 0; i < items.length; i++) {
+                if (items[i].id.equals(itemId)) {
+                    result += table.getProbability(i);
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private static volatile WhackAMoleItems defaultItems;
+
+    private final List<Item> items;
+    private final Map<String, Item> itemsById;
+    private final List<Level> levels;
+    private final Map<String, Level> levelsById;
+
+    private WhackAMoleItems(List<Item> items, List<Level> levels) {
+        this.items = Collections.unmodifiableList(items);
+        this.itemsById = new LinkedHashMap<>();
+        for (Item item : items) {
+            itemsById.put(item.id, item);
+        }
+        this.levels = Collections.unmodifiableList(levels);
+        this.levelsById = new LinkedHashMap<>();
+        for (Level level : levels) {
+            levelsById.put(level.id, level);
+        }
+    }
+
+    /**
+     * @return 类路径上默认配置的物品和关卡 (第一次使用时载入)
+     * @throws UncheckedIOException 配置文件缺失或无法读取
+     */
+    public static WhackAMoleItems getDefault() {
+        WhackAMoleItems result = defaultItems;
+        if (result == null) {
+            synchronized (WhackAMoleItems.class) {
+                result = defaultItems;
+                if (result == null) {
+                    try (InputStream in = WhackAMoleItems.class.getResourceAsStream(DEFAULT_RESOURCE)) {
+                        if (in == null) {
+                            throw new IOException("找不到配置文件 " + DEFAULT_RESOURCE);
+                        }
+                        result = load(new InputStreamReader(in, StandardCharsets.UTF_8));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("无法载入打地鼠物品配置", e);
+                    }
+                    defaultItems = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 从 properties 格式的配置载入物品和关卡
+     * @throws IllegalArgumentException 配置不正确
+     */
+    public static WhackAMoleItems load(Reader reader) throws IOException {
+        Properties properties = new Properties();
+        properties.load(reader);
+
+        List<Item> items = new ArrayList<>();
+        Map<String, Item> byId = new LinkedHashMap<>();
+        for (String id : list(properties, "items")) {
+            String prefix = "item." + id + ".";
+            Item item = new Item(items.size(), id,
+                    properties.getProperty(prefix + "name", id),
+                    required(properties, prefix + "color"),
+                    Integer.parseInt(required(properties, prefix + "score")),
+                    Effect.valueOf(properties.getProperty(prefix + "effect", "NONE").trim().toUpperCase()),
+                    Double.parseDouble(properties.getProperty(prefix + "effectSeconds", "0")),
+                    properties.getProperty(prefix + "flashColor"));
+            if (byId.put(id, item) != null) {
+                throw new IllegalArgumentException("物品重复: " + id);
+            }
+            items.add(item);
+        }
+        for (Item item : items) {
+            String looksLike = properties.getProperty("item." + item.id + ".looksLike");
+            if (looksLike != null) {
+                Item appearance = byId.get(looksLike.trim());
+                if (appearance == null) {
+                    throw new IllegalArgumentException("物品 " + item.id + " 模仿的物品不存在: " + looksLike);
+                }
+                item.appearance = appearance;
+            }
+        }
+        for (Item item : items) {
+            for (int i = 0; item.appearance.appearance != item.appearance; i++) { // 诱饵模仿诱饵时取最终的外观
+                if (i == items.size()) {
+                    throw new IllegalArgumentException("物品的 looksLike 形成循环: " + item.id);
+                }
+                item.appearance = item.appearance.appearance;
+            }
+        }
+
+        List<Level> levels = new ArrayList<>();
+        for (String id : list(properties, "levels")) {
+            String prefix = "level." + id + ".";
+            List<String> entries = list(properties, prefix + "items");
+            Item[] levelItems = new Item[entries.size()];
+            double[] weights = new double[entries.size()];
+            for (int i = 0; i < entries.size(); i++) {
+                String[] parts = entries.get(i).split(":");
+                levelItems[i] = byId.get(parts[0].trim());
+                if (levelItems[i] == null || parts.length != 2) {
+                    throw new IllegalArgumentException("关卡 " + id + " 的物品表不正确: " + entries.get(i));
+                }
+                weights[i] = Double.parseDouble(parts[1].trim());
+            }
+            levels.add(new Level(id, properties.getProperty(prefix + "name", id), items.size(), levelItems, weights));
+        }
+        if (levels.isEmpty()) {
+            throw new IllegalArgumentException("配置中没有关卡");
+        }
+        return new WhackAMoleItems(items, levels);
+    }
+
+    private static String required(Properties properties, String key) {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException("缺少配置项: " + key);
+        }
+        return value.trim();
+    }
+
+    private static List<String> list(Properties properties, String key) {
+        List<String> result = new ArrayList<>();
+        for (String part : required(properties, key).split(",")) {
+            if (!part.isBlank()) {
+                result.add(part.trim());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return 所有物品，按编号排列
+     */
+    public List<Item> getItems() {
+        return items;
+    }
+
+    /**
+     * @return 物品，不存在时为 null
+     */
+    public Item getItem(String id) {
+        return itemsById.get(id);
+    }
+
+    public List<Level> getLevels() {
+        return levels;
+    }
+
+    /**
+     * @return 关卡，不存在时为 null
+     */
+    public Level getLevel(String id) {
+        return levelsById.get(id);
+    }
+
+    /**
+     * @return 默认关卡 (配置中的第一个)
+     */
+    public Level getDefaultLevel() {
+        return levels.get(0);
+    }
+}
@@ -0,0 +1,167 @@
+package com.chqiuu.gamer.easygame;
+
+import com.chqiuu.gamer.easygame.WhackAMoleItems.Effect;
+import com.chqiuu.gamer.easygame.WhackAMoleItems.Item;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 把一局打地鼠录成 {@link WhackAMoleRecording}: 作为模拟的监听器记下每个物品的出现和每次敲中，
+ * 同时把所有通知原样转交给界面
+ * <p>
+ * 没敲中的点击不改变模拟的状态 (也不消耗随机数)，不需要记录。事件直接编码进一个复用的字节数组，
+ * 录制中不分配对象；一局结束时 ({@link #gameOver(int)}) 生成录像，可通过 {@link #getLastRecording()} 取得。
+ * 只能在驱动模拟的线程上使用。
+ */
+public class WhackAMoleRecorder implements WhackAMoleSimulation.Listener {
+
+    private final WhackAMoleSimulation simulation;
+    private final WhackAMoleSimulation.Listener view;
+    private byte[] events = new byte[1024];
+    private int length;
+    private int eventCount;
+    private boolean recording;
+    private int gridSize;
+    private String levelId;
+    private int kindCount;
+    private WhackAMoleSimulation.Rules rules; // 录制开始时的规则 (副本)
+    private long seed;
+    private long startNanos;
+    private long lastTick;
+    private WhackAMoleRecording lastRecording;
+
+    /**
+     * @param view 转交通知的监听器 (界面)，可以为 null
+     */
+    public WhackAMoleRecorder(WhackAMoleSimulation simulation, WhackAMoleSimulation.Listener view) {
+        this.simulation = simulation;
+        this.view = view != null ? view : new WhackAMoleSimulation.Listener() {
+        };
+    }
+
+    /**
+     * 开始录制，在 {@link WhackAMoleSimulation#start(long)} 之前调用 (同一个种子，关卡取自模拟的规则)
+     */
+    public void begin(int gridSize, long seed) {
+        WhackAMoleItems.Level level = simulation.getRules().getLevel();
+        this.rules = simulation.getRules().copy();
+        this.gridSize = gridSize;
+        this.levelId = level.getId();
+        this.kindCount = level.getCatalogSize() + 1;
+        this.seed = seed;
+        this.startNanos = simulation.getTimeNanos();
+        this.lastTick = 0;
+        this.length = 0;
+        this.eventCount = 0;
+        this.recording = true;
+    }
+
+    public boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * @return 最近一局的录像，还没有录完过时为 null
+     */
+    public WhackAMoleRecording getLastRecording() {
+        return lastRecording;
+    }
+
+    @Override
+    public void itemShown(int hole, Item item) {
+        if (recording) {
+            writeEvent(item.getIndex() + 1, hole);
+        }
+        view.itemShown(hole, item);
+    }
+
+    @Override
+    public void itemHidden(int hole) {
+        view.itemHidden(hole);
+    }
+
+    @Override
+    public void whacked(int hole, Item item, int scoreDelta) {
+        if (recording) {
+            writeEvent(WhackAMoleRecording.KIND_WHACK, hole);
+        }
+        view.whacked(hole, item, scoreDelta);
+    }
+
+    @Override
+    public void effectChanged(Effect effect, boolean active) {
+        view.effectChanged(effect, active);
+    }
+
+    @Override
+    public void timeChanged(int secondsLeft) {
+        view.timeChanged(secondsLeft);
+    }
+
+    @Override
+    public void gameOver(int score) {
+        if (recording) {
+            recording = false;
+            lastRecording = WhackAMoleRecording.parse(finish(score));
+        }
+        view.gameOver(score);
+    }
+
+    private void writeEvent(int kind, int hole) {
+        long tick = (simulation.getTimeNanos() - startNanos) / WhackAMoleRecording.TICK_NANOS;
+        ensureCapacity(20);
+        writeVarint((tick - lastTick) * kindCount + kind);
+        writeVarint(hole);
+        lastTick = tick;
+        eventCount++;
+    }
+
+    /**
+     * @return 头部 + 事件的完整录像
+     */
+    private byte[] finish(int score) {
+        int eventsLength = length;
+        long endTick = (simulation.getTimeNanos() - startNanos) / WhackAMoleRecording.TICK_NANOS;
+        byte[] level = levelId.getBytes(StandardCharsets.UTF_8);
+        ensureCapacity(96 + level.length);
+        // 头部写在事件之后的空间里，再拼到最前面
+        length = eventsLength;
+        events[length++] = WhackAMoleRecording.FORMAT_VERSION;
+        writeVarint(gridSize);
+        writeVarint(level.length);
+        System.arraycopy(level, 0, events, length, level.length);
+        length += level.length;
+        writeVarint(rules.getDurationSeconds());
+        writeLong(Double.doubleToLongBits(rules.getMinUpSeconds()));
+        writeLong(Double.doubleToLongBits(rules.getMaxUpSeconds()));
+        writeLong(Double.doubleToLongBits(rules.getBaseIntervalSeconds()));
+        writeLong(seed);
+        writeVarint(WhackAMoleRecording.zigZag(score));
+        writeVarint(endTick);
+        writeVarint(kindCount);
+        writeVarint(eventCount);
+        int headerLength = length - eventsLength;
+        byte[] data = new byte[headerLength + eventsLength];
+        System.arraycopy(events, eventsLength, data, 0, headerLength);
+        System.arraycopy(events, 0, data, headerLength, eventsLength);
+        length = 0;
+        return data;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > events.length) {
+            events = Arrays.copyOf(events, Math.max(events.length * 2, length + extra));
+        }
+    }
+
+    private void writeLong(long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            events[length++] = (byte) (value >>> shift);
+        }
+    }
+
+    private void writeVarint(long value) {
+        length = WhackAMoleRecording.putVarint(events, length, value);
+    }
+}
@@ -0,0 +1,400 @@
+package com.chqiuu.gamer.easygame;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一局打地鼠的录像 (紧凑的二进制格式)
+ * <p>
+ * {@link WhackAMoleSimulation} 是确定性的，只要有种子和每次敲击的时刻就能重现整局，
+ * 录像另外记下每个物品的出现，回放时逐个核对，用于发现篡改或规则版本不一致。格式:
+ * <pre>
+ * 版本 (1 字节) | 网格大小 varint | 关卡 id (varint 长度 + UTF-8)
+ *   | 时长秒数 varint | 最短出现秒数 | 最长出现秒数 | 基础间隔秒数 (各 8 字节 double) | 种子 (8 字节)
+ *   | 得分 zigzag varint | 结束时间 varint | 事件类型数 K varint | 事件数 varint | 事件...
+ * 事件: varint(距上一事件的毫秒数 * K + 类型) | 洞的编号 varint
+ * 类型: 0 敲中, i + 1 编号为 i 的物品出现 (K = 配置中的物品数 + 1)
+ * </pre>
+ * 录像记下录制时的计时规则，回放时先与校验方的规则比较 (见 {@link #rulesMismatch})，
+ * 规则不同的录像不会被误判为篡改。时间都是相对本局开始的毫秒数 (模拟时钟的刻度)。物品只有几种到几十种，类型与时间合在一个 varint 中，一个事件通常只占 2 ~ 3 字节，一局 45 秒的录像约几百字节，
+ * 每个玩家保存几千局也只有几 MB。多局录像可以追加到同一个文件中 (见 {@link #appendTo(Path)})。
+ */
+public final class WhackAMoleRecording {
+
+    /** 指定录像文件的系统属性，默认使用 ~/.easy-game/whack-a-mole/replays.bin */
+    public static final String FILE_PROPERTY = "whackamole.replay.file";
+
+    static final int FORMAT_VERSION = 3; // 版本 3 在头部加上计时规则
+    static final int KIND_WHACK = 0; // 1 ~ K-1 是物品出现，类型 - 1 即物品的编号
+    static final long TICK_NANOS = 1_000_000; // 事件时间的单位: 1 毫秒
+
+    private static final int FILE_MAGIC = 0x4557414D; // "EWAM"
+    private static final int FILE_VERSION = 2; // 版本 2 的记录首尾都有长度
+    private static final int FILE_HEADER_SIZE = 8;
+    private static final int RECORD_OVERHEAD = 8; // 记录首尾各一个 int 长度
+
+    private final byte[] data;
+    private final int gridSize;
+    private final String levelId;
+    private final int durationSeconds;
+    private final double minUpSeconds;
+    private final double maxUpSeconds;
+    private final double baseIntervalSeconds;
+    private final long seed;
+    private final int score;
+    private final long endTicks;
+    private final int kindCount;
+    private final int eventCount;
+    private final int eventsOffset;
+
+    private WhackAMoleRecording(byte[] data, int gridSize, String levelId, int durationSeconds, double minUpSeconds,
+                                double maxUpSeconds, double baseIntervalSeconds, long seed, int score, long endTicks,
+                                int kindCount, int eventCount, int eventsOffset) {
+        this.data = data;
+        this.gridSize = gridSize;
+        this.levelId = levelId;
+        this.durationSeconds = durationSeconds;
+        this.minUpSeconds = minUpSeconds;
+        this.maxUpSeconds = maxUpSeconds;
+        this.baseIntervalSeconds = baseIntervalSeconds;
+        this.seed = seed;
+        this.score = score;
+        this.endTicks = endTicks;
+        this.kindCount = kindCount;
+        this.eventCount = eventCount;
+        this.eventsOffset = eventsOffset;
+    }
+
+    /**
+     * 解析录像的头部 (事件在回放时才逐个解码)
+     * @throws IllegalArgumentException 格式不正确
+     */
+    public static WhackAMoleRecording parse(byte[] data) {
+        Cursor cursor = new Cursor(data, 0);
+        try {
+            int version = data[cursor.position++];
+            if (version != FORMAT_VERSION) {
+                throw new IllegalArgumentException("不支持的录像版本: " + version);
+            }
+            long gridSize = cursor.readVarint();
+            String levelId = cursor.readString();
+            long durationSeconds = cursor.readVarint();
+            double minUpSeconds = Double.longBitsToDouble(cursor.readLong());
+            double maxUpSeconds = Double.longBitsToDouble(cursor.readLong());
+            double baseIntervalSeconds = Double.longBitsToDouble(cursor.readLong());
+            long seed = cursor.readLong();
+            long score = cursor.readZigZag();
+            long endTicks = cursor.readVarint();
+            long kindCount = cursor.readVarint();
+            long eventCount = cursor.readVarint();
+            if (gridSize < 1 || gridSize > 1000 || kindCount < 2 || kindCount > 1 << 16 || eventCount > data.length
+                    || score != (int) score || durationSeconds > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("录像头部不正确");
+            }
+            return new WhackAMoleRecording(data, (int) gridSize, levelId, (int) durationSeconds, minUpSeconds,
+                    maxUpSeconds, baseIntervalSeconds, seed, (int) score, endTicks, (int) kindCount, (int) eventCount,
+                    cursor.position);
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("录像被截断", e);
+        }
+    }
+
+    /**
+     * @return 录像的原始字节 (不复制，不要修改)
+     */
+    public byte[] getData() {
+        return data;
+    }
+
+    public int getGridSize() {
+        return gridSize;
+    }
+
+    /**
+     * @return 关卡的 id (见 {@link WhackAMoleItems})
+     */
+    public String getLevelId() {
+        return levelId;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * 比较录制时的计时规则与 rules (关卡按 id 另行查找，不在这里比较)
+     * @return 不一致的说明；一致时为 null
+     */
+    public String rulesMismatch(WhackAMoleSimulation.Rules rules) {
+        if (durationSeconds != rules.getDurationSeconds()) {
+            return "规则不一致: 时长 录像 " + durationSeconds + " 秒, 校验方 " + rules.getDurationSeconds() + " 秒";
+        }
+        if (Double.compare(minUpSeconds, rules.getMinUpSeconds()) != 0
+                || Double.compare(maxUpSeconds, rules.getMaxUpSeconds()) != 0) {
+            return "规则不一致: 出现时间 录像 " + minUpSeconds + " ~ " + maxUpSeconds + " 秒, 校验方 "
+                    + rules.getMinUpSeconds() + " ~ " + rules.getMaxUpSeconds() + " 秒";
+        }
+        if (Double.compare(baseIntervalSeconds, rules.getBaseIntervalSeconds()) != 0) {
+            return "规则不一致: 基础间隔 录像 " + baseIntervalSeconds + " 秒, 校验方 " + rules.getBaseIntervalSeconds() + " 秒";
+        }
+        return null;
+    }
+
+    /**
+     * @return 录像中记录的最终得分 (回放时与重新计算的得分比较)
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * @return 本局结束的时刻 (相对开始的毫秒数)
+     */
+    public long getEndTicks() {
+        return endTicks;
+    }
+
+    /**
+     * @return 事件类型数 K (配置中的物品数 + 1)
+     */
+    public int getKindCount() {
+        return kindCount;
+    }
+
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    Cursor events() {
+        return new Cursor(data, eventsOffset);
+    }
+
+    /**
+     * 把 value 按无符号 varint (每字节 7 位，低位在前) 写入 out
+     * @return 写完之后的位置 (out 从 position 起至少要有 10 字节)
+     */
+    static int putVarint(byte[] out, int position, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[position++] = (byte) value;
+        return position;
+    }
+
+    /**
+     * @return zigzag 编码: 绝对值小的负数也编码成小的无符号数 (0, -1, 1, -2... 对应 0, 1, 2, 3...)
+     */
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * 顺序读取 varint 等编码的游标
+     */
+    static final class Cursor {
+        final byte[] data;
+        int position;
+
+        Cursor(byte[] data, int position) {
+            this.data = data;
+            this.position = position;
+        }
+
+        /**
+         * @throws ArrayIndexOutOfBoundsException 数据被截断
+         * @throws IllegalArgumentException varint 超过 64 位
+         */
+        long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = data[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("varint 过长");
+        }
+
+        long readZigZag() {
+            long value = readVarint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        String readString() {
+            long length = readVarint();
+            if (length > data.length - position) {
+                throw new ArrayIndexOutOfBoundsException("字符串超出数据范围");
+            }
+            String value = new String(data, position, (int) length, StandardCharsets.UTF_8);
+            position += (int) length;
+            return value;
+        }
+
+        long readLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (data[position++] & 0xFF);
+            }
+            return value;
+        }
+    }
+
+    // --- 录像文件: 8 字节文件头 ("EWAM" + 版本)，之后每局一条 "长度 int + 录像 + 长度 int" ---
+    // 记录末尾重复的长度使追加时只需检查文件的最后几个字节，就能确认最后一条记录是完整的
+
+    /**
+     * @return 录像文件的默认位置 (可通过系统属性 whackamole.replay.file 覆盖)
+     */
+    public static Path defaultPath() {
+        String configured = System.getProperty(FILE_PROPERTY);
+        if (configured != null && !configured.isEmpty()) {
+            return Paths.get(configured);
+        }
+        return Paths.get(System.getProperty("user.home"), ".easy-game", "whack-a-mole", "replays.bin");
+    }
+
+    /**
+     * 把这局录像追加到文件末尾
+     * <p>
+     * 通常只读取文件头和最后一条记录的首尾长度，与文件大小无关；只有末尾不完整时 (写到一半中断) 才从头扫描，
+     * 截掉不完整的记录。旧版本的录像文件改名为 "原文件名.v1" 保留 (其中的录像不含计时规则，无法校验)，然后新建文件。
+     */
+    public void appendTo(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        if (readFileVersion(file) == 1) {
+            Files.move(file, file.resolveSibling(file.getFileName() + ".v1"), StandardCopyOption.REPLACE_EXISTING);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.READ)) {
+            long end;
+            if (channel.size() < FILE_HEADER_SIZE) {
+                ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE).putInt(FILE_MAGIC).putInt(FILE_VERSION);
+                header.flip();
+                channel.truncate(0);
+                channel.write(header, 0);
+                end = FILE_HEADER_SIZE;
+            } else {
+                end = completeEnd(channel, file);
+                if (end != channel.size()) {
+                    channel.truncate(end);
+                }
+            }
+            ByteBuffer record = ByteBuffer.allocate(RECORD_OVERHEAD + data.length);
+            record.putInt(data.length).put(data).putInt(data.length).flip();
+            while (record.hasRemaining()) {
+                end += channel.write(record, end);
+            }
+        }
+    }
+
+    /**
+     * @return 文件版本；文件不存在或比文件头短时返回 0
+     * @throws IOException 不是打地鼠录像文件
+     */
+    private static int readFileVersion(Path file) throws IOException {
+        if (!Files.exists(file) || Files.size(file) < FILE_HEADER_SIZE) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = readFully(channel, 0, FILE_HEADER_SIZE);
+            if (header.getInt(0) != FILE_MAGIC) {
+                throw new IOException("不是打地鼠录像文件: " + file);
+            }
+            return header.getInt(4);
+        }
+    }
+
+    /**
+     * @return 最后一条完整记录的结束位置: 末尾完整时就是文件大小 (只读取首尾的长度)，否则从头扫描
+     */
+    private static long completeEnd(FileChannel channel, Path file) throws IOException {
+        long size = channel.size();
+        int version = readFully(channel, 0, FILE_HEADER_SIZE).getInt(4);
+        if (version != FILE_VERSION) {
+            throw new IOException("不支持的录像文件版本 " + version + ": " + file);
+        }
+        if (size == FILE_HEADER_SIZE) {
+            return size;
+        }
+        if (size >= FILE_HEADER_SIZE + RECORD_OVERHEAD) {
+            int length = readFully(channel, size - 4, 4).getInt(0);
+            long start = size - RECORD_OVERHEAD - length;
+            if (length >= 0 && start >= FILE_HEADER_SIZE && readFully(channel, start, 4).getInt(0) == length) {
+                return size;
+            }
+        }
+        return scan(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), file, null);
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("文件被截断");
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * 读取文件中的所有录像 (末尾不完整的记录被忽略)
+     * @return 录像列表；文件不存在时为空
+     */
+    public static List<WhackAMoleRecording> readAll(Path file) throws IOException {
+        List<WhackAMoleRecording> result = new ArrayList<>();
+        if (!Files.exists(file)) {
+            return result;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            scan(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), file, result);
+        }
+        return result;
+    }
+
+    /**
+     * 顺序扫描录像文件
+     * @param out 不为 null 时解析每条录像加入其中
+     * @return 最后一条完整记录的结束位置
+     */
+    private static long scan(ByteBuffer content, Path file, List<WhackAMoleRecording> out) throws IOException {
+        if (content.limit() < FILE_HEADER_SIZE || content.getInt(0) != FILE_MAGIC) {
+            throw new IOException("不是打地鼠录像文件: " + file);
+        }
+        if (content.getInt(4) != FILE_VERSION) {
+            throw new IOException("不支持的录像文件版本 " + content.getInt(4) + ": " + file);
+        }
+        int position = FILE_HEADER_SIZE;
+        while (content.limit() - position >= RECORD_OVERHEAD) {
+            int length = content.getInt(position);
+            if (length < 0 || length > content.limit() - position - RECORD_OVERHEAD
+                    || content.getInt(position + 4 + length) != length) {
+                break; // 不完整的记录
+            }
+            if (out != null) {
+                byte[] data = new byte[length];
+                content.get(position + 4, data);
+                try {
+                    out.add(parse(data));
+                } catch (IllegalArgumentException e) {
+                    // 旧版本或损坏的录像，跳过
+                }
+            }
+            position += RECORD_OVERHEAD + length;
+        }
+        return position;
+    }
+}
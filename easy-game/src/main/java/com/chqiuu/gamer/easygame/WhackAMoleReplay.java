@@ -0,0 +1,293 @@
+package com.chqiuu.gamer.easygame;
+
+import com.chqiuu.gamer.easygame.WhackAMoleItems.Effect;
+import com.chqiuu.gamer.easygame.WhackAMoleItems.Item;
+import com.chqiuu.gamer.easygame.WhackAMoleItems.Level;
+
+/**
+ * 打地鼠录像的回放和校验
+ * <p>
+ * 用录像中的种子在自己的 {@link WhackAMoleSimulation} 上重新开始一局，按记录的时刻重放每次敲击，
+ * 并在模拟生成物品时与录像中的出现事件逐个核对。物品、敲击结果、结束时刻或最终得分有任何不一致，
+ * 录像即判为无效 ({@link #getFailure()})，可用于服务端重新计分的反作弊检查。录像的关卡按 id 在物品配置中查找，
+ * 物品的编号与配置中的顺序对应；录像中的计时规则与构造时的规则不同时直接报告规则不一致，不再重放。
+ * <p>
+ * {@link #advanceTo(long)} 按回放的进度推进: 界面按真实时间乘以倍速调用 (实时或快进)，
+ * 校验时直接调用 {@link #validate(WhackAMoleRecording)} 从一个事件跳到下一个事件，不等待。
+ * 实例可以反复用于多局录像 (网格大小相同时复用模拟)，不是线程安全的。校验的性能测试见 {@link WhackAMoleReplayBenchmark}。
+ */
+public class WhackAMoleReplay implements WhackAMoleSimulation.Listener {
+
+    private static final long TICK = WhackAMoleRecording.TICK_NANOS;
+
+    private final WhackAMoleSimulation.Rules rules; // 自己的副本，每局换成录像的关卡
+    private final WhackAMoleItems items;
+    private WhackAMoleSimulation.Listener view;
+    private WhackAMoleSimulation simulation;
+
+    private WhackAMoleRecording recording;
+    private WhackAMoleRecording.Cursor cursor;
+    private long startNanos;
+    private int remaining; // 还没有解码的事件数
+    // 下一个事件 (已解码)
+    private boolean hasEvent;
+    private long eventNanos;
+    private int eventKind;
+    private int eventHole;
+
+    private boolean finished;
+    private boolean completed; // 回放到了录像的结尾 (没有被中止)
+    private String failure;
+
+    public WhackAMoleReplay(WhackAMoleSimulation.Rules rules) {
+        this(rules, WhackAMoleItems.getDefault());
+    }
+
+    /**
+     * @param items 查找录像关卡的物品配置 (必须与录制时相同)
+     */
+    public WhackAMoleReplay(WhackAMoleSimulation.Rules rules, WhackAMoleItems items) {
+        this.rules = rules.copy();
+        this.items = items;
+    }
+
+    /**
+     * @param view 回放时转交模拟通知的监听器 (界面)，null 表示不显示
+     */
+    public void setView(WhackAMoleSimulation.Listener view) {
+        this.view = view;
+    }
+
+    /**
+     * @return 回放使用的模拟 (第一次 {@link #load} 之前为 null)
+     */
+    public WhackAMoleSimulation getSimulation() {
+        return simulation;
+    }
+
+    /**
+     * 载入录像并开始回放
+     */
+    public void load(WhackAMoleRecording recording) {
+        int holes = recording.getGridSize() * recording.getGridSize();
+        if (simulation == null || simulation.getHoleCount() != holes) {
+            simulation = new WhackAMoleSimulation(rules, holes, 0);
+            simulation.setListener(this);
+        }
+        if (simulation.isGameActive()) {
+            simulation.setListener(null);
+            simulation.stop(); // 上一局回放没有结束，直接丢弃
+            simulation.setListener(this);
+        }
+        this.recording = recording;
+        this.cursor = recording.events();
+        this.remaining = recording.getEventCount();
+        this.startNanos = simulation.getTimeNanos();
+        this.eventNanos = startNanos;
+        this.finished = false;
+        this.completed = false;
+        this.failure = null;
+        Level level = items.getLevel(recording.getLevelId());
+        String rulesMismatch = recording.rulesMismatch(rules);
+        if (rulesMismatch != null || level == null || level.getCatalogSize() + 1 != recording.getKindCount()) {
+            failure = rulesMismatch != null ? rulesMismatch
+                    : level == null ? "未知的关卡: " + recording.getLevelId()
+                    : "物品配置不一致: 录像 " + (recording.getKindCount() - 1) + " 种物品, 配置 " + level.getCatalogSize() + " 种";
+            hasEvent = false;
+            finished = true;
+            return;
+        }
+        rules.level(level);
+        readEvent();
+        simulation.start(recording.getSeed());
+    }
+
+    /**
+     * 回放到开始后 elapsedNanos 纳秒 (只能向前)
+     * @return 回放是否还没有结束
+     */
+    public boolean advanceTo(long elapsedNanos) {
+        long limit = elapsedNanos >= Long.MAX_VALUE - startNanos ? Long.MAX_VALUE : startNanos + elapsedNanos;
+        while (!finished) {
+            if (failure != null) {
+                finish();
+                break;
+            }
+            if (!hasEvent) {
+                long endNanos = startNanos + recording.getEndTicks() * TICK;
+                if (endNanos > limit) {
+                    simulation.advanceTo(limit);
+                    break;
+                }
+                simulation.advanceTo(endNanos);
+                if (simulation.isGameActive()) {
+                    simulation.stop(); // 玩家提前结束了这一局
+                }
+                if (failure == null && simulation.getScore() != recording.getScore()) {
+                    failure = "得分不一致: 录像 " + recording.getScore() + ", 重新计算 " + simulation.getScore();
+                }
+                completed = true;
+                finish();
+                break;
+            }
+            if (eventNanos > limit) {
+                simulation.advanceTo(limit);
+                break;
+            }
+            long time = eventNanos;
+            int hole = eventHole;
+            boolean whack = eventKind == WhackAMoleRecording.KIND_WHACK;
+            simulation.advanceTo(time); // 到期的物品在 itemShown 中核对并消耗对应的事件
+            if (failure != null) {
+                continue;
+            }
+            if (!whack) {
+                if (hasEvent && eventNanos == time && eventKind != WhackAMoleRecording.KIND_WHACK) {
+                    failure = "第 " + (recording.getEventCount() - remaining) + " 个事件: 物品没有出现";
+                }
+            } else if (!simulation.isGameActive()) {
+                failure = "游戏在 " + (time - startNanos) / TICK + " 毫秒之前已经结束";
+            } else if (simulation.whack(hole) == null) {
+                failure = "第 " + (recording.getEventCount() - remaining) + " 个事件: 洞 " + hole + " 无法敲中";
+            } else {
+                readEvent();
+            }
+        }
+        return !finished;
+    }
+
+    /**
+     * 从头到尾回放一局录像 (不等待)
+     * @return 录像是否有效
+     */
+    public boolean validate(WhackAMoleRecording recording) {
+        load(recording);
+        advanceTo(Long.MAX_VALUE);
+        return failure == null;
+    }
+
+    /**
+     * 中止回放 (之后 {@link #isCompleted()} 为 false)
+     */
+    public void stop() {
+        if (simulation != null && !finished) {
+            finish();
+        }
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * @return 是否回放到了录像的结尾 (有效与否见 {@link #getFailure()})
+     */
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    /**
+     * @return 录像无效的原因；有效 (或尚未发现问题) 时为 null
+     */
+    public String getFailure() {
+        return failure;
+    }
+
+    /**
+     * @return 回放中重新计算的得分
+     */
+    public int getScore() {
+        return simulation == null ? 0 : simulation.getScore();
+    }
+
+    private void finish() {
+        finished = true;
+        if (simulation.isGameActive()) {
+            simulation.stop();
+        }
+    }
+
+    /**
+     * 解码下一个事件；录像被截断或格式错误时记为无效
+     */
+    private void readEvent() {
+        if (remaining == 0) {
+            hasEvent = false;
+            return;
+        }
+        try {
+            long header = cursor.readVarint();
+            long hole = cursor.readVarint();
+            if (hole >= simulation.getHoleCount()) {
+                throw new IllegalArgumentException("洞的编号超出范围: " + hole);
+            }
+            int kinds = recording.getKindCount();
+            eventNanos += Long.divideUnsigned(header, kinds) * TICK;
+            eventKind = (int) Long.remainderUnsigned(header, kinds);
+            eventHole = (int) hole;
+            hasEvent = true;
+            remaining--;
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+            hasEvent = false;
+            remaining = 0;
+            failure = "录像格式错误: " + e.getMessage();
+        }
+    }
+
+    // --- 模拟的通知: 核对后转交界面 ---
+
+    @Override
+    public void itemShown(int hole, Item item) {
+        if (failure == null) {
+            if (!hasEvent || eventKind != item.getIndex() + 1 || eventHole != hole
+                    || eventNanos != simulation.getTimeNanos()) {
+                failure = "第 " + (recording.getEventCount() - remaining) + " 个事件: 物品不一致 (模拟在 "
+                        + (simulation.getTimeNanos() - startNanos) / TICK + " 毫秒于洞 " + hole + " 生成 " + item + ")";
+            } else {
+                readEvent();
+            }
+        }
+        if (view != null) {
+            view.itemShown(hole, item);
+        }
+    }
+
+    @Override
+    public void itemHidden(int hole) {
+        if (view != null) {
+            view.itemHidden(hole);
+        }
+    }
+
+    @Override
+    public void whacked(int hole, Item item, int scoreDelta) {
+        if (view != null) {
+            view.whacked(hole, item, scoreDelta);
+        }
+    }
+
+    @Override
+    public void effectChanged(Effect effect, boolean active) {
+        if (view != null) {
+            view.effectChanged(effect, active);
+        }
+    }
+
+    @Override
+    public void timeChanged(int secondsLeft) {
+        if (view != null) {
+            view.timeChanged(secondsLeft);
+        }
+    }
+
+    @Override
+    public void gameOver(int score) {
+        if (failure == null && !finished && simulation.getTimeNanos() != startNanos + recording.getEndTicks() * TICK) {
+            failure = "结束时间不一致: 录像 " + recording.getEndTicks() + " 毫秒, 模拟 "
+                    + (simulation.getTimeNanos() - startNanos) / TICK + " 毫秒";
+        }
+        if (view != null) {
+            view.gameOver(score);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.chqiuu.gamer.easygame;
+
+import com.chqiuu.gamer.easygame.WhackAMoleItems.Item;
+import com.chqiuu.gamer.easygame.WhackAMoleItems.Level;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * 录像校验的性能测试: 用简单的机器人录制若干局 (或从 --file 读取录像文件)，
+ * 统计录像的大小，再用 {@link WhackAMoleReplay#validate(WhackAMoleRecording)} 逐局校验并计时
+ * <p>
+ * 用法: WhackAMoleReplayBenchmark [--games 生成的局数] [--grid 网格大小] [--level 关卡] [--seed 种子] [--file 录像文件]
+ */
+public final class WhackAMoleReplayBenchmark {
+
+    private static final long TICK = WhackAMoleRecording.TICK_NANOS;
+
+    private WhackAMoleReplayBenchmark() {
+    }
+
+    /**
+     * 生成录像用的简单机器人: 每隔随机的一段时间敲一个有物品的洞 (偶尔敲到看起来扣分的物品)
+     */
+    private static WhackAMoleRecording record(WhackAMoleSimulation simulation, WhackAMoleRecorder recorder,
+                                              int gridSize, long seed) {
+        SplittableRandom random = new SplittableRandom(~seed);
+        recorder.begin(gridSize, seed);
+        simulation.start(seed);
+        int holes = simulation.getHoleCount();
+        while (simulation.isGameActive()) {
+            simulation.advanceTo(simulation.getTimeNanos() + (150 + random.nextInt(300)) * TICK);
+            int start = random.nextInt(holes);
+            for (int i = 0; i < holes && simulation.isGameActive(); i++) {
+                int hole = (start + i) % holes;
+                Item item = simulation.getItem(hole);
+                if (item != null && (item.getAppearance().getScore() >= 0 || random.nextInt(10) == 0)) {
+                    simulation.whack(hole);
+                    break;
+                }
+            }
+        }
+        return recorder.getLastRecording();
+    }
+
+    public static void main(String[] args) throws IOException {
+        CommandLine options = CommandLine.parse(args,
+                "WhackAMoleReplayBenchmark [--games N] [--grid N] [--level 关卡] [--seed N] [--file 录像文件]",
+                "games", "grid", "level", "seed", "file");
+        if (options == null) {
+            return;
+        }
+        int games = options.getInt("games", 20_000);
+        int gridSize = options.getInt("grid", 3);
+        long seed = options.getLong("seed", 1);
+        String level = options.get("level", null);
+        Path file = options.getPath("file", null);
+
+        WhackAMoleSimulation.Rules rules = new WhackAMoleSimulation.Rules();
+        if (level != null) {
+            Level selected = WhackAMoleItems.getDefault().getLevel(level);
+            if (selected == null) {
+                System.out.println("未知的关卡: " + level);
+                return;
+            }
+            rules.level(selected);
+        }
+        List<WhackAMoleRecording> recordings;
+        if (file != null) {
+            recordings = WhackAMoleRecording.readAll(file);
+            System.out.printf("从 %s 读取 %,d 局录像%n", file, recordings.size());
+        } else {
+            WhackAMoleSimulation simulation = new WhackAMoleSimulation(rules, gridSize * gridSize, 0);
+            WhackAMoleRecorder recorder = new WhackAMoleRecorder(simulation, null);
+            simulation.setListener(recorder);
+            recordings = new ArrayList<>(games);
+            long start = System.nanoTime();
+            for (int g = 0; g < games; g++) {
+                recordings.add(record(simulation, recorder, gridSize, WhackAMoleTuner.gameSeed(seed, g)));
+            }
+            System.out.printf("录制 %,d 局 (网格 %dx%d), 耗时 %.2f 秒%n", games, gridSize, gridSize,
+                    (System.nanoTime() - start) / 1e9);
+        }
+        if (recordings.isEmpty()) {
+            return;
+        }
+
+        long bytes = 0;
+        long events = 0;
+        for (WhackAMoleRecording recording : recordings) {
+            bytes += recording.getData().length;
+            events += recording.getEventCount();
+        }
+        System.out.printf("平均每局 %.1f 个事件, %.1f 字节 (%.2f 字节/事件)%n", (double) events / recordings.size(),
+                (double) bytes / recordings.size(), (double) bytes / events);
+
+        WhackAMoleReplay replay = new WhackAMoleReplay(rules);
+        for (int round = 0; round < 3; round++) { // 前两轮预热 JIT
+            int invalid = 0;
+            String firstFailure = null;
+            long start = System.nanoTime();
+            for (WhackAMoleRecording recording : recordings) {
+                if (!replay.validate(recording)) {
+                    invalid++;
+                    if (firstFailure == null) {
+                        firstFailure = replay.getFailure();
+                    }
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("第 %d 轮校验: %,d 局, 无效 %d, 耗时 %.3f 秒, 每秒 %,.0f 局, %,.0f 个事件%n",
+                    round + 1, recordings.size(), invalid, seconds, recordings.size() / seconds, events / seconds);
+            if (firstFailure != null) {
+                System.out.println("  第一个无效录像: " + firstFailure);
+            }
+        }
+    }
+}
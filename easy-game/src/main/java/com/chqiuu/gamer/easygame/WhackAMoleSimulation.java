@@ -0,0 +1,401 @@
+package com.chqiuu.gamer.easygame;
+
+import com.chqiuu.gamer.easygame.WhackAMoleItems.Effect;
+import com.chqiuu.gamer.easygame.WhackAMoleItems.Item;
+import com.chqiuu.gamer.easygame.WhackAMoleItems.Level;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * 打地鼠的规则核心，WhackAMoleFX 与批量模拟共用
+ * <p>
+ * 所有定时事件 (物品自动缩回、物品生成、倒计时、物品效果的结束) 都调度在自己的 {@link TimerWheel} 上，
+ * 时间只由调用方通过 {@link #advanceTo(long)} 推进: 界面用真实时间驱动，模拟器可以直接跳到下一个事件，
+ * 一局 45 秒的游戏只需几微秒。随机数来自构造时给定的种子，同样的种子和同样时刻的敲击总是得到同样的结果。
+ * 出现的物品按关卡的物品表 ({@link WhackAMoleItems.Level}) 抽取，得分和效果由物品定义决定。
+ * 状态变化通过 {@link Listener} 通知界面。实例不是线程安全的。
+ */
+public class WhackAMoleSimulation {
+
+    private static final long TICK_NANOS = 1_000_000; // 时间轮 1 毫秒一个刻度
+    private static final int WHEEL_SIZE = 2048;
+    private static final long MAX_STEP_NANOS = (WHEEL_SIZE - 1) * TICK_NANOS; // 一次推进不超过一圈
+    private static final long SECOND = 1_000_000_000L;
+    private static final int BASE_HOLES = 9; // 3x3 网格每次生成 1 个物品，大网格按洞的数量等比例增加
+
+    /**
+     * 可调的规则参数 (默认值即原来 WhackAMoleFX 中的常量，物品和得分见关卡配置)
+     */
+    public static final class Rules {
+        private int durationSeconds = 45; // 游戏总时长（秒）
+        private double minUpSeconds = 0.45; // 物品出现最短时间
+        private double maxUpSeconds = 1.1; // 物品出现最长时间
+        private double baseIntervalSeconds = 0.5; // 基础出现间隔 (每局在 0.7 ~ 1.3 倍之间随机)
+        private Level level; // 物品表，null 表示默认配置的默认关卡
+
+        public Rules durationSeconds(int value) {
+            durationSeconds = value;
+            return this;
+        }
+
+        public Rules upSeconds(double min, double max) {
+            if (min <= 0 || max < min) {
+                throw new IllegalArgumentException("物品出现时间不正确: " + min + " ~ " + max);
+            }
+            minUpSeconds = min;
+            maxUpSeconds = max;
+            return this;
+        }
+
+        public Rules baseIntervalSeconds(double value) {
+            baseIntervalSeconds = value;
+            return this;
+        }
+
+        /**
+         * 设置关卡 (下一局开始时生效)
+         */
+        public Rules level(Level value) {
+            level = value;
+            return this;
+        }
+
+        /**
+         * @return 复制一份规则 (例如回放时换成录像的关卡，不影响原来的规则)
+         */
+        public Rules copy() {
+            return new Rules().durationSeconds(durationSeconds).upSeconds(minUpSeconds, maxUpSeconds)
+                    .baseIntervalSeconds(baseIntervalSeconds).level(level);
+        }
+
+        public int getDurationSeconds() {
+            return durationSeconds;
+        }
+
+        public double getMinUpSeconds() {
+            return minUpSeconds;
+        }
+
+        public double getMaxUpSeconds() {
+            return maxUpSeconds;
+        }
+
+        public double getBaseIntervalSeconds() {
+            return baseIntervalSeconds;
+        }
+
+        public Level getLevel() {
+            if (level == null) {
+                level = WhackAMoleItems.getDefault().getDefaultLevel();
+            }
+            return level;
+        }
+    }
+
+    /**
+     * 状态变化的通知，所有方法都在 {@link #advanceTo(long)}、{@link #whack(int)} 等调用中同步执行
+     */
+    public interface Listener {
+        default void itemShown(int hole, Item item) {
+        }
+
+        /**
+         * 物品缩回 (超时、被打中或游戏结束)
+         */
+        default void itemHidden(int hole) {
+        }
+
+        /**
+         * 打中了物品 (在 itemHidden 和物品的效果之前通知)
+         * @param scoreDelta 得分变化 (已计入双倍得分等效果)
+         */
+        default void whacked(int hole, Item item, int scoreDelta) {
+        }
+
+        /**
+         * 物品效果开始 (true) 或结束 (false)，例如炸弹的 LOCK 期间不接受点击
+         */
+        default void effectChanged(Effect effect, boolean active) {
+        }
+
+        default void timeChanged(int secondsLeft) {
+        }
+
+        default void gameOver(int score) {
+        }
+    }
+
+    private static final Listener NO_LISTENER = new Listener() {
+    };
+
+    private final Rules rules;
+    private final int holeCount;
+    private final int spawnsPerTick;
+    private final TimerWheel wheel;
+    private final FreeSlotSet freeHoles;
+    private final Item[] items; // 每个洞中的物品，null 表示没有
+    private final long[] hideTimers; // 每个洞的自动缩回任务
+    private final Runnable[] hideCallbacks; // 每个洞一个，构造时创建
+    private final Runnable countdownTick = this::onCountdownTick;
+    private final Runnable spawnTick = this::spawn;
+    // 每种效果一个结束任务 (下标为 Effect 的序号)
+    private final boolean[] effectActive = new boolean[Effect.values().length];
+    private final long[] effectTimers = new long[Effect.values().length];
+    private final Runnable[] effectEnds = new Runnable[Effect.values().length];
+    private Listener listener = NO_LISTENER;
+    private RandomGenerator random = new SplittableRandom(0);
+    private Level level; // 本局的物品表，开始时从规则中取得
+
+    private int score;
+    private int timeLeft;
+    private boolean gameActive;
+    private long countdownTimer;
+    private long spawnTimer;
+
+    // --- 本局统计 ---
+    private int spawned;
+    private int[] hits = new int[0]; // 按物品编号
+
+    /**
+     * @param holeCount 洞的数量 (网格大小的平方)
+     * @param startNanos 时钟的起点，之后 {@link #advanceTo(long)} 的时间不能比它早
+     */
+    public WhackAMoleSimulation(Rules rules, int holeCount, long startNanos) {
+        this.rules = rules;
+        this.holeCount = holeCount;
+        this.spawnsPerTick = Math.max(1, Math.round(holeCount / (float) BASE_HOLES));
+        this.wheel = new TimerWheel(TICK_NANOS, WHEEL_SIZE, startNanos);
+        this.freeHoles = new FreeSlotSet(holeCount);
+        this.items = new Item[holeCount];
+        this.hideTimers = new long[holeCount];
+        this.hideCallbacks = new Runnable[holeCount];
+        for (int i = 0; i < holeCount; i++) {
+            int hole = i;
+            hideCallbacks[i] = () -> hide(hole);
+        }
+        for (Effect effect : Effect.values()) {
+            effectEnds[effect.ordinal()] = () -> endEffect(effect);
+        }
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener == null ? NO_LISTENER : listener;
+    }
+
+    /**
+     * 用给定的种子开始新的一局 (当前时间为上一次 advanceTo 的时间)
+     */
+    public void start(long seed) {
+        start(new SplittableRandom(seed));
+    }
+
+    /**
+     * 用给定的随机数生成器开始新的一局
+     */
+    public void start(RandomGenerator random) {
+        if (gameActive) {
+            stop();
+        }
+        this.random = random;
+        this.level = rules.getLevel();
+        freeHoles.reset(); // 空闲洞的排列顺序会影响随机选洞，每局从相同的顺序开始才能用种子重现
+        gameActive = true;
+        score = 0;
+        spawned = 0;
+        if (hits.length < level.getCatalogSize()) {
+            hits = new int[level.getCatalogSize()];
+        }
+        Arrays.fill(hits, 0);
+        timeLeft = rules.durationSeconds;
+        listener.timeChanged(timeLeft);
+
+        long now = wheel.getTimeNanos();
+        countdownTimer = wheel.scheduleRepeating(now, SECOND, countdownTick);
+        long interval = Math.round(SECOND * rules.baseIntervalSeconds * (0.7 + random.nextDouble() * 0.6)); // 加入随机间隔
+        spawnTimer = wheel.scheduleRepeating(now, interval, spawnTick);
+    }
+
+    /**
+     * 结束本局: 取消所有定时任务，缩回所有物品
+     */
+    public void stop() {
+        if (!gameActive) {
+            return;
+        }
+        gameActive = false;
+        wheel.cancel(countdownTimer);
+        wheel.cancel(spawnTimer);
+        for (Effect effect : Effect.values()) {
+            if (wheel.cancel(effectTimers[effect.ordinal()])) {
+                endEffect(effect);
+            }
+        }
+        for (int hole = freeHoles.nextUsed(0); hole >= 0; hole = freeHoles.nextUsed(hole + 1)) {
+            hide(hole);
+        }
+        listener.gameOver(score);
+    }
+
+    /**
+     * 推进时钟，执行所有到期的事件
+     * <p>
+     * 时间轮一次推进超过一圈时不保证执行顺序 (重复任务也只执行一次)，所以长的跨度按不到一圈分段推进，
+     * 任意跨度的结果都与逐毫秒推进相同，回放和批量模拟可以直接跳到下一个事件。
+     */
+    public void advanceTo(long nanos) {
+        long now = wheel.getTimeNanos();
+        while (nanos - now > MAX_STEP_NANOS) {
+            now += MAX_STEP_NANOS;
+            wheel.advanceTo(now);
+        }
+        wheel.advanceTo(nanos);
+    }
+
+    /**
+     * @return 当前时间 (纳秒，对齐到毫秒)
+     */
+    public long getTimeNanos() {
+        return wheel.getTimeNanos();
+    }
+
+    /**
+     * 在当前时间敲击一个洞 (先用 {@link #advanceTo(long)} 推进到敲击的时刻)
+     * @return 打中的物品；游戏未开始、禁止点击 (LOCK) 中或洞是空的时返回 null
+     */
+    public Item whack(int hole) {
+        Item item = items[hole];
+        if (!gameActive || effectActive[Effect.LOCK.ordinal()] || item == null) {
+            return null;
+        }
+        int delta = item.getScore();
+        if (delta > 0 && effectActive[Effect.DOUBLE_SCORE.ordinal()]) {
+            delta *= 2;
+        }
+        score += delta;
+        hits[item.getIndex()]++;
+        listener.whacked(hole, item, delta);
+        hide(hole);
+        if (item.getEffect() != Effect.NONE) {
+            startEffect(item.getEffect(), item.getEffectSeconds());
+        }
+        return item;
+    }
+
+    /**
+     * 开始 (或重新计时) 一种效果
+     */
+    private void startEffect(Effect effect, double seconds) {
+        int index = effect.ordinal();
+        wheel.cancel(effectTimers[index]);
+        effectTimers[index] = wheel.scheduleAt(wheel.getTimeNanos() + Math.round(SECOND * seconds), effectEnds[index]);
+        if (!effectActive[index]) {
+            effectActive[index] = true;
+            listener.effectChanged(effect, true);
+        }
+    }
+
+    private void endEffect(Effect effect) {
+        effectActive[effect.ordinal()] = false;
+        listener.effectChanged(effect, false);
+    }
+
+    private void onCountdownTick() {
+        if (effectActive[Effect.FREEZE.ordinal()]) {
+            return; // 冰冻: 倒计时暂停
+        }
+        timeLeft--;
+        listener.timeChanged(timeLeft);
+        if (timeLeft <= 0) {
+            stop();
+        }
+    }
+
+    /**
+     * 在随机的空洞中弹出按物品表抽取的物品 (大网格每次弹出多个)
+     */
+    private void spawn() {
+        for (int i = 0; i < spawnsPerTick; i++) {
+            int hole = freeHoles.acquireRandom(random);
+            if (hole < 0) {
+                return; // 所有洞都有物品
+            }
+            Item item = level.sample(random); // 别名表 O(1) 抽取
+            items[hole] = item;
+            spawned++;
+            double upTime = rules.minUpSeconds + random.nextDouble() * (rules.maxUpSeconds - rules.minUpSeconds);
+            hideTimers[hole] = wheel.scheduleAt(wheel.getTimeNanos() + Math.round(SECOND * upTime), hideCallbacks[hole]);
+            listener.itemShown(hole, item);
+        }
+    }
+
+    private void hide(int hole) {
+        if (items[hole] == null) {
+            return;
+        }
+        wheel.cancel(hideTimers[hole]);
+        items[hole] = null;
+        freeHoles.markFree(hole);
+        listener.itemHidden(hole);
+    }
+
+    public Rules getRules() {
+        return rules;
+    }
+
+    public int getHoleCount() {
+        return holeCount;
+    }
+
+    public boolean isGameActive() {
+        return gameActive;
+    }
+
+    /**
+     * @return 是否接受点击 (打中炸弹等 LOCK 物品后暂时不接受)
+     */
+    public boolean isAcceptingInput() {
+        return !effectActive[Effect.LOCK.ordinal()];
+    }
+
+    public boolean isEffectActive(Effect effect) {
+        return effectActive[effect.ordinal()];
+    }
+
+    /**
+     * @return 本局的关卡 (还没有开始过时为规则中的关卡)
+     */
+    public Level getLevel() {
+        return level != null ? level : rules.getLevel();
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getTimeLeft() {
+        return timeLeft;
+    }
+
+    /**
+     * @return 洞中的物品，没有时返回 null
+     */
+    public Item getItem(int hole) {
+        return items[hole];
+    }
+
+    /**
+     * @return 本局生成的物品总数
+     */
+    public int getSpawnedCount() {
+        return spawned;
+    }
+
+    /**
+     * @return 本局打中这种物品的次数
+     */
+    public int getHitCount(Item item) {
+        return item.getIndex() < hits.length ? hits[item.getIndex()] : 0;
+    }
+}
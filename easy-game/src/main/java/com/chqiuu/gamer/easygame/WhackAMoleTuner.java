@@ -0,0 +1,315 @@
+package com.chqiuu.gamer.easygame;
+
+import com.chqiuu.gamer.easygame.WhackAMoleItems.Item;
+import com.chqiuu.gamer.easygame.WhackAMoleItems.Level;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 打地鼠参数调优的命令行工具
+ * <p>
+ * 用脚本机器人在 {@link WhackAMoleSimulation} 上批量模拟整局游戏 (虚拟时钟，不等待真实时间)，
+ * 按块分发到线程池并行执行，输出得分分布和命中统计。物品表取自 --level 指定的关卡，
+ * 炸弹概率 (覆盖关卡中的权重) 和出现间隔可以给出逗号分隔的多个值，
+ * 每种组合各跑一遍，便于对比。第 i 局的种子只由 --seed 和 i 决定，结果与线程数无关，可以复现。
+ * <p>
+ * 机器人: 每次只处理一个物品，空闲时盯住下一个出现的物品，忙时按出现顺序排队；盯住物品后经过反应时间
+ * (加上随机抖动) 才点击，即使物品已经缩回也会点空，点击后才能处理下一个仍在显示的物品。
+ * 机器人按物品的外观判断，会避开看起来扣分的物品 (诱饵骗得过它)，但每个有 --mistakes 的概率被误点。机器人的决定只发生在物品出现和点击的时刻，
+ * 空闲时时钟可以一次推进一整段 (不超过最短反应时间)，与逐毫秒推进的结果完全相同。
+ * <p>
+ * 用法: WhackAMoleTuner [--games 每组局数] [--threads 线程数] [--seed 种子] [--grid 网格大小] [--level 关卡]
+ * [--bomb 0.1,0.15,0.2] [--min-up 秒] [--max-up 秒] [--interval 0.4,0.5]
+ * [--duration 秒] [--reaction-ms 毫秒] [--jitter-ms 毫秒] [--mistakes 概率]
+ */
+public class WhackAMoleTuner {
+
+    private static final int GAMES_PER_CHUNK = 1000; // 每个任务连续模拟的局数
+    private static final long MILLIS = 1_000_000;
+
+    private final int holeCount;
+    private final long reactionNanos;
+    private final long jitterNanos;
+    private final double mistakeProbability;
+
+    public WhackAMoleTuner(int gridSize, double reactionMillis, double jitterMillis, double mistakeProbability) {
+        this.holeCount = gridSize * gridSize;
+        this.reactionNanos = Math.round(reactionMillis * MILLIS);
+        this.jitterNanos = Math.round(jitterMillis * MILLIS);
+        this.mistakeProbability = mistakeProbability;
+    }
+
+    /**
+     * 一个模拟块的统计结果 (由单个线程填写，最后在主线程合并)
+     */
+    private static final class ChunkResult {
+        final long firstGame;
+        final int[] scores;
+        long spawned;
+        final long[] hits = new long[WhackAMoleItems.getDefault().getItems().size()]; // 按物品编号
+        long lateClicks; // 点击时物品已经缩回
+
+        ChunkResult(long firstGame, int games) {
+            this.firstGame = firstGame;
+            this.scores = new int[games];
+        }
+    }
+
+    /**
+     * 脚本机器人: 通过监听器得知出现的物品，按出现顺序逐个点击
+     */
+    private final class Bot implements WhackAMoleSimulation.Listener {
+        final WhackAMoleSimulation simulation;
+        final long idleStepNanos; // 空闲时每次推进的时间，不超过最短反应时间，保证不会错过点击时刻
+        final long[] shownAt; // 每个洞当前物品出现的时间，-1 表示没有物品
+        int[] queueHoles = new int[64]; // 忙时出现的物品，按出现顺序排列 (已缩回的在取出时跳过)
+        long[] queueTimes = new long[64];
+        int head;
+        int tail;
+        int target = -1; // 正要点击的洞，-1 表示空闲
+        long clickAt; // 点击的时间
+        SplittableRandom random;
+
+        Bot(WhackAMoleSimulation simulation) {
+            this.simulation = simulation;
+            this.idleStepNanos = Math.max(MILLIS, reactionNanos - jitterNanos);
+            this.shownAt = new long[simulation.getHoleCount()];
+            Arrays.fill(shownAt, -1);
+            simulation.setListener(this);
+        }
+
+        @Override
+        public void itemShown(int hole, Item item) {
+            long now = simulation.getTimeNanos();
+            shownAt[hole] = now;
+            if (item.getAppearance().getScore() < 0 && random.nextDouble() >= mistakeProbability) {
+                return; // 看出是扣分的物品，不点
+            }
+            if (target < 0) {
+                aim(hole, now);
+                return;
+            }
+            if (tail == queueHoles.length) {
+                if (head > 0) {
+                    System.arraycopy(queueHoles, head, queueHoles, 0, tail - head);
+                    System.arraycopy(queueTimes, head, queueTimes, 0, tail - head);
+                    tail -= head;
+                    head = 0;
+                } else {
+                    queueHoles = Arrays.copyOf(queueHoles, tail * 2);
+                    queueTimes = Arrays.copyOf(queueTimes, tail * 2);
+                }
+            }
+            queueHoles[tail] = hole;
+            queueTimes[tail++] = now;
+        }
+
+        @Override
+        public void itemHidden(int hole) {
+            shownAt[hole] = -1;
+        }
+
+        /**
+         * 从 now 起盯住一个洞，经过反应时间后点击
+         */
+        private void aim(int hole, long now) {
+            target = hole;
+            clickAt = now + reactionNanos;
+            if (jitterNanos > 0) {
+                clickAt += random.nextLong(-jitterNanos, jitterNanos + 1);
+            }
+        }
+
+        /**
+         * 点击之后: 盯住队列中最早出现、仍在显示的物品
+         */
+        private void aimNext(long now) {
+            target = -1;
+            while (head < tail) {
+                int hole = queueHoles[head];
+                long time = queueTimes[head++];
+                if (shownAt[hole] == time) {
+                    aim(hole, now);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * 模拟一整局
+         */
+        void play(long seed, ChunkResult result, int slot) {
+            random = new SplittableRandom(seed ^ 0x5DEECE66DL);
+            head = 0;
+            tail = 0;
+            target = -1;
+            simulation.start(seed);
+            while (simulation.isGameActive()) {
+                if (target < 0) {
+                    simulation.advanceTo(simulation.getTimeNanos() + idleStepNanos); // 出现的物品在回调中被盯住
+                    continue;
+                }
+                simulation.advanceTo(clickAt);
+                while (simulation.isGameActive() && !simulation.isAcceptingInput()) {
+                    simulation.advanceTo(simulation.getTimeNanos() + MILLIS); // 炸弹惩罚中，等到可以点击
+                }
+                if (!simulation.isGameActive()) {
+                    break;
+                }
+                if (simulation.whack(target) == null) {
+                    result.lateClicks++;
+                }
+                aimNext(simulation.getTimeNanos());
+            }
+            result.scores[slot] = simulation.getScore();
+            result.spawned += simulation.getSpawnedCount();
+            for (Item item : WhackAMoleItems.getDefault().getItems()) {
+                result.hits[item.getIndex()] += simulation.getHitCount(item);
+            }
+        }
+    }
+
+    /**
+     * 用给定的规则模拟若干局并打印一行结果
+     */
+    public void run(WhackAMoleSimulation.Rules rules, long games, int threads, long seed) throws InterruptedException {
+        // 每个线程缓存自己的模拟和机器人 (不是线程安全的)，规则在所有线程之间只读共享
+        ThreadLocal<Bot> bots = ThreadLocal.withInitial(() -> new Bot(new WhackAMoleSimulation(rules, holeCount, 0)));
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "whack-a-mole-tuner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<Future<ChunkResult>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (long done = 0; done < games; done += GAMES_PER_CHUNK) {
+            long first = done;
+            int count = (int) Math.min(GAMES_PER_CHUNK, games - done);
+            futures.add(executor.submit(() -> {
+                Bot bot = bots.get();
+                ChunkResult result = new ChunkResult(first, count);
+                for (int i = 0; i < count; i++) {
+                    bot.play(gameSeed(seed, first + i), result, i);
+                }
+                return result;
+            }));
+        }
+
+        int[] scores = new int[(int) games];
+        long spawned = 0;
+        long lateClicks = 0;
+        long[] hits = new long[WhackAMoleItems.getDefault().getItems().size()];
+        try {
+            for (Future<ChunkResult> future : futures) {
+                ChunkResult result = future.get();
+                System.arraycopy(result.scores, 0, scores, (int) result.firstGame, result.scores.length);
+                spawned += result.spawned;
+                lateClicks += result.lateClicks;
+                for (int i = 0; i < hits.length; i++) {
+                    hits[i] += result.hits[i];
+                }
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("模拟执行失败", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long total = 0;
+        for (int score : scores) {
+            total += score;
+        }
+        Arrays.sort(scores);
+        long gains = 0;
+        long losses = 0;
+        for (Item item : WhackAMoleItems.getDefault().getItems()) {
+            if (item.getScore() >= 0) {
+                gains += hits[item.getIndex()];
+            } else {
+                losses += hits[item.getIndex()];
+            }
+        }
+        System.out.printf("%8.3f%10.3f%,12.0f%10.1f%8d%8d%8d%8d%8d%10.1f%8.2f%8.2f%8.2f%n",
+                rules.getLevel().getProbability("bomb"), rules.getBaseIntervalSeconds(), games / seconds,
+                (double) total / games, scores[0], percentile(scores, 5), percentile(scores, 50),
+                percentile(scores, 95), scores[scores.length - 1], (double) spawned / games,
+                (double) gains / games, (double) losses / games, (double) lateClicks / games);
+    }
+
+    private static int percentile(int[] sorted, double percent) {
+        int index = (int) Math.ceil(percent / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    /**
+     * @return 第 index 局的种子 (SplitMix64 的混合函数，相邻的局得到不相关的种子)
+     */
+    static long gameSeed(long seed, long index) {
+        long z = seed + (index + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        CommandLine options = CommandLine.parse(args, "WhackAMoleTuner [--games N] [--threads N] [--seed N] [--grid N]"
+                        + " [--level ID] [--bomb P[,P...]] [--min-up S] [--max-up S] [--interval S[,S...]]"
+                        + " [--duration S] [--reaction-ms MS] [--jitter-ms MS] [--mistakes P]",
+                "games", "threads", "seed", "grid", "level", "bomb", "min-up", "max-up", "interval",
+                "duration", "reaction-ms", "jitter-ms", "mistakes");
+        if (options == null) {
+            return;
+        }
+        long games = options.getLong("games", 100_000);
+        int threads = options.getInt("threads", Runtime.getRuntime().availableProcessors());
+        long seed = options.getLong("seed", 1);
+        int gridSize = options.getInt("grid", 3);
+        String levelId = options.get("level", null);
+        double[] bombProbabilities = options.getDoubles("bomb", null); // null 表示使用关卡中的权重
+        double minUp = options.getDouble("min-up", 0.45);
+        double maxUp = options.getDouble("max-up", 1.1);
+        double[] intervals = options.getDoubles("interval", new double[]{0.5});
+        int duration = options.getInt("duration", 45);
+        double reactionMillis = options.getDouble("reaction-ms", 350);
+        double jitterMillis = options.getDouble("jitter-ms", 80);
+        double mistakes = options.getDouble("mistakes", 0.1);
+
+        WhackAMoleItems catalog = WhackAMoleItems.getDefault();
+        Level level = levelId == null ? catalog.getDefaultLevel() : catalog.getLevel(levelId);
+        if (level == null) {
+            System.out.println("未知的关卡: " + levelId);
+            return;
+        }
+        System.out.printf("网格 %dx%d, 关卡 %s, 每组 %,d 局, 线程 %d, 种子 %d, 物品出现 %.2f ~ %.2f 秒, 时长 %d 秒%n",
+                gridSize, gridSize, level, games, threads, seed, minUp, maxUp, duration);
+        System.out.printf("机器人: 反应 %.0f ± %.0f 毫秒, 误点扣分物品概率 %.2f%n", reactionMillis, jitterMillis, mistakes);
+        System.out.printf("%8s%10s%12s%10s%8s%8s%8s%8s%8s%10s%8s%8s%8s%n", "炸弹", "间隔", "局/秒",
+                "平均分", "最低", "p5", "p50", "p95", "最高", "物品", "加分", "扣分", "迟到");
+        WhackAMoleTuner tuner = new WhackAMoleTuner(gridSize, reactionMillis, jitterMillis, mistakes);
+        Level[] variants = {level};
+        if (bombProbabilities != null) {
+            variants = new Level[bombProbabilities.length];
+            for (int i = 0; i < variants.length; i++) {
+                variants[i] = level.withProbability("bomb", bombProbabilities[i]);
+            }
+        }
+        for (Level variant : variants) {
+            for (double interval : intervals) {
+                WhackAMoleSimulation.Rules rules = new WhackAMoleSimulation.Rules()
+                        .durationSeconds(duration)
+                        .upSeconds(minUp, maxUp)
+                        .baseIntervalSeconds(interval)
+                        .level(variant);
+                tuner.run(rules, games, threads, seed);
+            }
+        }
+    }
+}
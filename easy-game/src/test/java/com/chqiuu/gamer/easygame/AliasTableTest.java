@@ -0,0 +1,90 @@
+package com.chqiuu.gamer.easygame;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AliasTableTest {
+
+    @Test
+    void rejectsInvalidWeights() {
+        assertThrows(IllegalArgumentException.class, () -> new AliasTable(new double[0]));
+        assertThrows(IllegalArgumentException.class, () -> new AliasTable(new double[]{0, 0}));
+        assertThrows(IllegalArgumentException.class, () -> new AliasTable(new double[]{1, -1}));
+        assertThrows(IllegalArgumentException.class, () -> new AliasTable(new double[]{1, Double.NaN}));
+        assertThrows(IllegalArgumentException.class, () -> new AliasTable(new double[]{Double.POSITIVE_INFINITY}));
+    }
+
+    @Test
+    void zeroWeightsAreNeverSampled() {
+        AliasTable table = new AliasTable(new double[]{0, 3, 0, 1, 0});
+        assertEquals(0.75, table.getProbability(1), 1e-12);
+        assertEquals(0, table.getProbability(2));
+        int[] counts = sampleGrid(table, 100_000);
+        assertEquals(0, counts[0] + counts[2] + counts[4]);
+    }
+
+    @Test
+    void singleWeightAlwaysWins() {
+        AliasTable table = new AliasTable(new double[]{0.25});
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(0, table.sample(random));
+        }
+    }
+
+    /**
+     * 用在 [0, 1) 上均匀铺开的 "随机数" 抽取: 每个下标出现的比例应当在网格精度内等于它的权重占比
+     * (每个桶最多因网格边界差 2 个点)，与随机种子无关
+     */
+    @Test
+    void sampledFrequenciesMatchWeights() {
+        SplittableRandom random = new SplittableRandom(21);
+        for (int round = 0; round < 50; round++) {
+            int n = 1 + random.nextInt(round < 25 ? 8 : 200);
+            double[] weights = new double[n];
+            double total = 0;
+            for (int i = 0; i < n; i++) {
+                weights[i] = random.nextInt(3) == 0 ? 0 : random.nextDouble(0.001, 100);
+                total += weights[i];
+            }
+            if (total == 0) {
+                weights[random.nextInt(n)] = 1;
+                total = 1;
+            }
+            AliasTable table = new AliasTable(weights);
+            assertEquals(n, table.size());
+            int points = n * 4096;
+            int[] counts = sampleGrid(table, points);
+            for (int i = 0; i < n; i++) {
+                assertEquals(weights[i] / total, table.getProbability(i), 1e-12);
+                assertEquals(weights[i] / total, (double) counts[i] / points, 2.0 * n / points, "下标 " + i);
+            }
+        }
+    }
+
+    private static int[] sampleGrid(AliasTable table, int points) {
+        int[] counts = new int[table.size()];
+        RandomGenerator grid = new RandomGenerator() {
+            private int next;
+
+            @Override
+            public long nextLong() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public double nextDouble() {
+                return (next++ + 0.5) / points;
+            }
+        };
+        for (int i = 0; i < points; i++) {
+            counts[table.sample(grid)]++;
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,115 @@
+package com.chqiuu.gamer.easygame;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClickerIdleGameTest {
+
+    @Test
+    void upgradesNeedEnoughPoints() {
+        ClickerIdleGame game = new ClickerIdleGame();
+        assertFalse(game.buyPpsUpgrade());
+        clicks(game, 24);
+        assertFalse(game.buyPpsUpgrade());
+        game.click();
+        assertTrue(game.buyPpsUpgrade());
+        assertTrue(game.getPoints().isZero());
+        assertEquals(1, game.getPpsLevel());
+        assertEquals(28, (long) game.getPpsUpgradeCost().toDouble()); // ⌊25 × 1.15⌋
+    }
+
+    @Test
+    void advanceSecondsMatchesTicksWithoutAutoBuy() {
+        checkAdvanceMatchesTicks(false);
+    }
+
+    @Test
+    void advanceSecondsMatchesTicksWithAutoBuy() {
+        checkAdvanceMatchesTicks(true);
+    }
+
+    /**
+     * 两局做同样的点击和购买 (包括生产设施)，一局逐秒调用 tick，另一局一次 advanceSeconds:
+     * 点数、等级、每秒点数和自动购买的次数都应完全相同 (数值小于 10^15 时 IdleNumber 的整数运算是精确的)
+     */
+    private static void checkAdvanceMatchesTicks(boolean autoBuy) {
+        SplittableRandom random = new SplittableRandom(autoBuy ? 23 : 24);
+        for (int round = 0; round < 30; round++) {
+            ClickerIdleGame ticked = new ClickerIdleGame();
+            ClickerIdleGame advanced = new ClickerIdleGame();
+            int clicks = random.nextInt(5000);
+            int ppsBuys = random.nextInt(8);
+            int generatorBuys = random.nextInt(4);
+            for (ClickerIdleGame game : new ClickerIdleGame[]{ticked, advanced}) {
+                clicks(game, clicks);
+                for (int i = 0; i < ppsBuys; i++) {
+                    game.buyPpsUpgrade();
+                }
+                for (int i = 0; i < generatorBuys; i++) {
+                    game.buyGenerator(i % 2);
+                }
+                game.setAutoBuy(autoBuy);
+            }
+            for (int step = 0; step < 6; step++) {
+                int seconds = random.nextInt(step == 0 ? 3 : 20_000);
+                long bought = 0;
+                for (int s = 0; s < seconds; s++) {
+                    bought += ticked.tick();
+                }
+                assertEquals(bought, advanced.advanceSeconds(seconds));
+                assertEquals(0, ticked.getPoints().compareTo(advanced.getPoints()),
+                        ticked.getPoints() + " / " + advanced.getPoints());
+                assertEquals(ticked.getPpsLevel(), advanced.getPpsLevel());
+                assertEquals(0, ticked.getPointsPerSecond().compareTo(advanced.getPointsPerSecond()));
+                assertEquals(0, ticked.getIncome().compareTo(advanced.getIncome()));
+            }
+            assertTrue(ticked.getPoints().toDouble() < 1e15);
+        }
+    }
+
+    /**
+     * 最多买得起的级数与总成本一致: n 级买得起而 n + 1 级买不起；一次买 n 级与逐级买 n 次的等级、每秒点数
+     * 和剩下的点数都完全相同 (总成本小于 10^15 时逐级累加取整后的成本)
+     */
+    @Test
+    void maxAffordableAgreesWithBulkAndSingleBuys() {
+        SplittableRandom random = new SplittableRandom(24);
+        IdleNumber cost = new IdleNumber();
+        for (int round = 0; round < 200; round++) {
+            ClickerIdleGame bulk = new ClickerIdleGame();
+            ClickerIdleGame single = new ClickerIdleGame();
+            int clicks = random.nextInt(round < 100 ? 2000 : 200_000);
+            int ppsBuys = random.nextInt(5);
+            for (ClickerIdleGame game : new ClickerIdleGame[]{bulk, single}) {
+                clicks(game, clicks);
+                for (int i = 0; i < ppsBuys; i++) {
+                    game.buyPpsUpgrade();
+                }
+            }
+            long max = bulk.maxAffordablePps();
+            assertTrue(bulk.getPpsUpgradeCost(max + 1, cost).compareTo(bulk.getPoints()) > 0);
+            assertEquals(max > 0, bulk.buyPpsUpgrades(Math.max(1, max)));
+            for (long i = 0; i < max; i++) {
+                assertTrue(single.buyPpsUpgrade());
+            }
+            assertEquals(single.getPpsLevel(), bulk.getPpsLevel());
+            assertEquals(0, single.getPointsPerSecond().compareTo(bulk.getPointsPerSecond()));
+            assertEquals(0, single.getPoints().compareTo(bulk.getPoints()), single.getPoints() + " / " + bulk.getPoints());
+
+            long ppcMax = single.maxAffordablePpc();
+            assertTrue(single.getPpcUpgradeCost(ppcMax + 1, cost).compareTo(single.getPoints()) > 0);
+            assertEquals(ppcMax > 0, single.buyPpcUpgrades(Math.max(1, ppcMax)));
+        }
+    }
+
+    private static void clicks(ClickerIdleGame game, int n) {
+        for (int i = 0; i < n; i++) {
+            game.click();
+        }
+    }
+}
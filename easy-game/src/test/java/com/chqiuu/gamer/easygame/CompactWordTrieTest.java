@@ -0,0 +1,154 @@
+package com.chqiuu.gamer.easygame;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompactWordTrieTest {
+
+    @Test
+    void ofNormalizesDeduplicatesAndSkipsInvalidWords() {
+        CompactWordTrie trie = CompactWordTrie.of(List.of("banana", " Apple ", "APPLE", "cherry-pie", "", "x".repeat(64), "Kiwi"));
+        assertEquals(3, trie.size());
+        assertEquals("APPLE", trie.getWord(0));
+        assertEquals("BANANA", trie.getWord(1));
+        assertEquals("KIWI", trie.getWord(2));
+        assertTrue(trie.contains("KIWI"));
+        assertFalse(trie.contains("KIW"));
+        assertFalse(trie.contains("kiwi")); // 查询区分大小写，只接受大写
+        assertThrows(IndexOutOfBoundsException.class, () -> trie.getWord(3));
+    }
+
+    @Test
+    void emptyTrie() {
+        CompactWordTrie trie = CompactWordTrie.of(List.of());
+        assertEquals(0, trie.size());
+        assertNull(trie.randomWord(new SplittableRandom(1)));
+        assertFalse(trie.hasLength(3));
+        assertEquals(0, trie.packWords(3).length);
+    }
+
+    @Test
+    void sharedSuffixesAreMerged() {
+        // 根 → {B, C, R} 共用 "ATS" 的后三个状态: 根、A 前、T 前、S 前、结尾共 5 个状态
+        CompactWordTrie trie = CompactWordTrie.of(List.of("BATS", "CATS", "RATS"));
+        assertEquals(5, trie.getStateCount());
+        assertEquals(6, trie.getEdgeCount());
+    }
+
+    @Test
+    void builderRejectsUnsortedOrInvalidWords() {
+        CompactWordTrie.Builder builder = new CompactWordTrie.Builder().add("CAT");
+        assertThrows(IllegalArgumentException.class, () -> builder.add("CAT"));
+        assertThrows(IllegalArgumentException.class, () -> builder.add("BAT"));
+        assertThrows(IllegalArgumentException.class, () -> builder.add("cow"));
+        builder.add("COW");
+        CompactWordTrie trie = builder.build();
+        assertEquals(2, trie.size());
+        assertThrows(IllegalStateException.class, () -> builder.add("DOG"));
+    }
+
+    /**
+     * 随机词表与 TreeSet 对比: 按序号取词、查找、模式匹配和按长度打包都应与逐个单词检查的结果一致
+     */
+    @Test
+    void matchesReferenceSet() {
+        SplittableRandom random = new SplittableRandom(8);
+        for (int round = 0; round < 20; round++) {
+            TreeSet<String> reference = new TreeSet<>();
+            int alphabet = 2 + random.nextInt(5); // 字母少，前缀和后缀才会大量重复
+            int count = random.nextInt(2000);
+            for (int i = 0; i < count; i++) {
+                reference.add(randomWord(random, alphabet, 1 + random.nextInt(8)));
+            }
+            CompactWordTrie trie = CompactWordTrie.of(reference);
+            List<String> sorted = new ArrayList<>(reference);
+            assertEquals(sorted.size(), trie.size());
+            for (int i = 0; i < sorted.size(); i++) {
+                assertEquals(sorted.get(i), trie.getWord(i));
+            }
+            for (int i = 0; i < 200; i++) {
+                String word = randomWord(random, alphabet, 1 + random.nextInt(9));
+                assertEquals(reference.contains(word), trie.contains(word), word);
+            }
+            for (int length = 0; length <= 9; length++) {
+                StringBuilder packed = new StringBuilder();
+                for (String word : sorted) {
+                    if (word.length() == length) {
+                        packed.append(word);
+                    }
+                }
+                assertEquals(packed.length() > 0, trie.hasLength(length));
+                assertArrayEquals(packed.toString().getBytes(StandardCharsets.US_ASCII), trie.packWords(length));
+            }
+            for (int i = 0; i < 50 && !sorted.isEmpty(); i++) {
+                checkPattern(trie, sorted, hangmanPattern(sorted.get(random.nextInt(sorted.size())), random),
+                        random.nextInt(1 << alphabet) & ~1);
+            }
+        }
+    }
+
+    private static void checkPattern(CompactWordTrie trie, List<String> sorted, String pattern, int excludedMask) {
+        List<String> expected = new ArrayList<>();
+        for (String word : sorted) {
+            if (matches(word, pattern, excludedMask)) {
+                expected.add(word);
+            }
+        }
+        assertEquals(expected, trie.findMatches(pattern, excludedMask), pattern);
+        assertEquals(expected.size(), trie.countMatches(pattern, excludedMask), pattern);
+    }
+
+    /**
+     * 刽子手规则: 已显示的字母在所有位置都显示，空白处不能是已显示的字母或排除的字母
+     */
+    private static boolean matches(String word, String pattern, int excludedMask) {
+        if (word.length() != pattern.length()) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            char p = pattern.charAt(i);
+            if (p == CompactWordTrie.BLANK) {
+                if (pattern.indexOf(c) >= 0 || (excludedMask & (1 << (c - 'A'))) != 0) {
+                    return false;
+                }
+            } else if (p != c) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 随机显示单词中的一部分字母 (同一个字母在所有位置一起显示)
+     */
+    private static String hangmanPattern(String word, SplittableRandom random) {
+        int shown = random.nextInt(1 << 26);
+        StringBuilder pattern = new StringBuilder();
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            pattern.append((shown & (1 << (c - 'A'))) != 0 ? c : CompactWordTrie.BLANK);
+        }
+        return pattern.toString();
+    }
+
+    private static String randomWord(SplittableRandom random, int alphabet, int length) {
+        StringBuilder word = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            word.append((char) ('A' + random.nextInt(alphabet)));
+        }
+        return word.toString();
+    }
+}
@@ -0,0 +1,125 @@
+package com.chqiuu.gamer.easygame;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FreeSlotSetTest {
+
+    @Test
+    void newSetIsAllFree() {
+        FreeSlotSet set = new FreeSlotSet(70);
+        assertEquals(70, set.freeCount());
+        assertEquals(0, set.usedCount());
+        assertEquals(-1, set.nextUsed(0));
+        for (int i = 0; i < 70; i++) {
+            assertTrue(set.isFree(i));
+        }
+    }
+
+    @Test
+    void markUsedAndFreeReportChanges() {
+        FreeSlotSet set = new FreeSlotSet(10);
+        assertTrue(set.markUsed(3));
+        assertFalse(set.markUsed(3));
+        assertEquals(3, set.nextUsed(0));
+        assertEquals(-1, set.nextUsed(4));
+        assertTrue(set.markFree(3));
+        assertFalse(set.markFree(3));
+        assertEquals(10, set.freeCount());
+    }
+
+    @Test
+    void acquireRandomFillsEverySlotOnceThenFails() {
+        SplittableRandom random = new SplittableRandom(1);
+        FreeSlotSet set = new FreeSlotSet(130);
+        BitSet seen = new BitSet();
+        for (int i = 0; i < 130; i++) {
+            int slot = set.acquireRandom(random);
+            assertFalse(seen.get(slot), "重复的位置 " + slot);
+            seen.set(slot);
+        }
+        assertEquals(130, seen.cardinality());
+        assertEquals(-1, set.acquireRandom(random));
+        assertEquals(-1, set.randomFree(random));
+
+        set.reset();
+        assertEquals(130, set.freeCount());
+        assertEquals(-1, set.nextUsed(0));
+    }
+
+    @Test
+    void emptyCapacity() {
+        FreeSlotSet set = new FreeSlotSet(0);
+        assertEquals(0, set.freeCount());
+        assertEquals(-1, set.randomFree(new SplittableRandom(1)));
+        assertEquals(-1, set.nextUsed(0));
+    }
+
+    /**
+     * 与 java.util.BitSet (记录被占用的位置) 随机对比，覆盖容量 1 到 10000 (包括每个 64 位边界)
+     */
+    @Test
+    void matchesBitSetForAllCapacities() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int capacity = 1; capacity <= 10_000; capacity++) {
+            compareWithBitSet(capacity, 64, random);
+        }
+    }
+
+    /**
+     * 少数容量上做长时间的随机操作，占用率在空和满之间反复变化
+     */
+    @Test
+    void matchesBitSetUnderLongRandomRuns() {
+        SplittableRandom random = new SplittableRandom(7);
+        for (int capacity : new int[]{1, 63, 64, 65, 100, 4096, 10_000}) {
+            compareWithBitSet(capacity, 20 * capacity + 1000, random);
+        }
+    }
+
+    private static void compareWithBitSet(int capacity, int operations, SplittableRandom random) {
+        FreeSlotSet set = new FreeSlotSet(capacity);
+        BitSet used = new BitSet(capacity);
+        for (int op = 0; op < operations; op++) {
+            int slot = random.nextInt(capacity);
+            switch (random.nextInt(4)) {
+                case 0:
+                    assertEquals(!used.get(slot), set.markUsed(slot));
+                    used.set(slot);
+                    break;
+                case 1:
+                    assertEquals(used.get(slot), set.markFree(slot));
+                    used.clear(slot);
+                    break;
+                case 2:
+                    int acquired = set.acquireRandom(random);
+                    if (used.cardinality() == capacity) {
+                        assertEquals(-1, acquired);
+                    } else {
+                        assertFalse(used.get(acquired), "取到了被占用的位置 " + acquired);
+                        used.set(acquired);
+                    }
+                    break;
+                default:
+                    assertEquals(used.nextSetBit(slot), set.nextUsed(slot));
+                    break;
+            }
+            assertEquals(capacity - used.cardinality(), set.freeCount());
+        }
+        for (int slot = 0; slot < capacity; slot++) {
+            assertEquals(!used.get(slot), set.isFree(slot));
+        }
+        int expected = used.nextSetBit(0);
+        for (int slot = set.nextUsed(0); slot >= 0; slot = set.nextUsed(slot + 1)) {
+            assertEquals(expected, slot);
+            expected = used.nextSetBit(slot + 1);
+        }
+        assertEquals(-1, expected);
+    }
+}
@@ -0,0 +1,150 @@
+package com.chqiuu.gamer.easygame;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GomokuBoardTest {
+
+    private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+
+    @Test
+    void constructorRejectsImpossibleBoards() {
+        assertThrows(IllegalArgumentException.class, () -> new GomokuBoard(0, 5, 3));
+        assertThrows(IllegalArgumentException.class, () -> new GomokuBoard(4, 4, 5));
+        assertThrows(IllegalArgumentException.class, () -> new GomokuBoard(4, 4, 0));
+    }
+
+    @Test
+    void horizontalVerticalAndDiagonalWins() {
+        // 横: X 在第 0 行连五，O 在第 1 行
+        assertWinAfter(new int[]{0, 15, 1, 16, 2, 17, 3, 18, 4}, 'X', new int[]{0, 1, 2, 3, 4});
+        // 竖: O 在第 5 列连五 (X 的棋子分散)
+        assertWinAfter(new int[]{0, 5, 2, 20, 4, 35, 6, 50, 8, 65}, 'O', new int[]{5, 20, 35, 50, 65});
+        // 主对角线，最后一子下在中间
+        assertWinAfter(new int[]{0, 1, 16, 2, 48, 3, 64, 4, 32}, 'X', new int[]{0, 16, 32, 48, 64});
+        // 副对角线，贴着右边缘
+        assertWinAfter(new int[]{14, 0, 28, 1, 42, 2, 56, 3, 70}, 'X', new int[]{14, 28, 42, 56, 70});
+    }
+
+    private static void assertWinAfter(int[] moves, char winner, int[] line) {
+        GomokuBoard board = new GomokuBoard(15, 15, 5);
+        for (int i = 0; i < moves.length; i++) {
+            assertFalse(board.isGameOver(), "第 " + i + " 步之前不应结束");
+            board.play(moves[i]);
+        }
+        assertEquals(winner, board.getWinner());
+        assertTrue(board.isGameOver());
+        assertArrayEquals(line, board.getWinningCells());
+        assertThrows(IllegalStateException.class, () -> board.play(224));
+        board.undo();
+        assertEquals(LineGameBoard.EMPTY, board.getWinner());
+        assertEquals(0, board.getWinningCells().length);
+    }
+
+    @Test
+    void illegalMovesAndUndoAreRejected() {
+        GomokuBoard board = new GomokuBoard(3, 3, 3);
+        assertThrows(IllegalStateException.class, board::undo);
+        board.play(4);
+        assertThrows(IllegalStateException.class, () -> board.play(4));
+        assertEquals(4, board.getLastMove());
+        board.reset();
+        assertEquals(0, board.getMoveCount());
+        assertEquals(-1, board.getLastMove());
+        assertTrue(board.isEmptyCell(4));
+    }
+
+    /**
+     * 随机对局与暴力扫描对比: 每一步之后的胜负、每个格子每个方向的连子数都应与逐格数出来的一致，
+     * 随机悔棋后重新落子也一样 (检查撤销栈恢复的段长)
+     */
+    @Test
+    void matchesBruteForceScanWithRandomUndo() {
+        SplittableRandom random = new SplittableRandom(2);
+        int[][] shapes = {{3, 3, 3}, {1, 7, 3}, {6, 1, 4}, {5, 7, 4}, {8, 8, 5}, {15, 15, 5}, {4, 9, 2}};
+        for (int[] shape : shapes) {
+            for (int game = 0; game < 300; game++) {
+                playRandomGame(new GomokuBoard(shape[0], shape[1], shape[2]), random);
+            }
+        }
+    }
+
+    private static void playRandomGame(GomokuBoard board, SplittableRandom random) {
+        while (!board.isGameOver()) {
+            if (board.getMoveCount() > 0 && random.nextInt(4) == 0) {
+                int undo = 1 + random.nextInt(Math.min(3, board.getMoveCount()));
+                for (int i = 0; i < undo; i++) {
+                    board.undo();
+                }
+            } else {
+                int index;
+                do {
+                    index = random.nextInt(board.getCellCount());
+                } while (!board.isEmptyCell(index));
+                board.play(index);
+            }
+            check(board);
+        }
+        GomokuBoard copy = board.copy();
+        while (copy.getMoveCount() > 0) { // 悔到底，每一步都检查
+            copy.undo();
+            check(copy);
+        }
+    }
+
+    private static void check(GomokuBoard board) {
+        int rows = board.getRows();
+        int cols = board.getCols();
+        char winner = LineGameBoard.EMPTY;
+        int moves = 0;
+        for (int index = 0; index < board.getCellCount(); index++) {
+            char owner = board.getCell(index);
+            if (owner == LineGameBoard.EMPTY) {
+                continue;
+            }
+            moves++;
+            for (int dir = 0; dir < DIRECTIONS.length; dir++) {
+                int length = bruteRun(board, index / cols, index % cols, DIRECTIONS[dir]);
+                assertEquals(length, board.getRunLength(index, dir));
+                if (length >= board.getWinLength()) {
+                    winner = owner;
+                }
+            }
+        }
+        assertEquals(moves, board.getMoveCount());
+        assertEquals(winner, board.getWinner());
+        assertEquals(winner == LineGameBoard.EMPTY && moves == rows * cols, board.isDraw());
+        int[] line = board.getWinningCells();
+        if (winner != LineGameBoard.EMPTY) {
+            assertTrue(line.length >= board.getWinLength());
+            for (int cell : line) {
+                assertEquals(winner, board.getCell(cell));
+            }
+        } else {
+            assertEquals(0, line.length);
+        }
+    }
+
+    private static int bruteRun(GomokuBoard board, int row, int col, int[] dir) {
+        char owner = board.getCell(row * board.getCols() + col);
+        int length = 1;
+        for (int sign = -1; sign <= 1; sign += 2) {
+            int r = row + sign * dir[0];
+            int c = col + sign * dir[1];
+            while (r >= 0 && r < board.getRows() && c >= 0 && c < board.getCols()
+                    && board.getCell(r * board.getCols() + c) == owner) {
+                length++;
+                r += sign * dir[0];
+                c += sign * dir[1];
+            }
+        }
+        return length;
+    }
+}
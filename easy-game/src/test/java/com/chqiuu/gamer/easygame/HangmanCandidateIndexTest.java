@@ -0,0 +1,124 @@
+package com.chqiuu.gamer.easygame;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HangmanCandidateIndexTest {
+
+    @Test
+    void rejectsBadInput() {
+        assertThrows(IllegalArgumentException.class, () -> new HangmanCandidateIndex(new byte[5], 2));
+        assertThrows(IllegalArgumentException.class, () -> new HangmanCandidateIndex(new byte[0], 0));
+        assertThrows(IllegalArgumentException.class, () -> new HangmanCandidateIndex(bytes("AB1"), 3));
+    }
+
+    @Test
+    void largestFamilyPrefersMissThenFewerRevealedLetters() {
+        HangmanCandidateIndex index = new HangmanCandidateIndex(bytes("BEEBEAKIDSBEST"), 7);
+        assertEquals(2, index.getWordCount());
+        // "BEEBEAK" 和 "IDSBEST" 各自成一个家族，猜 Z 时两个单词都不含，保留全部
+        assertEquals(0, index.chooseLargestFamily('Z' - 'A'));
+        assertEquals(2, index.getAliveCount());
+
+        index = new HangmanCandidateIndex(bytes("CATDOGCOW"), 3);
+        // 猜 C: 不含 C 的只有 DOG (1 个)，含 C 的 CAT、COW 同一家族 (位置 0)
+        assertEquals(1, index.chooseLargestFamily('C' - 'A'));
+        assertEquals(2, index.getAliveCount());
+        // 猜 A: CAT (位置 1) 与 COW (不含) 一样大，选不含的
+        assertEquals(0, index.chooseLargestFamily('A' - 'A'));
+        assertEquals("COW", index.randomAliveWord(new SplittableRandom(1)));
+        index.restrict('W' - 'A', 0);
+        assertEquals(0, index.getAliveCount());
+        assertNull(index.randomAliveWord(new SplittableRandom(1)));
+        index.reset();
+        assertEquals(3, index.getAliveCount());
+    }
+
+    /**
+     * 随机词表上与逐个单词计算的参考实现对比: 每一步按家族划分后保留的单词集合应当相同
+     * (单词数跨过多个 64 位块)
+     */
+    @Test
+    void matchesBruteForceFamilies() {
+        SplittableRandom random = new SplittableRandom(9);
+        for (int round = 0; round < 40; round++) {
+            int length = 1 + random.nextInt(7);
+            int count = 1 + random.nextInt(round < 20 ? 150 : 3000);
+            int alphabet = 2 + random.nextInt(8);
+            byte[] words = new byte[count * length];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = (byte) ('A' + random.nextInt(alphabet));
+            }
+            HangmanCandidateIndex index = new HangmanCandidateIndex(words, length);
+            List<Integer> alive = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                alive.add(i);
+            }
+            int guessed = 0;
+            while (guessed != (1 << alphabet) - 1) {
+                int letter = random.nextInt(alphabet);
+                if ((guessed & (1 << letter)) != 0) {
+                    continue;
+                }
+                guessed |= 1 << letter;
+                long expected = bestFamily(index, alive, letter);
+                alive.removeIf(i -> positions(index.getWord(i), letter) != expected);
+                assertEquals(expected, index.chooseLargestFamily(letter));
+                assertEquals(alive.size(), index.getAliveCount());
+                for (int i = 0; i < count; i++) {
+                    assertEquals(alive.contains(i), index.isAlive(i));
+                }
+                String word = index.randomAliveWord(random);
+                assertTrue(alive.stream().anyMatch(i -> index.getWord(i).equals(word)));
+            }
+        }
+    }
+
+    private static long bestFamily(HangmanCandidateIndex index, List<Integer> alive, int letter) {
+        Map<Long, Integer> families = new HashMap<>();
+        for (int i : alive) {
+            families.merge(positions(index.getWord(i), letter), 1, Integer::sum);
+        }
+        long best = 0;
+        int bestCount = families.getOrDefault(0L, 0);
+        for (Map.Entry<Long, Integer> family : families.entrySet()) {
+            long mask = family.getKey();
+            int size = family.getValue();
+            if (mask == 0) {
+                continue;
+            }
+            boolean tieWins = best != 0 && (Long.bitCount(mask) < Long.bitCount(best)
+                    || Long.bitCount(mask) == Long.bitCount(best) && Long.compareUnsigned(mask, best) < 0);
+            if (size > bestCount || size == bestCount && tieWins) {
+                best = mask;
+                bestCount = size;
+            }
+        }
+        return best;
+    }
+
+    private static long positions(String word, int letter) {
+        long mask = 0;
+        for (int p = 0; p < word.length(); p++) {
+            if (word.charAt(p) == 'A' + letter) {
+                mask |= 1L << p;
+            }
+        }
+        return mask;
+    }
+
+    private static byte[] bytes(String words) {
+        return words.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,152 @@
+package com.chqiuu.gamer.easygame;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdleNumberTest {
+
+    @Test
+    void valuesBelowLimitAreExactIntegers() {
+        IdleNumber number = new IdleNumber(999_999_999_999_998.0);
+        assertEquals(0, number.getExponent());
+        number.add(1);
+        assertEquals(999_999_999_999_999.0, number.getMantissa());
+        assertEquals(0, number.getExponent());
+        number.add(1); // 进位到 10^15
+        assertEquals(1e14, number.getMantissa());
+        assertEquals(1, number.getExponent());
+    }
+
+    @Test
+    void normalizedFormIsUnique() {
+        IdleNumber expected = new IdleNumber(1e20);
+        assertEquals(1e14, expected.getMantissa());
+        assertEquals(6, expected.getExponent());
+        for (IdleNumber same : new IdleNumber[]{new IdleNumber().set(1e14, 6), new IdleNumber().set(1e15, 5),
+                new IdleNumber().set(1e16, 4), new IdleNumber().set(1e20, 0), new IdleNumber(1e200).multiply(1e-180)}) {
+            assertEquals(expected.getMantissa(), same.getMantissa(), 1e-1);
+            assertEquals(expected.getExponent(), same.getExponent());
+        }
+        assertThrows(IllegalArgumentException.class, () -> new IdleNumber().set(1, -1));
+        assertThrows(IllegalArgumentException.class, () -> new IdleNumber(Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> new IdleNumber(1).multiply(Double.POSITIVE_INFINITY));
+    }
+
+    @Test
+    void subtractionRenormalizes() {
+        IdleNumber number = new IdleNumber(1e20).subtract(new IdleNumber(9.9e19));
+        assertEquals(new IdleNumber(1e18), number);
+        assertEquals(1e14, number.getMantissa());
+        assertEquals(4, number.getExponent());
+
+        // 大数减到 10^15 以下后回到指数为 0 的精确表示
+        number = new IdleNumber(1e15).subtract(new IdleNumber(999_999_999_999_995.0));
+        assertEquals(5, number.getMantissa());
+        assertEquals(0, number.getExponent());
+
+        number = new IdleNumber(1e30).subtract(new IdleNumber(1e30));
+        assertTrue(number.isZero());
+        assertEquals(0, number.getExponent());
+    }
+
+    @Test
+    void negligibleAdditionsDoNotChangeTheValue() {
+        IdleNumber big = new IdleNumber(1e40);
+        assertEquals(new IdleNumber(1e40), new IdleNumber(big).add(1));
+        assertEquals(new IdleNumber(1e40), new IdleNumber(1).add(big));
+        // 相差不超过 18 位时仍然计入
+        assertEquals(1.000_001, new IdleNumber(big).add(1e34).ratio(big), 1e-15);
+    }
+
+    @Test
+    void exponentsBeyondDoubleRange() {
+        IdleNumber number = new IdleNumber().setPower(10, 400);
+        assertEquals(400, number.log10(), 1e-9);
+        assertEquals(Double.POSITIVE_INFINITY, number.toDouble());
+        number.multiply(new IdleNumber().setPower(10, 400));
+        assertEquals(800, number.log10(), 1e-9);
+        assertEquals(100, new IdleNumber().setPower(10, 400).ratio(new IdleNumber().setPower(10, 398)), 1e-9);
+        assertEquals(new IdleNumber().setPower(10, 401),
+                new IdleNumber().setPower(10, 400).multiply(5).add(new IdleNumber().setPower(10, 400).multiply(5)));
+    }
+
+    @Test
+    void floorRoundsTowardNegativeInfinity() {
+        assertEquals(new IdleNumber(2), new IdleNumber(2.7).floor());
+        assertEquals(new IdleNumber(-3), new IdleNumber(-2.5).floor());
+        assertEquals(new IdleNumber(1e20), new IdleNumber(1e20).floor());
+    }
+
+    @Test
+    void compareOrdersBySignThenExponentThenMantissa() {
+        IdleNumber[] ascending = {new IdleNumber().setPower(10, 400).multiply(-1), new IdleNumber(-1e20),
+                new IdleNumber(-1e16), new IdleNumber(-5), new IdleNumber(0), new IdleNumber(5),
+                new IdleNumber(999_999_999_999_999.0), new IdleNumber(1e15), new IdleNumber(1e16),
+                new IdleNumber(2e16), new IdleNumber(1e20), new IdleNumber().setPower(10, 400)};
+        for (int i = 0; i < ascending.length; i++) {
+            for (int j = 0; j < ascending.length; j++) {
+                assertEquals(Integer.signum(Integer.compare(i, j)), Integer.signum(ascending[i].compareTo(ascending[j])),
+                        ascending[i] + " 与 " + ascending[j]);
+            }
+        }
+        IdleNumber zero = new IdleNumber(0.0);
+        IdleNumber negativeZero = new IdleNumber(-0.0);
+        assertEquals(0, zero.compareTo(negativeZero));
+        assertEquals(zero, negativeZero);
+        assertEquals(zero.hashCode(), negativeZero.hashCode());
+        assertEquals(new IdleNumber(7), new IdleNumber(3).max(new IdleNumber(7)));
+    }
+
+    /**
+     * 与 double 随机对比: 在 double 能精确比较的范围内，加减和比较的结果应当一致
+     */
+    @Test
+    void matchesDoubleArithmetic() {
+        SplittableRandom random = new SplittableRandom(22);
+        for (int i = 0; i < 10_000; i++) {
+            double a = Math.scalb(random.nextDouble(-1, 1), random.nextInt(200));
+            double b = Math.scalb(random.nextDouble(-1, 1), random.nextInt(200));
+            IdleNumber x = new IdleNumber(a);
+            IdleNumber y = new IdleNumber(b);
+            assertEquals(1, x.toDouble() / a, 1e-13);
+            assertEquals(Double.compare(a, b) == 0 ? 0 : Integer.signum(Double.compare(a, b)),
+                    Integer.signum(x.compareTo(y)), a + " 与 " + b);
+            double sum = a + b;
+            double actual = new IdleNumber(x).add(y).toDouble();
+            assertEquals(sum, actual, Math.max(Math.abs(a), Math.abs(b)) * 1e-13);
+            assertEquals(a - b, new IdleNumber(x).subtract(y).toDouble(), Math.max(Math.abs(a), Math.abs(b)) * 1e-13);
+        }
+    }
+
+    @Test
+    void appendToFormats() {
+        assertEquals("0", format(0));
+        assertEquals("999", format(999));
+        assertEquals("1,000", format(1000));
+        assertEquals("123,456", format(123_456.9)); // 截断小数
+        assertEquals("100,001", format(100_001));
+        assertEquals("999,999", format(999_999));
+        assertEquals("1.00M", format(1_000_000));
+        assertEquals("1.23M", format(1_239_999)); // 截断，不四舍五入
+        assertEquals("1.23M", format(1_230_000));
+        assertEquals("12.34B", format(12_345_678_901.0));
+        assertEquals("999.99T", format(999_999_990_000_000.0));
+        assertEquals("1.00Qa", format(1e15));
+        assertEquals("45.60Qa", format(4.56e16));
+        assertEquals("999.00Dc", format(9.99e35));
+        assertEquals("1.00e36", format(1e36));
+        assertEquals("1.23e45", format(1.23e45));
+        assertEquals("-1,234", format(-1234));
+        assertEquals("-1.50M", format(-1.5e6));
+        assertEquals("1.00e400", new IdleNumber().setPower(10, 400).toString());
+    }
+
+    private static String format(double value) {
+        return new IdleNumber(value).appendTo(new StringBuilder()).toString();
+    }
+}
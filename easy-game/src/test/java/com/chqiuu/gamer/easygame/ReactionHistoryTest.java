@@ -0,0 +1,131 @@
+package com.chqiuu.gamer.easygame;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReactionHistoryTest {
+
+    @Test
+    void missingFileIsEmptyHistory(@TempDir Path dir) throws IOException {
+        ReactionHistory history = ReactionHistory.open(dir.resolve("none.bin"));
+        assertEquals(0, history.getSessionCount());
+        assertEquals(0, history.getRecentMeanMillis());
+        assertEquals(0, history.getTrendMillis());
+        assertEquals(0, history.getBestP50Millis());
+        assertEquals(0, history.getBestScore());
+    }
+
+    @Test
+    void rejectsForeignFile(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("other.bin");
+        Files.write(file, new byte[64]);
+        assertThrows(IOException.class, () -> ReactionHistory.open(file));
+    }
+
+    /**
+     * 随机追加若干轮，每一步的累计值和两个窗口的平均值都应与直接对记录列表求和的结果一致；
+     * 重新打开文件扫描得到的统计也一样
+     */
+    @Test
+    void slidingWindowsMatchRecomputation(@TempDir Path dir) throws IOException {
+        SplittableRandom random = new SplittableRandom(15);
+        Path file = dir.resolve("sessions.bin");
+        ReactionHistory history = ReactionHistory.open(file);
+        List<ReactionHistory.Session> sessions = new ArrayList<>();
+        for (int i = 0; i < ReactionHistory.RECENT_SESSIONS * 5 + 3; i++) {
+            ReactionHistory.Session session = randomSession(random, i);
+            history.append(session);
+            sessions.add(session);
+            check(sessions, history);
+        }
+        check(sessions, ReactionHistory.open(file));
+    }
+
+    @Test
+    void tornRecordIsIgnoredAndTruncatedOnAppend(@TempDir Path dir) throws IOException {
+        SplittableRandom random = new SplittableRandom(16);
+        Path file = dir.resolve("sessions.bin");
+        ReactionHistory history = ReactionHistory.open(file);
+        List<ReactionHistory.Session> sessions = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            sessions.add(randomSession(random, i));
+            history.append(sessions.get(i));
+        }
+        long size = Files.size(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 20); // 最后一条只写了一部分
+        }
+        sessions.remove(2);
+        history = ReactionHistory.open(file);
+        check(sessions, history);
+
+        sessions.add(randomSession(random, 3));
+        history.append(sessions.get(2));
+        assertEquals(size, Files.size(file));
+        check(sessions, ReactionHistory.open(file));
+    }
+
+    private static ReactionHistory.Session randomSession(SplittableRandom random, int index) {
+        int hits = random.nextInt(4) == 0 ? 0 : 1 + random.nextInt(30); // 偶尔一轮没有正确点击
+        int mean = 200_000 + random.nextInt(300_000);
+        int p50 = hits == 0 ? 0 : mean - random.nextInt(20_000);
+        return new ReactionHistory.Session(1_700_000_000_000L + index * 60_000L, 30, random.nextInt(-50, 300),
+                hits, random.nextInt(5), random.nextInt(5), (long) hits * mean, p50, p50 + 50_000, p50 + 90_000,
+                hits == 0 ? 0 : p50 - 40_000, hits == 0 ? 0 : p50 + 120_000);
+    }
+
+    private static void check(List<ReactionHistory.Session> sessions, ReactionHistory history) {
+        int n = sessions.size();
+        int window = ReactionHistory.RECENT_SESSIONS;
+        long hits = 0;
+        long wrongHits = 0;
+        long misses = 0;
+        long micros = 0;
+        int bestP50 = Integer.MAX_VALUE;
+        int bestScore = Integer.MIN_VALUE;
+        for (ReactionHistory.Session session : sessions) {
+            hits += session.hits;
+            wrongHits += session.wrongHits;
+            misses += session.misses;
+            micros += session.sumMicros;
+            if (session.hits > 0) {
+                bestP50 = Math.min(bestP50, session.p50Micros);
+            }
+            bestScore = Math.max(bestScore, session.score);
+        }
+        assertEquals(n, history.getSessionCount());
+        assertEquals(hits, history.getTotalHits());
+        assertEquals(wrongHits, history.getTotalWrongHits());
+        assertEquals(misses, history.getTotalMisses());
+        assertEquals(hits == 0 ? 0 : micros / 1000.0 / hits, history.getOverallMeanMillis(), 1e-9);
+        assertEquals(bestP50 == Integer.MAX_VALUE ? 0 : bestP50 / 1000.0, history.getBestP50Millis());
+        assertEquals(n == 0 ? 0 : bestScore, history.getBestScore());
+
+        double recent = mean(sessions.subList(Math.max(0, n - window), n));
+        double previous = mean(sessions.subList(Math.max(0, n - 2 * window), Math.max(0, n - window)));
+        assertEquals(recent, history.getRecentMeanMillis(), 1e-9);
+        assertEquals(recent == 0 || previous == 0 ? 0 : recent - previous, history.getTrendMillis(), 1e-9);
+    }
+
+    private static double mean(List<ReactionHistory.Session> sessions) {
+        long hits = 0;
+        long micros = 0;
+        for (ReactionHistory.Session session : sessions) {
+            hits += session.hits;
+            micros += session.sumMicros;
+        }
+        return hits == 0 ? 0 : micros / 1000.0 / hits;
+    }
+}
@@ -0,0 +1,233 @@
+package com.chqiuu.gamer.easygame;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimerWheelTest {
+
+    private static final long TICK = 1000; // 刻度 (纳秒)
+    private static final int SLOTS = 64;
+
+    private final TimerWheel wheel = new TimerWheel(TICK, SLOTS, 0);
+    private final List<String> log = new ArrayList<>();
+
+    private Runnable record(String name) {
+        return () -> log.add(name + "@" + wheel.getTimeNanos() / TICK);
+    }
+
+    @Test
+    void firesAtDeadlineRoundedUpToTick() {
+        wheel.scheduleAt(2500, record("a")); // 第 3 个刻度
+        wheel.scheduleAt(5000, record("b"));
+        assertEquals(0, wheel.advanceTo(2999));
+        assertEquals(1, wheel.advanceTo(3000));
+        assertEquals(List.of("a@3"), log);
+        assertEquals(1, wheel.advanceTo(10_000));
+        assertEquals(List.of("a@3", "b@5"), log);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void pastDeadlineFiresOnNextTick() {
+        wheel.advanceTo(10_000);
+        wheel.scheduleAt(0, record("late"));
+        wheel.advanceTo(11_000);
+        assertEquals(List.of("late@11"), log);
+    }
+
+    @Test
+    void handlesAreZeroFreeAndInvalidatedAfterFiringOrCancel() {
+        assertFalse(wheel.cancel(0));
+        assertFalse(wheel.isPending(0));
+
+        long fired = wheel.scheduleAt(1000, record("a"));
+        long cancelled = wheel.scheduleAt(1000, record("b"));
+        assertNotEquals(0, fired);
+        assertTrue(wheel.isPending(cancelled));
+        assertTrue(wheel.cancel(cancelled));
+        assertFalse(wheel.cancel(cancelled));
+        assertFalse(wheel.isPending(cancelled));
+        assertEquals(1, wheel.size());
+
+        wheel.advanceTo(1000);
+        assertEquals(List.of("a@1"), log);
+        assertFalse(wheel.isPending(fired));
+        assertFalse(wheel.cancel(fired));
+
+        // 复用同一项的新任务不能被旧句柄取消
+        long reused = wheel.scheduleAt(5000, record("c"));
+        assertFalse(wheel.cancel(fired));
+        assertFalse(wheel.cancel(cancelled));
+        assertTrue(wheel.isPending(reused));
+    }
+
+    @Test
+    void callbackCanCancelTaskDueInTheSameTick() {
+        long[] victim = new long[1];
+        wheel.scheduleAt(3000, () -> {
+            log.add("first");
+            wheel.cancel(victim[0]);
+        });
+        victim[0] = wheel.scheduleAt(3000, record("victim"));
+        long other = wheel.scheduleAt(3000, record("other"));
+        wheel.advanceTo(3000);
+        // 同一刻度内的顺序不定: victim 要么在 first 之前执行，要么被取消
+        assertTrue(log.contains("first") && log.contains("other@3"));
+        assertFalse(wheel.isPending(victim[0]));
+        assertFalse(wheel.isPending(other));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void callbackCanRescheduleItself() {
+        long[] handle = new long[1];
+        Runnable[] callback = new Runnable[1];
+        callback[0] = () -> {
+            log.add("run@" + wheel.getTimeNanos() / TICK);
+            if (log.size() < 3) {
+                handle[0] = wheel.scheduleAt(wheel.getTimeNanos() + 2 * TICK, callback[0]);
+            }
+        };
+        long first = wheel.scheduleAt(1000, callback[0]);
+        handle[0] = first;
+        wheel.advanceTo(50 * TICK); // 不超过一圈，按刻度依次执行
+        assertEquals(List.of("run@1", "run@3", "run@5"), log);
+        assertFalse(wheel.isPending(first));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void callbackCanScheduleTaskDueLaterInSameAdvance() {
+        wheel.scheduleAt(1000, () -> {
+            log.add("outer");
+            wheel.scheduleAt(wheel.getTimeNanos() + TICK, record("inner"));
+        });
+        wheel.advanceTo(5000);
+        assertEquals(List.of("outer", "inner@2"), log);
+    }
+
+    @Test
+    void repeatingTaskFiresEveryPeriodUntilCancelled() {
+        long handle = wheel.scheduleRepeating(0, 3 * TICK, record("r"));
+        wheel.advanceTo(10_000);
+        assertEquals(List.of("r@3", "r@6", "r@9"), log);
+        assertTrue(wheel.isPending(handle));
+        assertTrue(wheel.cancel(handle));
+        wheel.advanceTo(20_000);
+        assertEquals(3, log.size());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void repeatingTaskCanCancelItselfInCallback() {
+        long[] handle = new long[1];
+        handle[0] = wheel.scheduleRepeating(0, TICK, () -> {
+            log.add("tick");
+            if (log.size() == 4) {
+                assertTrue(wheel.cancel(handle[0]));
+            }
+        });
+        wheel.advanceTo(50_000);
+        assertEquals(4, log.size());
+        assertFalse(wheel.isPending(handle[0]));
+    }
+
+    @Test
+    void repeatingTaskDoesNotCatchUpAfterLongPause() {
+        wheel.scheduleRepeating(0, TICK, record("r"));
+        wheel.advanceTo(1000L * TICK); // 超过一圈: 只执行一次，之后从当前时刻继续
+        assertEquals(1, log.size());
+        wheel.advanceTo(1002L * TICK);
+        assertEquals(List.of("r@1000", "r@1001", "r@1002"), log);
+    }
+
+    @Test
+    void tasksBeyondOneTurnWaitForTheirRound() {
+        long turn = SLOTS * TICK;
+        wheel.scheduleAt(3 * turn + 5 * TICK, record("far"));
+        wheel.scheduleAt(5 * TICK, record("near"));
+        for (long t = TICK; t <= 4 * turn; t += 7 * TICK) { // 小步推进，多次经过同一个槽
+            wheel.advanceTo(t);
+        }
+        wheel.advanceTo(4 * turn);
+        assertEquals(List.of("near@5", "far@" + (3 * SLOTS + 5)), log);
+    }
+
+    @Test
+    void advanceLongerThanOneTurnFiresOnlyDueTasks() {
+        long turn = SLOTS * TICK;
+        wheel.scheduleAt(10 * TICK, record("a"));
+        wheel.scheduleAt(turn + 20 * TICK, record("b"));
+        wheel.scheduleAt(5 * turn, record("c"));
+        assertEquals(2, wheel.advanceTo(3 * turn)); // 一次跨过三圈
+        assertEquals(2, log.size());
+        assertTrue(log.contains("a@" + 3 * SLOTS) && log.contains("b@" + 3 * SLOTS));
+        assertEquals(1, wheel.size());
+        assertEquals(1, wheel.advanceTo(5 * turn));
+        assertEquals("c@" + 5 * SLOTS, log.get(2));
+    }
+
+    @Test
+    void advancingFromCallbackIsRejected() {
+        wheel.scheduleAt(1000, () -> wheel.advanceTo(5000));
+        assertThrows(IllegalStateException.class, () -> wheel.advanceTo(1000));
+    }
+
+    /**
+     * 与参考模型随机对比: 调度、取消和不超过一圈的推进交替进行，
+     * 每个任务都应恰好在其到期刻度执行一次，且按刻度顺序执行
+     */
+    @Test
+    void matchesReferenceModel() {
+        SplittableRandom random = new SplittableRandom(2024);
+        Map<Long, Long> pending = new HashMap<>(); // 句柄 -> 到期刻度
+        List<long[]> fired = new ArrayList<>(); // {句柄, 执行时的刻度}
+        List<Long> handles = new ArrayList<>();
+        long now = 0;
+        int scheduled = 0;
+        for (int op = 0; op < 20_000; op++) {
+            int choice = random.nextInt(10);
+            if (choice < 5) {
+                long deadline = now + random.nextLong(4 * SLOTS * TICK); // 最远四圈之后
+                long tick = Math.max((deadline + TICK - 1) / TICK, now / TICK + 1);
+                long[] self = new long[1];
+                long handle = wheel.scheduleAt(deadline, () -> fired.add(new long[]{self[0], wheel.getTimeNanos() / TICK}));
+                self[0] = handle;
+                pending.put(handle, tick);
+                handles.add(handle);
+                scheduled++;
+            } else if (choice < 7 && !handles.isEmpty()) {
+                long handle = handles.get(random.nextInt(handles.size()));
+                assertEquals(pending.remove(handle) != null, wheel.cancel(handle));
+            } else {
+                now += random.nextLong((SLOTS - 1) * TICK); // 少于一圈
+                fired.clear();
+                wheel.advanceTo(now);
+                long currentTick = now / TICK;
+                long lastTick = Long.MIN_VALUE;
+                for (long[] f : fired) {
+                    Long expected = pending.remove(f[0]);
+                    assertEquals(expected, Long.valueOf(f[1]), "执行的刻度不对");
+                    assertTrue(f[1] >= lastTick, "没有按刻度顺序执行");
+                    lastTick = f[1];
+                }
+                for (long tick : pending.values()) {
+                    assertTrue(tick > currentTick, "到期的任务没有执行");
+                }
+            }
+            assertEquals(pending.size(), wheel.size());
+        }
+        assertTrue(scheduled > 8000);
+    }
+}
@@ -0,0 +1,153 @@
+package com.chqiuu.gamer.easygame;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WhackAMoleRecordingTest {
+
+    private static final long[] EDGE_VALUES = {0, 1, 127, 128, 16_383, 16_384, Integer.MAX_VALUE,
+            1L << 32, (1L << 56) - 1, 1L << 56, Long.MAX_VALUE, -1, Long.MIN_VALUE};
+
+    @Test
+    void varintRoundTrip() {
+        SplittableRandom random = new SplittableRandom(3);
+        byte[] buffer = new byte[10 * 10_000];
+        long[] values = new long[10_000];
+        for (int i = 0; i < values.length; i++) {
+            // 各种位数的值都要覆盖
+            values[i] = i < EDGE_VALUES.length ? EDGE_VALUES[i] : random.nextLong() >>> random.nextInt(64);
+        }
+        int end = 0;
+        for (long value : values) {
+            end = WhackAMoleRecording.putVarint(buffer, end, value);
+        }
+        WhackAMoleRecording.Cursor cursor = new WhackAMoleRecording.Cursor(buffer, 0);
+        for (long value : values) {
+            assertEquals(value, cursor.readVarint());
+        }
+        assertEquals(end, cursor.position);
+    }
+
+    @Test
+    void varintUsesSevenBitsPerByte() {
+        assertEquals(1, encodedLength(0));
+        assertEquals(1, encodedLength(127));
+        assertEquals(2, encodedLength(128));
+        assertEquals(2, encodedLength(16_383));
+        assertEquals(3, encodedLength(16_384));
+        assertEquals(9, encodedLength(Long.MAX_VALUE));
+        assertEquals(10, encodedLength(-1)); // 无符号: 负数占满 10 字节
+        byte[] buffer = new byte[10];
+        WhackAMoleRecording.putVarint(buffer, 0, 300);
+        assertArrayEquals(new byte[]{(byte) 0xAC, 0x02}, Arrays.copyOf(buffer, 2));
+    }
+
+    @Test
+    void zigZagRoundTrip() {
+        SplittableRandom random = new SplittableRandom(4);
+        byte[] buffer = new byte[10];
+        for (int i = 0; i < 10_000; i++) {
+            long value = i < EDGE_VALUES.length ? EDGE_VALUES[i] : random.nextLong() >> random.nextInt(64);
+            WhackAMoleRecording.putVarint(buffer, 0, WhackAMoleRecording.zigZag(value));
+            assertEquals(value, new WhackAMoleRecording.Cursor(buffer, 0).readZigZag());
+        }
+        // 绝对值小的负数编码后也很小
+        assertEquals(0, WhackAMoleRecording.zigZag(0));
+        assertEquals(1, WhackAMoleRecording.zigZag(-1));
+        assertEquals(2, WhackAMoleRecording.zigZag(1));
+        assertEquals(3, WhackAMoleRecording.zigZag(-2));
+        assertEquals(-1, WhackAMoleRecording.zigZag(Long.MIN_VALUE));
+    }
+
+    @Test
+    void truncatedAndOverlongVarintsAreRejected() {
+        byte[] truncated = {(byte) 0x80, (byte) 0x80};
+        assertThrows(ArrayIndexOutOfBoundsException.class,
+                () -> new WhackAMoleRecording.Cursor(truncated, 0).readVarint());
+        byte[] overlong = new byte[11];
+        Arrays.fill(overlong, (byte) 0x80);
+        assertThrows(IllegalArgumentException.class, () -> new WhackAMoleRecording.Cursor(overlong, 0).readVarint());
+    }
+
+    @Test
+    void recordedGameParsesAndReplays() {
+        WhackAMoleSimulation.Rules rules = new WhackAMoleSimulation.Rules();
+        WhackAMoleRecording recording = recordGame(rules, 7);
+        assertEquals(3, recording.getGridSize());
+        assertEquals(7, recording.getSeed());
+        assertEquals(rules.getLevel().getId(), recording.getLevelId());
+        assertNull(recording.rulesMismatch(rules));
+
+        WhackAMoleReplay replay = new WhackAMoleReplay(rules);
+        assertTrue(replay.validate(recording), replay.getFailure());
+        assertEquals(recording.getScore(), replay.getScore());
+    }
+
+    @Test
+    void replayWithDifferentRulesReportsRulesMismatch() {
+        WhackAMoleRecording recording = recordGame(new WhackAMoleSimulation.Rules(), 8);
+        WhackAMoleReplay replay = new WhackAMoleReplay(new WhackAMoleSimulation.Rules().baseIntervalSeconds(0.4));
+        assertFalse(replay.validate(recording));
+        assertTrue(replay.getFailure().startsWith("规则不一致"), replay.getFailure());
+    }
+
+    @Test
+    void appendedRecordingsAreReadBackAndTornTailIsDropped(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("replays.bin");
+        WhackAMoleSimulation.Rules rules = new WhackAMoleSimulation.Rules();
+        for (int seed = 0; seed < 5; seed++) {
+            recordGame(rules, seed).appendTo(file);
+        }
+        assertEquals(5, WhackAMoleRecording.readAll(file).size());
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3); // 最后一条写到一半
+        }
+        assertEquals(4, WhackAMoleRecording.readAll(file).size());
+        WhackAMoleRecording last = recordGame(rules, 99);
+        last.appendTo(file);
+        List<WhackAMoleRecording> all = WhackAMoleRecording.readAll(file);
+        assertEquals(5, all.size());
+        assertEquals(99, all.get(4).getSeed());
+    }
+
+    private static int encodedLength(long value) {
+        return WhackAMoleRecording.putVarint(new byte[10], 0, value);
+    }
+
+    /**
+     * 录一局: 每 100 毫秒敲一个有物品的洞
+     */
+    private static WhackAMoleRecording recordGame(WhackAMoleSimulation.Rules rules, long seed) {
+        WhackAMoleSimulation simulation = new WhackAMoleSimulation(rules, 9, 0);
+        WhackAMoleRecorder recorder = new WhackAMoleRecorder(simulation, null);
+        simulation.setListener(recorder);
+        recorder.begin(3, seed);
+        simulation.start(seed);
+        while (simulation.isGameActive()) {
+            simulation.advanceTo(simulation.getTimeNanos() + 100 * WhackAMoleRecording.TICK_NANOS);
+            for (int hole = 0; hole < 9 && simulation.isGameActive(); hole++) {
+                if (simulation.getItem(hole) != null) {
+                    simulation.whack(hole);
+                    break;
+                }
+            }
+        }
+        return recorder.getLastRecording();
+    }
+}